@@ -0,0 +1,88 @@
+package com.cs4445.loadBalancer.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+import com.cs4445.loadBalancer.registry.BackendState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Đường đọc health của proxy và đường probe health:
+ * - đọc snapshot (volatile read + mảng available) như ProxyApi làm cho mỗi request
+ * - dựng snapshot mới như BackendRegistry làm sau mỗi vòng health check
+ * - (de)serialize ServerHealthResponse như RestTemplate khi probe /server/health
+ * Chạy: mvn -Pjmh test-compile exec:exec -Djmh.args="HealthSnapshotBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HealthSnapshotBenchmark {
+    //==========================================Variable==========================================
+    @Param({"3", "50"})
+    public int servers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile BackendSnapshot snapshot;
+    private List<BackendState> states;
+    private ServerHealthResponse health;
+    private byte[] healthJson;
+
+    //===========================================Setup============================================
+    @Setup
+    public void setup() throws IOException {
+        states = new ArrayList<>();
+        for (int i = 0; i < servers; i++) {
+            Backend backend = new Backend(ServerUrl.builder().dns("http://10.0." + (i / 250) + "." + (i % 250)).port(8081).build());
+            // Một phần backend đang đóng để snapshot phải lọc
+            ServerHealthResponse state = new ServerHealthResponse(42.5 + i, 61.25, 0.125, 10 + i, i % 5 != 0);
+            states.add(new BackendState(backend, 200, state, System.currentTimeMillis()));
+        }
+        snapshot = new BackendSnapshot(1L, System.currentTimeMillis(), states);
+        health = new ServerHealthResponse(42.5, 61.25, 0.125, 17, true);
+        healthJson = objectMapper.writeValueAsBytes(health);
+    }
+
+    //==========================================Snapshot==========================================
+    @Benchmark
+    public Backend readAvailable() {
+        Backend[] available = snapshot.getAvailable();
+        return available.length == 0 ? null : available[available.length - 1];
+    }
+
+    @Benchmark
+    public int readStates() {
+        int open = 0;
+        for (BackendState state : snapshot.getStates()) {
+            if (state.isAvailable()) open++;
+        }
+        return open;
+    }
+
+    @Benchmark
+    public BackendSnapshot buildSnapshot() {
+        return new BackendSnapshot(2L, 0L, states);
+    }
+
+    //===========================================Health===========================================
+    @Benchmark
+    public byte[] serializeHealth() throws IOException {
+        return objectMapper.writeValueAsBytes(health);
+    }
+
+    @Benchmark
+    public ServerHealthResponse deserializeHealth() throws IOException {
+        return objectMapper.readValue(healthJson, ServerHealthResponse.class);
+    }
+}
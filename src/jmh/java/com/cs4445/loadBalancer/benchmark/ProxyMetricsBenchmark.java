@@ -0,0 +1,76 @@
+package com.cs4445.loadBalancer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * Chi phí ghi metrics trên hot path của proxy với Prometheus registry thật (percentile + histogram bật):
+ * - upstreamCompleted: mỗi lần gửi đến backend (HttpForwarder.execute)
+ * - requestCompleted: mỗi request client (ProxyApi.handleRequest)
+ * Kỳ vọng 0 B/op ở mọi số thread.
+ * Chạy: mvn -Pjmh test-compile exec:exec -Djmh.args="ProxyMetricsBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyMetricsBenchmark {
+    //==========================================Variable==========================================
+    private static final int BACKENDS = 8;
+
+    private ProxyMetrics metrics;
+    private Backend[] backends;
+    private final String route = "/api";
+
+    //===========================================Setup============================================
+    @Setup
+    public void setup() {
+        metrics = new ProxyMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT),
+                new double[]{0.5, 0.99, 0.999}, true, 100);
+        backends = new Backend[BACKENDS];
+        for (int i = 0; i < BACKENDS; i++) {
+            backends[i] = new Backend(ServerUrl.builder().dns("http://10.0.0." + i).port(8081).build());
+            // Tạo sẵn meter như sau request đầu tiên
+            metrics.upstreamCompleted(backends[i], 200, 1_000_000L);
+        }
+        metrics.requestCompleted(route, 200, metrics.requestStarted());
+    }
+
+    @State(Scope.Thread)
+    public static class Sample {
+        private int next;
+
+        int nextIndex() {
+            return next++ & (BACKENDS - 1);
+        }
+    }
+
+    //==========================================Benchmark=========================================
+    @Benchmark
+    @Threads(1)
+    public void upstreamSingleThread(Sample sample) {
+        metrics.upstreamCompleted(backends[sample.nextIndex()], 200, 2_500_000L);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void upstreamFourThreads(Sample sample) {
+        metrics.upstreamCompleted(backends[sample.nextIndex()], 200, 2_500_000L);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void requestFourThreads() {
+        metrics.requestCompleted(route, 200, metrics.requestStarted());
+    }
+}
@@ -0,0 +1,107 @@
+package com.cs4445.loadBalancer.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+import com.cs4445.loadBalancer.registry.BackendState;
+import com.cs4445.loadBalancer.strategy.ConsistentHashStrategy;
+import com.cs4445.loadBalancer.strategy.LeastConnectionsStrategy;
+import com.cs4445.loadBalancer.strategy.LoadBalancingStrategy;
+import com.cs4445.loadBalancer.strategy.PeakEwmaStrategy;
+import com.cs4445.loadBalancer.strategy.RandomStrategy;
+import com.cs4445.loadBalancer.strategy.RoundRobinStrategy;
+import com.cs4445.loadBalancer.strategy.WeightedStrategy;
+
+/**
+ * Chi phí chọn backend của từng strategy theo số backend và số thread gọi đồng thời
+ * (strategy dùng counter chung như ROUND_ROBIN/WEIGHTED bị tranh chấp khi nhiều thread).
+ * Chạy: mvn -Pjmh test-compile exec:exec -Djmh.args="StrategyBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StrategyBenchmark {
+    //==========================================Variable==========================================
+    @Param({"ROUND_ROBIN", "LEAST_CONNECTIONS", "WEIGHTED", "RANDOM", "PEAK_EWMA", "CONSISTENT_HASH"})
+    public String algorithm;
+
+    @Param({"3", "16", "128"})
+    public int backends;
+
+    private LoadBalancingStrategy strategy;
+    private Backend[] available;
+
+    //===========================================Setup============================================
+    @Setup
+    public void setup() {
+        strategy = switch (algorithm) {
+            case "ROUND_ROBIN" -> new RoundRobinStrategy();
+            case "LEAST_CONNECTIONS" -> new LeastConnectionsStrategy();
+            case "WEIGHTED" -> new WeightedStrategy();
+            case "RANDOM" -> new RandomStrategy();
+            case "PEAK_EWMA" -> new PeakEwmaStrategy();
+            case "CONSISTENT_HASH" -> new ConsistentHashStrategy(65537, 1.25);
+            default -> throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        };
+
+        // Backend có weight, in-flight và latency khác nhau như lúc chạy thật
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<BackendState> states = new ArrayList<>();
+        for (int i = 0; i < backends; i++) {
+            Backend backend = new Backend(ServerUrl.builder().dns("http://10.0." + (i / 250) + "." + (i % 250)).port(8081).build());
+            backend.setWeight(1 + i % 4);
+            for (int j = random.nextInt(8); j > 0; j--) {
+                backend.incrementInflight();
+            }
+            backend.getLatency().observe(random.nextLong(5_000_000L, 200_000_000L));
+            states.add(new BackendState(backend, 200, new ServerHealthResponse(50, 50, 0.1, 10, true), 0L));
+        }
+        BackendSnapshot snapshot = new BackendSnapshot(1L, 0L, states);
+        strategy.onSnapshot(snapshot);
+        available = snapshot.getAvailable();
+    }
+
+    //===========================================Select===========================================
+    @Benchmark
+    @Threads(1)
+    public Backend selectSingleThread(AffinityKeys keys) {
+        return strategy.select(available, keys.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Backend selectFourThreads(AffinityKeys keys) {
+        return strategy.select(available, keys.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Backend selectMaxThreads(AffinityKeys keys) {
+        return strategy.select(available, keys.next());
+    }
+
+    //===========================================State============================================
+    /**
+     * Affinity key riêng cho mỗi thread (chỉ CONSISTENT_HASH dùng đến), mô phỏng nhiều client khác nhau
+     */
+    @State(Scope.Thread)
+    public static class AffinityKeys {
+        private long key = ThreadLocalRandom.current().nextLong();
+
+        long next() {
+            key += 0x9E3779B97F4A7C15L;
+            return key;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.cs4445.loadBalancer.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+import com.cs4445.loadBalancer.registry.BackendState;
+import com.cs4445.loadBalancer.tcp.CommandCodec;
+import com.cs4445.loadBalancer.tcp.FrameBuffer;
+import com.cs4445.loadBalancer.tcp.TcpCommand;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * So sánh codec TCP cũ (JsonNode/ObjectNode + String) với codec streaming (JsonParser/JsonGenerator + FrameBuffer),
+ * và đo việc tách + decode các frame pipelined trong một buffer đọc như TcpConnection.
+ * Chạy: mvn -Pjmh test-compile exec:exec -Djmh.args="TcpCodecBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TcpCodecBenchmark {
+    //==========================================Constant==========================================
+    private static final int PIPELINED_FRAMES = 16;
+
+    //==========================================Variable==========================================
+    @Param({"3", "50"})
+    public int servers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CommandCodec codec = new CommandCodec(1024, 16);
+
+    private ByteBuffer request;
+    private ByteBuffer pipelined;
+    private BackendSnapshot snapshot;
+
+    //===========================================Setup=============================================
+    @Setup
+    public void setup() {
+        byte[] json = "{\"action\":\"OPEN_SERVER\",\"serverUrl\":\"http://130.94.65.44:8081\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        request = ByteBuffer.allocateDirect(json.length).put(json).flip();
+
+        String[] commands = {
+                "{\"action\":\"PING\"}",
+                "{\"action\":\"GET_STATUS\"}",
+                "{\"action\":\"SET_WEIGHT\",\"serverUrl\":\"http://10.0.0.5:8081\",\"weight\":3}",
+                "{\"action\":\"SET_RATE_LIMIT\",\"scope\":\"CLIENT\",\"key\":\"10.0.0.7\",\"rate\":50,\"burst\":100}"};
+        pipelined = ByteBuffer.allocateDirect(64 * 1024);
+        for (int i = 0; i < PIPELINED_FRAMES; i++) {
+            byte[] payload = commands[i % commands.length].getBytes(StandardCharsets.UTF_8);
+            pipelined.putInt(payload.length).put(payload);
+        }
+        pipelined.flip();
+
+        List<BackendState> states = new ArrayList<>();
+        for (int i = 0; i < servers; i++) {
+            Backend backend = new Backend(ServerUrl.builder().dns("http://10.0." + (i / 250) + "." + (i % 250)).port(8081).build());
+            ServerHealthResponse health = new ServerHealthResponse(42.5 + i, 61.25, 0.125, 10 + i, true);
+            states.add(new BackendState(backend, 200, health, System.currentTimeMillis()));
+        }
+        snapshot = new BackendSnapshot(1L, System.currentTimeMillis(), states);
+    }
+
+    //===========================================Decode============================================
+    @Benchmark
+    public String decodeTree() throws IOException {
+        JsonNode node = objectMapper.readTree(new ByteBufferBackedInputStream(request.duplicate()));
+        return node.get("action").asText() + node.get("serverUrl").asText();
+    }
+
+    @Benchmark
+    public String decodeStreaming() throws IOException {
+        TcpCommand command = codec.decode(request.duplicate());
+        return command.getAction() + command.getServerUrl();
+    }
+
+    /**
+     * Tách [4-byte length][payload] từ buffer đọc rồi decode, giống vòng lặp reader của TcpConnection
+     */
+    @Benchmark
+    @OperationsPerInvocation(PIPELINED_FRAMES)
+    public int decodePipelinedFrames() throws IOException {
+        ByteBuffer buffer = pipelined.duplicate();
+        int weight = 0;
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt();
+            TcpCommand command = codec.decode(buffer.slice(buffer.position(), length));
+            buffer.position(buffer.position() + length);
+            weight += command.getWeight();
+        }
+        return weight;
+    }
+
+    //===========================================Encode============================================
+    @Benchmark
+    public byte[] encodeStatusTree() throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("status", "OK");
+        root.put("version", snapshot.getVersion());
+        root.put("refreshedAt", snapshot.getRefreshedAt());
+        root.put("algorithm", "ROUND_ROBIN");
+
+        ArrayNode serversArray = objectMapper.createArrayNode();
+        for (BackendState state : snapshot.getStates()) {
+            ObjectNode serverNode = objectMapper.createObjectNode();
+            serverNode.put("url", state.getBackend().getUrl());
+            serverNode.put("statusCode", state.getStatusCode());
+            serverNode.put("inflight", state.getBackend().getInflight());
+            serverNode.put("ewmaLatencyMs", state.getBackend().getLatency().get() / 1_000_000.0);
+
+            ServerHealthResponse health = state.getHealth();
+            ObjectNode healthNode = objectMapper.createObjectNode();
+            healthNode.put("cpuUsagePercent", health.getCpuUsagePercent());
+            healthNode.put("memoryUsagePercent", health.getMemoryUsagePercent());
+            healthNode.put("avgProcessingTimeSec", health.getAvgProcessingTimeSec());
+            healthNode.put("currConnections", health.getCurrConnections());
+            healthNode.put("isOpen", health.isOpen());
+            serverNode.set("health", healthNode);
+
+            serversArray.add(serverNode);
+        }
+        root.set("servers", serversArray);
+
+        return objectMapper.writeValueAsString(root).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int encodeStatusStreaming() throws IOException {
+        FrameBuffer frame = codec.encode(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("status", "OK");
+            gen.writeNumberField("version", snapshot.getVersion());
+            gen.writeNumberField("refreshedAt", snapshot.getRefreshedAt());
+            gen.writeStringField("algorithm", "ROUND_ROBIN");
+            gen.writeArrayFieldStart("servers");
+            for (BackendState state : snapshot.getStates()) {
+                CommandCodec.writeServer(gen, state);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+        int length = frame.getFrameLength();
+        codec.release(frame);
+        return length;
+    }
+}
@@ -0,0 +1,309 @@
+package com.cs4445.loadBalancer.admission;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.model.Deadline;
+import com.cs4445.loadBalancer.model.LoadBalanceRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission trước bước chọn backend: giới hạn số request proxy chạy đồng thời, phần dư xếp hàng
+ * theo priority (1 = high, 2 = medium, 3 = low, xem LoadBalanceRequest).
+ * - Mỗi priority một hàng đợi có giới hạn, lấy ra theo weighted round robin (mặc định 8:4:1)
+ *   nên low không bị đói hẳn nhưng high luôn được ưu tiên
+ * - CoDel: thời gian chờ trong hàng liên tục vượt target suốt một interval thì vào trạng thái quá tải;
+ *   khi đó low bị từ chối ngay (503 + Retry-After), quá tải kéo dài thêm 4 interval thì medium cũng bị từ chối.
+ *   High chỉ bị từ chối khi hàng đầy hoặc chờ quá max-wait
+ * Priority lấy từ header (mặc định X-Priority), nếu không có thì theo route, còn lại là medium.
+ */
+@Component
+@Slf4j
+public class AdmissionController {
+    //==========================================Constant==========================================
+    private static final int LEVELS = 3;
+    private static final String[] LEVEL_NAMES = {"high", "medium", "low"};
+    // Medium bị shed khi quá tải kéo dài hơn số interval này
+    private static final int MEDIUM_SHED_INTERVALS = 4;
+
+    public enum Result { ADMITTED, SHED, QUEUE_FULL, TIMEOUT }
+
+    //==========================================Variable==========================================
+    private final boolean enabled;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final int[] weights;
+    private final String priorityHeader;
+    private final String[] highRoutes;
+    private final String[] lowRoutes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Waiter>[] queues = new ArrayDeque[LEVELS];
+    private final int[] credits = new int[LEVELS];
+    private int active;
+    private int queued;
+
+    // Trạng thái CoDel, chỉ đọc/ghi khi giữ lock
+    private long firstAboveTime;
+    private long droppingSince;
+    private boolean dropping;
+
+    private final Counter[][] counters = new Counter[LEVELS][Result.values().length];
+
+    //=========================================Constructor=========================================
+    public AdmissionController(MeterRegistry meterRegistry,
+                               @Value("${loadbalancer.admission.enabled:true}") boolean enabled,
+                               @Value("${loadbalancer.admission.max-concurrency:512}") int maxConcurrency,
+                               @Value("${loadbalancer.admission.queue-capacity:256}") int queueCapacity,
+                               @Value("${loadbalancer.admission.max-wait:1000}") long maxWaitMs,
+                               @Value("${loadbalancer.admission.target-delay:10}") long targetMs,
+                               @Value("${loadbalancer.admission.interval:100}") long intervalMs,
+                               @Value("${loadbalancer.admission.weights:8,4,1}") int[] weights,
+                               @Value("${loadbalancer.admission.priority-header:X-Priority}") String priorityHeader,
+                               @Value("${loadbalancer.admission.high-priority-routes:}") String[] highRoutes,
+                               @Value("${loadbalancer.admission.low-priority-routes:}") String[] lowRoutes) {
+        if (weights.length != LEVELS) {
+            throw new IllegalArgumentException("loadbalancer.admission.weights must have " + LEVELS + " values");
+        }
+        this.enabled = enabled;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMs);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.weights = weights;
+        this.priorityHeader = priorityHeader;
+        this.highRoutes = highRoutes;
+        this.lowRoutes = lowRoutes;
+
+        for (int level = 0; level < LEVELS; level++) {
+            queues[level] = new ArrayDeque<>();
+            for (Result result : Result.values()) {
+                counters[level][result.ordinal()] = Counter.builder("proxy.admission.requests")
+                        .tag("priority", LEVEL_NAMES[level])
+                        .tag("result", result.name().toLowerCase(Locale.ROOT))
+                        .register(meterRegistry);
+            }
+            int index = level;
+            Gauge.builder("proxy.admission.queued", this, controller -> controller.getQueued(index))
+                    .tag("priority", LEVEL_NAMES[level])
+                    .register(meterRegistry);
+        }
+    }
+
+    //=========================================Admission==========================================
+    /**
+     * Priority của request: header (1-3) > route > medium
+     */
+    public int resolvePriority(HttpServletRequest request) {
+        String header = request.getHeader(priorityHeader);
+        if (header != null) {
+            try {
+                int priority = Integer.parseInt(header.trim());
+                if (priority >= LoadBalanceRequest.PRIORITY_HIGH && priority <= LoadBalanceRequest.PRIORITY_LOW) {
+                    return priority;
+                }
+            } catch (NumberFormatException ignored) {
+                // Giá trị không hợp lệ thì xét tiếp theo route
+            }
+        }
+        String path = request.getRequestURI();
+        if (matchesRoute(path, highRoutes)) return LoadBalanceRequest.PRIORITY_HIGH;
+        if (matchesRoute(path, lowRoutes)) return LoadBalanceRequest.PRIORITY_LOW;
+        return LoadBalanceRequest.PRIORITY_MEDIUM;
+    }
+
+    /**
+     * Xin chạy một request (blocking khi phải xếp hàng). ADMITTED thì phải gọi release() khi xong.
+     * Thời gian chờ trong hàng không quá max-wait và không quá hạn chót của request.
+     */
+    public Result admit(int priority, Deadline deadline) {
+        if (!enabled) return Result.ADMITTED;
+        int level = Math.min(LEVELS, Math.max(1, priority)) - 1;
+
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (queued == 0 && active < maxConcurrency) {
+                active++;
+                return count(level, Result.ADMITTED);
+            }
+            long now = System.nanoTime();
+            if (shouldShed(level, now)) {
+                return count(level, Result.SHED);
+            }
+            if (queues[level].size() >= queueCapacity) {
+                return count(level, Result.QUEUE_FULL);
+            }
+            waiter = new Waiter(level, now);
+            queues[level].addLast(waiter);
+            queued++;
+        } finally {
+            lock.unlock();
+        }
+        return count(level, waiter.await(deadline.cap(maxWaitNanos)));
+    }
+
+    /**
+     * Trả lại chỗ của request đã được admit, chuyển thẳng cho request kế tiếp trong hàng (nếu có)
+     */
+    public void release() {
+        if (!enabled) return;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            Waiter next;
+            while ((next = dequeue()) != null) {
+                long sojourn = now - next.enqueuedAt;
+                updateCodel(sojourn, now);
+                if (sojourn > targetNanos && shouldShed(next.level, now)) {
+                    next.complete(Result.SHED);
+                    continue;
+                }
+                if (next.complete(Result.ADMITTED)) {
+                    // Chỗ của request vừa xong được chuyển cho request này, active không đổi
+                    return;
+                }
+            }
+            active--;
+            if (queued == 0) {
+                dropping = false;
+                firstAboveTime = 0L;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued(int level) {
+        lock.lock();
+        try {
+            return queues[level].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //===========================================Codel============================================
+    /**
+     * CoDel: sojourn dưới target thì hết quá tải; trên target liên tục suốt một interval thì quá tải
+     */
+    private void updateCodel(long sojourn, long now) {
+        if (sojourn < targetNanos) {
+            firstAboveTime = 0L;
+            if (dropping) {
+                dropping = false;
+                log.info("Admission queue delay back under target, stop shedding");
+            }
+        } else if (firstAboveTime == 0L) {
+            firstAboveTime = now + intervalNanos;
+        } else if (!dropping && now >= firstAboveTime) {
+            dropping = true;
+            droppingSince = now;
+            log.warn("Admission queue delay above {} ms for {} ms, shedding low priority requests",
+                    TimeUnit.NANOSECONDS.toMillis(targetNanos), TimeUnit.NANOSECONDS.toMillis(intervalNanos));
+        }
+    }
+
+    private boolean shouldShed(int level, long now) {
+        if (!dropping) return false;
+        if (level == LoadBalanceRequest.PRIORITY_LOW - 1) return true;
+        return level == LoadBalanceRequest.PRIORITY_MEDIUM - 1
+                && now - droppingSince >= MEDIUM_SHED_INTERVALS * intervalNanos;
+    }
+
+    //===========================================Queue============================================
+    /**
+     * Smooth weighted round robin giữa các hàng đợi không rỗng
+     */
+    private Waiter dequeue() {
+        if (queued == 0) return null;
+        int best = -1;
+        int total = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            if (queues[level].isEmpty()) continue;
+            credits[level] += weights[level];
+            total += weights[level];
+            if (best < 0 || credits[level] > credits[best]) best = level;
+        }
+        credits[best] -= total;
+        queued--;
+        return queues[best].pollFirst();
+    }
+
+    private boolean remove(Waiter waiter) {
+        lock.lock();
+        try {
+            if (queues[waiter.level].remove(waiter)) {
+                queued--;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Result count(int level, Result result) {
+        counters[level][result.ordinal()].increment();
+        return result;
+    }
+
+    private static boolean matchesRoute(String path, String[] routes) {
+        for (String route : routes) {
+            if (!route.isBlank() && path.startsWith(route.trim())) return true;
+        }
+        return false;
+    }
+
+    //==========================================Internal==========================================
+    /**
+     * Một request đang xếp hàng, được đánh thức khi có chỗ (ADMITTED) hoặc bị shed
+     */
+    private class Waiter {
+        private final int level;
+        private final long enqueuedAt;
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        Waiter(int level, long enqueuedAt) {
+            this.level = level;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        boolean complete(Result value) {
+            return result.complete(value);
+        }
+
+        Result await(long timeoutNanos) {
+            try {
+                return result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | InterruptedException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                if (remove(this)) return Result.TIMEOUT;
+                // Đã được lấy ra khỏi hàng cùng lúc với timeout: nhận kết quả đã quyết định
+                return result.join();
+            } catch (ExecutionException e) {
+                return Result.TIMEOUT;
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.cs4445.loadBalancer.ai;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client TCP dùng chung tới các AI server, giữ connection lâu dài thay vì mỗi request một socket.
+ * - sendAsync(): multiplex nhiều request đồng thời trên vài connection, phân biệt bằng requestId
+ * - execute(): mượn socket keep-alive cho các protocol không có requestId (opt-in, xem AiService.sendPooledRequest)
+ * Connect lỗi thì các lần connect sau bị giãn cách theo exponential backoff.
+ */
+@Slf4j
+@Component
+public class AiClientPool {
+    //==========================================Variable==========================================
+    private final AiClientSettings settings;
+    private final ConcurrentHashMap<String, AiEndpoint> endpoints = new ConcurrentHashMap<>();
+    private final ExecutorService connectExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    //=========================================Constructor=========================================
+    public AiClientPool(@Value("${loadbalancer.ai.connections-per-host:2}") int connectionsPerHost,
+                        @Value("${loadbalancer.ai.max-idle-per-host:8}") int maxIdlePerHost,
+                        @Value("${loadbalancer.ai.connect-timeout:5000}") int connectTimeoutMs,
+                        @Value("${loadbalancer.ai.idle-timeout:60000}") long idleTimeoutMs,
+                        @Value("${loadbalancer.ai.reconnect-backoff-initial:100}") long backoffInitialMs,
+                        @Value("${loadbalancer.ai.reconnect-backoff-max:10000}") long backoffMaxMs,
+                        @Value("${loadbalancer.ai.max-frame-length:1048576}") int maxFrameLength) {
+        this.settings = new AiClientSettings(Math.max(1, connectionsPerHost), maxIdlePerHost, connectTimeoutMs,
+                idleTimeoutMs, backoffInitialMs, backoffMaxMs, maxFrameLength);
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Gửi request multiplexed, không block thread gọi.
+     * Deadline timeoutMs tính cho cả thời gian connect (nếu cần) lẫn chờ response.
+     * @return future fail với TimeoutException khi quá deadline, IOException khi mất kết nối
+     */
+    public CompletableFuture<String> sendAsync(String host, int port, String request, long timeoutMs) {
+        AiEndpoint endpoint = endpoint(host, port);
+        int slot = endpoint.nextSlot();
+        MultiplexedConnection connection = endpoint.openConnectionAt(slot);
+        if (connection != null) {
+            return connection.send(request, timeoutMs);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        return CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return endpoint.connectMultiplexed(slot);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, connectExecutor)
+                .thenCompose(opened -> opened.send(request,
+                        Math.max(0L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))))
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Mượn socket keep-alive và chạy exchange trên đó. Socket trong pool đã bị server đóng được loại
+     * trước khi dùng; nếu socket lấy từ pool vẫn lỗi (EOF/reset) trước khi byte nào của request được ghi ra
+     * thì thử lại một lần trên socket mới. Request đã ghi ra socket không bao giờ được gửi lại,
+     * vì AI server có thể đã xử lý nó.
+     */
+    public <T> T execute(String host, int port, int timeoutMs, SocketExchange<T> exchange) throws IOException {
+        AiEndpoint endpoint = endpoint(host, port);
+        PooledSocket socket = endpoint.borrowSocket();
+        try {
+            return exchangeAndReturn(endpoint, socket, timeoutMs, exchange);
+        } catch (EOFException | SocketException e) {
+            if (!socket.isReused() || socket.isRequestWritten()) throw e;
+            log.debug("Pooled AI socket to {}:{} was stale, reconnecting: {}", host, port, e.getMessage());
+            return exchangeAndReturn(endpoint, endpoint.borrowFreshSocket(), timeoutMs, exchange);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        endpoints.values().forEach(AiEndpoint::close);
+        endpoints.clear();
+        connectExecutor.shutdownNow();
+    }
+
+    //==========================================Private===========================================
+    private AiEndpoint endpoint(String host, int port) {
+        return endpoints.computeIfAbsent(host + ":" + port, key -> new AiEndpoint(host, port, settings));
+    }
+
+    private <T> T exchangeAndReturn(AiEndpoint endpoint, PooledSocket socket, int timeoutMs,
+                                    SocketExchange<T> exchange) throws IOException {
+        try {
+            socket.setTimeout(timeoutMs);
+            T result = exchange.exchange(socket);
+            endpoint.returnSocket(socket);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            // Trạng thái stream không xác định (VD: timeout giữa chừng), không trả về pool
+            socket.close();
+            throw e;
+        }
+    }
+
+    //=========================================Interface==========================================
+    /**
+     * Một lượt gửi request/nhận response trên socket đã mượn
+     */
+    @FunctionalInterface
+    public interface SocketExchange<T> {
+        T exchange(PooledSocket socket) throws IOException;
+    }
+}
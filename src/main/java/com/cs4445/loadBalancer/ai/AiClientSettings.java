@@ -0,0 +1,13 @@
+package com.cs4445.loadBalancer.ai;
+
+/**
+ * Cấu hình chung cho các connection tới AI server (loadbalancer.ai.*)
+ */
+record AiClientSettings(int connectionsPerHost,
+                        int maxIdlePerHost,
+                        int connectTimeoutMs,
+                        long idleTimeoutMs,
+                        long backoffInitialMs,
+                        long backoffMaxMs,
+                        int maxFrameLength) {
+}
@@ -0,0 +1,158 @@
+package com.cs4445.loadBalancer.ai;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Các connection tới một AI server (host:port):
+ * - một số connection multiplexed dùng chung, chọn xoay vòng
+ * - pool socket keep-alive dùng độc quyền cho các protocol không có requestId
+ * Việc connect dùng chung một backoff nên server chết không bị dồn connect liên tục.
+ */
+@Slf4j
+class AiEndpoint {
+    //==========================================Variable==========================================
+    private final String host;
+    private final int port;
+    private final AiClientSettings settings;
+    private final AtomicReferenceArray<MultiplexedConnection> connections;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final ReentrantLock connectLock = new ReentrantLock();
+    private final ConcurrentLinkedDeque<PooledSocket> idleSockets = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final ReconnectBackoff backoff;
+
+    //=========================================Constructor=========================================
+    AiEndpoint(String host, int port, AiClientSettings settings) {
+        this.host = host;
+        this.port = port;
+        this.settings = settings;
+        this.connections = new AtomicReferenceArray<>(settings.connectionsPerHost());
+        this.backoff = new ReconnectBackoff(settings.backoffInitialMs(), settings.backoffMaxMs());
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Chọn slot kế tiếp theo vòng tròn để chia đều request lên các connection
+     */
+    int nextSlot() {
+        return Math.floorMod(cursor.getAndIncrement(), connections.length());
+    }
+
+    /**
+     * Connection multiplexed đang mở ở slot, null nếu slot cần connect (lần đầu hoặc đã đứt)
+     */
+    MultiplexedConnection openConnectionAt(int slot) {
+        MultiplexedConnection connection = connections.get(slot);
+        return connection != null && connection.isOpen() ? connection : null;
+    }
+
+    /**
+     * Mở connection multiplexed cho slot (blocking, gọi từ virtual thread).
+     * Nếu không connect được thì dùng tạm connection đang mở ở slot khác.
+     */
+    MultiplexedConnection connectMultiplexed(int slot) throws IOException {
+        connectLock.lock();
+        try {
+            // Thread khác có thể đã connect xong trong lúc chờ lock
+            MultiplexedConnection existing = openConnectionAt(slot);
+            if (existing != null) return existing;
+
+            try {
+                MultiplexedConnection connection = new MultiplexedConnection(
+                        connect(new Socket()), host + ":" + port + "#" + slot, settings.maxFrameLength(),
+                        closed -> connections.compareAndSet(slot, closed, null));
+                connections.set(slot, connection);
+                return connection;
+            } catch (IOException e) {
+                for (int i = 0; i < connections.length(); i++) {
+                    MultiplexedConnection other = openConnectionAt(i);
+                    if (other != null) return other;
+                }
+                throw e;
+            }
+        } finally {
+            connectLock.unlock();
+        }
+    }
+
+    /**
+     * Mượn một socket keep-alive, tạo mới nếu pool trống
+     */
+    PooledSocket borrowSocket() throws IOException {
+        PooledSocket socket;
+        while ((socket = idleSockets.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            if (socket.isUsable(settings.idleTimeoutMs())) {
+                return socket;
+            }
+            socket.close();
+        }
+        return borrowFreshSocket();
+    }
+
+    /**
+     * Luôn mở socket mới, dùng khi socket trong pool hoá ra đã bị server đóng
+     */
+    PooledSocket borrowFreshSocket() throws IOException {
+        return new PooledSocket(connect(SocketChannel.open().socket()));
+    }
+
+    /**
+     * Trả socket về pool (LIFO để socket nóng được dùng lại trước), đóng nếu pool đầy
+     */
+    void returnSocket(PooledSocket socket) {
+        if (idleCount.incrementAndGet() > settings.maxIdlePerHost()) {
+            idleCount.decrementAndGet();
+            socket.close();
+            return;
+        }
+        socket.markReturned();
+        idleSockets.offerFirst(socket);
+    }
+
+    void close() {
+        for (int i = 0; i < connections.length(); i++) {
+            MultiplexedConnection connection = connections.getAndSet(i, null);
+            if (connection != null) {
+                connection.close(new IOException("AI client shutting down"));
+            }
+        }
+        PooledSocket socket;
+        while ((socket = idleSockets.pollFirst()) != null) {
+            socket.close();
+        }
+        idleCount.set(0);
+    }
+
+    //==========================================Private===========================================
+    private Socket connect(Socket socket) throws IOException {
+        long waitMs = backoff.remainingMs();
+        if (waitMs > 0) {
+            socket.close();
+            throw new ConnectException("AI server " + host + ":" + port + " unavailable, retry in " + waitMs + " ms");
+        }
+
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port), settings.connectTimeoutMs());
+            backoff.onSuccess();
+            log.debug("Connected to AI server {}:{}", host, port);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            backoff.onFailure();
+            throw e;
+        }
+    }
+}
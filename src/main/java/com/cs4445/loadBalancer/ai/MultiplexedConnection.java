@@ -0,0 +1,166 @@
+package com.cs4445.loadBalancer.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Một connection lâu dài tới AI server, dùng chung cho nhiều request đồng thời.
+ * Frame: [4-byte length][4-byte requestId][UTF-8 payload], length = 4 + độ dài payload.
+ * Response mang lại requestId của request nên có thể trả về theo thứ tự bất kỳ;
+ * một virtual thread đọc response và hoàn thành future tương ứng.
+ * Request được ghi bởi một virtual thread writer riêng qua hàng đợi, nên thread gọi send() không bao giờ bị block
+ * kể cả khi AI server ngừng đọc; request chờ trong hàng đợi quá timeout bị bỏ qua, không được ghi nữa.
+ */
+@Slf4j
+class MultiplexedConnection {
+    //==========================================Constant==========================================
+    private static final int REQUEST_ID_LENGTH = 4;
+    // Số request tối đa chờ writer, vượt quá thì request fail ngay thay vì giữ bộ nhớ không giới hạn
+    static final int MAX_QUEUED_WRITES = 1024;
+
+    //==========================================Variable==========================================
+    private final Socket socket;
+    private final String name;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final int maxFrameLength;
+    private final Consumer<MultiplexedConnection> onClose;
+    private final ConcurrentHashMap<Integer, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+    private final BlockingQueue<Frame> writeQueue = new LinkedBlockingQueue<>(MAX_QUEUED_WRITES);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final Thread writer;
+
+    //=========================================Constructor=========================================
+    MultiplexedConnection(Socket socket, String name, int maxFrameLength,
+                          Consumer<MultiplexedConnection> onClose) throws IOException {
+        this.socket = socket;
+        this.name = name;
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.maxFrameLength = maxFrameLength;
+        this.onClose = onClose;
+        // Writer phải có trước reader: reader gặp EOF ngay sẽ gọi close()
+        this.writer = Thread.ofVirtual().name("ai-writer-" + name).start(this::writeLoop);
+        Thread.ofVirtual().name("ai-reader-" + name).start(this::readLoop);
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Gửi request (chỉ đưa vào hàng đợi ghi, không block), future hoàn thành khi có response cùng requestId
+     * hoặc fail với TimeoutException khi quá timeoutMs
+     */
+    CompletableFuture<String> send(String request, long timeoutMs) {
+        int requestId = nextRequestId.incrementAndGet();
+        CompletableFuture<String> future = new CompletableFuture<>();
+        pending.put(requestId, future);
+        future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> pending.remove(requestId));
+
+        if (closed.get()) {
+            future.completeExceptionally(new SocketException("AI connection " + name + " is closed"));
+            return future;
+        }
+
+        Frame frame = new Frame(requestId, request.getBytes(StandardCharsets.UTF_8), future);
+        if (!writeQueue.offer(frame)) {
+            future.completeExceptionally(new IOException("AI connection " + name + " write queue is full"));
+        }
+        return future;
+    }
+
+    boolean isOpen() {
+        return !closed.get();
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    void close(Throwable cause) {
+        if (!closed.compareAndSet(false, true)) return;
+
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // đang đóng, bỏ qua
+        }
+        // Request đang chờ (kể cả chưa được ghi) không thể nhận response nữa
+        writer.interrupt();
+        pending.values().forEach(future -> future.completeExceptionally(cause));
+        pending.clear();
+        writeQueue.clear();
+        onClose.accept(this);
+    }
+
+    //==========================================Private===========================================
+    private void writeLoop() {
+        try {
+            while (!closed.get()) {
+                Frame frame = writeQueue.take();
+                // Request đã timeout trong lúc chờ thì không gửi nữa
+                if (frame.future().isDone()) continue;
+
+                out.writeInt(REQUEST_ID_LENGTH + frame.payload().length);
+                out.writeInt(frame.requestId());
+                out.write(frame.payload());
+                // Gộp các request đang chờ vào một lần flush
+                if (writeQueue.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            if (!closed.get()) {
+                log.warn("AI connection {} write failed: {}", name, e.getMessage());
+            }
+            close(e);
+        } catch (InterruptedException e) {
+            // close() dừng writer
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (!closed.get()) {
+                int length = in.readInt();
+                if (length < REQUEST_ID_LENGTH || length > maxFrameLength) {
+                    throw new IOException("Invalid frame length from AI server: " + length);
+                }
+                int requestId = in.readInt();
+                byte[] payload = new byte[length - REQUEST_ID_LENGTH];
+                in.readFully(payload);
+
+                // Response đến sau khi request đã timeout thì bỏ qua
+                CompletableFuture<String> future = pending.remove(requestId);
+                if (future != null) {
+                    future.complete(new String(payload, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            if (!closed.get()) {
+                log.warn("AI connection {} lost: {}", name, e.getMessage());
+            }
+            close(e);
+        }
+    }
+
+    //===========================================Frame============================================
+    private record Frame(int requestId, byte[] payload, CompletableFuture<String> future) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.cs4445.loadBalancer.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Socket giữ kết nối (keep-alive) tới AI server, dùng độc quyền bởi một request tại một thời điểm.
+ * Các stream/reader/writer được tạo một lần cho cả vòng đời socket thay vì mỗi request.
+ * Socket được mở qua SocketChannel để kiểm tra (không block) server đã đóng connection chưa trước khi dùng lại.
+ */
+public final class PooledSocket {
+    //==========================================Variable==========================================
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final ByteBuffer peekBuffer = ByteBuffer.allocate(1);
+    private BufferedReader reader;
+    private BufferedWriter writer;
+    private boolean reused;
+    private boolean requestWritten;
+    private long lastUsedAt;
+
+    //=========================================Constructor=========================================
+    PooledSocket(Socket socket) throws IOException {
+        this.socket = socket;
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(new WriteTracker(socket.getOutputStream())));
+        this.lastUsedAt = System.currentTimeMillis();
+    }
+
+    //===========================================Method===========================================
+    /** Stream cho protocol length-prefixed */
+    public DataInputStream getIn() {
+        return in;
+    }
+
+    public DataOutputStream getOut() {
+        return out;
+    }
+
+    /** Reader/writer cho protocol newline, tạo lazily và giữ lại giữa các request */
+    public BufferedReader getReader() {
+        if (reader == null) {
+            reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        return reader;
+    }
+
+    public BufferedWriter getWriter() {
+        if (writer == null) {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+        return writer;
+    }
+
+    /**
+     * @return true nếu socket đã được dùng cho request trước đó (có thể đã bị server đóng)
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    /**
+     * @return true nếu đã có byte của request hiện tại được ghi ra socket (server có thể đã nhận request),
+     *         khi đó request không được gửi lại trên socket khác
+     */
+    boolean isRequestWritten() {
+        return requestWritten;
+    }
+
+    void setTimeout(int timeoutMs) throws IOException {
+        socket.setSoTimeout(timeoutMs);
+    }
+
+    boolean isUsable(long idleTimeoutMs) {
+        return !socket.isClosed() && System.currentTimeMillis() - lastUsedAt < idleTimeoutMs && !isStale();
+    }
+
+    /**
+     * Đánh dấu socket được trả về pool, lần mượn kế tiếp sẽ là reused
+     */
+    void markReturned() {
+        reused = true;
+        requestWritten = false;
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // socket đã hỏng, không cần xử lý thêm
+        }
+    }
+
+    //==========================================Private===========================================
+    /**
+     * Đọc thử không block: server đã đóng connection (EOF) hoặc gửi dữ liệu ngoài lượt request
+     * thì socket không dùng lại được. Socket đang idle nên không có thread nào khác đang đọc/ghi.
+     */
+    private boolean isStale() {
+        SocketChannel channel = socket.getChannel();
+        if (channel == null) return false;
+        try {
+            if (in.available() > 0) return true;
+            channel.configureBlocking(false);
+            try {
+                peekBuffer.clear();
+                return channel.read(peekBuffer) != 0;
+            } finally {
+                channel.configureBlocking(true);
+            }
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Ghi nhận byte đầu tiên của request đã được ghi ra socket
+     */
+    private final class WriteTracker extends FilterOutputStream {
+        WriteTracker(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            requestWritten = true;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (len > 0) requestWritten = true;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.cs4445.loadBalancer.ai;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff (có jitter) giữa các lần kết nối lại tới một AI server.
+ * Khi server chết, các request tới sau fail ngay thay vì mỗi request tự chờ connect timeout.
+ */
+class ReconnectBackoff {
+    //==========================================Variable==========================================
+    private final long initialMs;
+    private final long maxMs;
+    private long currentMs;
+    private long nextAttemptAt;
+
+    //=========================================Constructor=========================================
+    ReconnectBackoff(long initialMs, long maxMs) {
+        this.initialMs = initialMs;
+        this.maxMs = maxMs;
+        this.currentMs = initialMs;
+    }
+
+    //===========================================Method===========================================
+    /**
+     * @return số ms còn phải chờ trước lần connect kế tiếp, 0 nếu được phép connect ngay
+     */
+    synchronized long remainingMs() {
+        return Math.max(0L, nextAttemptAt - System.currentTimeMillis());
+    }
+
+    synchronized void onSuccess() {
+        currentMs = initialMs;
+        nextAttemptAt = 0L;
+    }
+
+    synchronized void onFailure() {
+        long jitter = ThreadLocalRandom.current().nextLong(currentMs / 2 + 1);
+        nextAttemptAt = System.currentTimeMillis() + currentMs / 2 + jitter;
+        currentMs = Math.min(maxMs, currentMs * 2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.cs4445.loadBalancer.cache;
+
+import java.util.Locale;
+
+import lombok.Getter;
+
+/**
+ * Các directive Cache-Control (RFC 9111 5.2) mà response cache dùng đến.
+ * Directive không biết được bỏ qua, giá trị số không hợp lệ được xem như không có.
+ */
+@Getter
+class CacheControl {
+    //==========================================Variable==========================================
+    private boolean noStore;
+    private boolean noCache;
+    private boolean privateResponse;
+    private boolean publicResponse;
+    private boolean mustRevalidate;
+    private long maxAge = -1;
+    private long sMaxAge = -1;
+
+    //===========================================Method===========================================
+    /**
+     * @param values các giá trị header Cache-Control (có thể null)
+     */
+    static CacheControl parse(Iterable<String> values) {
+        CacheControl control = new CacheControl();
+        if (values == null) return control;
+
+        for (String value : values) {
+            if (value == null) continue;
+            for (String directive : value.split(",")) {
+                control.apply(directive.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return control;
+    }
+
+    //==========================================Private===========================================
+    private void apply(String directive) {
+        int eq = directive.indexOf('=');
+        String name = eq < 0 ? directive : directive.substring(0, eq).trim();
+        String argument = eq < 0 ? null : unquote(directive.substring(eq + 1).trim());
+
+        switch (name) {
+            case "no-store" -> noStore = true;
+            // no-cache="field" chỉ áp dụng cho một số header, xử lý như no-cache cho đơn giản
+            case "no-cache" -> noCache = true;
+            case "private" -> privateResponse = true;
+            case "public" -> publicResponse = true;
+            case "must-revalidate", "proxy-revalidate" -> mustRevalidate = true;
+            case "max-age" -> maxAge = seconds(argument);
+            case "s-maxage" -> sMaxAge = seconds(argument);
+            default -> { }
+        }
+    }
+
+    private static long seconds(String argument) {
+        if (argument == null) return -1;
+        try {
+            return Math.max(0L, Long.parseLong(argument));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,94 @@
+package com.cs4445.loadBalancer.cache;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import lombok.Getter;
+
+/**
+ * Bản sao body của response đang được stream về client, ghi thẳng vào direct ByteBuffer.
+ * Khi biết Content-Length thì chỉ cấp phát một lần; vượt quá maxBytes thì bỏ, response không được cache.
+ * Entry chỉ được lưu khi gọi ResponseCache.commit() sau khi stream xong.
+ */
+public class CacheWriter extends OutputStream {
+    //==========================================Constant==========================================
+    private static final int INITIAL_CAPACITY = 8192;
+
+    //==========================================Variable==========================================
+    @Getter
+    private final String key;
+    @Getter
+    private final int statusCode;
+    @Getter
+    private final String[][] headers;
+    @Getter
+    private final String[] varyNames;
+    @Getter
+    private final String[] varyValues;
+    @Getter
+    private final CachedResponse.Freshness freshness;
+    private final long expectedLength;
+    private final int maxBytes;
+    private ByteBuffer buffer;
+    private boolean overflow;
+
+    //=========================================Constructor=========================================
+    CacheWriter(String key, int statusCode, String[][] headers, String[] varyNames, String[] varyValues,
+                CachedResponse.Freshness freshness, long expectedLength, int maxBytes) {
+        this.key = key;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.varyNames = varyNames;
+        this.varyValues = varyValues;
+        this.freshness = freshness;
+        this.expectedLength = expectedLength;
+        this.maxBytes = maxBytes;
+        this.buffer = ByteBuffer.allocateDirect(expectedLength >= 0
+                ? (int) expectedLength
+                : Math.min(INITIAL_CAPACITY, maxBytes));
+    }
+
+    //===========================================Method===========================================
+    @Override
+    public void write(int b) {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        if (overflow) return;
+        if (buffer.remaining() < length) {
+            long required = (long) buffer.position() + length;
+            if (required > maxBytes) {
+                overflow = true;
+                buffer = null;
+                return;
+            }
+            int capacity = (int) Math.min(maxBytes, Math.max(required, 2L * buffer.capacity()));
+            ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        buffer.put(bytes, offset, length);
+    }
+
+    //==========================================Internal==========================================
+    /**
+     * Body đã ghi đủ, null nếu vượt giới hạn hoặc ngắn hơn Content-Length (stream bị cắt)
+     */
+    ByteBuffer completedBody() {
+        if (overflow) return null;
+        if (expectedLength >= 0 && buffer.position() != expectedLength) return null;
+
+        ByteBuffer body = buffer.duplicate();
+        body.flip();
+        if (body.capacity() > body.limit()) {
+            // Chỉ xảy ra khi không có Content-Length: cắt phần dư để không giữ bộ nhớ thừa trong cache
+            ByteBuffer exact = ByteBuffer.allocateDirect(body.limit());
+            exact.put(body);
+            body = exact.flip();
+        }
+        return body.asReadOnlyBuffer();
+    }
+}
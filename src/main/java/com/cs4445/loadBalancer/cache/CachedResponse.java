@@ -0,0 +1,120 @@
+package com.cs4445.loadBalancer.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Getter;
+
+/**
+ * Một response đã lưu trong cache. Body nằm trong direct ByteBuffer (ngoài heap) và chỉ được đọc
+ * qua duplicate() nên nhiều request có thể phục vụ cùng lúc.
+ * Header và thời hạn có thể thay đổi khi revalidate (304), các phần còn lại bất biến.
+ */
+public class CachedResponse {
+    //==========================================Constant==========================================
+    // Ước lượng overhead của object + header để weigher không bỏ qua entry có body rỗng
+    private static final int BASE_WEIGHT = 256;
+
+    //==========================================Variable==========================================
+    @Getter
+    private final int statusCode;
+    private final ByteBuffer body;
+    private final String[] varyNames;
+    private final String[] varyValues;
+    private final int weight;
+
+    @Getter
+    private volatile String[][] headers;     // {name, value}, không gồm header hop-by-hop và Age
+    @Getter
+    private volatile String etag;
+    @Getter
+    private volatile String lastModified;
+    private volatile long responseTimeMillis;
+    private volatile long initialAgeSeconds;
+    private volatile long freshUntilMillis;
+    private volatile boolean noCache;
+
+    //=========================================Constructor=========================================
+    CachedResponse(int statusCode, String[][] headers, ByteBuffer body,
+                   String[] varyNames, String[] varyValues, Freshness freshness) {
+        this.statusCode = statusCode;
+        this.body = body;
+        this.varyNames = varyNames;
+        this.varyValues = varyValues;
+        int headerBytes = 0;
+        for (String[] header : headers) {
+            headerBytes += header[0].length() + header[1].length();
+        }
+        this.weight = BASE_WEIGHT + body.capacity() + 2 * headerBytes;
+        update(headers, freshness);
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Body dạng chỉ đọc, position = 0
+     */
+    public ByteBuffer getBody() {
+        return body.duplicate();
+    }
+
+    public int getBodyLength() {
+        return body.remaining();
+    }
+
+    public boolean isFresh(long nowMillis) {
+        return !noCache && nowMillis < freshUntilMillis;
+    }
+
+    /**
+     * Giá trị header Age khi trả response tại thời điểm now (giây)
+     */
+    public long getAgeSeconds(long nowMillis) {
+        return initialAgeSeconds + Math.max(0L, (nowMillis - responseTimeMillis) / 1000L);
+    }
+
+    public boolean hasValidator() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * Request có cùng giá trị các header trong Vary với request đã tạo ra response này không
+     */
+    public boolean matchesVary(HttpServletRequest request) {
+        for (int i = 0; i < varyNames.length; i++) {
+            if (!Objects.equals(varyValues[i], request.getHeader(varyNames[i]))) return false;
+        }
+        return true;
+    }
+
+    //==========================================Internal==========================================
+    int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Cập nhật header và thời hạn sau khi lưu hoặc revalidate thành công
+     */
+    void update(String[][] headers, Freshness freshness) {
+        String etagValue = null;
+        String lastModifiedValue = null;
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase("ETag")) etagValue = header[1];
+            else if (header[0].equalsIgnoreCase("Last-Modified")) lastModifiedValue = header[1];
+        }
+        this.headers = headers;
+        this.etag = etagValue;
+        this.lastModified = lastModifiedValue;
+        this.responseTimeMillis = freshness.responseTimeMillis();
+        this.initialAgeSeconds = freshness.ageSeconds();
+        this.freshUntilMillis = freshness.responseTimeMillis()
+                + (freshness.lifetimeSeconds() - freshness.ageSeconds()) * 1000L;
+        this.noCache = freshness.noCache();
+    }
+
+    /**
+     * Thời hạn của response tính từ header: lifetime theo s-maxage/max-age/Expires, age theo header Age
+     */
+    record Freshness(long responseTimeMillis, long lifetimeSeconds, long ageSeconds, boolean noCache) {
+    }
+}
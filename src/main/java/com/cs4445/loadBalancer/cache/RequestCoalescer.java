@@ -0,0 +1,125 @@
+package com.cs4445.loadBalancer.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.model.Deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+/**
+ * Gộp các GET giống nhau đang chạy đồng thời (single-flight): request đầu tiên (leader) đi đến backend,
+ * các request sau (follower) chờ leader và dùng lại response leader vừa lưu vào cache.
+ * - Map in-flight không lock (ConcurrentHashMap.putIfAbsent), leader luôn gỡ flight của mình khi xong
+ * - Follower chỉ chờ tối đa timeout và không quá hạn chót của chính nó; leader chậm, lỗi hoặc response không cache được (private, no-store,
+ *   Vary không khớp...) thì follower tự gửi request đến backend
+ * Metrics: proxy.coalesce.requests (result=leader|coalesced|fallback)
+ */
+@Component
+public class RequestCoalescer {
+    //==========================================Variable==========================================
+    private final boolean enabled;
+    private final long timeoutNanos;
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaderCounter;
+    private final Counter coalescedCounter;
+    private final Counter fallbackCounter;
+
+    //=========================================Constructor=========================================
+    public RequestCoalescer(MeterRegistry meterRegistry,
+                            @Value("${loadbalancer.proxy.coalesce.enabled:true}") boolean enabled,
+                            @Value("${loadbalancer.proxy.coalesce.timeout:5000}") long timeoutMs) {
+        this.enabled = enabled;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.leaderCounter = counter(meterRegistry, "leader");
+        this.coalescedCounter = counter(meterRegistry, "coalesced");
+        this.fallbackCounter = counter(meterRegistry, "fallback");
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Tham gia flight của key. Chỉ GET được làm leader; HEAD chỉ đi theo flight GET đang chạy.
+     * @return flight (leader hoặc follower), null nếu không gộp được
+     */
+    public Flight join(String key, boolean canLead) {
+        if (!enabled) return null;
+        Flight existing = inFlight.get(key);
+        if (existing != null) return existing.follower();
+        if (!canLead) return null;
+
+        Flight flight = new Flight(key, true);
+        existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) return existing.follower();
+        leaderCounter.increment();
+        return flight;
+    }
+
+    /**
+     * Leader báo kết thúc, entry = response vừa lưu cache (null nếu không có response dùng chung được)
+     */
+    public void complete(Flight flight, CachedResponse entry) {
+        inFlight.remove(flight.getKey(), flight);
+        flight.result.complete(entry);
+    }
+
+    /**
+     * Follower chờ kết quả của leader, tối đa min(timeout, thời gian còn lại của deadline)
+     * @return response dùng chung, null nếu leader không có response hoặc quá thời gian chờ
+     */
+    public CachedResponse await(Flight follower, Deadline deadline) {
+        try {
+            CachedResponse entry = follower.result.get(deadline.cap(timeoutNanos), TimeUnit.NANOSECONDS);
+            if (entry != null) {
+                coalescedCounter.increment();
+                return entry;
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            // Leader chậm hoặc lỗi: follower tự gửi request
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fallbackCounter.increment();
+        return null;
+    }
+
+    //==========================================Private===========================================
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("proxy.coalesce.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    //==========================================Internal==========================================
+    /**
+     * Một request đang chạy đến backend, follower dùng chung future kết quả với leader
+     */
+    public static class Flight {
+        @Getter
+        private final String key;
+        @Getter
+        private final boolean leader;
+        private final CompletableFuture<CachedResponse> result;
+
+        private Flight(String key, boolean leader) {
+            this(key, leader, new CompletableFuture<>());
+        }
+
+        private Flight(String key, boolean leader, CompletableFuture<CachedResponse> result) {
+            this.key = key;
+            this.leader = leader;
+            this.result = result;
+        }
+
+        private Flight follower() {
+            return new Flight(key, false, result);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.cs4445.loadBalancer.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.proxy.BufferPool;
+import com.cs4445.loadBalancer.proxy.HttpForwarder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * HTTP response cache (shared cache theo RFC 9111) đặt trước phần forward của proxy.
+ * - Chỉ cache GET, response có Cache-Control/Expires hoặc ETag/Last-Modified; tôn trọng no-store, private,
+ *   no-cache, Vary (Vary: * không được cache). Request có Authorization đi thẳng đến backend
+ * - Response hết hạn (hoặc no-cache) có validator được revalidate bằng If-None-Match / If-Modified-Since
+ * - Giới hạn theo tổng số byte, eviction W-TinyLFU của Caffeine nên entry hiếm dùng khó đẩy entry nóng ra
+ * - Body lưu trong direct ByteBuffer để entry lớn không chiếm heap
+ * Metrics: cache.gets/cache.evictions/... (cache=proxy.response), proxy.cache.bytes, proxy.cache.revalidations
+ */
+@Component
+public class ResponseCache {
+    //==========================================Constant==========================================
+    private static final String CACHE_NAME = "proxy.response";
+    private static final String[] NO_VARY = new String[0];
+
+    //==========================================Variable==========================================
+    private final boolean enabled;
+    private final int maxEntryBytes;
+    private final BufferPool proxyBufferPool;
+    private final Cache<String, CachedResponse> cache;
+    private final Counter notModifiedCounter;
+    private final Counter modifiedCounter;
+
+    //=========================================Constructor=========================================
+    public ResponseCache(BufferPool proxyBufferPool, MeterRegistry meterRegistry,
+                         @Value("${loadbalancer.proxy.cache.enabled:true}") boolean enabled,
+                         @Value("${loadbalancer.proxy.cache.max-size:67108864}") long maxBytes,
+                         @Value("${loadbalancer.proxy.cache.max-entry-size:1048576}") int maxEntryBytes) {
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntryBytes;
+        this.proxyBufferPool = proxyBufferPool;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse entry) -> entry.getWeight())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("proxy.cache.bytes", this, ResponseCache::getWeightedSize)
+                .description("Estimated bytes held by the proxy response cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.notModifiedCounter = Counter.builder("proxy.cache.revalidations")
+                .tag("result", "not_modified").register(meterRegistry);
+        this.modifiedCounter = Counter.builder("proxy.cache.revalidations")
+                .tag("result", "modified").register(meterRegistry);
+    }
+
+    //===========================================Lookup===========================================
+    /**
+     * Request có được đi qua cache không (GET/HEAD không body, không Authorization, không no-store)
+     */
+    public boolean isCacheable(HttpServletRequest request) {
+        if (!enabled) return false;
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) return false;
+        if (request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null) return false;
+        if (request.getHeader("Authorization") != null) return false;
+        return !requestControl(request).isNoStore();
+    }
+
+    /**
+     * @return entry khớp với request (kể cả đã hết hạn), null nếu không có
+     */
+    public CachedResponse lookup(HttpServletRequest request) {
+        CachedResponse entry = cache.getIfPresent(keyOf(request));
+        return entry != null && entry.matchesVary(request) ? entry : null;
+    }
+
+    /**
+     * Entry có được trả thẳng cho request mà không hỏi backend không
+     */
+    public boolean isFresh(CachedResponse entry, HttpServletRequest request) {
+        CacheControl control = requestControl(request);
+        if (control.isNoCache() || control.getMaxAge() == 0 || "no-cache".equalsIgnoreCase(request.getHeader("Pragma"))) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (!entry.isFresh(now)) return false;
+        return control.getMaxAge() < 0 || entry.getAgeSeconds(now) <= control.getMaxAge();
+    }
+
+    /**
+     * Thêm validator của entry vào request gửi backend để backend trả 304 nếu không đổi
+     */
+    public void addValidators(CachedResponse entry, HttpUriRequestBase outbound) {
+        if (entry.getEtag() != null) {
+            outbound.setHeader("If-None-Match", entry.getEtag());
+        }
+        if (entry.getLastModified() != null) {
+            outbound.setHeader("If-Modified-Since", entry.getLastModified());
+        }
+    }
+
+    //===========================================Store============================================
+    /**
+     * Backend trả 304 cho request revalidate: gia hạn entry bằng header mới
+     */
+    public void revalidated(CachedResponse entry, HttpResponse notModified) {
+        String[][] headers = mergeHeaders(entry.getHeaders(), notModified);
+        entry.update(headers, freshness(notModified, System.currentTimeMillis()));
+        notModifiedCounter.increment();
+    }
+
+    /**
+     * Bắt đầu lưu response của backend, null nếu response không được cache.
+     * Body được ghi qua CacheWriter trong lúc relay, sau đó gọi commit().
+     */
+    public CacheWriter beginStore(HttpServletRequest request, ClassicHttpResponse upstream, boolean revalidating) {
+        if (revalidating) {
+            modifiedCounter.increment();
+        }
+        if (!"GET".equals(request.getMethod())) return null;
+        if (!isStorableStatus(upstream.getCode())) return null;
+        if (upstream.containsHeader("Set-Cookie")) return null;
+
+        CacheControl control = CacheControl.parse(headerValues(upstream, "Cache-Control"));
+        if (control.isNoStore() || control.isPrivateResponse()) return null;
+
+        long length = upstream.getEntity() == null ? 0L : upstream.getEntity().getContentLength();
+        if (length > maxEntryBytes) return null;
+
+        String[] varyNames = varyNames(upstream);
+        if (varyNames == null) return null;
+
+        long now = System.currentTimeMillis();
+        CachedResponse.Freshness freshness = freshness(upstream, now);
+        String[][] headers = storedHeaders(upstream);
+        if (freshness.lifetimeSeconds() <= freshness.ageSeconds() && !hasValidator(headers)) {
+            // Hết hạn ngay và không revalidate được thì lưu cũng vô ích
+            return null;
+        }
+
+        String[] varyValues = new String[varyNames.length];
+        for (int i = 0; i < varyNames.length; i++) {
+            varyValues[i] = request.getHeader(varyNames[i]);
+        }
+        return new CacheWriter(keyOf(request), upstream.getCode(), headers, varyNames, varyValues,
+                freshness, upstream.getEntity() == null ? 0L : length, maxEntryBytes);
+    }
+
+    /**
+     * Lưu entry sau khi body đã được stream đầy đủ
+     * @return entry vừa lưu, null nếu body không đầy đủ hoặc quá lớn
+     */
+    public CachedResponse commit(CacheWriter writer) {
+        ByteBuffer body = writer.completedBody();
+        if (body == null) return null;
+        CachedResponse entry = new CachedResponse(writer.getStatusCode(), writer.getHeaders(), body,
+                writer.getVaryNames(), writer.getVaryValues(), writer.getFreshness());
+        cache.put(writer.getKey(), entry);
+        return entry;
+    }
+
+    //===========================================Serve============================================
+    /**
+     * Trả entry cho client, 304 nếu If-None-Match của client khớp ETag
+     * @param cacheStatus giá trị header X-Cache (HIT / REVALIDATED)
+     */
+    public void serve(CachedResponse entry, HttpServletRequest request, HttpServletResponse response,
+                      String cacheStatus) throws IOException {
+        long now = System.currentTimeMillis();
+        boolean notModified = entry.getEtag() != null && etagMatches(request.getHeader("If-None-Match"), entry.getEtag());
+
+        response.setStatus(notModified ? HttpServletResponse.SC_NOT_MODIFIED : entry.getStatusCode());
+        for (String[] header : entry.getHeaders()) {
+            response.addHeader(header[0], header[1]);
+        }
+        response.setHeader("Age", Long.toString(entry.getAgeSeconds(now)));
+        response.setHeader("X-Cache", cacheStatus);
+        if (notModified || "HEAD".equals(request.getMethod())) return;
+
+        ByteBuffer body = entry.getBody();
+        OutputStream out = response.getOutputStream();
+        byte[] buffer = proxyBufferPool.acquire();
+        try {
+            while (body.hasRemaining()) {
+                int length = Math.min(buffer.length, body.remaining());
+                body.get(buffer, 0, length);
+                out.write(buffer, 0, length);
+            }
+            out.flush();
+        } finally {
+            proxyBufferPool.release(buffer);
+        }
+    }
+
+    public long getWeightedSize() {
+        return cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    /**
+     * Key của request trong cache: path + query (Vary được so khớp riêng)
+     */
+    public static String keyOf(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query;
+    }
+
+    //==========================================Private===========================================
+    private static CacheControl requestControl(HttpServletRequest request) {
+        return CacheControl.parse(Collections.list(request.getHeaders("Cache-Control")));
+    }
+
+    /**
+     * Status được phép cache mặc định (RFC 9110 15.1)
+     */
+    private static boolean isStorableStatus(int status) {
+        return switch (status) {
+            case 200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501 -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return tên header trong Vary (lowercase), null nếu Vary: *
+     */
+    private static String[] varyNames(HttpResponse upstream) {
+        List<String> names = new ArrayList<>();
+        for (String value : headerValues(upstream, "Vary")) {
+            for (String name : value.split(",")) {
+                String trimmed = name.trim();
+                if (trimmed.equals("*")) return null;
+                if (!trimmed.isEmpty()) names.add(trimmed.toLowerCase(Locale.ROOT));
+            }
+        }
+        return names.isEmpty() ? NO_VARY : names.toArray(String[]::new);
+    }
+
+    private static CachedResponse.Freshness freshness(HttpResponse upstream, long nowMillis) {
+        CacheControl control = CacheControl.parse(headerValues(upstream, "Cache-Control"));
+        long lifetime;
+        if (control.getSMaxAge() >= 0) {
+            lifetime = control.getSMaxAge();
+        } else if (control.getMaxAge() >= 0) {
+            lifetime = control.getMaxAge();
+        } else {
+            lifetime = expiresLifetime(upstream, nowMillis);
+        }
+
+        long age = 0L;
+        Header ageHeader = upstream.getFirstHeader("Age");
+        if (ageHeader != null) {
+            try {
+                age = Math.max(0L, Long.parseLong(ageHeader.getValue().trim()));
+            } catch (NumberFormatException ignored) {
+                // Age không hợp lệ thì xem như 0
+            }
+        }
+        return new CachedResponse.Freshness(nowMillis, lifetime, age, control.isNoCache());
+    }
+
+    /**
+     * Lifetime theo Expires - Date (giây), 0 nếu không có hoặc Expires không hợp lệ (RFC 9111 5.3)
+     */
+    private static long expiresLifetime(HttpResponse upstream, long nowMillis) {
+        Header expires = upstream.getFirstHeader("Expires");
+        if (expires == null) return 0L;
+        Instant expiresAt = DateUtils.parseStandardDate(expires.getValue());
+        if (expiresAt == null) return 0L;
+
+        Header date = upstream.getFirstHeader("Date");
+        Instant dateAt = date == null ? null : DateUtils.parseStandardDate(date.getValue());
+        long base = dateAt != null ? dateAt.toEpochMilli() : nowMillis;
+        return Math.max(0L, (expiresAt.toEpochMilli() - base) / 1000L);
+    }
+
+    private static String[][] storedHeaders(HttpResponse upstream) {
+        Header connectionHeader = upstream.getFirstHeader("Connection");
+        String connection = connectionHeader == null ? null : connectionHeader.getValue();
+        List<String[]> headers = new ArrayList<>();
+        for (Header header : upstream.getHeaders()) {
+            if (HttpForwarder.isHopByHop(header.getName(), connection)) continue;
+            // Age được tính lại mỗi lần trả response
+            if (header.getName().equalsIgnoreCase("Age")) continue;
+            headers.add(new String[]{header.getName(), header.getValue()});
+        }
+        return headers.toArray(String[][]::new);
+    }
+
+    /**
+     * Header của 304 thay thế header cùng tên của entry (RFC 9111 3.2), trừ Content-Length
+     */
+    private static String[][] mergeHeaders(String[][] stored, HttpResponse notModified) {
+        String[][] updates = storedHeaders(notModified);
+        List<String[]> merged = new ArrayList<>();
+        for (String[] header : stored) {
+            if (!containsName(updates, header[0]) || header[0].equalsIgnoreCase("Content-Length")) {
+                merged.add(header);
+            }
+        }
+        for (String[] header : updates) {
+            if (!header[0].equalsIgnoreCase("Content-Length")) merged.add(header);
+        }
+        return merged.toArray(String[][]::new);
+    }
+
+    private static boolean containsName(String[][] headers, String name) {
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) return true;
+        }
+        return false;
+    }
+
+    private static boolean hasValidator(String[][] headers) {
+        return containsName(headers, "ETag") || containsName(headers, "Last-Modified");
+    }
+
+    private static List<String> headerValues(HttpResponse upstream, String name) {
+        Header[] headers = upstream.getHeaders(name);
+        List<String> values = new ArrayList<>(headers.length);
+        for (Header header : headers) {
+            values.add(header.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * So sánh weak (RFC 9110 13.1.2): bỏ tiền tố W/
+     */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        String target = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(target)) return true;
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -1,14 +1,26 @@
 package com.cs4445.loadBalancer.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@EnableConfigurationProperties(BackendProperties.class)
 public class AppConfig {
 
+    /**
+     * RestTemplate cho các lệnh điều khiển backend (open/close server).
+     * Có timeout để một backend treo không giữ lệnh (hoặc cả BATCH) quá lâu.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(@Value("${loadbalancer.control.connect-timeout:2000}") int connectTimeoutMs,
+                                     @Value("${loadbalancer.control.read-timeout:5000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(requestFactory);
     }
 }
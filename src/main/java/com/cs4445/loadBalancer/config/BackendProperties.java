@@ -0,0 +1,51 @@
+package com.cs4445.loadBalancer.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.VegasLimit;
+
+import lombok.Data;
+
+/**
+ * Danh sách backend khởi tạo, bind từ loadbalancer.servers[n].host/port/weight.
+ * Sau khi khởi động, backend có thể được thêm/xoá/đổi weight qua BackendRegistry.
+ * loadbalancer.concurrency-limit.* áp dụng cho mọi backend, kể cả backend thêm lúc runtime.
+ */
+@Data
+@ConfigurationProperties(prefix = "loadbalancer")
+public class BackendProperties {
+    //==========================================Variable==========================================
+    private List<Server> servers = new ArrayList<>();
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    //===========================================Server============================================
+    @Data
+    public static class Server {
+        private String host;
+        private int port = 8080;
+        private int weight = 1;
+
+        public ServerUrl toServerUrl() {
+            return ServerUrl.of(host, port);
+        }
+    }
+
+    //======================================ConcurrencyLimit======================================
+    @Data
+    public static class ConcurrencyLimit {
+        private boolean enabled = true;
+        private int initial = VegasLimit.DEFAULT_INITIAL_LIMIT;
+        private int min = VegasLimit.DEFAULT_MIN_LIMIT;
+        private int max = VegasLimit.DEFAULT_MAX_LIMIT;
+        // Thời gian tối đa chờ khi mọi backend đều chạm limit (milliseconds)
+        private long queueTimeout = 50;
+
+        public VegasLimit newLimit() {
+            return new VegasLimit(initial, min, max);
+        }
+    }
+}
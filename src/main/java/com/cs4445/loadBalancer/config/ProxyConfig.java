@@ -0,0 +1,62 @@
+package com.cs4445.loadBalancer.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.cs4445.loadBalancer.proxy.BufferPool;
+
+/**
+ * Cấu hình data plane của proxy: HTTP client có connection pool keep-alive theo từng backend
+ * và pool buffer dùng chung để stream body.
+ */
+@Configuration
+public class ProxyConfig {
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient proxyHttpClient(
+            @Value("${loadbalancer.proxy.max-connections-per-backend:128}") int maxPerBackend,
+            @Value("${loadbalancer.proxy.max-connections-total:512}") int maxTotal,
+            @Value("${loadbalancer.proxy.connect-timeout:2000}") long connectTimeoutMs,
+            @Value("${loadbalancer.proxy.response-timeout:30000}") long responseTimeoutMs,
+            @Value("${loadbalancer.proxy.idle-timeout:30000}") long idleTimeoutMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(maxPerBackend)
+                .setMaxConnTotal(maxTotal)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        // Proxy trong suốt: không tự redirect, retry, giải nén hay giữ cookie
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .build())
+                .disableRedirectHandling()
+                .disableAutomaticRetries()
+                .disableContentCompression()
+                .disableCookieManagement()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeoutMs))
+                .build();
+    }
+
+    @Bean
+    public BufferPool proxyBufferPool(
+            @Value("${loadbalancer.proxy.buffer-size:16384}") int bufferSize,
+            @Value("${loadbalancer.proxy.max-pooled-buffers:256}") int maxPooled) {
+        return new BufferPool(bufferSize, maxPooled);
+    }
+}
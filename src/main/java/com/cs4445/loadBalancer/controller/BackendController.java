@@ -0,0 +1,45 @@
+package com.cs4445.loadBalancer.controller;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.cs4445.loadBalancer.dto.request.backend.BackendRequest;
+import com.cs4445.loadBalancer.service.api.BackendApi;
+
+@RestController
+@RequestMapping("/api/lb/backends")
+@RequiredArgsConstructor
+public class BackendController {
+
+    //==========================================Variable==========================================
+    private final BackendApi backendApi;
+
+    //==========================================Backends==========================================
+    @GetMapping
+    public ResponseEntity<?> getBackends() {
+        return backendApi.getBackends();
+    }
+
+    /**
+     * Thêm backend: {"url": "http://host:port", "weight": 2} hoặc {"host": "...", "port": 8081}
+     */
+    @PostMapping
+    public ResponseEntity<?> addBackend(@RequestBody BackendRequest request) {
+        return backendApi.addBackend(request);
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> removeBackend(@RequestParam String url) {
+        return backendApi.removeBackend(url);
+    }
+
+    /**
+     * Đổi weight: {"url": "http://host:port", "weight": 3}
+     */
+    @PutMapping("/weight")
+    public ResponseEntity<?> setWeight(@RequestBody BackendRequest request) {
+        return backendApi.setWeight(request);
+    }
+}
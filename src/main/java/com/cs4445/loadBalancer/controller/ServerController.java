@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 
@@ -27,11 +28,11 @@ public class ServerController {
     /**
      * Proxy tất cả requests đến sub-servers
      * Loại trừ các endpoints của load balancer (/api/lb/**)
+     * Body được stream trực tiếp giữa client và backend, không buffer trên heap
      */
     @RequestMapping(value = "/**")
-    public ResponseEntity<byte[]> proxy(HttpServletRequest request) throws IOException {
-        ResponseEntity<byte[]> response = proxyApi.handleRequest(request);
-        return response;
+    public void proxy(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        proxyApi.handleRequest(request, response);
     }
 
     //===========================================Status===========================================
@@ -0,0 +1,18 @@
+package com.cs4445.loadBalancer.dto.request.backend;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackendRequest {
+    //==========================================Variable==========================================
+    private String url;      // "http://host:port", hoặc dùng host + port
+    private String host;
+    private Integer port;
+    private Integer weight;
+}
@@ -0,0 +1,23 @@
+package com.cs4445.loadBalancer.dto.response.backend;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackendResponse {
+    //==========================================Variable==========================================
+    private String url;
+    private int weight;
+    private int statusCode;
+    private boolean available;
+    private String circuitState;
+    private int inflight;
+    private int concurrencyLimit;
+    private double ewmaLatencyMs;
+    private long checkedAt;
+}
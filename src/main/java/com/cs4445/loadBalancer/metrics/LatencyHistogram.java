@@ -0,0 +1,117 @@
+package com.cs4445.loadBalancer.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram latency dạng log-linear (kiểu HdrHistogram rút gọn) để tính percentile trên hot path.
+ * - Mỗi khoảng [2^k, 2^(k+1)) micro giây chia thành 8 bucket, sai số tương đối tối đa ~12.5%
+ * - Dữ liệu được chia thành 2 cửa sổ luân phiên (hiện tại + trước đó), percentile tính trên cả hai
+ *   nên phản ánh khoảng 1-2 lần windowMillis gần nhất
+ * Ghi chỉ là một phép increment atomic, không lock, không cấp phát.
+ */
+public class LatencyHistogram {
+    //==========================================Constant==========================================
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^27 us ~ 134s, latency lớn hơn rơi vào bucket cuối
+    private static final int MAX_EXPONENT = 27;
+    static final int BUCKET_COUNT = (MAX_EXPONENT + 1) * SUB_BUCKETS;
+
+    //==========================================Variable==========================================
+    private final long windowMillis;
+    private final AtomicLongArray[] windows = {
+            new AtomicLongArray(BUCKET_COUNT), new AtomicLongArray(BUCKET_COUNT)};
+    private final AtomicLong[] windowCounts = {new AtomicLong(), new AtomicLong()};
+    private final AtomicLong currentEpoch = new AtomicLong();
+
+    //=========================================Constructor=========================================
+    public LatencyHistogram(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.currentEpoch.set(System.currentTimeMillis() / windowMillis);
+    }
+
+    //===========================================Method===========================================
+    public void record(long latencyNanos) {
+        int window = rotate(System.currentTimeMillis());
+        windows[window].incrementAndGet(bucketIndex(Math.max(0L, latencyNanos / 1000L)));
+        windowCounts[window].incrementAndGet();
+    }
+
+    /**
+     * Số sample trong 2 cửa sổ gần nhất
+     */
+    public long getCount() {
+        rotate(System.currentTimeMillis());
+        return windowCounts[0].get() + windowCounts[1].get();
+    }
+
+    /**
+     * @param percentile từ 0 đến 100
+     * @return latency (nanoseconds) ở percentile, -1 nếu chưa có sample
+     */
+    public long getPercentileNanos(double percentile) {
+        rotate(System.currentTimeMillis());
+        long total = windowCounts[0].get() + windowCounts[1].get();
+        if (total == 0) return -1L;
+
+        long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += windows[0].get(i) + windows[1].get(i);
+            if (seen >= rank) {
+                return bucketUpperBoundMicros(i) * 1000L;
+            }
+        }
+        return bucketUpperBoundMicros(BUCKET_COUNT - 1) * 1000L;
+    }
+
+    //==========================================Private===========================================
+    /**
+     * Chuyển sang cửa sổ mới khi hết windowMillis, cửa sổ cũ hơn 1 vòng bị xoá.
+     * @return index của cửa sổ hiện tại
+     */
+    private int rotate(long nowMillis) {
+        long epoch = nowMillis / windowMillis;
+        long current = currentEpoch.get();
+        if (epoch != current && currentEpoch.compareAndSet(current, epoch)) {
+            int next = (int) (epoch & 1);
+            // Cửa sổ sắp dùng đang giữ dữ liệu từ 2 epoch trước
+            clear(next);
+            if (epoch - current > 1) {
+                // Không có sample nào suốt hơn một cửa sổ: dữ liệu còn lại cũng đã cũ
+                clear(next ^ 1);
+            }
+        }
+        return (int) (epoch & 1);
+    }
+
+    private void clear(int window) {
+        AtomicLongArray buckets = windows[window];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0L);
+        }
+        windowCounts[window].set(0L);
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long bucketUpperBoundMicros(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1L;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1)) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,41 @@
+package com.cs4445.loadBalancer.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ đếm tích luỹ (không bao giờ reset) của traffic proxy đến một backend: số request, số lỗi
+ * và histogram latency cùng bucket với LatencyHistogram. LoadSeries lấy hiệu giữa hai lần sample
+ * để ra RPS, error rate và percentile của từng khoảng, nên ghi không cần biết cửa sổ thời gian.
+ * Ghi chỉ là hai phép cộng không lock, không cấp phát.
+ */
+public class LoadRecorder {
+    //==========================================Variable==========================================
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+
+    //===========================================Method===========================================
+    /**
+     * @param error lỗi kết nối/timeout hoặc response 5xx
+     */
+    public void record(long latencyNanos, boolean error) {
+        buckets.incrementAndGet(LatencyHistogram.bucketIndex(Math.max(0L, latencyNanos / 1000L)));
+        requests.increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    long getBucket(int index) {
+        return buckets.get(index);
+    }
+}
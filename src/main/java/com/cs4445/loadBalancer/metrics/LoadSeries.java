@@ -0,0 +1,247 @@
+package com.cs4445.loadBalancer.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Time series tải gần đây của một backend trong ring buffer cấp phát sẵn (capacity sample).
+ * Mỗi sample gồm health mới nhất (cpu, memory, avgProcessingTime, connections; NaN khi backend không healthy)
+ * và traffic quan sát được trong khoảng vừa qua (RPS, số request, số lỗi, p50/p99 latency).
+ * Tổng của từng cửa sổ (VD: 10s/1m/5m) được cập nhật incremental khi thêm sample: cộng sample mới,
+ * trừ sample vừa rơi khỏi cửa sổ; mỗi vòng ring được tính lại từ đầu để sai số cộng dồn của double không tăng mãi.
+ * Một thread ghi (sampler), đọc bất kỳ lúc nào; cả hai qua lock vì mỗi lần chỉ giữ lock vài micro giây.
+ */
+public class LoadSeries {
+    //==========================================Constant==========================================
+    public static final int CPU = 0;
+    public static final int MEMORY = 1;
+    public static final int PROCESSING = 2;
+    public static final int CONNECTIONS = 3;
+    public static final int RPS = 4;
+    public static final int REQUESTS = 5;
+    public static final int ERRORS = 6;
+    public static final int LATENCY_P50 = 7;
+    public static final int LATENCY_P99 = 8;
+    static final int FIELDS = 9;
+
+    //==========================================Variable==========================================
+    private final int capacity;
+    private final int[] windowSamples;
+    private final LoadRecorder recorder;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // values[field][slot], slot = seq % capacity
+    private final double[][] values;
+    private final double[][] sums;
+    private final int[][] counts;
+    private long written;
+
+    // Giá trị tích luỹ của recorder ở lần sample trước
+    private final long[] lastBuckets = new long[LatencyHistogram.BUCKET_COUNT];
+    private final long[] deltaBuckets = new long[LatencyHistogram.BUCKET_COUNT];
+    private final double[] sample = new double[FIELDS];
+    private long lastRequests;
+    private long lastErrors;
+    private long lastSampleNanos;
+
+    //=========================================Constructor=========================================
+    /**
+     * @param windowSamples số sample của mỗi cửa sổ, không lớn hơn capacity
+     */
+    public LoadSeries(LoadRecorder recorder, int capacity, int[] windowSamples, long nowNanos) {
+        this.recorder = recorder;
+        this.capacity = capacity;
+        this.windowSamples = windowSamples.clone();
+        this.values = new double[FIELDS][capacity];
+        this.sums = new double[windowSamples.length][FIELDS];
+        this.counts = new int[windowSamples.length][FIELDS];
+
+        // Traffic trước khi series được tạo không thuộc sample nào
+        for (int i = 0; i < lastBuckets.length; i++) {
+            lastBuckets[i] = recorder.getBucket(i);
+        }
+        this.lastRequests = recorder.getRequests();
+        this.lastErrors = recorder.getErrors();
+        this.lastSampleNanos = nowNanos;
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Thêm một sample: health mới nhất (null nếu backend không healthy) + traffic từ lần sample trước
+     */
+    public void add(ServerHealthResponse health, long nowNanos) {
+        lock.lock();
+        try {
+            fillSample(health, nowNanos);
+
+            int slot = (int) (written % capacity);
+            for (int window = 0; window < windowSamples.length; window++) {
+                long leaving = written - windowSamples[window];
+                if (leaving >= 0) {
+                    // Sample rơi khỏi cửa sổ vẫn còn trong ring (cửa sổ dài nhất = slot sắp bị ghi đè)
+                    accumulate(window, (int) (leaving % capacity), -1);
+                }
+            }
+            for (int field = 0; field < FIELDS; field++) {
+                values[field][slot] = sample[field];
+            }
+            written++;
+
+            if (written % capacity == 0) {
+                recomputeSums();
+            } else {
+                for (int window = 0; window < windowSamples.length; window++) {
+                    accumulate(window, slot, 1);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tổng hợp của mọi cửa sổ, theo thứ tự windowSamples
+     */
+    public Window[] aggregate() {
+        lock.lock();
+        try {
+            Window[] result = new Window[windowSamples.length];
+            for (int window = 0; window < windowSamples.length; window++) {
+                int samples = (int) Math.min(written, windowSamples[window]);
+                double[] average = new double[FIELDS];
+                double[] max = new double[FIELDS];
+                for (int field = 0; field < FIELDS; field++) {
+                    int count = counts[window][field];
+                    average[field] = count == 0 ? Double.NaN : sums[window][field] / count;
+                    max[field] = maxOf(field, samples);
+                }
+                double requests = sums[window][REQUESTS];
+                double errorRate = requests == 0 ? 0.0 : sums[window][ERRORS] / requests;
+                result[window] = new Window(samples, (long) requests, (long) sums[window][ERRORS], errorRate,
+                        average, max);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //==========================================Private===========================================
+    private void fillSample(ServerHealthResponse health, long nowNanos) {
+        Arrays.fill(sample, Double.NaN);
+        if (health != null) {
+            sample[CPU] = health.getCpuUsagePercent();
+            sample[MEMORY] = health.getMemoryUsagePercent();
+            sample[PROCESSING] = health.getAvgProcessingTimeSec();
+            sample[CONNECTIONS] = health.getCurrConnections();
+        }
+
+        long requests = recorder.getRequests();
+        long errors = recorder.getErrors();
+        double elapsedSec = Math.max(1L, nowNanos - lastSampleNanos) / 1e9;
+        sample[REQUESTS] = requests - lastRequests;
+        sample[ERRORS] = errors - lastErrors;
+        sample[RPS] = sample[REQUESTS] / elapsedSec;
+        lastRequests = requests;
+        lastErrors = errors;
+        lastSampleNanos = nowNanos;
+
+        // Percentile của riêng khoảng này từ hiệu histogram tích luỹ
+        long total = 0;
+        for (int i = 0; i < deltaBuckets.length; i++) {
+            long current = recorder.getBucket(i);
+            deltaBuckets[i] = current - lastBuckets[i];
+            lastBuckets[i] = current;
+            total += deltaBuckets[i];
+        }
+        if (total > 0) {
+            sample[LATENCY_P50] = percentileMillis(total, 50.0);
+            sample[LATENCY_P99] = percentileMillis(total, 99.0);
+        }
+    }
+
+    private double percentileMillis(long total, double percentile) {
+        long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < deltaBuckets.length; i++) {
+            seen += deltaBuckets[i];
+            if (seen >= rank) {
+                return LatencyHistogram.bucketUpperBoundMicros(i) / 1000.0;
+            }
+        }
+        return LatencyHistogram.bucketUpperBoundMicros(deltaBuckets.length - 1) / 1000.0;
+    }
+
+    private void accumulate(int window, int slot, int sign) {
+        for (int field = 0; field < FIELDS; field++) {
+            double value = values[field][slot];
+            if (Double.isNaN(value)) continue;
+            sums[window][field] += sign * value;
+            counts[window][field] += sign;
+        }
+    }
+
+    private void recomputeSums() {
+        for (int window = 0; window < windowSamples.length; window++) {
+            Arrays.fill(sums[window], 0.0);
+            Arrays.fill(counts[window], 0);
+            int samples = (int) Math.min(written, windowSamples[window]);
+            for (int i = 1; i <= samples; i++) {
+                accumulate(window, (int) ((written - i) % capacity), 1);
+            }
+        }
+    }
+
+    /**
+     * Max của n sample gần nhất (duyệt ring, chỉ chạy khi đọc)
+     */
+    private double maxOf(int field, int samples) {
+        double max = Double.NaN;
+        for (int i = 1; i <= samples; i++) {
+            double value = values[field][(int) ((written - i) % capacity)];
+            if (!Double.isNaN(value) && (Double.isNaN(max) || value > max)) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
+    //===========================================Window===========================================
+    /**
+     * Tổng hợp một cửa sổ. Giá trị theo field (CPU, RPS, LATENCY_P99...): trung bình và max của các sample,
+     * NaN nếu không có sample hợp lệ. p99 của cả cửa sổ không vượt quá max của p99 từng sample.
+     */
+    @Getter
+    public static class Window {
+        private final int samples;
+        private final long requests;
+        private final long errors;
+        private final double errorRate;
+        @Getter(AccessLevel.NONE)
+        private final double[] average;
+        @Getter(AccessLevel.NONE)
+        private final double[] max;
+
+        Window(int samples, long requests, long errors, double errorRate, double[] average, double[] max) {
+            this.samples = samples;
+            this.requests = requests;
+            this.errors = errors;
+            this.errorRate = errorRate;
+            this.average = average;
+            this.max = max;
+        }
+
+        public double getAverage(int field) {
+            return average[field];
+        }
+
+        public double getMax(int field) {
+            return max[field];
+        }
+    }
+}
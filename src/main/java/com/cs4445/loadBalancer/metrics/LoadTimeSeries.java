@@ -0,0 +1,137 @@
+package com.cs4445.loadBalancer.metrics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+import com.cs4445.loadBalancer.registry.BackendState;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lấy sample tải của mọi backend mỗi sample-interval vào LoadSeries riêng của backend
+ * để TCP GET_METRICS trả về xu hướng theo cửa sổ (mặc định 10s, 1m, 5m) mà AI module không phải tự lưu lịch sử
+ * hay gọi /server/health thường xuyên hơn.
+ * Sampler chạy trên thread riêng, không dùng chung scheduler với health check (một vòng probe có thể mất vài giây).
+ */
+@Component
+@Slf4j
+public class LoadTimeSeries {
+    //==========================================Variable==========================================
+    private final BackendRegistry backendRegistry;
+    private final boolean enabled;
+    private final long sampleIntervalMs;
+    private final Duration[] windows;
+    private final int[] windowSamples;
+    private final int capacity;
+    private final ConcurrentHashMap<Backend, LoadSeries> series = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sampler;
+
+    //=========================================Constructor=========================================
+    public LoadTimeSeries(BackendRegistry backendRegistry,
+                          @Value("${loadbalancer.timeseries.enabled:true}") boolean enabled,
+                          @Value("${loadbalancer.timeseries.sample-interval:1000}") long sampleIntervalMs,
+                          @Value("${loadbalancer.timeseries.windows:10s,1m,5m}") Duration[] windows) {
+        if (sampleIntervalMs <= 0) {
+            throw new IllegalArgumentException("loadbalancer.timeseries.sample-interval must be > 0");
+        }
+        this.backendRegistry = backendRegistry;
+        this.enabled = enabled;
+        this.sampleIntervalMs = sampleIntervalMs;
+        this.windows = windows.clone();
+        this.windowSamples = new int[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            windowSamples[i] = (int) Math.max(1L, windows[i].toMillis() / sampleIntervalMs);
+        }
+        this.capacity = Arrays.stream(windowSamples).max().orElse(1);
+    }
+
+    //===========================================Lifecycle==========================================
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        sampler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("load-sampler").factory());
+        sampler.scheduleAtFixedRate(this::sampleSafely, sampleIntervalMs, sampleIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Load time series sampling every {} ms, windows {}", sampleIntervalMs, Arrays.toString(windows));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    //===========================================Method===========================================
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSampleIntervalMs() {
+        return sampleIntervalMs;
+    }
+
+    public Duration[] getWindows() {
+        return windows.clone();
+    }
+
+    /**
+     * @return tổng hợp theo thứ tự getWindows(), null nếu backend chưa có sample nào
+     */
+    public LoadSeries.Window[] aggregate(Backend backend) {
+        LoadSeries backendSeries = series.get(backend);
+        return backendSeries == null ? null : backendSeries.aggregate();
+    }
+
+    /**
+     * Nhãn ngắn của cửa sổ cho response (VD: 10s, 1m, 2h)
+     */
+    public static String label(Duration window) {
+        long seconds = window.toSeconds();
+        if (seconds > 0 && seconds % 3600 == 0) return seconds / 3600 + "h";
+        if (seconds > 0 && seconds % 60 == 0) return seconds / 60 + "m";
+        if (window.toMillis() % 1000 == 0) return seconds + "s";
+        return window.toMillis() + "ms";
+    }
+
+    //==========================================Sampling==========================================
+    void sample() {
+        long now = System.nanoTime();
+        BackendSnapshot snapshot = backendRegistry.getSnapshot();
+        for (BackendState state : snapshot.getStates()) {
+            Backend backend = state.getBackend();
+            LoadSeries backendSeries = series.get(backend);
+            if (backendSeries == null) {
+                // Backend mới: sample đầu tiên được lấy ở lượt sau, sau một khoảng đầy đủ
+                series.put(backend, new LoadSeries(backend.getLoad(), capacity, windowSamples, now));
+                continue;
+            }
+            backendSeries.add(state.isHealthy() ? state.getHealth() : null, now);
+        }
+        if (series.size() > snapshot.getStates().size()) {
+            // Backend đã bị xoá khỏi registry
+            series.keySet().removeIf(backend -> backendRegistry.findBackend(backend.getUrl()) != backend);
+        }
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (Exception e) {
+            // Exception làm scheduleAtFixedRate dừng hẳn, nên chỉ log
+            log.error("Load sampling failed", e);
+        }
+    }
+}
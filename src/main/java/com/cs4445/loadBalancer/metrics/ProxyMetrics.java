@@ -0,0 +1,180 @@
+package com.cs4445.loadBalancer.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Metrics của proxy, export qua /actuator/prometheus:
+ * - proxy.requests (tag route, status) + proxy.requests.duration (tag route): latency end-to-end phía client
+ * - proxy.upstream.responses (tag backend, status) + proxy.upstream.duration (tag backend): từng lần gửi đến backend
+ * - proxy.healthcheck.duration (tag backend, outcome): từng lần probe /server/health
+ * - proxy.tcp.commands.duration (tag action): thời gian xử lý command TCP
+ * - proxy.requests.active: số request proxy đang xử lý
+ * Status được gom theo class (1xx..5xx, error = không nhận được response).
+ * Meter của mỗi backend/route/action được tạo một lần rồi dùng lại, hot path chỉ tốn một lookup
+ * ConcurrentHashMap và vài phép cộng LongAdder, không cấp phát. Timer giữ histogram dạng HdrHistogram
+ * theo cửa sổ trượt để tính p50/p99/p999, bucket histogram cũng được export để gộp percentile giữa nhiều instance.
+ */
+@Component
+public class ProxyMetrics {
+    //==========================================Constant==========================================
+    // Route mới khi đã đủ max-routes dùng chung meter này, giống histogram hedging của UpstreamInvoker
+    private static final String OTHER_ROUTE = "*";
+    private static final String UNKNOWN_ACTION = "UNKNOWN";
+    private static final int MAX_ACTIONS = 64;
+    private static final String[] STATUS_CLASSES = {"error", "1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    //==========================================Variable==========================================
+    private final MeterRegistry meterRegistry;
+    private final double[] percentiles;
+    private final boolean histogram;
+    private final int maxRoutes;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+
+    private final ConcurrentHashMap<String, StatusMeters> routes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, StatusMeters> upstreams = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer[]> healthProbes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> tcpCommands = new ConcurrentHashMap<>();
+
+    //=========================================Constructor=========================================
+    public ProxyMetrics(MeterRegistry meterRegistry,
+                        @Value("${loadbalancer.metrics.percentiles:0.5,0.99,0.999}") double[] percentiles,
+                        @Value("${loadbalancer.metrics.histogram:true}") boolean histogram,
+                        @Value("${loadbalancer.metrics.max-routes:100}") int maxRoutes) {
+        this.meterRegistry = meterRegistry;
+        this.percentiles = percentiles;
+        this.histogram = histogram;
+        this.maxRoutes = maxRoutes;
+        Gauge.builder("proxy.requests.active", activeRequests, AtomicInteger::get)
+                .description("Proxied requests currently being handled")
+                .register(meterRegistry);
+    }
+
+    //===========================================Request==========================================
+    /**
+     * Gọi khi bắt đầu xử lý một request proxy
+     * @return thời điểm bắt đầu, truyền lại cho requestCompleted()
+     */
+    public long requestStarted() {
+        activeRequests.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void requestCompleted(String route, int status, long startNanos) {
+        activeRequests.decrementAndGet();
+        route(route).record(status, System.nanoTime() - startNanos);
+    }
+
+    //==========================================Upstream==========================================
+    /**
+     * @param status HTTP status của backend, 0 nếu không nhận được response (lỗi kết nối, timeout)
+     */
+    public void upstreamCompleted(Backend backend, int status, long latencyNanos) {
+        StatusMeters meters = upstreams.get(backend.getUrl());
+        if (meters == null) {
+            meters = upstreams.computeIfAbsent(backend.getUrl(), url -> new StatusMeters(
+                    "proxy.upstream.responses", "proxy.upstream.duration", Tags.of("backend", url)));
+        }
+        meters.record(status, latencyNanos);
+    }
+
+    public void healthProbeCompleted(String url, boolean healthy, long latencyNanos) {
+        Timer[] timers = healthProbes.computeIfAbsent(url, key -> new Timer[]{
+                latencyTimer("proxy.healthcheck.duration", Tags.of("backend", key, "outcome", "up")),
+                latencyTimer("proxy.healthcheck.duration", Tags.of("backend", key, "outcome", "down"))});
+        timers[healthy ? 0 : 1].record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Xoá meter của backend đã bị xoá khỏi registry để Prometheus không giữ series cũ
+     */
+    public void removeBackend(String url) {
+        StatusMeters meters = upstreams.remove(url);
+        if (meters != null) {
+            meters.meters().forEach(meterRegistry::remove);
+        }
+        Timer[] timers = healthProbes.remove(url);
+        if (timers != null) {
+            for (Timer timer : timers) meterRegistry.remove(timer);
+        }
+    }
+
+    //============================================TCP=============================================
+    /**
+     * Timer của một action TCP (đã upper-case). Action lạ dùng chung một timer để số series có giới hạn.
+     */
+    public Timer tcpCommand(String action) {
+        Timer timer = tcpCommands.get(action);
+        if (timer != null) return timer;
+        String tag = action.isEmpty() || tcpCommands.size() >= MAX_ACTIONS ? UNKNOWN_ACTION : action;
+        return tcpCommands.computeIfAbsent(tag,
+                key -> latencyTimer("proxy.tcp.commands.duration", Tags.of("action", key)));
+    }
+
+    //==========================================Private===========================================
+    private StatusMeters route(String route) {
+        StatusMeters meters = routes.get(route);
+        if (meters != null) return meters;
+        if (routes.size() >= maxRoutes) {
+            route = OTHER_ROUTE;
+        }
+        return routes.computeIfAbsent(route, key -> new StatusMeters(
+                "proxy.requests", "proxy.requests.duration", Tags.of("route", key)));
+    }
+
+    private Timer latencyTimer(String name, Tags tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentiles(percentiles)
+                .publishPercentileHistogram(histogram)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Một timer latency + một counter cho mỗi status class, cùng tag
+     */
+    private class StatusMeters {
+        private final Timer latency;
+        private final Counter[] statuses = new Counter[STATUS_CLASSES.length];
+
+        StatusMeters(String countName, String durationName, Tags tags) {
+            this.latency = latencyTimer(durationName, tags);
+            for (int i = 0; i < STATUS_CLASSES.length; i++) {
+                statuses[i] = Counter.builder(countName)
+                        .tags(tags)
+                        .tag("status", STATUS_CLASSES[i])
+                        .register(meterRegistry);
+            }
+        }
+
+        void record(int status, long latencyNanos) {
+            int statusClass = status / 100;
+            statuses[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+            latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+
+        List<Meter> meters() {
+            List<Meter> all = new ArrayList<>(List.of(statuses));
+            all.add(latency);
+            return all;
+        }
+    }
+}
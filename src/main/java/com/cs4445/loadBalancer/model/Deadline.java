@@ -0,0 +1,36 @@
+package com.cs4445.loadBalancer.model;
+
+/**
+ * Hạn chót end-to-end của một request proxy (loadbalancer.proxy.request-timeout), tính theo System.nanoTime().
+ * Được truyền qua admission, chọn backend, kết nối và stream response: mỗi bước chờ không quá phần thời gian còn lại,
+ * hết hạn thì request đến backend bị huỷ thay vì chạy tiếp khi client đã bỏ cuộc.
+ */
+public final class Deadline {
+    //==========================================Variable==========================================
+    private final long deadlineNanos;
+
+    //=========================================Constructor=========================================
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long timeoutNanos) {
+        return new Deadline(System.nanoTime() + timeoutNanos);
+    }
+
+    //===========================================Method===========================================
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @return thời gian chờ của một bước: timeoutNanos nhưng không vượt quá thời gian còn lại, không âm
+     */
+    public long cap(long timeoutNanos) {
+        return Math.max(0L, Math.min(timeoutNanos, remainingNanos()));
+    }
+}
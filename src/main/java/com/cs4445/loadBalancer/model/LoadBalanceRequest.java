@@ -14,6 +14,10 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class LoadBalanceRequest {
 
+    public static final int PRIORITY_HIGH = 1;
+    public static final int PRIORITY_MEDIUM = 2;
+    public static final int PRIORITY_LOW = 3;
+
     private String requestId;
     private String payload;
     private int priority; // 1 = high, 2 = medium, 3 = low
@@ -1,5 +1,7 @@
 package com.cs4445.loadBalancer.model;
 
+import java.net.URI;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,4 +24,33 @@ public class ServerUrl {
     public String getUrl() {
         return dns + ":" + port;
     }
+
+    /**
+     * Tạo ServerUrl từ host và port, thêm "http://" nếu host chưa có scheme
+     */
+    public static ServerUrl of(String host, int port) {
+        if (host == null || host.isBlank()) {
+            throw new IllegalArgumentException("Server host required");
+        }
+        if (port <= 0 || port > 65535) {
+            throw new IllegalArgumentException("Invalid server port: " + port);
+        }
+        String dns = host.contains("://") ? host : "http://" + host;
+        return ServerUrl.builder().dns(dns).port(port).build();
+    }
+
+    /**
+     * Parse url dạng "http://host:port" hoặc "host:port"
+     */
+    public static ServerUrl parse(String url) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("Server URL required");
+        }
+        URI uri = URI.create(url.contains("://") ? url : "http://" + url);
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("Invalid server URL: " + url);
+        }
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equals(uri.getScheme()) ? 443 : 80);
+        return of(uri.getScheme() + "://" + uri.getHost(), port);
+    }
 }
@@ -0,0 +1,87 @@
+package com.cs4445.loadBalancer.proxy;
+
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.model.Deadline;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.CircuitBreaker.Permit;
+import com.cs4445.loadBalancer.registry.ConcurrencyLimiter;
+import com.cs4445.loadBalancer.registry.OutlierDetector;
+import com.cs4445.loadBalancer.strategy.StrategyManager;
+
+/**
+ * Chọn backend cho một lần gửi, dùng chung cho data plane servlet (ProxyApi) và reactive (ReactiveProxyServer).
+ * Backend được chọn đã được circuit breaker cho phép và đã giữ chỗ ở ConcurrencyLimiter.
+ * Kết quả là một Lease: backend kèm cờ probe cho biết lần gửi này có giữ quyền thử của HALF_OPEN không,
+ * cờ này phải được chuyển lại cho OutlierDetector khi ghi nhận kết quả hoặc trả quyền.
+ */
+@Component
+@RequiredArgsConstructor
+public class BackendSelector {
+    //==========================================Constant==========================================
+    private static final int MAX_SELECT_ATTEMPTS = 3;
+
+    //==========================================Variable==========================================
+    private final StrategyManager strategyManager;
+    private final OutlierDetector outlierDetector;
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Quyền gửi một request đến backend
+     * @param probe lần gửi này là request thử của HALF_OPEN
+     */
+    public record Lease(Backend backend, boolean probe) {
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Chọn backend theo strategy, bỏ qua các backend đã thử (retry/hedge).
+     * Khi mọi backend đều chạm concurrency limit, request đầu tiên chờ ngắn một lần để có chỗ trống.
+     * @param deadline hạn chót của request, giới hạn thời gian chờ; null thì không chờ (gọi trên event loop)
+     */
+    public Lease select(Backend[] available, List<Backend> tried, long affinityKey, Deadline deadline) {
+        if (!tried.isEmpty()) {
+            // Chỉ cấp phát khi retry/hedge, request thường đi thẳng vào strategy
+            available = Arrays.stream(available)
+                    .filter(backend -> !tried.contains(backend))
+                    .toArray(Backend[]::new);
+        }
+        Lease lease = trySelect(available, affinityKey);
+        if (lease == null && deadline != null && tried.isEmpty() && concurrencyLimiter.isSaturated(available)
+                && concurrencyLimiter.awaitCapacity(deadline)) {
+            lease = trySelect(available, affinityKey);
+        }
+        return lease;
+    }
+
+    public boolean usesAffinityKey() {
+        return strategyManager.usesAffinityKey();
+    }
+
+    //==========================================Private===========================================
+    /**
+     * Backend đang HALF_OPEN chỉ nhận một request thử, nếu bị từ chối thì chọn lại (tối đa MAX_SELECT_ATTEMPTS lần).
+     * Backend đang chạm concurrency limit bị loại khỏi danh sách rồi chọn lại (reroute).
+     */
+    private Lease trySelect(Backend[] candidates, long affinityKey) {
+        for (int attempt = 0; attempt < MAX_SELECT_ATTEMPTS; attempt++) {
+            Backend backend = strategyManager.select(candidates, affinityKey);
+            if (backend == null) return null;
+            Permit permit = outlierDetector.tryAcquire(backend);
+            if (permit == Permit.DENIED) continue;
+            boolean probe = permit == Permit.PROBE;
+            if (concurrencyLimiter.tryAcquire(backend)) return new Lease(backend, probe);
+
+            outlierDetector.release(backend, probe);
+            candidates = Arrays.stream(candidates)
+                    .filter(candidate -> candidate != backend)
+                    .toArray(Backend[]::new);
+        }
+        return null;
+    }
+}
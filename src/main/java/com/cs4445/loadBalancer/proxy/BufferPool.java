@@ -0,0 +1,35 @@
+package com.cs4445.loadBalancer.proxy;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool các byte[] kích thước cố định dùng để copy body giữa client và backend.
+ * Số buffer giữ lại có giới hạn, buffer dư được để GC thu hồi.
+ */
+public class BufferPool {
+    //==========================================Variable==========================================
+    private final int bufferSize;
+    private final ArrayBlockingQueue<byte[]> pool;
+
+    //=========================================Constructor=========================================
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    //===========================================Method===========================================
+    public byte[] acquire() {
+        byte[] buffer = pool.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    public void release(byte[] buffer) {
+        if (buffer.length == bufferSize) {
+            pool.offer(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
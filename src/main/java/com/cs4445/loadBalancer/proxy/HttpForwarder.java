@@ -0,0 +1,265 @@
+package com.cs4445.loadBalancer.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Set;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.AbstractHttpEntity;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.ConcurrencyLimiter;
+import com.cs4445.loadBalancer.registry.OutlierDetector;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Chuyển tiếp một request servlet sang backend theo kiểu streaming, chia làm 3 bước
+ * prepare / execute / relay để ProxyApi có thể retry hoặc hedge giữa các bước.
+ * Body được copy qua buffer cố định lấy từ BufferPool nên bộ nhớ mỗi request không phụ thuộc kích thước payload.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HttpForwarder {
+    //==========================================Constant==========================================
+    // Header hop-by-hop (RFC 9110 7.6.1) không được chuyển tiếp
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "proxy-connection",
+            "te", "trailer", "transfer-encoding", "upgrade", "expect");
+
+    //==========================================Variable==========================================
+    private final CloseableHttpClient proxyHttpClient;
+    private final BufferPool proxyBufferPool;
+    private final OutlierDetector outlierDetector;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final UpstreamObserver upstreamObserver;
+
+    //===========================================Method===========================================
+    /**
+     * Tạo một lần gửi request đến backend (chưa gửi).
+     * Người gọi phải lấy quyền từ OutlierDetector.tryAcquire() và ConcurrencyLimiter.tryAcquire() trước,
+     * kết quả được ghi nhận trong execute(), chỗ trên backend được trả bằng UpstreamExchange.release().
+     */
+    public UpstreamExchange prepare(BackendSelector.Lease lease, HttpServletRequest request) {
+        Backend backend = lease.backend();
+        try {
+            HttpUriRequestBase outbound = buildOutboundRequest(backend, request);
+            UpstreamExchange exchange = new UpstreamExchange(backend, lease.probe(), outbound, concurrencyLimiter);
+
+            long contentLength = request.getContentLengthLong();
+            if (contentLength > 0 || request.getHeader("Transfer-Encoding") != null) {
+                outbound.setEntity(new StreamingRequestEntity(request, contentLength, exchange));
+            }
+            return exchange;
+        } catch (RuntimeException e) {
+            // Request của client không hợp lệ, không phải lỗi của backend
+            outlierDetector.release(backend, lease.probe());
+            concurrencyLimiter.release(backend);
+            throw e;
+        }
+    }
+
+    /**
+     * Gửi request và chờ response header (blocking), kết quả được lưu trong exchange.
+     * Kết quả được ghi nhận qua UpstreamObserver, trừ khi exchange bị huỷ.
+     * @return false nếu exchange đã bị huỷ trong lúc chờ, khi đó response (nếu có) phải được dọn bởi người gọi
+     */
+    public boolean execute(UpstreamExchange exchange) {
+        Backend backend = exchange.getBackend();
+        int inflight = backend.getInflight();
+        long start = System.nanoTime();
+        ClassicHttpResponse upstream;
+        try {
+            // executeOpen: response được trả về chưa đọc body, người gọi stream rồi close
+            upstream = proxyHttpClient.executeOpen(backend.getHttpHost(), exchange.getOutbound(), null);
+        } catch (IOException | RuntimeException e) {
+            long elapsed = System.nanoTime() - start;
+            if (exchange.isCancelled()) {
+                // Bị huỷ chủ động (thua hedging), không phải lỗi của backend
+                outlierDetector.release(backend, exchange.isProbe());
+            } else {
+                upstreamObserver.onFailure(backend, exchange.isProbe(), elapsed, inflight,
+                        e instanceof InterruptedIOException);
+            }
+            IOException error = e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+            return exchange.complete(null, error, elapsed);
+        }
+
+        // Latency tính đến khi nhận được response header, không phụ thuộc kích thước body
+        long elapsed = System.nanoTime() - start;
+        upstreamObserver.onResponse(backend, exchange.isProbe(), upstream.getCode(), elapsed, inflight);
+        return exchange.complete(upstream, null, elapsed);
+    }
+
+    /**
+     * Stream response của exchange đã thành công về client
+     * @param capture nếu khác null nhận một bản sao body (VD: để lưu cache)
+     * @return HTTP status code của backend
+     * @throws IOException nếu stream bị lỗi
+     */
+    public int relay(UpstreamExchange exchange, HttpServletResponse response, OutputStream capture) throws IOException {
+        ClassicHttpResponse upstream = exchange.getResponse();
+        try {
+            response.setStatus(upstream.getCode());
+            copyResponseHeaders(upstream, response);
+
+            HttpEntity entity = upstream.getEntity();
+            if (entity != null) {
+                // Đọc đến EOF để connection được trả lại pool
+                InputStream in = entity.getContent();
+                copy(in, response.getOutputStream(), capture);
+                in.close();
+            }
+            return upstream.getCode();
+        } catch (IOException | RuntimeException e) {
+            // Huỷ để không phải đọc nốt phần body còn lại, connection sẽ bị loại khỏi pool
+            exchange.getOutbound().cancel();
+            throw e;
+        } finally {
+            upstream.close();
+        }
+    }
+
+    //==========================================Request===========================================
+    private HttpUriRequestBase buildOutboundRequest(Backend backend, HttpServletRequest request) {
+        String query = request.getQueryString();
+        String path = query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query;
+        HttpUriRequestBase outbound = new HttpUriRequestBase(request.getMethod(),
+                URI.create(backend.getUrl() + path));
+
+        String connectionHeader = request.getHeader("Connection");
+        Enumeration<String> names = request.getHeaderNames();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            if (isHopByHop(name, connectionHeader)
+                    || name.equalsIgnoreCase("host")
+                    || name.equalsIgnoreCase("content-length")) {
+                continue;
+            }
+            Enumeration<String> values = request.getHeaders(name);
+            while (values.hasMoreElements()) {
+                outbound.addHeader(name, values.nextElement());
+            }
+        }
+
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        outbound.setHeader("X-Forwarded-For", forwardedFor == null
+                ? request.getRemoteAddr()
+                : forwardedFor + ", " + request.getRemoteAddr());
+        outbound.setHeader("X-Forwarded-Proto", request.getScheme());
+        if (request.getHeader("Host") != null) {
+            outbound.setHeader("X-Forwarded-Host", request.getHeader("Host"));
+        }
+        return outbound;
+    }
+
+    //==========================================Response==========================================
+    private void copyResponseHeaders(ClassicHttpResponse upstream, HttpServletResponse response) {
+        Header connectionHeader = upstream.getFirstHeader("Connection");
+        String connection = connectionHeader == null ? null : connectionHeader.getValue();
+        for (Header header : upstream.getHeaders()) {
+            if (isHopByHop(header.getName(), connection)) continue;
+            response.addHeader(header.getName(), header.getValue());
+        }
+    }
+
+    //===========================================Helper============================================
+    public static boolean isHopByHop(String name, String connectionHeader) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (HOP_BY_HOP_HEADERS.contains(lower)) return true;
+        // Các header được liệt kê trong "Connection" cũng là hop-by-hop
+        if (connectionHeader == null) return false;
+        for (String token : connectionHeader.split(",")) {
+            if (token.trim().equalsIgnoreCase(name)) return true;
+        }
+        return false;
+    }
+
+    private void copy(InputStream in, OutputStream out) throws IOException {
+        copy(in, out, null);
+    }
+
+    private void copy(InputStream in, OutputStream out, OutputStream capture) throws IOException {
+        byte[] buffer = proxyBufferPool.acquire();
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                if (capture != null) {
+                    capture.write(buffer, 0, read);
+                }
+                // Flush khi backend chưa gửi thêm dữ liệu để client nhận được ngay (streaming/SSE)
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } finally {
+            proxyBufferPool.release(buffer);
+        }
+    }
+
+    //==========================================Entity============================================
+    /**
+     * Entity đọc thẳng từ servlet input stream, dùng buffer của pool thay vì cấp phát mới mỗi lần ghi
+     */
+    private class StreamingRequestEntity extends AbstractHttpEntity {
+        private final HttpServletRequest request;
+        private final long contentLength;
+        private final UpstreamExchange exchange;
+
+        StreamingRequestEntity(HttpServletRequest request, long contentLength, UpstreamExchange exchange) {
+            // Content-Type đã được copy từ header của client
+            super((String) null, null, contentLength < 0);
+            this.request = request;
+            this.contentLength = contentLength;
+            this.exchange = exchange;
+        }
+
+        @Override
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return request.getInputStream();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            // Từ đây body không thể gửi lại cho backend khác
+            exchange.markBodySent();
+            copy(request.getInputStream(), out);
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return true;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.cs4445.loadBalancer.proxy;
+
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.dto.response.core.ErrorResponse;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+import com.cs4445.loadBalancer.registry.ConcurrencyLimiter;
+import com.cs4445.loadBalancer.registry.OutlierDetector;
+import com.cs4445.loadBalancer.strategy.AffinityKeyResolver;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.handler.timeout.ReadTimeoutException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Data plane non-blocking (Reactor Netty) chạy song song với Tomcat trên port riêng (loadbalancer.reactive.port).
+ * Request chờ backend chậm không giữ thread nào: client và backend dùng chung event loop, body đi thẳng từ
+ * socket này sang socket kia bằng chính ByteBuf đã đọc (retain, không copy). Backpressure hai chiều: chỉ đọc
+ * thêm từ một phía khi phía kia còn ghi được (channel writable).
+ * Client ngắt kết nối hoặc request hết hạn chót (loadbalancer.proxy.request-timeout) thì request đến backend bị huỷ
+ * và connection upstream bị đóng.
+ * Dùng chung strategy, circuit breaker, concurrency limit và metrics với data plane servlet.
+ * Không có: admission queue, rate limit, response cache/coalescing và hedging (đều chờ blocking trên servlet thread);
+ * khi mọi backend chạm concurrency limit, request nhận 503 ngay thay vì chờ. API quản trị (/api/lb/**, actuator)
+ * vẫn chỉ ở server.port.
+ */
+@Component
+@Slf4j
+public class ReactiveProxyServer {
+    //==========================================Constant==========================================
+    private static final Set<Class<? extends Throwable>> CONNECT_FAILURES = Set.of(
+            ConnectException.class, UnknownHostException.class);
+
+    //==========================================Variable==========================================
+    private final BackendRegistry backendRegistry;
+    private final BackendSelector backendSelector;
+    private final AffinityKeyResolver affinityKeyResolver;
+    private final UpstreamObserver upstreamObserver;
+    private final OutlierDetector outlierDetector;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final ProxyMetrics proxyMetrics;
+    private final ObjectMapper objectMapper;
+    private final RetryBudget retryBudget;
+
+    private final boolean enabled;
+    private final int port;
+    private final int maxConnectionsPerBackend;
+    private final int pendingAcquireMax;
+    private final long connectTimeoutMs;
+    private final long responseTimeoutMs;
+    private final long idleTimeoutMs;
+    private final Duration requestTimeout;
+    private final int maxRetries;
+
+    private ConnectionProvider connectionProvider;
+    private HttpClient httpClient;
+    private DisposableServer server;
+
+    //=========================================Constructor=========================================
+    public ReactiveProxyServer(BackendRegistry backendRegistry, BackendSelector backendSelector,
+                               AffinityKeyResolver affinityKeyResolver, UpstreamObserver upstreamObserver,
+                               OutlierDetector outlierDetector, ConcurrencyLimiter concurrencyLimiter,
+                               ProxyMetrics proxyMetrics, ObjectMapper objectMapper,
+                               @Value("${loadbalancer.reactive.enabled:false}") boolean enabled,
+                               @Value("${loadbalancer.reactive.port:8090}") int port,
+                               @Value("${loadbalancer.reactive.max-connections-per-backend:1024}") int maxConnectionsPerBackend,
+                               @Value("${loadbalancer.reactive.pending-acquire-max:10000}") int pendingAcquireMax,
+                               @Value("${loadbalancer.proxy.connect-timeout:2000}") long connectTimeoutMs,
+                               @Value("${loadbalancer.proxy.response-timeout:30000}") long responseTimeoutMs,
+                               @Value("${loadbalancer.proxy.idle-timeout:30000}") long idleTimeoutMs,
+                               @Value("${loadbalancer.proxy.request-timeout:30000}") long requestTimeoutMs,
+                               @Value("${loadbalancer.proxy.retry.max-retries:2}") int maxRetries,
+                               @Value("${loadbalancer.proxy.retry.budget-percent:10}") int budgetPercent,
+                               @Value("${loadbalancer.proxy.retry.min-per-second:5}") int minPerSecond) {
+        this.backendRegistry = backendRegistry;
+        this.backendSelector = backendSelector;
+        this.affinityKeyResolver = affinityKeyResolver;
+        this.upstreamObserver = upstreamObserver;
+        this.outlierDetector = outlierDetector;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.proxyMetrics = proxyMetrics;
+        this.objectMapper = objectMapper;
+        this.retryBudget = new RetryBudget(budgetPercent, minPerSecond);
+        this.enabled = enabled;
+        this.port = port;
+        this.maxConnectionsPerBackend = maxConnectionsPerBackend;
+        this.pendingAcquireMax = pendingAcquireMax;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.responseTimeoutMs = responseTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.maxRetries = maxRetries;
+    }
+
+    //===========================================Lifecycle==========================================
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        // Một pool riêng cho mỗi backend (theo địa chỉ), request chờ connection không block thread
+        connectionProvider = ConnectionProvider.builder("reactive-proxy")
+                .maxConnections(maxConnectionsPerBackend)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofMillis(connectTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(idleTimeoutMs))
+                .build();
+        // Proxy trong suốt: không tự redirect, retry hay giải nén (mặc định của Reactor Netty)
+        httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        server = HttpServer.create()
+                .port(port)
+                .idleTimeout(Duration.ofMillis(idleTimeoutMs))
+                .handle(this::handle)
+                .bindNow();
+        log.info("Reactive proxy listening on port {}", server.port());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+
+    //===========================================Method===========================================
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return port đang lắng nghe (port thật khi cấu hình port=0), -1 nếu không bật
+     */
+    public int getPort() {
+        return server == null ? -1 : server.port();
+    }
+
+    //===========================================Handler===========================================
+    /**
+     * Chạy trên event loop: không được block (không chờ admission, không chờ concurrency limit)
+     */
+    private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+        long start = proxyMetrics.requestStarted();
+        String route = UpstreamInvoker.routeOf(pathOf(request.uri()));
+        HttpHeaders headers = request.requestHeaders();
+        String contentLength = headers.get(HttpHeaderNames.CONTENT_LENGTH);
+        boolean hasBody = (contentLength != null && !"0".equals(contentLength))
+                || headers.contains(HttpHeaderNames.TRANSFER_ENCODING);
+
+        // Đọc snapshot health đã được refresh nền, không gọi /server/health ở đây
+        Backend[] available = backendRegistry.getSnapshot().getAvailable();
+        long affinityKey = backendSelector.usesAffinityKey() ? resolveAffinityKey(request) : 0L;
+        retryBudget.deposit();
+
+        return forward(request, response, hasBody, available, new ArrayList<>(2), affinityKey)
+                // Hết hạn thì huỷ cả chuỗi: đang chờ connection, chờ response hay đang stream body
+                .timeout(requestTimeout)
+                .onErrorResume(error -> {
+                    log.warn("Failed to forward {} {}: {}", request.method(), request.uri(), error.toString());
+                    if (response.hasSentHeaders()) {
+                        // Đã stream một phần response, chỉ còn cách đóng connection
+                        return Mono.error(error);
+                    }
+                    if (error instanceof TimeoutException) {
+                        return writeError(response, HttpResponseStatus.GATEWAY_TIMEOUT, "Request deadline exceeded");
+                    }
+                    return writeError(response, HttpResponseStatus.BAD_GATEWAY,
+                            "Failed to forward request: " + error.getMessage());
+                })
+                .doFinally(signal -> proxyMetrics.requestCompleted(route,
+                        signal == SignalType.ON_COMPLETE ? response.status().code() : 0,
+                        start));
+    }
+
+    /**
+     * Gửi đến một backend và stream response về client. Lỗi kết nối (request chưa đến backend) với request
+     * không có body được gửi lại sang backend khác, tối đa max-retries lần và trong giới hạn RetryBudget.
+     */
+    private Mono<Void> forward(HttpServerRequest request, HttpServerResponse response, boolean hasBody,
+                               Backend[] available, List<Backend> tried, long affinityKey) {
+        BackendSelector.Lease lease = backendSelector.select(available, tried, affinityKey, null);
+        if (lease == null) {
+            return writeError(response, HttpResponseStatus.SERVICE_UNAVAILABLE, "No healthy server available");
+        }
+        Backend backend = lease.backend();
+        boolean probe = lease.probe();
+        tried.add(backend);
+
+        int inflight = backend.getInflight();
+        long start = System.nanoTime();
+        // Kết quả của lần gửi chỉ được ghi nhận một lần: response, lỗi hoặc bị huỷ
+        AtomicBoolean observed = new AtomicBoolean();
+
+        HttpClient.RequestSender sender = httpClient
+                .headers(outbound -> copyRequestHeaders(request, outbound))
+                .request(request.method())
+                .uri(backend.getUrl() + request.uri());
+        HttpClient.ResponseReceiver<?> receiver = hasBody
+                ? sender.send((outbound, out) -> out.send(request.receive().retain()))
+                : sender;
+
+        return receiver
+                .response((upstream, body) -> {
+                    // Latency tính đến khi nhận được response header, không phụ thuộc kích thước body
+                    if (observed.compareAndSet(false, true)) {
+                        upstreamObserver.onResponse(backend, probe, upstream.status().code(),
+                                System.nanoTime() - start, inflight);
+                    }
+                    response.status(upstream.status());
+                    copyResponseHeaders(upstream, response);
+                    return response.send(body.retain());
+                })
+                .then()
+                .doOnError(error -> {
+                    if (observed.compareAndSet(false, true)) {
+                        upstreamObserver.onFailure(backend, probe, System.nanoTime() - start, inflight,
+                                isTimeout(error));
+                    }
+                })
+                .doFinally(signal -> {
+                    if (observed.compareAndSet(false, true)) {
+                        // Client ngắt kết nối trước khi backend trả lời, không phải lỗi của backend
+                        outlierDetector.release(backend, probe);
+                    }
+                    concurrencyLimiter.release(backend);
+                })
+                .onErrorResume(error -> {
+                    if (hasBody || !isConnectFailure(error) || tried.size() > maxRetries || !retryBudget.tryWithdraw()) {
+                        return Mono.error(error);
+                    }
+                    log.debug("Retrying {} {} after connect failure on {}", request.method(), request.uri(), backend);
+                    return forward(request, response, false, available, tried, affinityKey);
+                });
+    }
+
+    //===========================================Headers==========================================
+    private static void copyRequestHeaders(HttpServerRequest request, HttpHeaders outbound) {
+        HttpHeaders inbound = request.requestHeaders();
+        String connection = inbound.get(HttpHeaderNames.CONNECTION);
+        for (Map.Entry<String, String> header : inbound) {
+            String name = header.getKey();
+            if (HttpForwarder.isHopByHop(name, connection) || name.equalsIgnoreCase("host")) continue;
+            outbound.add(name, header.getValue());
+        }
+
+        String remoteAddr = remoteAddrOf(request);
+        String forwardedFor = inbound.get("X-Forwarded-For");
+        outbound.set("X-Forwarded-For", forwardedFor == null ? remoteAddr : forwardedFor + ", " + remoteAddr);
+        outbound.set("X-Forwarded-Proto", request.scheme());
+        String host = inbound.get(HttpHeaderNames.HOST);
+        if (host != null) {
+            outbound.set("X-Forwarded-Host", host);
+        }
+    }
+
+    private static void copyResponseHeaders(HttpClientResponse upstream, HttpServerResponse response) {
+        HttpHeaders inbound = upstream.responseHeaders();
+        String connection = inbound.get(HttpHeaderNames.CONNECTION);
+        for (Map.Entry<String, String> header : inbound) {
+            if (HttpForwarder.isHopByHop(header.getKey(), connection)) continue;
+            response.addHeader(header.getKey(), header.getValue());
+        }
+    }
+
+    //===========================================Helper============================================
+    private long resolveAffinityKey(HttpServerRequest request) {
+        return affinityKeyResolver.resolve(
+                name -> request.requestHeaders().get(name),
+                name -> {
+                    Set<Cookie> cookies = request.cookies().get(name);
+                    return cookies == null || cookies.isEmpty() ? null : cookies.iterator().next().value();
+                },
+                remoteAddrOf(request));
+    }
+
+    private Mono<Void> writeError(HttpServerResponse response, HttpResponseStatus status, String message) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(ErrorResponse.builder()
+                    .message(message)
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        return response.status(status)
+                .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(body.length))
+                .sendByteArray(Mono.just(body))
+                .then();
+    }
+
+    private static String pathOf(String uri) {
+        int query = uri.indexOf('?');
+        return query < 0 ? uri : uri.substring(0, query);
+    }
+
+    private static String remoteAddrOf(HttpServerRequest request) {
+        InetSocketAddress remote = request.remoteAddress();
+        return remote == null || remote.getAddress() == null ? "" : remote.getAddress().getHostAddress();
+    }
+
+    private static boolean isConnectFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Throwable> type : CONNECT_FAILURES) {
+                if (type.isInstance(cause)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        return error instanceof ReadTimeoutException
+                || error instanceof TimeoutException
+                || error instanceof ConnectTimeoutException;
+    }
+}
@@ -0,0 +1,75 @@
+package com.cs4445.loadBalancer.proxy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giới hạn số request phụ (retry + hedge) theo tỉ lệ phần trăm traffic, kiểu Finagle RetryBudget.
+ * Mỗi request gốc nạp percent/100 token, mỗi request phụ tiêu 1 token; ngoài ra luôn có
+ * minPerSecond token mỗi giây để traffic thấp vẫn retry được. Khi backend quá tải và lỗi hàng loạt,
+ * budget cạn nên retry/hedge không nhân tải lên thêm.
+ */
+public class RetryBudget {
+    //==========================================Constant==========================================
+    // Token được lưu dưới dạng số nguyên nhân với SCALE để nạp được phần lẻ
+    private static final long SCALE = 100L;
+
+    //==========================================Variable==========================================
+    private final long depositPerRequest;
+    private final long reservePerSecond;
+    private final long maxBalance;
+    private final AtomicLong balance = new AtomicLong();
+    private final AtomicLong lastRefillSecond = new AtomicLong();
+
+    //=========================================Constructor=========================================
+    public RetryBudget(int percent, int minPerSecond) {
+        this.depositPerRequest = Math.max(0, percent);
+        this.reservePerSecond = Math.max(0, minPerSecond) * SCALE;
+        // Tích luỹ tối đa ~10s reserve hoặc 100 request phụ, để burst sau khoảng lặng không quá lớn
+        this.maxBalance = Math.max(reservePerSecond * 10, 100 * SCALE);
+        this.lastRefillSecond.set(System.currentTimeMillis() / 1000L);
+        this.balance.set(reservePerSecond);
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Gọi một lần cho mỗi request gốc
+     */
+    public void deposit() {
+        refill();
+        add(depositPerRequest);
+    }
+
+    /**
+     * @return true nếu còn budget cho một request phụ
+     */
+    public boolean tryWithdraw() {
+        refill();
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) return false;
+            if (balance.compareAndSet(current, current - SCALE)) return true;
+        }
+    }
+
+    public double getBalance() {
+        return balance.get() / (double) SCALE;
+    }
+
+    //==========================================Private===========================================
+    private void refill() {
+        long second = System.currentTimeMillis() / 1000L;
+        long last = lastRefillSecond.get();
+        if (second > last && lastRefillSecond.compareAndSet(last, second)) {
+            add(Math.min(second - last, 10L) * reservePerSecond);
+        }
+    }
+
+    private void add(long amount) {
+        if (amount == 0) return;
+        while (true) {
+            long current = balance.get();
+            long next = Math.min(maxBalance, current + amount);
+            if (next == current || balance.compareAndSet(current, next)) return;
+        }
+    }
+}
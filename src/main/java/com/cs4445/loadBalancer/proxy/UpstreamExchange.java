@@ -0,0 +1,148 @@
+package com.cs4445.loadBalancer.proxy;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.ConcurrencyLimiter;
+
+import lombok.Getter;
+
+/**
+ * Một lần gửi request đến một backend (request gốc, retry hoặc hedge).
+ * Khi có nhiều lần gửi song song (hedging), đúng một lần thắng và được stream về client;
+ * các lần còn lại bị huỷ. Trạng thái RUNNING -> DONE/CANCELLED đổi bằng CAS nên response
+ * của lần thua luôn được đóng đúng một lần dù huỷ và hoàn thành xảy ra đồng thời.
+ */
+public class UpstreamExchange {
+    //==========================================Constant==========================================
+    private static final int RUNNING = 0;
+    private static final int DONE = 1;
+    private static final int CANCELLED = 2;
+
+    //==========================================Variable==========================================
+    @Getter
+    private final Backend backend;
+    // Lần gửi giữ quyền thử của HALF_OPEN, kết quả của nó quyết định breaker đóng hay eject lại
+    @Getter
+    private final boolean probe;
+    @Getter
+    private final HttpUriRequestBase outbound;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    @Getter
+    private volatile ClassicHttpResponse response;
+    @Getter
+    private volatile IOException error;
+    @Getter
+    private volatile long latencyNanos;
+    private volatile boolean bodySent;
+    private volatile boolean expired;
+    private volatile ScheduledFuture<?> deadlineTimer;
+
+    //=========================================Constructor=========================================
+    UpstreamExchange(Backend backend, boolean probe, HttpUriRequestBase outbound,
+                     ConcurrencyLimiter concurrencyLimiter) {
+        this.backend = backend;
+        this.probe = probe;
+        this.outbound = outbound;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    //===========================================Method===========================================
+    public boolean isSucceeded() {
+        return response != null;
+    }
+
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    /**
+     * Bị huỷ vì request hết hạn chót (đang kết nối, chờ response hoặc đang stream body)
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Body của client đã bắt đầu được gửi đi, không thể gửi lại lần nữa
+     */
+    public boolean isBodySent() {
+        return bodySent;
+    }
+
+    /**
+     * Huỷ lần gửi đang chạy. Nếu nó đã hoàn thành thì đóng response (lần thua của hedging).
+     */
+    public void cancel() {
+        if (state.compareAndSet(RUNNING, CANCELLED)) {
+            outbound.cancel();
+        } else {
+            discard();
+        }
+    }
+
+    /**
+     * Trả lại chỗ trên backend (ConcurrencyLimiter.tryAcquire khi chọn backend), gọi nhiều lần chỉ có tác dụng một lần
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            ScheduledFuture<?> timer = deadlineTimer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            concurrencyLimiter.release(backend);
+        }
+    }
+
+    /**
+     * Đóng response không dùng đến, connection không được trả về pool vì body chưa đọc hết
+     */
+    public void discard() {
+        ClassicHttpResponse current = response;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // connection sẽ bị đóng, không cần xử lý
+            }
+        }
+    }
+
+    //==========================================Internal==========================================
+    void markBodySent() {
+        bodySent = true;
+    }
+
+    void setDeadlineTimer(ScheduledFuture<?> deadlineTimer) {
+        this.deadlineTimer = deadlineTimer;
+    }
+
+    /**
+     * Hết hạn chót: abort request (lease connection, connect, chờ response hoặc đọc body), lỗi được trả về
+     * cho thread đang block trên request đó. Không đổi state nên lần gửi vẫn được ghi nhận là timeout của backend.
+     */
+    void expire() {
+        if (released.get()) return;
+        expired = true;
+        outbound.cancel();
+    }
+
+    /**
+     * @return false nếu lần gửi đã bị huỷ trước khi hoàn thành, người gọi phải tự dọn response
+     */
+    boolean complete(ClassicHttpResponse response, IOException error, long latencyNanos) {
+        this.response = response;
+        this.error = error;
+        this.latencyNanos = latencyNanos;
+        return state.compareAndSet(RUNNING, DONE);
+    }
+}
@@ -0,0 +1,298 @@
+package com.cs4445.loadBalancer.proxy;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.metrics.LatencyHistogram;
+import com.cs4445.loadBalancer.model.Deadline;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.ConcurrencyLimiter;
+import com.cs4445.loadBalancer.registry.OutlierDetector;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gửi request đến backend kèm retry và hedging:
+ * - Retry: không kết nối được backend (request chưa đến backend) thì gửi lại sang backend khác,
+ *   tối đa max-retries lần và chỉ khi body của client chưa bị đọc
+ * - Hedging: GET/HEAD không body chờ quá p95 latency của route mà chưa có response thì gửi thêm
+ *   một request song song sang backend khác, lấy response đến trước và huỷ request còn lại
+ * Mọi request phụ đều tiêu RetryBudget nên tổng số request phụ bị giới hạn theo % traffic.
+ * Mọi lần gửi (kể cả hedge) bị huỷ khi request hết hạn chót, không lần gửi nào sống lâu hơn request đã tạo ra nó.
+ * Route = segment đầu tiên của path (VD: /api/users/1 -> /api).
+ */
+@Component
+@Slf4j
+public class UpstreamInvoker {
+    //==========================================Constant==========================================
+    // Giới hạn số route có histogram riêng, route mới hơn dùng chung một histogram
+    private static final int MAX_ROUTES = 256;
+    private static final String OTHER_ROUTE = "*";
+    private static final long HISTOGRAM_WINDOW_MILLIS = 30_000L;
+
+    //==========================================Variable==========================================
+    private final HttpForwarder httpForwarder;
+    private final OutlierDetector outlierDetector;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final RetryBudget retryBudget;
+    private final int maxRetries;
+    private final boolean hedgeEnabled;
+    private final long hedgeMinDelayNanos;
+    private final long hedgeMinSamples;
+    private final double hedgePercentile;
+    private final ConcurrentHashMap<String, LatencyHistogram> routeLatencies = new ConcurrentHashMap<>();
+    // Một platform thread huỷ các lần gửi hết hạn; timer được gỡ khỏi hàng ngay khi exchange được release
+    private final ScheduledThreadPoolExecutor deadlineTimer = new ScheduledThreadPoolExecutor(1,
+            Thread.ofPlatform().daemon().name("proxy-deadline").factory());
+
+    //=========================================Constructor=========================================
+    public UpstreamInvoker(HttpForwarder httpForwarder, OutlierDetector outlierDetector,
+                           ConcurrencyLimiter concurrencyLimiter,
+                           @Value("${loadbalancer.proxy.retry.max-retries:2}") int maxRetries,
+                           @Value("${loadbalancer.proxy.retry.budget-percent:10}") int budgetPercent,
+                           @Value("${loadbalancer.proxy.retry.min-per-second:5}") int minPerSecond,
+                           @Value("${loadbalancer.proxy.hedge.enabled:true}") boolean hedgeEnabled,
+                           @Value("${loadbalancer.proxy.hedge.min-delay:5}") long hedgeMinDelayMs,
+                           @Value("${loadbalancer.proxy.hedge.min-samples:50}") long hedgeMinSamples,
+                           @Value("${loadbalancer.proxy.hedge.percentile:95}") double hedgePercentile) {
+        this.httpForwarder = httpForwarder;
+        this.outlierDetector = outlierDetector;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.retryBudget = new RetryBudget(budgetPercent, minPerSecond);
+        this.maxRetries = maxRetries;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeMinDelayNanos = TimeUnit.MILLISECONDS.toNanos(hedgeMinDelayMs);
+        this.hedgeMinSamples = hedgeMinSamples;
+        this.hedgePercentile = hedgePercentile;
+        this.deadlineTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlineTimer.shutdownNow();
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Gửi request đến backend do selector chọn. Selector nhận danh sách backend đã thử và phải trả về
+     * lease của backend khác (đã xin phép OutlierDetector và giữ chỗ ở ConcurrencyLimiter), hoặc null nếu không còn backend nào.
+     * @return exchange thắng (đã có response) hoặc exchange lỗi cuối cùng; null nếu không chọn được backend.
+     *         Người gọi phải gọi release() sau khi dùng xong.
+     * @param customizer nếu khác null được áp dụng cho mọi request gửi đi (VD: thêm If-None-Match khi revalidate cache)
+     * @param deadline hạn chót của request, lần gửi chưa xong (kể cả đang stream body) bị huỷ khi hết hạn
+     */
+    public UpstreamExchange invoke(HttpServletRequest request, Function<List<Backend>, BackendSelector.Lease> selector,
+                                   Consumer<HttpUriRequestBase> customizer, Deadline deadline) throws IOException {
+        retryBudget.deposit();
+        List<Backend> tried = new ArrayList<>(2);
+        BackendSelector.Lease first = selector.apply(tried);
+        if (first == null) return null;
+
+        LatencyHistogram latency = routeLatency(request);
+        long hedgeDelayNanos = hedgeDelayNanos(request, latency);
+        UpstreamExchange result = hedgeDelayNanos > 0
+                ? invokeHedged(request, first, tried, selector, customizer, deadline, hedgeDelayNanos)
+                : invokeSequential(request, first, tried, selector, customizer, deadline);
+
+        if (result.isSucceeded()) {
+            latency.record(result.getLatencyNanos());
+        }
+        return result;
+    }
+
+    public double getRetryBudgetBalance() {
+        return retryBudget.getBalance();
+    }
+
+    //==========================================Private===========================================
+    private UpstreamExchange invokeSequential(HttpServletRequest request, BackendSelector.Lease lease,
+                                              List<Backend> tried,
+                                              Function<List<Backend>, BackendSelector.Lease> selector,
+                                              Consumer<HttpUriRequestBase> customizer, Deadline deadline) {
+        int retries = 0;
+        while (true) {
+            UpstreamExchange exchange = start(lease, request, tried, customizer, deadline);
+            httpForwarder.execute(exchange);
+            if (exchange.isSucceeded() || retries >= maxRetries || !isRetryable(exchange) || deadline.isExpired()) {
+                return exchange;
+            }
+
+            BackendSelector.Lease next = selectExtra(tried, selector);
+            if (next == null) return exchange;
+            exchange.release();
+            retries++;
+            log.debug("Retrying {} {} on {} after connect failure to {}: {}", request.getMethod(),
+                    request.getRequestURI(), next.backend(), lease.backend(), exchange.getError().getMessage());
+            lease = next;
+        }
+    }
+
+    /**
+     * Tạo exchange cho backend đã chọn và hẹn huỷ nó lúc hết hạn chót,
+     * chỗ trên backend (và timer) được trả lại bằng UpstreamExchange.release()
+     */
+    private UpstreamExchange start(BackendSelector.Lease lease, HttpServletRequest request, List<Backend> tried,
+                                   Consumer<HttpUriRequestBase> customizer, Deadline deadline) {
+        tried.add(lease.backend());
+        UpstreamExchange exchange = httpForwarder.prepare(lease, request);
+        if (customizer != null) {
+            customizer.accept(exchange.getOutbound());
+        }
+        exchange.setDeadlineTimer(deadlineTimer.schedule(exchange::expire,
+                Math.max(0L, deadline.remainingNanos()), TimeUnit.NANOSECONDS));
+        return exchange;
+    }
+
+    /**
+     * Chọn backend cho request phụ (retry/hedge), null nếu không còn backend hoặc hết budget
+     */
+    private BackendSelector.Lease selectExtra(List<Backend> tried,
+                                              Function<List<Backend>, BackendSelector.Lease> selector) {
+        BackendSelector.Lease next = selector.apply(tried);
+        if (next == null) return null;
+        if (!retryBudget.tryWithdraw()) {
+            outlierDetector.release(next.backend(), next.probe());
+            concurrencyLimiter.release(next.backend());
+            log.debug("Retry budget exhausted, not sending extra request to {}", next.backend());
+            return null;
+        }
+        return next;
+    }
+
+    /**
+     * Chỉ retry khi request chắc chắn chưa đến backend (lỗi kết nối) và body của client chưa bị đọc
+     */
+    private static boolean isRetryable(UpstreamExchange exchange) {
+        IOException error = exchange.getError();
+        boolean connectFailure = error instanceof ConnectException
+                || error instanceof ConnectTimeoutException
+                || error instanceof NoRouteToHostException
+                || error instanceof UnknownHostException;
+        return connectFailure && !exchange.isBodySent() && !exchange.isCancelled();
+    }
+
+    //==========================================Hedging===========================================
+    /**
+     * @return thời gian chờ trước khi hedge (nanoseconds), 0 nếu request này không được hedge
+     */
+    private long hedgeDelayNanos(HttpServletRequest request, LatencyHistogram latency) {
+        if (!hedgeEnabled) return 0L;
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) return 0L;
+        if (request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null) return 0L;
+        if (latency.getCount() < hedgeMinSamples) return 0L;
+        return Math.max(hedgeMinDelayNanos, latency.getPercentileNanos(hedgePercentile));
+    }
+
+    private UpstreamExchange invokeHedged(HttpServletRequest request, BackendSelector.Lease first,
+                                          List<Backend> tried,
+                                          Function<List<Backend>, BackendSelector.Lease> selector,
+                                          Consumer<HttpUriRequestBase> customizer, Deadline deadline,
+                                          long hedgeDelayNanos) throws IOException {
+        BlockingQueue<UpstreamExchange> completed = new LinkedBlockingQueue<>();
+        List<UpstreamExchange> launched = new ArrayList<>(2);
+        launch(start(first, request, tried, customizer, deadline), launched, completed);
+
+        long hedgeAt = System.nanoTime() + hedgeDelayNanos;
+        boolean hedged = false;
+        int pending = 1;
+        int retries = 0;
+        UpstreamExchange result = null;
+        UpstreamExchange lastFailure = null;
+        try {
+            while (pending > 0) {
+                UpstreamExchange exchange = hedged
+                        ? completed.take()
+                        : completed.poll(hedgeAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (exchange == null) {
+                    // Quá ngưỡng latency mà chưa có response: gửi thêm một request sang backend khác
+                    hedged = true;
+                    BackendSelector.Lease next = deadline.isExpired() ? null : selectExtra(tried, selector);
+                    if (next != null) {
+                        log.debug("Hedging {} {} to {}", request.getMethod(), request.getRequestURI(), next.backend());
+                        launch(start(next, request, tried, customizer, deadline), launched, completed);
+                        pending++;
+                    }
+                    continue;
+                }
+
+                pending--;
+                if (exchange.isSucceeded()) {
+                    result = exchange;
+                    return result;
+                }
+                if (lastFailure != null) lastFailure.release();
+                lastFailure = exchange;
+                if (retries < maxRetries && isRetryable(exchange) && !deadline.isExpired()) {
+                    BackendSelector.Lease next = selectExtra(tried, selector);
+                    if (next != null) {
+                        launch(start(next, request, tried, customizer, deadline), launched, completed);
+                        pending++;
+                        retries++;
+                    }
+                }
+            }
+            result = lastFailure;
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for upstream response");
+        } finally {
+            // Huỷ các request còn lại, response đến muộn được đóng bởi thread của request đó
+            for (UpstreamExchange other : launched) {
+                if (other != result) {
+                    other.cancel();
+                    other.release();
+                }
+            }
+        }
+    }
+
+    private void launch(UpstreamExchange exchange, List<UpstreamExchange> launched,
+                        BlockingQueue<UpstreamExchange> completed) {
+        launched.add(exchange);
+        Thread.ofVirtual().name("upstream-" + exchange.getBackend().getUrl()).start(() -> {
+            if (httpForwarder.execute(exchange)) {
+                completed.add(exchange);
+            } else {
+                // Đã bị huỷ trong lúc chờ response
+                exchange.discard();
+            }
+        });
+    }
+
+    private LatencyHistogram routeLatency(HttpServletRequest request) {
+        String route = routeOf(request.getRequestURI());
+        LatencyHistogram latency = routeLatencies.get(route);
+        if (latency != null) return latency;
+        if (routeLatencies.size() >= MAX_ROUTES) {
+            route = OTHER_ROUTE;
+        }
+        return routeLatencies.computeIfAbsent(route, key -> new LatencyHistogram(HISTOGRAM_WINDOW_MILLIS));
+    }
+
+    public static String routeOf(String path) {
+        if (path == null || path.length() <= 1) return "/";
+        int end = path.indexOf('/', 1);
+        return end < 0 ? path : path.substring(0, end);
+    }
+}
@@ -0,0 +1,55 @@
+package com.cs4445.loadBalancer.proxy;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.ConcurrencyLimiter;
+import com.cs4445.loadBalancer.registry.OutlierDetector;
+
+/**
+ * Ghi nhận kết quả một lần gửi đến backend cho mọi thành phần học từ traffic proxy:
+ * PEAK_EWMA, LoadRecorder, circuit breaker, concurrency limit và ProxyMetrics.
+ * Dùng chung cho data plane servlet (HttpForwarder) và reactive (ReactiveProxyServer).
+ * Lần gửi bị huỷ chủ động (thua hedging, client ngắt kết nối) không được ghi nhận, người gọi chỉ trả quyền
+ * bằng OutlierDetector.release().
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamObserver {
+    //==========================================Constant==========================================
+    // Latency ghi nhận khi không kết nối được backend, để backend lỗi không trông "nhanh" với PEAK_EWMA
+    private static final long FAILURE_PENALTY_NANOS = 1_000_000_000L;
+
+    //==========================================Variable==========================================
+    private final OutlierDetector outlierDetector;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final ProxyMetrics proxyMetrics;
+
+    //===========================================Method===========================================
+    /**
+     * @param probe lần gửi là request thử của HALF_OPEN (BackendSelector.Lease.probe)
+     * @param elapsedNanos thời gian đến khi nhận được response header
+     * @param inflight số request in-flight của backend lúc bắt đầu gửi
+     */
+    public void onResponse(Backend backend, boolean probe, int status, long elapsedNanos, int inflight) {
+        backend.getLatency().observe(elapsedNanos);
+        backend.getLoad().record(elapsedNanos, status >= 500);
+        outlierDetector.onResponse(backend, status, probe);
+        concurrencyLimiter.onSample(backend, elapsedNanos, inflight, false);
+        proxyMetrics.upstreamCompleted(backend, status, elapsedNanos);
+    }
+
+    /**
+     * Không kết nối được, timeout hoặc kết nối bị đóng trước khi có response header
+     */
+    public void onFailure(Backend backend, boolean probe, long elapsedNanos, int inflight, boolean timeout) {
+        backend.getLatency().observe(Math.max(elapsedNanos, FAILURE_PENALTY_NANOS));
+        backend.getLoad().record(elapsedNanos, true);
+        outlierDetector.onFailure(backend, timeout, probe);
+        concurrencyLimiter.onSample(backend, elapsedNanos, inflight, true);
+        proxyMetrics.upstreamCompleted(backend, 0, elapsedNanos);
+    }
+}
@@ -0,0 +1,68 @@
+package com.cs4445.loadBalancer.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+
+/**
+ * Một mức giới hạn: rate request/giây, cho phép dồn tối đa burst request liên tiếp.
+ * Token bucket được cài theo GCRA: trạng thái của mỗi key chỉ là một AtomicLong
+ * (thời điểm bucket đầy trở lại - theoretical arrival time), cập nhật bằng CAS, không lock.
+ * Object bất biến, đổi limit lúc runtime bằng cách thay object.
+ */
+@Getter
+public class RateLimit {
+    //==========================================Constant==========================================
+    public static final RateLimit UNLIMITED = new RateLimit(0, 0);
+
+    //==========================================Variable==========================================
+    private final double rate;
+    private final int burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    //=========================================Constructor=========================================
+    /**
+     * @param rate  request/giây, <= 0 là không giới hạn
+     * @param burst số request dồn tối đa, <= 0 thì lấy bằng rate (ít nhất 1)
+     */
+    public RateLimit(double rate, int burst) {
+        this.rate = Math.max(0, rate);
+        this.burst = burst > 0 ? burst : (int) Math.max(1, Math.ceil(this.rate));
+        this.intervalNanos = this.rate > 0 ? Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / this.rate)) : 0L;
+        this.toleranceNanos = intervalNanos * this.burst;
+    }
+
+    //===========================================Method===========================================
+    public boolean isUnlimited() {
+        return intervalNanos == 0L;
+    }
+
+    /**
+     * Trạng thái ban đầu của một key: bucket đầy
+     */
+    public static AtomicLong newState() {
+        return new AtomicLong(Long.MIN_VALUE);
+    }
+
+    /**
+     * Lấy một token từ bucket
+     * @return 0 nếu được phép, ngược lại là số nano giây phải chờ đến khi có token
+     */
+    public long tryAcquire(AtomicLong state, long nowNanos) {
+        if (isUnlimited()) return 0L;
+        while (true) {
+            long tat = state.get();
+            long next = Math.max(tat, nowNanos) + intervalNanos;
+            long allowAt = next - toleranceNanos;
+            if (allowAt > nowNanos) return allowAt - nowNanos;
+            if (state.compareAndSet(tat, next)) return 0L;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isUnlimited() ? "unlimited" : rate + "/s burst " + burst;
+    }
+}
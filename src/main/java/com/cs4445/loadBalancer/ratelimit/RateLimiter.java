@@ -0,0 +1,181 @@
+package com.cs4445.loadBalancer.ratelimit;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.proxy.UpstreamInvoker;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rate limit request proxy theo hai scope, request phải qua cả hai:
+ * - CLIENT: theo IP client. API key (header, mặc định X-API-Key) chỉ được dùng làm key riêng khi nằm trong
+ *   trusted-api-keys hoặc đã có limit riêng; key lạ bị tính cả limit theo IP lẫn limit mặc định của key,
+ *   nên client không thể đổi key liên tục để né limit hay làm đầy cache bucket
+ * - ROUTE: theo segment đầu tiên của path (VD: /api/users/1 -> /api)
+ * Mỗi scope có một limit mặc định và limit riêng cho từng key, đổi được lúc runtime (TCP SET_RATE_LIMIT).
+ * Bucket của các key nằm trong Caffeine cache giới hạn số key (max-keys) và tự xoá key không dùng
+ * sau idle-timeout, nên bộ nhớ không tăng theo số client. Request được phép chỉ tốn một lookup và một CAS, không lock.
+ * Metrics: proxy.ratelimit.rejected, proxy.ratelimit.keys (tag scope)
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+    //==========================================Constant==========================================
+    public enum Scope { CLIENT, ROUTE }
+
+    // Bucket của API key chưa tin cậy tách khỏi bucket theo IP (key "10.0.0.1" không được dùng bucket của IP đó)
+    private static final String UNTRUSTED_KEY_PREFIX = "key:";
+
+    //==========================================Variable==========================================
+    private final boolean enabled;
+    private final String apiKeyHeader;
+    private final Set<String> trustedApiKeys;
+    private final Policy[] policies = new Policy[Scope.values().length];
+
+    //=========================================Constructor=========================================
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${loadbalancer.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${loadbalancer.rate-limit.api-key-header:X-API-Key}") String apiKeyHeader,
+                       @Value("${loadbalancer.rate-limit.trusted-api-keys:}") String[] trustedApiKeys,
+                       @Value("${loadbalancer.rate-limit.client.rate:1000}") double clientRate,
+                       @Value("${loadbalancer.rate-limit.client.burst:2000}") int clientBurst,
+                       @Value("${loadbalancer.rate-limit.route.rate:0}") double routeRate,
+                       @Value("${loadbalancer.rate-limit.route.burst:0}") int routeBurst,
+                       @Value("${loadbalancer.rate-limit.max-keys:100000}") long maxKeys,
+                       @Value("${loadbalancer.rate-limit.idle-timeout:60000}") long idleTimeoutMs) {
+        this.enabled = enabled;
+        this.apiKeyHeader = apiKeyHeader;
+        this.trustedApiKeys = Stream.of(trustedApiKeys)
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        RateLimit[] defaults = {new RateLimit(clientRate, clientBurst), new RateLimit(routeRate, routeBurst)};
+        for (Scope scope : Scope.values()) {
+            String tag = scope.name().toLowerCase(Locale.ROOT);
+            Counter rejectedCounter = Counter.builder("proxy.ratelimit.rejected")
+                    .tag("scope", tag)
+                    .register(meterRegistry);
+            Policy policy = new Policy(defaults[scope.ordinal()], maxKeys, idleTimeoutMs, rejectedCounter);
+            Gauge.builder("proxy.ratelimit.keys", policy.buckets, Cache::estimatedSize)
+                    .tag("scope", tag)
+                    .register(meterRegistry);
+            policies[scope.ordinal()] = policy;
+        }
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Lấy token cho request ở cả hai scope
+     * @return 0 nếu được phép, ngược lại là số nano giây client nên chờ trước khi thử lại
+     */
+    public long tryAcquire(HttpServletRequest request) {
+        if (!enabled) return 0L;
+        long now = System.nanoTime();
+        Policy client = policies[Scope.CLIENT.ordinal()];
+        if (!client.isUnlimited()) {
+            long wait = tryAcquireClient(client, request, now);
+            if (wait > 0) return wait;
+        }
+        Policy route = policies[Scope.ROUTE.ordinal()];
+        if (!route.isUnlimited()) {
+            return route.tryAcquire(UpstreamInvoker.routeOf(request.getRequestURI()), now);
+        }
+        return 0L;
+    }
+
+    /**
+     * Đổi limit lúc runtime. Bucket hiện có giữ nguyên trạng thái, limit mới áp dụng từ request kế tiếp.
+     * @param key   null hoặc rỗng = limit mặc định của scope
+     * @param limit null = xoá limit riêng của key (quay về mặc định)
+     */
+    public void setLimit(Scope scope, String key, RateLimit limit) {
+        Policy policy = policies[scope.ordinal()];
+        if (key == null || key.isEmpty()) {
+            if (limit == null) throw new IllegalArgumentException("Default limit cannot be removed");
+            policy.defaultLimit = limit;
+            log.info("Rate limit {} default set to {}", scope, limit);
+        } else if (limit == null) {
+            policy.overrides.remove(key);
+            log.info("Rate limit {} override for {} removed", scope, key);
+        } else {
+            policy.overrides.put(key, limit);
+            log.info("Rate limit {} override for {} set to {}", scope, key, limit);
+        }
+    }
+
+    public RateLimit getDefaultLimit(Scope scope) {
+        return policies[scope.ordinal()].defaultLimit;
+    }
+
+    public Map<String, RateLimit> getOverrides(Scope scope) {
+        return Map.copyOf(policies[scope.ordinal()].overrides);
+    }
+
+    //==========================================Private===========================================
+    private long tryAcquireClient(Policy client, HttpServletRequest request, long now) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        if (apiKey == null || apiKey.isEmpty()) {
+            return client.tryAcquire(request.getRemoteAddr(), now);
+        }
+        if (trustedApiKeys.contains(apiKey) || client.overrides.containsKey(apiKey)) {
+            return client.tryAcquire(apiKey, now);
+        }
+        // Key lạ: xét IP trước để key ngẫu nhiên chỉ tạo bucket mới khi IP còn quota
+        long wait = client.tryAcquire(request.getRemoteAddr(), now);
+        return wait > 0 ? wait : client.tryAcquire(UNTRUSTED_KEY_PREFIX + apiKey, now);
+    }
+
+    //==========================================Internal==========================================
+    /**
+     * Limit và bucket của một scope
+     */
+    private static class Policy {
+        private volatile RateLimit defaultLimit;
+        private final ConcurrentHashMap<String, RateLimit> overrides = new ConcurrentHashMap<>();
+        private final Cache<String, AtomicLong> buckets;
+        private final Counter rejectedCounter;
+
+        Policy(RateLimit defaultLimit, long maxKeys, long idleTimeoutMs, Counter rejectedCounter) {
+            this.defaultLimit = defaultLimit;
+            this.rejectedCounter = rejectedCounter;
+            // Bucket không dùng quá idle-timeout đã đầy lại (khi idle-timeout > burst / rate) nên xoá không đổi kết quả
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofMillis(idleTimeoutMs))
+                    .build();
+        }
+
+        /**
+         * Không key nào bị giới hạn, bỏ qua việc tính key
+         */
+        boolean isUnlimited() {
+            return defaultLimit.isUnlimited() && overrides.isEmpty();
+        }
+
+        long tryAcquire(String key, long now) {
+            RateLimit limit = overrides.isEmpty() ? defaultLimit : overrides.getOrDefault(key, defaultLimit);
+            if (limit.isUnlimited()) return 0L;
+            long wait = limit.tryAcquire(buckets.get(key, k -> RateLimit.newState()), now);
+            if (wait > 0) {
+                rejectedCounter.increment();
+            }
+            return wait;
+        }
+    }
+}
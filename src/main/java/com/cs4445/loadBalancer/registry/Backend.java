@@ -0,0 +1,86 @@
+package com.cs4445.loadBalancer.registry;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.core5.http.HttpHost;
+
+import com.cs4445.loadBalancer.metrics.LoadRecorder;
+import com.cs4445.loadBalancer.model.ServerUrl;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Một backend server mà load balancer quản lý.
+ * Object này sống suốt vòng đời của registry, được dùng lại giữa các snapshot,
+ * nên các bộ đếm runtime (in-flight, weight) được giữ ở đây.
+ */
+@Getter
+public class Backend {
+    //==========================================Variable==========================================
+    private final ServerUrl serverUrl;
+    private final String url;
+    private final HttpHost httpHost; // parse sẵn để proxy không phải parse url mỗi request
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    @Setter
+    private volatile int weight = 1;
+
+    // Latency quan sát từ traffic proxy, dùng cho PEAK_EWMA
+    private final PeakEwma latency = new PeakEwma();
+
+    // Passive health check từ kết quả traffic proxy, xem OutlierDetector
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    // Giới hạn request đồng thời tự điều chỉnh theo latency, xem ConcurrencyLimiter
+    private final VegasLimit concurrencyLimit;
+
+    // Số request/lỗi/histogram latency tích luỹ, LoadTimeSeries lấy sample định kỳ
+    private final LoadRecorder load = new LoadRecorder();
+
+    //=========================================Constructor=========================================
+    public Backend(ServerUrl serverUrl) {
+        this(serverUrl, new VegasLimit());
+    }
+
+    public Backend(ServerUrl serverUrl, VegasLimit concurrencyLimit) {
+        this.serverUrl = serverUrl;
+        this.url = serverUrl.getUrl();
+        this.httpHost = HttpHost.create(URI.create(url));
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    //==========================================In-flight==========================================
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public int incrementInflight() {
+        return inflight.incrementAndGet();
+    }
+
+    /**
+     * Tăng in-flight nếu chưa chạm limit (CAS, không vượt limit dù nhiều thread cùng gọi)
+     */
+    public boolean tryIncrementInflight(int limit) {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) return false;
+            if (inflight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    public int decrementInflight() {
+        return inflight.decrementAndGet();
+    }
+
+    //===========================================Method===========================================
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,253 @@
+package com.cs4445.loadBalancer.registry;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.config.BackendProperties;
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.service.feature.ServerService;
+
+/**
+ * Registry giữ snapshot health của các backend.
+ * Health check chạy nền theo loadbalancer.healthcheck.interval, request path chỉ đọc snapshot.
+ * Danh sách backend khởi tạo từ loadbalancer.servers và có thể thêm/xoá/đổi weight lúc runtime;
+ * mỗi thay đổi tạo snapshot mới (copy-on-write) rồi swap, reader không bao giờ phải lock.
+ */
+@Component
+@Slf4j
+public class BackendRegistry {
+    //==========================================Variable==========================================
+    private final ServerService serverService;
+    private final ProxyMetrics proxyMetrics;
+    private final BackendProperties.ConcurrencyLimit concurrencyLimit;
+
+    private final List<Consumer<BackendSnapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    // Refresh có thể chạy từ scheduler lẫn từ TCP command, lock để các lượt probe chạy tuần tự
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    // Mọi thay đổi snapshot (refresh, thêm/xoá/đổi weight) đi qua lock này để version tăng tuần tự
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    private volatile BackendSnapshot snapshot;
+
+    //=========================================Constructor=========================================
+    public BackendRegistry(ServerService serverService, ProxyMetrics proxyMetrics, BackendProperties properties) {
+        this.serverService = serverService;
+        this.proxyMetrics = proxyMetrics;
+        this.concurrencyLimit = properties.getConcurrencyLimit();
+
+        // Snapshot ban đầu: chưa probe nên chưa có backend nào available
+        List<BackendState> states = new ArrayList<>();
+        for (BackendProperties.Server server : properties.getServers()) {
+            Backend backend = new Backend(server.toServerUrl(), concurrencyLimit.newLimit());
+            backend.setWeight(Math.max(1, server.getWeight()));
+            if (findBackend(states, backend.getUrl()) != null) {
+                log.warn("Duplicate backend {} in configuration, ignored", backend);
+                continue;
+            }
+            states.add(new BackendState(backend, 503, null, 0L));
+        }
+        this.snapshot = new BackendSnapshot(0L, 0L, states);
+        log.info("Backend registry initialized with {} backends", states.size());
+    }
+
+    //===========================================Method===========================================
+    public BackendSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Tìm backend theo url trong snapshot hiện tại (không cấp phát)
+     * @return null nếu không có
+     */
+    public Backend findBackend(String url) {
+        return findBackend(snapshot.getStates(), url);
+    }
+
+    /**
+     * Đăng ký listener được gọi mỗi khi có snapshot mới (trên thread health check, ngoài hot path)
+     */
+    public void addListener(Consumer<BackendSnapshot> listener) {
+        listeners.add(listener);
+        listener.accept(snapshot);
+    }
+
+    public void removeListener(Consumer<BackendSnapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    //==========================================Membership========================================
+    /**
+     * Thêm backend lúc runtime. Backend chỉ nhận traffic sau khi probe health thành công,
+     * lượt probe được chạy ngay trên virtual thread thay vì chờ chu kỳ kế tiếp.
+     * @return backend mới, null nếu url đã tồn tại
+     */
+    public Backend addBackend(ServerUrl serverUrl, int weight) {
+        Backend backend = new Backend(serverUrl, concurrencyLimit.newLimit());
+        backend.setWeight(weight);
+
+        publishLock.lock();
+        try {
+            BackendSnapshot current = snapshot;
+            if (findBackend(current.getStates(), backend.getUrl()) != null) {
+                return null;
+            }
+            List<BackendState> states = new ArrayList<>(current.getStates());
+            states.add(new BackendState(backend, 503, null, 0L));
+            publish(new BackendSnapshot(current.getVersion() + 1, current.getRefreshedAt(), states));
+        } finally {
+            publishLock.unlock();
+        }
+
+        log.info("Backend {} added (weight {})", backend, weight);
+        refreshAsync();
+        return backend;
+    }
+
+    /**
+     * Xoá backend lúc runtime. Request đang chạy trên backend đó vẫn được hoàn thành.
+     * @return false nếu không có backend với url này
+     */
+    public boolean removeBackend(String url) {
+        publishLock.lock();
+        try {
+            BackendSnapshot current = snapshot;
+            Backend backend = findBackend(current.getStates(), url);
+            if (backend == null) {
+                return false;
+            }
+            List<BackendState> states = new ArrayList<>(current.getStates().size());
+            for (BackendState state : current.getStates()) {
+                if (state.getBackend() != backend) states.add(state);
+            }
+            publish(new BackendSnapshot(current.getVersion() + 1, current.getRefreshedAt(), states));
+            proxyMetrics.removeBackend(url);
+            log.info("Backend {} removed", backend);
+            return true;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Đổi weight và publish snapshot mới để các strategy (VD: WEIGHTED) build lại bảng
+     * @return false nếu không có backend với url này
+     */
+    public boolean setWeight(String url, int weight) {
+        publishLock.lock();
+        try {
+            BackendSnapshot current = snapshot;
+            Backend backend = findBackend(current.getStates(), url);
+            if (backend == null) {
+                return false;
+            }
+            backend.setWeight(weight);
+            publish(new BackendSnapshot(current.getVersion() + 1, current.getRefreshedAt(), current.getStates()));
+            log.info("Backend {} weight set to {}", backend, weight);
+            return true;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Publish lại snapshot với cùng state, dùng khi trạng thái ngoài health check thay đổi
+     * (VD: circuit breaker eject hoặc hết thời gian ejection)
+     */
+    public void republish() {
+        publishLock.lock();
+        try {
+            BackendSnapshot current = snapshot;
+            publish(new BackendSnapshot(current.getVersion() + 1, current.getRefreshedAt(), current.getStates()));
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    //===========================================Refresh==========================================
+    /**
+     * Probe /server/health của tất cả backend và publish snapshot mới
+     */
+    @Scheduled(fixedDelayString = "${loadbalancer.healthcheck.interval:10000}")
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            List<Backend> probed = snapshot.getStates().stream().map(BackendState::getBackend).toList();
+            List<ResponseEntity<?>> healthResponses = serverService.getAllServersHealth(
+                    probed.stream().map(Backend::getServerUrl).toList());
+
+            long now = System.currentTimeMillis();
+            Map<Backend, BackendState> results = new IdentityHashMap<>(probed.size());
+            for (int i = 0; i < probed.size(); i++) {
+                ResponseEntity<?> response = healthResponses.get(i);
+                ServerHealthResponse health = response.getBody() instanceof ServerHealthResponse body ? body : null;
+                results.put(probed.get(i), new BackendState(probed.get(i), response.getStatusCode().value(), health, now));
+            }
+
+            publishLock.lock();
+            try {
+                // Membership có thể đã đổi trong lúc probe: backend đã xoá bị bỏ qua,
+                // backend mới thêm giữ nguyên state cho đến lượt probe sau
+                BackendSnapshot current = snapshot;
+                List<BackendState> states = new ArrayList<>(current.getStates().size());
+                for (BackendState state : current.getStates()) {
+                    states.add(results.getOrDefault(state.getBackend(), state));
+                }
+                publish(new BackendSnapshot(current.getVersion() + 1, now, states));
+            } finally {
+                publishLock.unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Chạy refresh trên virtual thread, dùng sau khi membership hoặc trạng thái backend thay đổi
+     */
+    public void refreshAsync() {
+        Thread.ofVirtual().name("registry-refresh").start(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                log.error("Backend refresh failed", e);
+            }
+        });
+    }
+
+    private void publish(BackendSnapshot next) {
+        snapshot = next;
+        log.debug("Published backend snapshot v{} ({}/{} available)",
+                next.getVersion(), next.getAvailable().length, next.getStates().size());
+
+        for (Consumer<BackendSnapshot> listener : listeners) {
+            try {
+                listener.accept(next);
+            } catch (Exception e) {
+                log.error("Backend snapshot listener failed", e);
+            }
+        }
+    }
+
+    private static Backend findBackend(List<BackendState> states, String url) {
+        for (int i = 0; i < states.size(); i++) {
+            Backend backend = states.get(i).getBackend();
+            if (backend.getUrl().equals(url)) return backend;
+        }
+        return null;
+    }
+}
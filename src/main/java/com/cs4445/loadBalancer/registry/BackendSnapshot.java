@@ -0,0 +1,34 @@
+package com.cs4445.loadBalancer.registry;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Snapshot bất biến của toàn bộ backend, có version tăng dần.
+ * Proxy và TCP server đọc trực tiếp snapshot này, không có I/O.
+ */
+@Getter
+public class BackendSnapshot {
+    //==========================================Variable==========================================
+    private final long version;
+    private final long refreshedAt;
+    private final List<BackendState> states;
+
+    // Mảng các backend đang nhận traffic (health OK và không bị circuit breaker eject),
+    // không được sửa đổi từ bên ngoài
+    private final Backend[] available;
+
+    //=========================================Constructor=========================================
+    public BackendSnapshot(long version, long refreshedAt, List<BackendState> states) {
+        this.version = version;
+        this.refreshedAt = refreshedAt;
+        this.states = List.copyOf(states);
+        long now = System.currentTimeMillis();
+        this.available = this.states.stream()
+                .filter(BackendState::isAvailable)
+                .map(BackendState::getBackend)
+                .filter(backend -> !backend.getCircuitBreaker().isEjected(now))
+                .toArray(Backend[]::new);
+    }
+}
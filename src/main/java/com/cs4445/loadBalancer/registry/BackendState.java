@@ -0,0 +1,31 @@
+package com.cs4445.loadBalancer.registry;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Trạng thái health của một backend tại thời điểm chụp snapshot (immutable)
+ */
+@Getter
+@AllArgsConstructor
+public class BackendState {
+    //==========================================Variable==========================================
+    private final Backend backend;
+    private final int statusCode;          // HTTP status của lần probe gần nhất
+    private final ServerHealthResponse health; // null nếu probe thất bại
+    private final long checkedAt;          // epoch millis
+
+    //===========================================Method===========================================
+    public boolean isHealthy() {
+        return statusCode == 200 && health != null;
+    }
+
+    /**
+     * Backend có thể nhận traffic: health OK và server đang mở
+     */
+    public boolean isAvailable() {
+        return isHealthy() && health.isOpen();
+    }
+}
@@ -0,0 +1,142 @@
+package com.cs4445.loadBalancer.registry;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.Getter;
+
+/**
+ * Circuit breaker của một backend, dựa trên kết quả thật của traffic proxy (passive health check).
+ * - CLOSED: nhận traffic bình thường
+ * - OPEN: bị loại (eject) khỏi danh sách available đến hết thời gian ejection
+ * - HALF_OPEN: hết thời gian ejection, chỉ cho một request thử; thành công thì CLOSED, lỗi thì OPEN lại
+ * Quyết định eject (ngưỡng, thời gian) nằm ở OutlierDetector, class này chỉ giữ trạng thái.
+ * Chuyển trạng thái dùng ReentrantLock thay vì synchronized để virtual thread không bị pin khi tranh lock.
+ */
+public class CircuitBreaker {
+    //==========================================Constant==========================================
+    // Cửa sổ thống kê: 10 bucket x 1s
+    private static final int WINDOW_BUCKETS = 10;
+    private static final long BUCKET_MILLIS = 1000L;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // Kết quả xin phép: PROBE = request này giữ quyền thử của HALF_OPEN, phải báo lại kết quả với probe = true
+    public enum Permit { DENIED, ALLOWED, PROBE }
+
+    //==========================================Variable==========================================
+    @Getter
+    private final SlidingWindow window = new SlidingWindow(WINDOW_BUCKETS, BUCKET_MILLIS);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean(false);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile State state = State.CLOSED;
+    @Getter
+    private volatile long ejectedUntil;   // epoch millis, chỉ có ý nghĩa khi OPEN
+    @Getter
+    private volatile int ejectionCount;   // số lần bị eject liên tiếp, quyết định thời gian ejection kế tiếp
+    @Getter
+    private volatile long closedAt;       // epoch millis lần gần nhất chuyển về CLOSED
+
+    //===========================================Method===========================================
+    /**
+     * Trạng thái tại thời điểm now, OPEN đã hết hạn được xem là HALF_OPEN
+     */
+    public State getState(long nowMillis) {
+        State current = state;
+        if (current == State.OPEN && nowMillis >= ejectedUntil) {
+            return State.HALF_OPEN;
+        }
+        return current;
+    }
+
+    public boolean isEjected(long nowMillis) {
+        return getState(nowMillis) == State.OPEN;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * Xin phép gửi một request. Ở HALF_OPEN chỉ một request thử được đi tại một thời điểm.
+     * Mỗi lần được phép phải kết thúc bằng onSuccess() hoặc onFailure() kèm cờ probe nhận được ở đây.
+     */
+    public Permit tryAcquire(long nowMillis) {
+        return switch (getState(nowMillis)) {
+            case CLOSED -> Permit.ALLOWED;
+            case OPEN -> Permit.DENIED;
+            case HALF_OPEN -> probeInFlight.compareAndSet(false, true) ? Permit.PROBE : Permit.DENIED;
+        };
+    }
+
+    /**
+     * @param probe request này giữ quyền thử (tryAcquire trả về PROBE); request được cho đi khi breaker
+     *              còn CLOSED mà kết thúc lúc HALF_OPEN không được đóng breaker thay request thử
+     * @return true nếu request này là request thử của HALF_OPEN và breaker vừa đóng lại
+     */
+    boolean onSuccess(long nowMillis, boolean probe) {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        window.record(nowMillis, false, false);
+        // Fast path không lock: đa số request đến khi breaker đang CLOSED
+        if (!probe || state == State.CLOSED) return false;
+
+        lock.lock();
+        try {
+            if (state != State.CLOSED && probeInFlight.get()) {
+                state = State.CLOSED;
+                closedAt = nowMillis;
+                probeInFlight.set(false);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param probe request này giữ quyền thử (tryAcquire trả về PROBE)
+     * @return true nếu request lỗi là request thử của HALF_OPEN (cần eject lại ngay)
+     */
+    boolean onFailure(long nowMillis, boolean timeout, boolean probe) {
+        consecutiveFailures.incrementAndGet();
+        window.record(nowMillis, true, timeout);
+        return probe && state != State.CLOSED && probeInFlight.get();
+    }
+
+    /**
+     * Trả lại quyền của request thử khi request không được gửi đi
+     */
+    void release() {
+        probeInFlight.set(false);
+    }
+
+    void eject(long nowMillis, long durationMillis) {
+        lock.lock();
+        try {
+            state = State.OPEN;
+            ejectedUntil = nowMillis + durationMillis;
+            ejectionCount++;
+            probeInFlight.set(false);
+            // Thống kê cũ không còn ý nghĩa cho lần thử kế tiếp
+            consecutiveFailures.set(0);
+            window.reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void resetEjectionCount() {
+        lock.lock();
+        try {
+            ejectionCount = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
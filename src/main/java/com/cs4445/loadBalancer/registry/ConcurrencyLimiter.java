@@ -0,0 +1,152 @@
+package com.cs4445.loadBalancer.registry;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.config.BackendProperties;
+import com.cs4445.loadBalancer.model.Deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Áp dụng giới hạn request đồng thời (VegasLimit) của từng backend:
+ * - tryAcquire() tăng in-flight nếu backend chưa chạm limit, nếu chạm thì người gọi chọn backend khác
+ * - khi mọi backend đều chạm limit, request chờ tối đa queue-timeout để có chỗ trống
+ * - RTT của mỗi request được đưa vào VegasLimit để limit tự tăng/giảm
+ * Metrics: proxy.backend.concurrency.limit, proxy.backend.inflight (tag backend), proxy.backend.concurrency.rejected
+ */
+@Component
+public class ConcurrencyLimiter {
+    //==========================================Variable==========================================
+    private final boolean enabled;
+    private final long queueTimeoutNanos;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+
+    // Request đang chờ chỗ trống, release() chỉ lock/signal khi có người chờ
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition capacityFreed = waitLock.newCondition();
+
+    // Gauge của từng backend, đồng bộ theo membership của registry (chỉ truy cập từ listener)
+    private final Map<Backend, List<Meter>> backendMeters = new HashMap<>();
+
+    //=========================================Constructor=========================================
+    public ConcurrencyLimiter(BackendProperties properties, BackendRegistry backendRegistry,
+                              MeterRegistry meterRegistry) {
+        this.enabled = properties.getConcurrencyLimit().isEnabled();
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getConcurrencyLimit().getQueueTimeout());
+        this.meterRegistry = meterRegistry;
+        this.rejectedCounter = Counter.builder("proxy.backend.concurrency.rejected")
+                .description("Backend selections skipped because the backend was at its concurrency limit")
+                .register(meterRegistry);
+        backendRegistry.addListener(this::syncMeters);
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Giữ một chỗ trên backend (tăng in-flight), false nếu backend đang chạm limit.
+     * Mỗi lần thành công phải kết thúc bằng release().
+     */
+    public boolean tryAcquire(Backend backend) {
+        if (!enabled) {
+            backend.incrementInflight();
+            return true;
+        }
+        if (backend.tryIncrementInflight(backend.getConcurrencyLimit().getLimit())) {
+            return true;
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    public void release(Backend backend) {
+        backend.decrementInflight();
+        if (waiters.get() > 0) {
+            waitLock.lock();
+            try {
+                capacityFreed.signalAll();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ghi nhận RTT của một request đã gửi đến backend
+     * @param inflight số request trên backend khi request bắt đầu
+     */
+    public void onSample(Backend backend, long rttNanos, int inflight, boolean dropped) {
+        if (enabled) {
+            backend.getConcurrencyLimit().onSample(rttNanos, inflight, dropped);
+        }
+    }
+
+    /**
+     * Mọi backend trong danh sách đều đang chạm limit
+     */
+    public boolean isSaturated(Backend[] backends) {
+        if (!enabled || backends.length == 0) return false;
+        for (Backend backend : backends) {
+            if (backend.getInflight() < backend.getConcurrencyLimit().getLimit()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Chờ đến khi có request kết thúc trên bất kỳ backend nào, tối đa queue-timeout và không quá hạn chót của request
+     * @return false nếu hết thời gian chờ
+     */
+    public boolean awaitCapacity(Deadline deadline) {
+        long timeoutNanos = deadline.cap(queueTimeoutNanos);
+        if (timeoutNanos == 0) return false;
+        waiters.incrementAndGet();
+        waitLock.lock();
+        try {
+            return capacityFreed.awaitNanos(timeoutNanos) > 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitLock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+
+    //==========================================Private===========================================
+    private synchronized void syncMeters(BackendSnapshot snapshot) {
+        Set<Backend> current = new HashSet<>();
+        for (BackendState state : snapshot.getStates()) {
+            Backend backend = state.getBackend();
+            current.add(backend);
+            backendMeters.computeIfAbsent(backend, this::registerMeters);
+        }
+        backendMeters.entrySet().removeIf(entry -> {
+            if (current.contains(entry.getKey())) return false;
+            entry.getValue().forEach(meterRegistry::remove);
+            return true;
+        });
+    }
+
+    private List<Meter> registerMeters(Backend backend) {
+        return List.of(
+                Gauge.builder("proxy.backend.concurrency.limit", backend, b -> b.getConcurrencyLimit().getLimit())
+                        .tag("backend", backend.getUrl())
+                        .register(meterRegistry),
+                Gauge.builder("proxy.backend.inflight", backend, Backend::getInflight)
+                        .tag("backend", backend.getUrl())
+                        .register(meterRegistry));
+    }
+}
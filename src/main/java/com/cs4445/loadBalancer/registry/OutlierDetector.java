@@ -0,0 +1,161 @@
+package com.cs4445.loadBalancer.registry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Passive outlier detection: theo dõi kết quả traffic proxy của từng backend và eject backend lỗi
+ * mà không chờ lượt health check kế tiếp.
+ * - Eject khi lỗi liên tiếp >= consecutive-failures, hoặc tỉ lệ lỗi trong cửa sổ 10s >= error-rate-threshold
+ *   (chỉ xét khi có đủ min-requests)
+ * - Thời gian ejection = base-ejection-time * 2^(số lần eject trước đó), tối đa max-ejection-time
+ * - Không eject quá max-ejection-percent số backend (luôn cho phép eject ít nhất một)
+ * Lỗi = không kết nối được / timeout / response 5xx.
+ * Eject chạy trên thread của request nên chỉ giữ lock trong lúc quyết định; việc publish lại snapshot
+ * (listener, rebuild bảng của strategy) được chuyển sang thread outlier-revive.
+ */
+@Component
+@Slf4j
+public class OutlierDetector {
+    //==========================================Variable==========================================
+    private final BackendRegistry backendRegistry;
+    private final int consecutiveFailures;
+    private final int errorRateThreshold;
+    private final int minRequests;
+    private final long baseEjectionMs;
+    private final long maxEjectionMs;
+    private final int maxEjectionPercent;
+
+    // Quyết định eject tuần tự để max-ejection-percent được kiểm tra đúng khi nhiều backend lỗi cùng lúc
+    private final ReentrantLock ejectLock = new ReentrantLock();
+
+    // Publish lại snapshot khi hết thời gian ejection để backend được nhận request thử (HALF_OPEN)
+    private final ScheduledExecutorService reviveScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("outlier-revive").factory());
+
+    //=========================================Constructor=========================================
+    public OutlierDetector(BackendRegistry backendRegistry,
+                           @Value("${loadbalancer.outlier.consecutive-failures:5}") int consecutiveFailures,
+                           @Value("${loadbalancer.outlier.error-rate-threshold:50}") int errorRateThreshold,
+                           @Value("${loadbalancer.outlier.min-requests:20}") int minRequests,
+                           @Value("${loadbalancer.outlier.base-ejection-time:30000}") long baseEjectionMs,
+                           @Value("${loadbalancer.outlier.max-ejection-time:300000}") long maxEjectionMs,
+                           @Value("${loadbalancer.outlier.max-ejection-percent:50}") int maxEjectionPercent) {
+        this.backendRegistry = backendRegistry;
+        this.consecutiveFailures = consecutiveFailures;
+        this.errorRateThreshold = errorRateThreshold;
+        this.minRequests = minRequests;
+        this.baseEjectionMs = baseEjectionMs;
+        this.maxEjectionMs = maxEjectionMs;
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reviveScheduler.shutdownNow();
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Xin phép gửi request đến backend: DENIED nếu backend đang bị eject
+     * hoặc đang HALF_OPEN và request thử đã được gửi đi, PROBE nếu request này là request thử
+     */
+    public CircuitBreaker.Permit tryAcquire(Backend backend) {
+        return backend.getCircuitBreaker().tryAcquire(System.currentTimeMillis());
+    }
+
+    /**
+     * Trả lại quyền đã xin khi request không được gửi đi (VD: request của client không hợp lệ)
+     * @param probe quyền đã xin là quyền thử của HALF_OPEN
+     */
+    public void release(Backend backend, boolean probe) {
+        if (probe) {
+            backend.getCircuitBreaker().release();
+        }
+    }
+
+    /**
+     * Ghi nhận response header từ backend, status 5xx được tính là lỗi
+     * @param probe request là request thử của HALF_OPEN (tryAcquire trả về PROBE)
+     */
+    public void onResponse(Backend backend, int statusCode, boolean probe) {
+        if (statusCode >= 500) {
+            onFailure(backend, false, probe);
+            return;
+        }
+        if (backend.getCircuitBreaker().onSuccess(System.currentTimeMillis(), probe)) {
+            log.info("Backend {} recovered, circuit closed", backend);
+        }
+    }
+
+    /**
+     * Ghi nhận lỗi kết nối hoặc timeout trước khi nhận được response
+     * @param probe request là request thử của HALF_OPEN (tryAcquire trả về PROBE)
+     */
+    public void onFailure(Backend backend, boolean timeout, boolean probe) {
+        long now = System.currentTimeMillis();
+        CircuitBreaker breaker = backend.getCircuitBreaker();
+        boolean probeFailed = breaker.onFailure(now, timeout, probe);
+
+        if (probeFailed) {
+            eject(backend, now, "half-open probe failed", true);
+        } else if (breaker.getConsecutiveFailures() >= consecutiveFailures) {
+            eject(backend, now, breaker.getConsecutiveFailures() + " consecutive failures", false);
+        } else {
+            SlidingWindow.Counts counts = breaker.getWindow().counts(now);
+            if (counts.getTotal() >= minRequests && counts.getErrorRate() * 100 >= errorRateThreshold) {
+                eject(backend, now, String.format("error rate %.0f%% over %d requests",
+                        counts.getErrorRate() * 100, counts.getTotal()), false);
+            }
+        }
+    }
+
+    //==========================================Private===========================================
+    private void eject(Backend backend, long now, String reason, boolean probeFailed) {
+        CircuitBreaker breaker = backend.getCircuitBreaker();
+        long duration;
+        ejectLock.lock();
+        try {
+            if (breaker.isEjected(now)) return;
+
+            if (!probeFailed && !canEject(now)) {
+                log.debug("Backend {} exceeds outlier threshold ({}) but max-ejection-percent reached",
+                        backend, reason);
+                return;
+            }
+
+            // Backend đã ổn định lâu thì lần eject này lại tính từ thời gian cơ bản.
+            // Request thử lỗi nghĩa là breaker chưa đóng lại từ lần eject trước nên luôn nhân đôi.
+            if (!probeFailed && now - breaker.getClosedAt() > maxEjectionMs) {
+                breaker.resetEjectionCount();
+            }
+            duration = Math.min(maxEjectionMs, baseEjectionMs << Math.min(breaker.getEjectionCount(), 20));
+            breaker.eject(now, duration);
+        } finally {
+            ejectLock.unlock();
+        }
+        log.warn("Backend {} ejected for {} ms: {}", backend, duration, reason);
+
+        // Breaker đã OPEN nên tryAcquire từ chối ngay, snapshot chỉ cần cập nhật mảng available sau
+        reviveScheduler.execute(backendRegistry::republish);
+        reviveScheduler.schedule(backendRegistry::republish, duration, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean canEject(long now) {
+        int total = 0;
+        int ejected = 0;
+        for (BackendState state : backendRegistry.getSnapshot().getStates()) {
+            total++;
+            if (state.getBackend().getCircuitBreaker().isEjected(now)) ejected++;
+        }
+        return ejected == 0 || (ejected + 1) * 100 <= maxEjectionPercent * total;
+    }
+}
@@ -0,0 +1,67 @@
+package com.cs4445.loadBalancer.registry;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Peak-EWMA của latency quan sát được từ traffic thật (kiểu Finagle/Linkerd).
+ * Sample lớn hơn giá trị hiện tại được nhận ngay (peak), sample nhỏ hơn được làm mượt
+ * theo thời gian với hằng số decay. Khi không có sample, giá trị cũng decay dần về 0 lúc đọc,
+ * nên backend bị phạt (một sample chậm, lỗi kết nối) sẽ dần được chọn lại để lấy sample mới.
+ * Giá trị và thời điểm cập nhật được đổi cùng nhau bằng CAS, không lock.
+ */
+public class PeakEwma {
+    //==========================================Constant==========================================
+    // Hằng số thời gian decay: sau mỗi ~10s không có sample, giá trị còn ~37% (e^-1)
+    public static final long DECAY_NANOS = 10_000_000_000L;
+
+    //==========================================Variable==========================================
+    private final AtomicReference<State> state = new AtomicReference<>(new State(0.0, System.nanoTime()));
+
+    //===========================================Method===========================================
+    /**
+     * Ghi nhận một sample latency (nanoseconds)
+     */
+    public void observe(long sampleNanos) {
+        observe(sampleNanos, System.nanoTime());
+    }
+
+    public void observe(long sampleNanos, long nowNanos) {
+        while (true) {
+            State current = state.get();
+            double decayed = current.decayed(nowNanos);
+            double next;
+            if (sampleNanos > decayed) {
+                next = sampleNanos;
+            } else {
+                // Trộn giá trị đã decay với sample: càng lâu không có sample thì sample mới càng có trọng số lớn
+                double weight = current.weight(nowNanos);
+                next = decayed * weight + sampleNanos * (1.0 - weight);
+            }
+            if (state.compareAndSet(current, new State(next, Math.max(nowNanos, current.stampNanos)))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Giá trị EWMA hiện tại (nanoseconds) đã decay theo thời gian từ sample cuối, 0 nếu chưa có sample nào
+     */
+    public double get() {
+        return get(System.nanoTime());
+    }
+
+    public double get(long nowNanos) {
+        return state.get().decayed(nowNanos);
+    }
+
+    //===========================================State============================================
+    private record State(double value, long stampNanos) {
+        double weight(long nowNanos) {
+            return Math.exp(-Math.max(nowNanos - stampNanos, 0L) / (double) DECAY_NANOS);
+        }
+
+        double decayed(long nowNanos) {
+            return value * weight(nowNanos);
+        }
+    }
+}
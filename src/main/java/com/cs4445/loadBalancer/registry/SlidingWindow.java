@@ -0,0 +1,85 @@
+package com.cs4445.loadBalancer.registry;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Cửa sổ trượt theo thời gian đếm số request, lỗi và timeout, chia thành các bucket cố định.
+ * Bucket cũ được reset lazily khi ghi, cập nhật bằng atomic nên không lock trên hot path.
+ * Khi nhiều thread cùng reset một bucket có thể mất vài sample, chấp nhận được với mục đích thống kê.
+ */
+public class SlidingWindow {
+    //==========================================Variable==========================================
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final AtomicLongArray epochs;
+    private final AtomicLongArray totals;
+    private final AtomicLongArray failures;
+    private final AtomicLongArray timeouts;
+
+    //=========================================Constructor=========================================
+    public SlidingWindow(int bucketCount, long bucketMillis) {
+        this.bucketCount = bucketCount;
+        this.bucketMillis = bucketMillis;
+        this.epochs = new AtomicLongArray(bucketCount);
+        this.totals = new AtomicLongArray(bucketCount);
+        this.failures = new AtomicLongArray(bucketCount);
+        this.timeouts = new AtomicLongArray(bucketCount);
+    }
+
+    //===========================================Method===========================================
+    public void record(long nowMillis, boolean failure, boolean timeout) {
+        long epoch = nowMillis / bucketMillis;
+        int index = (int) (epoch % bucketCount);
+        long stamp = epochs.get(index);
+        if (stamp != epoch && epochs.compareAndSet(index, stamp, epoch)) {
+            totals.set(index, 0);
+            failures.set(index, 0);
+            timeouts.set(index, 0);
+        }
+        totals.incrementAndGet(index);
+        if (failure) failures.incrementAndGet(index);
+        if (timeout) timeouts.incrementAndGet(index);
+    }
+
+    /**
+     * Tổng hợp các bucket còn nằm trong cửa sổ
+     */
+    public Counts counts(long nowMillis) {
+        long oldest = nowMillis / bucketMillis - bucketCount + 1;
+        long total = 0;
+        long failed = 0;
+        long timedOut = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            if (epochs.get(i) < oldest) continue;
+            total += totals.get(i);
+            failed += failures.get(i);
+            timedOut += timeouts.get(i);
+        }
+        return new Counts(total, failed, timedOut);
+    }
+
+    public void reset() {
+        for (int i = 0; i < bucketCount; i++) {
+            epochs.set(i, 0);
+            totals.set(i, 0);
+            failures.set(i, 0);
+            timeouts.set(i, 0);
+        }
+    }
+
+    //===========================================Counts===========================================
+    @Getter
+    @AllArgsConstructor
+    public static class Counts {
+        private final long total;
+        private final long failures;
+        private final long timeouts;
+
+        public double getErrorRate() {
+            return total == 0 ? 0.0 : (double) failures / total;
+        }
+    }
+}
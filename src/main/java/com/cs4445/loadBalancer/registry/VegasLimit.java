@@ -0,0 +1,120 @@
+package com.cs4445.loadBalancer.registry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Giới hạn số request đồng thời của một backend, tự điều chỉnh theo TCP Vegas (kiểu Netflix concurrency-limits).
+ * Ước lượng số request đang "xếp hàng" trong backend: queue = limit * (1 - minRtt / rtt)
+ * - queue <= log10(limit) (backend còn rảnh): tăng nhanh; < 3*log10(limit): tăng chậm
+ * - queue > 6*log10(limit) (backend chậm đi rõ so với lúc không tải): giảm limit
+ * - request lỗi/timeout: giảm limit
+ * minRtt được đo lại định kỳ (probe) để theo kịp khi backend thay đổi.
+ * Sample bị bỏ qua khi thread khác đang cập nhật, hot path không bao giờ phải chờ lock.
+ */
+public class VegasLimit {
+    //==========================================Constant==========================================
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+
+    // Đo lại minRtt sau khoảng PROBE_MULTIPLIER * limit sample (kèm jitter để các backend không probe cùng lúc)
+    private static final int PROBE_MULTIPLIER = 30;
+
+    //==========================================Variable==========================================
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile int limit;
+    private volatile long minRttNanos;
+    private double estimatedLimit;
+    private long probeCountdown;
+
+    //=========================================Constructor=========================================
+    public VegasLimit() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.estimatedLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+        this.probeCountdown = nextProbeCountdown();
+    }
+
+    //===========================================Method===========================================
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getMinRttNanos() {
+        return minRttNanos;
+    }
+
+    /**
+     * Ghi nhận kết quả một request
+     * @param rttNanos   thời gian đến khi nhận response header
+     * @param inflight   số request đang chạy trên backend khi request này bắt đầu
+     * @param dropped    request lỗi kết nối/timeout
+     */
+    public void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (rttNanos <= 0 || !lock.tryLock()) return;
+        try {
+            if (dropped) {
+                // RTT của request lỗi không phản ánh tải (VD: connection refused trả về ngay)
+                setLimit(estimatedLimit - step(estimatedLimit));
+                return;
+            }
+            if (--probeCountdown <= 0) {
+                // Lấy sample hiện tại làm baseline mới
+                probeCountdown = nextProbeCountdown();
+                minRttNanos = rttNanos;
+                return;
+            }
+            long minRtt = minRttNanos;
+            if (minRtt == 0 || rttNanos < minRtt) {
+                minRttNanos = rttNanos;
+                return;
+            }
+            update(rttNanos, minRtt, inflight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //==========================================Private===========================================
+    private void update(long rttNanos, long minRttNanos, int inflight) {
+        double current = estimatedLimit;
+        // Backend chưa được dùng đến nửa limit: không có thông tin để tăng
+        if (inflight * 2 < current) return;
+
+        double step = step(current);
+        double queue = Math.ceil(current * (1.0 - (double) minRttNanos / rttNanos));
+        if (queue <= step) {
+            setLimit(current + 6 * step);
+        } else if (queue < 3 * step) {
+            setLimit(current + step);
+        } else if (queue > 6 * step) {
+            setLimit(current - step);
+        }
+    }
+
+    /**
+     * Bước thay đổi limit: log10(limit), tối thiểu 1
+     */
+    private static double step(double limit) {
+        return Math.max(1.0, Math.log10(limit));
+    }
+
+    private void setLimit(double next) {
+        estimatedLimit = Math.min(maxLimit, Math.max(minLimit, next));
+        limit = (int) estimatedLimit;
+    }
+
+    private long nextProbeCountdown() {
+        double base = Math.max(estimatedLimit, DEFAULT_INITIAL_LIMIT);
+        return (long) (PROBE_MULTIPLIER * base * (1.0 + ThreadLocalRandom.current().nextDouble()));
+    }
+}
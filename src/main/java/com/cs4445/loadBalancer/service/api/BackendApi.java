@@ -0,0 +1,119 @@
+package com.cs4445.loadBalancer.service.api;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.cs4445.loadBalancer.dto.request.backend.BackendRequest;
+import com.cs4445.loadBalancer.dto.response.backend.BackendResponse;
+import com.cs4445.loadBalancer.dto.response.core.ErrorResponse;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+import com.cs4445.loadBalancer.registry.BackendState;
+
+/**
+ * Quản lý danh sách backend lúc runtime (thêm/xoá/đổi weight) qua BackendRegistry
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BackendApi {
+    //==========================================Variable==========================================
+    private final BackendRegistry backendRegistry;
+
+    //===========================================Method===========================================
+    public ResponseEntity<?> getBackends() {
+        List<BackendResponse> backends = backendRegistry.getSnapshot().getStates().stream()
+                .map(this::toResponse)
+                .toList();
+        return ResponseEntity.ok(backends);
+    }
+
+    public ResponseEntity<?> addBackend(BackendRequest request) {
+        ServerUrl serverUrl;
+        int weight = request.getWeight() != null ? request.getWeight() : 1;
+        try {
+            serverUrl = request.getUrl() != null
+                    ? ServerUrl.parse(request.getUrl())
+                    : ServerUrl.of(request.getHost(), request.getPort() != null ? request.getPort() : 0);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (weight < 1) {
+            return error(HttpStatus.BAD_REQUEST, "Weight must be >= 1");
+        }
+
+        Backend backend = backendRegistry.addBackend(serverUrl, weight);
+        if (backend == null) {
+            return error(HttpStatus.CONFLICT, "Server " + serverUrl.getUrl() + " already exists");
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(backend));
+    }
+
+    public ResponseEntity<?> removeBackend(String url) {
+        String normalized;
+        try {
+            normalized = ServerUrl.parse(url).getUrl();
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (!backendRegistry.removeBackend(normalized)) {
+            return error(HttpStatus.NOT_FOUND, "Server " + normalized + " not found");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    public ResponseEntity<?> setWeight(BackendRequest request) {
+        String normalized;
+        try {
+            normalized = ServerUrl.parse(request.getUrl()).getUrl();
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (request.getWeight() == null || request.getWeight() < 1) {
+            return error(HttpStatus.BAD_REQUEST, "Weight must be >= 1");
+        }
+        if (!backendRegistry.setWeight(normalized, request.getWeight())) {
+            return error(HttpStatus.NOT_FOUND, "Server " + normalized + " not found");
+        }
+        return ResponseEntity.ok(toResponse(backendRegistry.findBackend(normalized)));
+    }
+
+    //==========================================Private===========================================
+    private BackendResponse toResponse(Backend backend) {
+        for (BackendState state : backendRegistry.getSnapshot().getStates()) {
+            if (state.getBackend() == backend) return toResponse(state);
+        }
+        return toResponse(new BackendState(backend, 503, null, 0L));
+    }
+
+    private BackendResponse toResponse(BackendState state) {
+        Backend backend = state.getBackend();
+        return BackendResponse.builder()
+                .url(backend.getUrl())
+                .weight(backend.getWeight())
+                .statusCode(state.getStatusCode())
+                .available(state.isAvailable())
+                .circuitState(backend.getCircuitBreaker().getState(System.currentTimeMillis()).name())
+                .inflight(backend.getInflight())
+                .concurrencyLimit(backend.getConcurrencyLimit().getLimit())
+                .ewmaLatencyMs(backend.getLatency().get() / 1_000_000.0)
+                .checkedAt(state.getCheckedAt())
+                .build();
+    }
+
+    private ResponseEntity<?> error(HttpStatus status, String message) {
+        ErrorResponse error = ErrorResponse.builder()
+                .message(message)
+                .timestamp(LocalDateTime.now())
+                .build();
+        return ResponseEntity.status(status).body(error);
+    }
+}
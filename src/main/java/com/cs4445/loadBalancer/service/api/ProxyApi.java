@@ -1,46 +1,206 @@
 package com.cs4445.loadBalancer.service.api;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
-import com.cs4445.loadBalancer.model.ServerUrl;
-import com.cs4445.loadBalancer.service.feature.ServerService;
+import com.cs4445.loadBalancer.admission.AdmissionController;
+import com.cs4445.loadBalancer.cache.CacheWriter;
+import com.cs4445.loadBalancer.cache.CachedResponse;
+import com.cs4445.loadBalancer.cache.RequestCoalescer;
+import com.cs4445.loadBalancer.cache.ResponseCache;
+import com.cs4445.loadBalancer.dto.response.core.ErrorResponse;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.model.Deadline;
+import com.cs4445.loadBalancer.proxy.BackendSelector;
+import com.cs4445.loadBalancer.proxy.HttpForwarder;
+import com.cs4445.loadBalancer.proxy.UpstreamExchange;
+import com.cs4445.loadBalancer.proxy.UpstreamInvoker;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+import com.cs4445.loadBalancer.strategy.AffinityKeyResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProxyApi {
+    //==========================================Constant==========================================
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     //==========================================Variable==========================================
-    private final ServerService serverService = new ServerService();
+    // Hạn chót end-to-end của một request proxy, tính từ lúc nhận request
+    @Value("${loadbalancer.proxy.request-timeout:30000}")
+    private long requestTimeoutMs;
+
+    private final BackendRegistry backendRegistry;
+    private final AffinityKeyResolver affinityKeyResolver;
+    private final BackendSelector backendSelector;
+    private final HttpForwarder httpForwarder;
+    private final UpstreamInvoker upstreamInvoker;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final AdmissionController admissionController;
+    private final ProxyMetrics proxyMetrics;
+    private final ObjectMapper objectMapper;
 
     //===========================================Method===========================================
-    public ResponseEntity<byte[]> handleRequest(HttpServletRequest request) {
-        List<ServerUrl> serverUrls = serverService.getServerUrls();
-        List<ResponseEntity<?>> healthResponses = serverService.getAllServersHealth(serverUrls);
+    /**
+     * Proxy một request, latency và status của mọi request (kể cả cache hit, bị shed) được ghi vào ProxyMetrics.
+     * Request lỗi giữa chừng (VD: client ngắt kết nối) được ghi với status error.
+     * Hạn chót (loadbalancer.proxy.request-timeout) giới hạn thời gian chờ admission, chờ concurrency limit,
+     * kết nối, chờ response và stream body; hết hạn thì request đến backend bị huỷ.
+     */
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long start = proxyMetrics.requestStarted();
+        Deadline deadline = Deadline.after(TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs));
+        boolean completed = false;
+        try {
+            serve(request, response, deadline);
+            completed = true;
+        } finally {
+            proxyMetrics.requestCompleted(UpstreamInvoker.routeOf(request.getRequestURI()),
+                    completed ? response.getStatus() : 0, start);
+        }
+    }
+
+    private void serve(HttpServletRequest request, HttpServletResponse response, Deadline deadline)
+            throws IOException {
+        boolean cacheable = responseCache.isCacheable(request);
+        if (!cacheable) {
+            admitAndForward(request, response, false, null, deadline);
+            return;
+        }
+
+        CachedResponse cached = responseCache.lookup(request);
+        if (cached != null && responseCache.isFresh(cached, request)) {
+            responseCache.serve(cached, request, response, "HIT");
+            return;
+        }
+        // Entry hết hạn nhưng có validator: hỏi backend bằng request có điều kiện
+        CachedResponse stale = cached != null && cached.hasValidator() ? cached : null;
+
+        // GET giống nhau đang chạy: chờ và dùng lại response của request đang chạy
+        RequestCoalescer.Flight flight = requestCoalescer.join(
+                ResponseCache.keyOf(request), "GET".equals(request.getMethod()));
+        if (flight != null && !flight.isLeader()) {
+            CachedResponse shared = requestCoalescer.await(flight, deadline);
+            if (shared != null && shared.matchesVary(request)) {
+                responseCache.serve(shared, request, response, "COALESCED");
+                return;
+            }
+            flight = null;
+        }
+
+        CachedResponse result = null;
+        try {
+            result = admitAndForward(request, response, true, stale, deadline);
+        } finally {
+            if (flight != null) {
+                requestCoalescer.complete(flight, result);
+            }
+        }
+    }
+
+    //==========================================Forward===========================================
+    /**
+     * Cache hit và request được gộp không qua admission, chỉ request thật sự đi đến backend mới phải xếp hàng.
+     * Request bị shed nhận 503 ngay kèm Retry-After.
+     */
+    private CachedResponse admitAndForward(HttpServletRequest request, HttpServletResponse response,
+                                           boolean cacheable, CachedResponse stale, Deadline deadline)
+            throws IOException {
+        int priority = admissionController.resolvePriority(request);
+        AdmissionController.Result admission = admissionController.admit(priority, deadline);
+        if (admission != AdmissionController.Result.ADMITTED) {
+            log.debug("Rejected {} {} (priority {}): {}", request.getMethod(), request.getRequestURI(),
+                    priority, admission);
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE, "Load balancer overloaded, request rejected");
+            return null;
+        }
+        try {
+            return forward(request, response, cacheable, stale, deadline);
+        } finally {
+            admissionController.release();
+        }
+    }
 
-        List<ResponseEntity<ServerHealthResponse>> healthyServers = new ArrayList<>();
-        for (ResponseEntity<?> healthResponse : healthResponses) {
-            if (healthResponse.getStatusCode() != HttpStatus.OK) continue;
-            healthyServers.add((ResponseEntity<ServerHealthResponse>) healthResponse);
+    /**
+     * Gửi request đến backend (kèm retry/hedge) và stream response về client
+     * @return entry cache của response (vừa lưu hoặc vừa revalidate), null nếu response không được cache
+     */
+    private CachedResponse forward(HttpServletRequest request, HttpServletResponse response,
+                                   boolean cacheable, CachedResponse stale, Deadline deadline) throws IOException {
+        if (deadline.isExpired()) {
+            writeError(response, HttpStatus.GATEWAY_TIMEOUT, "Request deadline exceeded before forwarding");
+            return null;
         }
+        // Đọc snapshot health đã được refresh nền, không gọi /server/health ở đây
+        Backend[] available = backendRegistry.getSnapshot().getAvailable();
+        long affinityKey = backendSelector.usesAffinityKey() ? affinityKeyResolver.resolve(request) : 0L;
+        UpstreamExchange exchange = upstreamInvoker.invoke(request,
+                tried -> backendSelector.select(available, tried, affinityKey, deadline),
+                stale == null ? null : outbound -> responseCache.addValidators(stale, outbound),
+                deadline);
 
-        if (healthyServers.isEmpty()) return null;
-        log.info("Forwarding request to healthy server.");
-        // Logic chuyển tiếp request ở đây (sử dụng RestTemplate hoặc WebClient)
-        // Trả về response từ server đích
-        // Ví dụ giả định:
-        // return restTemplate.exchange(...);
+        if (exchange == null) {
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE, "No healthy server available");
+            return null;
+        }
+
+        Backend backend = exchange.getBackend();
+        try {
+            if (!exchange.isSucceeded()) {
+                throw exchange.getError();
+            }
+            log.debug("Forwarded {} {} to {}", request.getMethod(), request.getRequestURI(), backend);
+            if (stale != null && exchange.getResponse().getCode() == HttpStatus.NOT_MODIFIED.value()) {
+                responseCache.revalidated(stale, exchange.getResponse());
+                exchange.discard();
+                responseCache.serve(stale, request, response, "REVALIDATED");
+                return stale;
+            }
+
+            CacheWriter cacheWriter = cacheable
+                    ? responseCache.beginStore(request, exchange.getResponse(), stale != null)
+                    : null;
+            httpForwarder.relay(exchange, response, cacheWriter);
+            return cacheWriter != null ? responseCache.commit(cacheWriter) : null;
+        } catch (IOException e) {
+            log.warn("Failed to forward request to {}: {}", backend, e.getMessage());
+            if (!response.isCommitted()) {
+                if (exchange.isExpired()) {
+                    writeError(response, HttpStatus.GATEWAY_TIMEOUT, "Request deadline exceeded");
+                } else {
+                    writeError(response, HttpStatus.BAD_GATEWAY, "Failed to forward request: " + e.getMessage());
+                }
+            }
+            return null;
+        } finally {
+            exchange.release();
+        }
+    }
 
-        return null;
+    //===========================================Helper============================================
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        ErrorResponse error = ErrorResponse.builder()
+                .message(message)
+                .timestamp(LocalDateTime.now())
+                .build();
+        response.resetBuffer();
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
     }
 }
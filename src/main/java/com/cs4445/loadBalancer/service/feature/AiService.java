@@ -1,5 +1,6 @@
 package com.cs4445.loadBalancer.service.feature;
 
+import com.cs4445.loadBalancer.ai.AiClientPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -8,6 +9,9 @@ import java.io.*;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class AiService {
@@ -17,6 +21,14 @@ public class AiService {
     private static final int DEFAULT_TIMEOUT_MS = 30000; // 30 seconds
     private static final int BUFFER_SIZE = 4096;
 
+    //==========================================Variable==========================================
+    private final AiClientPool aiClientPool;
+
+    //=========================================Constructor=========================================
+    public AiService(AiClientPool aiClientPool) {
+        this.aiClientPool = aiClientPool;
+    }
+
     //===========================================Method===========================================
 
     /**
@@ -78,21 +90,60 @@ public class AiService {
              DataOutputStream out = new DataOutputStream(socket.getOutputStream());
              DataInputStream in = new DataInputStream(socket.getInputStream())) {
 
-            // Gửi request với length prefix
-            byte[] requestBytes = request.getBytes(StandardCharsets.UTF_8);
-            out.writeInt(requestBytes.length);
-            out.write(requestBytes);
-            out.flush();
-            log.debug("Request sent: {} bytes", requestBytes.length);
+            return exchangeLengthPrefixed(out, in, request);
 
-            // Nhận response với length prefix
-            int responseLength = in.readInt();
-            byte[] responseBytes = new byte[responseLength];
-            in.readFully(responseBytes);
-            String response = new String(responseBytes, StandardCharsets.UTF_8);
-            log.debug("Response received: {} bytes", responseLength);
+        } catch (SocketTimeoutException e) {
+            log.error("TCP timeout to {}:{}", host, port);
+            throw new RuntimeException("Connection timeout to AI server", e);
 
-            return response;
+        } catch (IOException e) {
+            log.error("TCP error to {}:{} - {}", host, port, e.getMessage());
+            throw new RuntimeException("Failed to connect to AI server", e);
+        }
+    }
+
+    /**
+     * Như sendTcpRequest() nhưng dùng socket keep-alive của pool thay vì mỗi request một socket.
+     * Chỉ dùng với AI server giữ connection sau mỗi response; server đóng connection trước khi trả lời
+     * thì request fail với EOFException thay vì trả về chuỗi rỗng.
+     */
+    public String sendPooledRequest(String host, int port, String request, int timeoutMs) {
+        log.debug("Sending pooled TCP request to {}:{}", host, port);
+
+        try {
+            return aiClientPool.execute(host, port, timeoutMs, socket -> {
+                BufferedWriter writer = socket.getWriter();
+                writer.write(request);
+                writer.newLine();
+                writer.flush();
+
+                String line = socket.getReader().readLine();
+                if (line == null) {
+                    throw new EOFException("AI server closed connection before sending a response");
+                }
+                return line;
+            });
+
+        } catch (SocketTimeoutException e) {
+            log.error("TCP timeout to {}:{}", host, port);
+            throw new RuntimeException("Connection timeout to AI server: " + host + ":" + port, e);
+
+        } catch (IOException e) {
+            log.error("TCP error to {}:{} - {}", host, port, e.getMessage());
+            throw new RuntimeException("Failed to send request to AI server: " + host + ":" + port, e);
+        }
+    }
+
+    /**
+     * Như sendTcpRequestWithLengthPrefix() nhưng dùng socket keep-alive của pool.
+     * Format: [4 bytes length][payload]
+     */
+    public String sendPooledRequestWithLengthPrefix(String host, int port, String request, int timeoutMs) {
+        log.debug("Sending pooled length-prefixed TCP request to {}:{}", host, port);
+
+        try {
+            return aiClientPool.execute(host, port, timeoutMs,
+                    socket -> exchangeLengthPrefixed(socket.getOut(), socket.getIn(), request));
 
         } catch (SocketTimeoutException e) {
             log.error("TCP timeout to {}:{}", host, port);
@@ -100,7 +151,33 @@ public class AiService {
 
         } catch (IOException e) {
             log.error("TCP error to {}:{} - {}", host, port, e.getMessage());
-            throw new RuntimeException("Failed to connect to AI server", e);
+            throw new RuntimeException("Failed to send request to AI server", e);
+        }
+    }
+
+    /**
+     * Gửi request multiplexed (không block), nhiều request dùng chung vài connection lâu dài
+     * Format: [4 bytes length][4 bytes requestId][payload], AI server trả lại đúng requestId
+     * @param timeoutMs deadline cho cả request, future fail với TimeoutException khi quá hạn
+     */
+    public CompletableFuture<String> sendTcpRequestAsync(String host, int port, String request, long timeoutMs) {
+        log.debug("Sending multiplexed TCP request to {}:{}", host, port);
+        return aiClientPool.sendAsync(host, port, request, timeoutMs);
+    }
+
+    /**
+     * Như sendTcpRequestAsync() nhưng chờ kết quả
+     */
+    public String sendMultiplexedRequest(String host, int port, String request, long timeoutMs) {
+        try {
+            return sendTcpRequestAsync(host, port, request, timeoutMs).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                log.error("TCP timeout to {}:{}", host, port);
+                throw new RuntimeException("Request timeout to AI server: " + host + ":" + port, e.getCause());
+            }
+            log.error("TCP error to {}:{} - {}", host, port, e.getCause().getMessage());
+            throw new RuntimeException("Failed to send request to AI server: " + host + ":" + port, e.getCause());
         }
     }
 
@@ -151,4 +228,23 @@ public class AiService {
 
         return response.toString();
     }
+
+    private String exchangeLengthPrefixed(DataOutputStream out, DataInputStream in, String request)
+            throws IOException {
+        // Gửi request với length prefix
+        byte[] requestBytes = request.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(requestBytes.length);
+        out.write(requestBytes);
+        out.flush();
+        log.debug("Request sent: {} bytes", requestBytes.length);
+
+        // Nhận response với length prefix
+        int responseLength = in.readInt();
+        byte[] responseBytes = new byte[responseLength];
+        in.readFully(responseBytes);
+        String response = new String(responseBytes, StandardCharsets.UTF_8);
+        log.debug("Response received: {} bytes", responseLength);
+
+        return response;
+    }
 }
@@ -1,39 +1,131 @@
 package com.cs4445.loadBalancer.service.feature;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 
 import com.cs4445.loadBalancer.dto.response.core.ErrorResponse;
 import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
 import com.cs4445.loadBalancer.model.ServerUrl;
 
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class ServerService {
 
     //==========================================Variable==========================================
-    private final RestTemplate restTemplate = new RestTemplate();
-
-    //============================================Url=============================================
-    public List<ServerUrl> getServerUrls() {
-        return List.of(
-                ServerUrl.builder().dns("http://130.94.65.44").port(8081).build(),
-                ServerUrl.builder().dns("http://38.54.56.98").port(8082).build(),
-                ServerUrl.builder().dns("http://149.104.78.74").port(8083).build()
-        );
+    private final RestTemplate restTemplate;
+    private final ProxyMetrics proxyMetrics;
+
+    // Mỗi probe chạy trên một virtual thread, không giới hạn bởi số platform thread
+    private final ExecutorService probeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long deadlineMs;
+
+    //=========================================Constructor=========================================
+    public ServerService(
+            ProxyMetrics proxyMetrics,
+            @Value("${loadbalancer.healthcheck.probe-timeout:2000}") long probeTimeoutMs,
+            @Value("${loadbalancer.healthcheck.deadline:3000}") long deadlineMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(probeTimeoutMs))
+                .executor(probeExecutor)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(probeTimeoutMs));
+
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.deadlineMs = deadlineMs;
+        this.proxyMetrics = proxyMetrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        probeExecutor.shutdownNow();
     }
 
     //===========================================Health===========================================
+    /**
+     * Probe health của tất cả servers song song, giới hạn bởi deadline tổng (loadbalancer.healthcheck.deadline).
+     * Server nào chưa trả lời khi hết deadline sẽ nhận 504 (và được ghi nhận là probe DOWN kéo dài đến deadline),
+     * các kết quả còn lại vẫn được trả về.
+     * Thứ tự kết quả giống thứ tự của urls.
+     */
     public List<ResponseEntity<?>> getAllServersHealth(List<ServerUrl> urls) {
-        return urls.stream()
-                .map(this::getServerHealth)
-                .toList();
+        List<Callable<ResponseEntity<?>>> probes = new ArrayList<>(urls.size());
+        // Mỗi probe chỉ được ghi metrics một lần: bởi chính probe, hoặc bởi vòng lấy kết quả nếu probe bị huỷ.
+        // Probe xong sau deadline (VD: vừa bị interrupt) đã nhận 504 nên luôn được ghi là DOWN.
+        AtomicBoolean[] recorded = new AtomicBoolean[urls.size()];
+        long start = System.nanoTime();
+        long deadlineAt = start + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        for (int i = 0; i < urls.size(); i++) {
+            ServerUrl url = urls.get(i);
+            AtomicBoolean probeRecorded = recorded[i] = new AtomicBoolean();
+            probes.add(() -> {
+                long probeStart = System.nanoTime();
+                ResponseEntity<?> response = getServerHealth(url);
+                long end = System.nanoTime();
+                if (probeRecorded.compareAndSet(false, true)) {
+                    boolean late = end - deadlineAt >= 0;
+                    proxyMetrics.healthProbeCompleted(url.getUrl(), !late && response.getStatusCode().is2xxSuccessful(),
+                            late ? end - start : end - probeStart);
+                }
+                return response;
+            });
+        }
+
+        List<Future<ResponseEntity<?>>> futures;
+        try {
+            // invokeAll huỷ (interrupt) các probe chưa xong khi hết deadline
+            futures = probeExecutor.invokeAll(probes, deadlineMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return urls.stream().<ResponseEntity<?>>map(url -> timeoutResponse()).toList();
+        }
+
+        List<ResponseEntity<?>> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (CancellationException e) {
+                // Probe bị huỷ lúc hết deadline: ghi nhận DOWN với latency đến deadline
+                if (recorded[i].compareAndSet(false, true)) {
+                    proxyMetrics.healthProbeCompleted(urls.get(i).getUrl(), false, System.nanoTime() - start);
+                }
+                results.add(timeoutResponse());
+            } catch (ExecutionException e) {
+                ErrorResponse error = ErrorResponse.builder()
+                        .message("Failed to connect: " + e.getCause().getMessage())
+                        .timestamp(LocalDateTime.now())
+                        .build();
+                results.add(ResponseEntity.status(500).body(error));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(timeoutResponse());
+            }
+        }
+        return results;
     }
 
     public ResponseEntity<?> getServerHealth(ServerUrl url) {
@@ -66,4 +158,12 @@ public class ServerService {
             return response;
         }
     }
+
+    private ResponseEntity<?> timeoutResponse() {
+        ErrorResponse error = ErrorResponse.builder()
+                .message("Health check deadline exceeded")
+                .timestamp(LocalDateTime.now())
+                .build();
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
+    }
 }
@@ -0,0 +1,69 @@
+package com.cs4445.loadBalancer.strategy;
+
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Lấy affinity key của request cho strategy sticky (CONSISTENT_HASH):
+ * header (loadbalancer.hash.header) > cookie (loadbalancer.hash.cookie) > IP client.
+ * Trả về hash 64-bit của key để strategy tra bảng trực tiếp.
+ */
+@Component
+public class AffinityKeyResolver {
+    //==========================================Variable==========================================
+    private final String header;
+    private final String cookie;
+
+    //=========================================Constructor=========================================
+    public AffinityKeyResolver(@Value("${loadbalancer.hash.header:X-Session-Id}") String header,
+                               @Value("${loadbalancer.hash.cookie:}") String cookie) {
+        this.header = header;
+        this.cookie = cookie;
+    }
+
+    //===========================================Method===========================================
+    public long resolve(HttpServletRequest request) {
+        return ConsistentHashStrategy.hash(keyOf(request), 0L);
+    }
+
+    /**
+     * Cho data plane không dùng servlet (ReactiveProxyServer)
+     * @param header hàm lấy giá trị header theo tên, null nếu không có
+     * @param cookie hàm lấy giá trị cookie theo tên, null nếu không có
+     */
+    public long resolve(UnaryOperator<String> header, UnaryOperator<String> cookie, String remoteAddr) {
+        if (!this.header.isEmpty()) {
+            String value = header.apply(this.header);
+            if (value != null && !value.isEmpty()) return ConsistentHashStrategy.hash(value, 0L);
+        }
+        if (!this.cookie.isEmpty()) {
+            String value = cookie.apply(this.cookie);
+            if (value != null && !value.isEmpty()) return ConsistentHashStrategy.hash(value, 0L);
+        }
+        return ConsistentHashStrategy.hash(remoteAddr, 0L);
+    }
+
+    //==========================================Private===========================================
+    private String keyOf(HttpServletRequest request) {
+        if (!header.isEmpty()) {
+            String value = request.getHeader(header);
+            if (value != null && !value.isEmpty()) return value;
+        }
+        if (!cookie.isEmpty()) {
+            Cookie[] cookies = request.getCookies();
+            if (cookies != null) {
+                for (Cookie candidate : cookies) {
+                    if (cookie.equals(candidate.getName()) && !candidate.getValue().isEmpty()) {
+                        return candidate.getValue();
+                    }
+                }
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,246 @@
+package com.cs4445.loadBalancer.strategy;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+import com.cs4445.loadBalancer.registry.BackendState;
+
+/**
+ * Consistent hashing kiểu Maglev cho sticky routing theo affinity key (header/cookie/IP, xem AffinityKeyResolver).
+ * - Bảng Maglev (int[] kích thước nguyên tố) được build từ mọi backend trong registry, kể cả backend đang đóng,
+ *   theo URL và weight; chỉ build lại khi danh sách backend hoặc weight thay đổi
+ * - Mỗi snapshot tính thêm bảng effective: slot của backend đang đóng/unhealthy được chuyển sang backend khác
+ *   theo chuỗi dò riêng của slot, các slot khác giữ nguyên. Vì vậy CLOSE_SERVER/OPEN_SERVER chỉ làm dịch chuyển
+ *   các key thuộc backend đó, và key quay về đúng backend cũ khi backend được mở lại
+ * - select là một phép tra bảng O(1). Bounded load: backend đang giữ quá load-factor × in-flight trung bình
+ *   thì key tràn sang slot kế tiếp (Consistent Hashing with Bounded Loads)
+ */
+@Component
+public class ConsistentHashStrategy implements LoadBalancingStrategy {
+    //==========================================Constant==========================================
+    private static final long OFFSET_SEED = 0x9E3779B97F4A7C15L;
+    private static final long SKIP_SEED = 0xC2B2AE3D27D4EB4FL;
+    // Số slot tối đa dò thêm khi backend của key đang quá tải / không có trong danh sách đã lọc
+    private static final int MAX_LOAD_PROBES = 16;
+    private static final int MAX_CANDIDATE_PROBES = 256;
+
+    //==========================================Variable==========================================
+    private final int tableSize;
+    private final double loadFactor;
+    private volatile Table table = Table.EMPTY;
+
+    //=========================================Constructor=========================================
+    /**
+     * @param tableSize  số slot của bảng, làm tròn lên số nguyên tố (nên lớn hơn 100 × số backend)
+     * @param loadFactor giới hạn tải so với trung bình (VD: 1.25), <= 0 để tắt bounded load
+     */
+    public ConsistentHashStrategy(@Value("${loadbalancer.hash.table-size:65537}") int tableSize,
+                                  @Value("${loadbalancer.hash.load-factor:1.25}") double loadFactor) {
+        BigInteger size = BigInteger.valueOf(Math.max(7, tableSize));
+        this.tableSize = size.isProbablePrime(32) ? size.intValueExact() : size.nextProbablePrime().intValueExact();
+        this.loadFactor = loadFactor;
+    }
+
+    //===========================================Method===========================================
+    @Override
+    public String getName() {
+        return "CONSISTENT_HASH";
+    }
+
+    @Override
+    public boolean usesAffinityKey() {
+        return true;
+    }
+
+    @Override
+    public Backend select(Backend[] backends) {
+        return select(backends, ThreadLocalRandom.current().nextLong());
+    }
+
+    @Override
+    public Backend select(Backend[] backends, long affinityKey) {
+        int n = backends.length;
+        if (n == 0) return null;
+
+        Table current = table;
+        if (current.members.length == 0) {
+            return backends[(int) Long.remainderUnsigned(affinityKey, n)];
+        }
+        int slot = (int) Long.remainderUnsigned(affinityKey, current.owners.length);
+        if (current.source == backends) {
+            Backend backend = current.members[current.effective[slot]];
+            return loadFactor > 0 ? boundedLoad(current, backends, slot, backend) : backend;
+        }
+        // Danh sách đã lọc (retry/hedge/reroute) hoặc bảng chưa kịp build cho snapshot này: dò trên bảng gốc
+        Backend backend = probe(current, slot, backends);
+        return backend != null ? backend : backends[(int) Long.remainderUnsigned(affinityKey, n)];
+    }
+
+    @Override
+    public void onSnapshot(BackendSnapshot snapshot) {
+        Backend[] members = snapshot.getStates().stream()
+                .map(BackendState::getBackend)
+                .sorted(Comparator.comparing(Backend::getUrl))
+                .toArray(Backend[]::new);
+        String[] urls = new String[members.length];
+        int[] weights = new int[members.length];
+        for (int i = 0; i < members.length; i++) {
+            urls[i] = members[i].getUrl();
+            weights[i] = Math.max(1, members[i].getWeight());
+        }
+
+        Table previous = table;
+        int[] owners = Arrays.equals(urls, previous.urls) && Arrays.equals(weights, previous.weights)
+                ? previous.owners
+                : buildOwners(urls, weights, tableSize);
+
+        Set<Backend> available = Collections.newSetFromMap(new IdentityHashMap<>());
+        available.addAll(Arrays.asList(snapshot.getAvailable()));
+        boolean[] up = new boolean[members.length];
+        for (int i = 0; i < members.length; i++) {
+            up[i] = available.contains(members[i]);
+        }
+        table = new Table(snapshot.getAvailable(), members, urls, weights, owners, buildEffective(owners, up));
+    }
+
+    //===========================================Helper============================================
+    /**
+     * Hash 64-bit không cấp phát (FNV-1a trên từng char + finalizer của MurmurHash3)
+     */
+    static long hash(CharSequence value, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Bảng Maglev: mỗi backend đi theo hoán vị riêng (offset, skip) và lần lượt chiếm slot trống đầu tiên,
+     * backend weight w được chiếm w slot mỗi lượt
+     */
+    static int[] buildOwners(String[] urls, int[] weights, int size) {
+        int[] owners = new int[size];
+        Arrays.fill(owners, -1);
+        int n = urls.length;
+        if (n == 0) return owners;
+
+        long[] offset = new long[n];
+        long[] skip = new long[n];
+        long[] next = new long[n];
+        for (int i = 0; i < n; i++) {
+            offset[i] = Long.remainderUnsigned(hash(urls[i], OFFSET_SEED), size);
+            skip[i] = Long.remainderUnsigned(hash(urls[i], SKIP_SEED), size - 1) + 1;
+        }
+
+        int filled = 0;
+        while (true) {
+            for (int i = 0; i < n; i++) {
+                for (int turn = 0; turn < weights[i]; turn++) {
+                    int slot;
+                    do {
+                        slot = (int) ((offset[i] + next[i] * skip[i]) % size);
+                        next[i]++;
+                    } while (owners[slot] >= 0);
+                    owners[slot] = i;
+                    if (++filled == size) return owners;
+                }
+            }
+        }
+    }
+
+    /**
+     * Slot của backend không nhận traffic lấy backend đầu tiên đang mở trên chuỗi dò của slot đó
+     */
+    static int[] buildEffective(int[] owners, boolean[] up) {
+        int size = owners.length;
+        int[] effective = new int[size];
+        boolean anyUp = false;
+        for (boolean value : up) anyUp |= value;
+
+        for (int slot = 0; slot < size; slot++) {
+            int owner = owners[slot];
+            if (!anyUp || up[owner]) {
+                effective[slot] = owner;
+                continue;
+            }
+            long step = probeStep(slot, size);
+            int probe = slot;
+            do {
+                probe = (int) ((probe + step) % size);
+            } while (!up[owners[probe]]);
+            effective[slot] = owners[probe];
+        }
+        return effective;
+    }
+
+    private static long probeStep(int slot, int size) {
+        return Long.remainderUnsigned(mix(slot ^ SKIP_SEED), size - 1) + 1;
+    }
+
+    /**
+     * Giống buildEffective nhưng "đang mở" là có trong danh sách candidates
+     */
+    private static Backend probe(Table current, int slot, Backend[] candidates) {
+        int size = current.owners.length;
+        long step = probeStep(slot, size);
+        int probe = slot;
+        for (int i = 0; i < MAX_CANDIDATE_PROBES; i++) {
+            Backend backend = current.members[current.owners[probe]];
+            for (Backend candidate : candidates) {
+                if (candidate == backend) return backend;
+            }
+            probe = (int) ((probe + step) % size);
+        }
+        return null;
+    }
+
+    /**
+     * Backend nhận thêm request này không được vượt ceil(loadFactor × (tổng in-flight + 1) / n)
+     */
+    private Backend boundedLoad(Table current, Backend[] backends, int slot, Backend backend) {
+        int inflight = backend.getInflight();
+        // Capacity luôn >= 1 nên backend đang rảnh không cần tính tổng
+        if (inflight == 0) return backend;
+
+        long total = 1;
+        for (Backend candidate : backends) {
+            total += candidate.getInflight();
+        }
+        double capacity = Math.ceil(loadFactor * total / backends.length);
+        if (inflight + 1 <= capacity) return backend;
+
+        int size = current.effective.length;
+        for (int i = 1; i <= MAX_LOAD_PROBES; i++) {
+            Backend next = current.members[current.effective[(slot + i) % size]];
+            if (next.getInflight() + 1 <= capacity) return next;
+        }
+        return backend;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record Table(Backend[] source, Backend[] members, String[] urls, int[] weights,
+                         int[] owners, int[] effective) {
+        static final Table EMPTY = new Table(new Backend[0], new Backend[0], new String[0], new int[0],
+                new int[0], new int[0]);
+    }
+}
@@ -0,0 +1,40 @@
+package com.cs4445.loadBalancer.strategy;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+
+/**
+ * Chọn backend có ít request in-flight nhất.
+ * Quét mảng snapshot một lượt (không cấp phát), bắt đầu từ vị trí ngẫu nhiên để tránh dồn về backend đầu khi hoà.
+ */
+@Component
+public class LeastConnectionsStrategy implements LoadBalancingStrategy {
+
+    //===========================================Method===========================================
+    @Override
+    public String getName() {
+        return "LEAST_CONNECTIONS";
+    }
+
+    @Override
+    public Backend select(Backend[] backends) {
+        int n = backends.length;
+        if (n == 0) return null;
+
+        int start = n == 1 ? 0 : ThreadLocalRandom.current().nextInt(n);
+        Backend best = backends[start];
+        int bestInflight = best.getInflight();
+        for (int i = 1; i < n && bestInflight > 0; i++) {
+            Backend candidate = backends[(start + i) % n];
+            int inflight = candidate.getInflight();
+            if (inflight < bestInflight) {
+                best = candidate;
+                bestInflight = inflight;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,47 @@
+package com.cs4445.loadBalancer.strategy;
+
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+
+/**
+ * SPI cho thuật toán chọn backend.
+ * Mọi bean implement interface này được StrategyManager tự đăng ký theo getName().
+ */
+public interface LoadBalancingStrategy {
+
+    /**
+     * Tên thuật toán, trùng với giá trị của loadbalancer.algorithm (VD: ROUND_ROBIN)
+     */
+    String getName();
+
+    /**
+     * Chọn một backend từ mảng backend đang mở.
+     * Chạy trên hot path: không lock, không cấp phát object.
+     * @param backends mảng snapshot, không được sửa đổi
+     * @return backend được chọn, null nếu mảng rỗng
+     */
+    Backend select(Backend[] backends);
+
+    /**
+     * Strategy cần affinity key của request (sticky routing, VD: CONSISTENT_HASH).
+     * Nếu false, proxy không tính key và gọi select(backends, 0).
+     */
+    default boolean usesAffinityKey() {
+        return false;
+    }
+
+    /**
+     * Chọn backend cho request có affinity key (hash 64-bit của header/cookie/IP, xem AffinityKeyResolver).
+     * Mặc định bỏ qua key.
+     */
+    default Backend select(Backend[] backends, long affinityKey) {
+        return select(backends);
+    }
+
+    /**
+     * Được gọi khi registry publish snapshot mới, ngoài hot path.
+     * Strategy cần bảng tra cứu tính trước (VD: WEIGHTED) build lại ở đây.
+     */
+    default void onSnapshot(BackendSnapshot snapshot) {
+    }
+}
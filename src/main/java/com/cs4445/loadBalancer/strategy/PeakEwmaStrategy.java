@@ -0,0 +1,49 @@
+package com.cs4445.loadBalancer.strategy;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+
+/**
+ * Power-of-two-choices theo cost = peak EWMA latency × (in-flight + 1).
+ * Lấy ngẫu nhiên 2 backend khác nhau và chọn backend có cost thấp hơn, nên không cần điều phối tập trung
+ * mà vẫn tránh được backend chậm (tail latency) trên các VPS không đồng đều.
+ */
+@Component
+public class PeakEwmaStrategy implements LoadBalancingStrategy {
+    //==========================================Constant==========================================
+    // Latency giả định cho backend chưa có sample, để backend mới không bị dồn hết traffic
+    private static final double DEFAULT_LATENCY_NANOS = 100_000_000.0;
+
+    //===========================================Method===========================================
+    @Override
+    public String getName() {
+        return "PEAK_EWMA";
+    }
+
+    @Override
+    public Backend select(Backend[] backends) {
+        int n = backends.length;
+        if (n == 0) return null;
+        if (n == 1) return backends[0];
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(n);
+        int second = random.nextInt(n - 1);
+        if (second >= first) second++;
+
+        Backend a = backends[first];
+        Backend b = backends[second];
+        long now = System.nanoTime();
+        return cost(a, now) <= cost(b, now) ? a : b;
+    }
+
+    //===========================================Helper============================================
+    static double cost(Backend backend, long nowNanos) {
+        double latency = backend.getLatency().get(nowNanos);
+        if (latency <= 0) latency = DEFAULT_LATENCY_NANOS;
+        return latency * (backend.getInflight() + 1);
+    }
+}
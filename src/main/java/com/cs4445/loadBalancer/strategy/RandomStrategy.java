@@ -0,0 +1,24 @@
+package com.cs4445.loadBalancer.strategy;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+
+@Component
+public class RandomStrategy implements LoadBalancingStrategy {
+
+    //===========================================Method===========================================
+    @Override
+    public String getName() {
+        return "RANDOM";
+    }
+
+    @Override
+    public Backend select(Backend[] backends) {
+        int n = backends.length;
+        if (n == 0) return null;
+        return backends[ThreadLocalRandom.current().nextInt(n)];
+    }
+}
@@ -0,0 +1,26 @@
+package com.cs4445.loadBalancer.strategy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+
+@Component
+public class RoundRobinStrategy implements LoadBalancingStrategy {
+    //==========================================Variable==========================================
+    private final AtomicInteger counter = new AtomicInteger();
+
+    //===========================================Method===========================================
+    @Override
+    public String getName() {
+        return "ROUND_ROBIN";
+    }
+
+    @Override
+    public Backend select(Backend[] backends) {
+        int n = backends.length;
+        if (n == 0) return null;
+        return backends[(counter.getAndIncrement() & Integer.MAX_VALUE) % n];
+    }
+}
@@ -0,0 +1,94 @@
+package com.cs4445.loadBalancer.strategy;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+
+/**
+ * Giữ strategy đang active và cho phép đổi thuật toán lúc runtime (VD: từ TCP command SET_ALGORITHM).
+ * Tất cả strategy đều nhận snapshot mới, nên khi đổi thuật toán bảng tra cứu đã sẵn sàng.
+ */
+@Component
+@Slf4j
+public class StrategyManager {
+    //==========================================Variable==========================================
+    private final Map<String, LoadBalancingStrategy> strategies = new LinkedHashMap<>();
+
+    private volatile LoadBalancingStrategy current;
+
+    //=========================================Constructor=========================================
+    public StrategyManager(List<LoadBalancingStrategy> strategies,
+                           BackendRegistry backendRegistry,
+                           @Value("${loadbalancer.algorithm:ROUND_ROBIN}") String algorithm) {
+        for (LoadBalancingStrategy strategy : strategies) {
+            this.strategies.put(strategy.getName(), strategy);
+        }
+
+        this.current = this.strategies.get(normalize(algorithm));
+        if (this.current == null) {
+            throw new IllegalArgumentException("Unknown loadbalancer.algorithm: " + algorithm
+                    + ", expected one of " + this.strategies.keySet());
+        }
+        log.info("Load balancing algorithm: {}", current.getName());
+
+        backendRegistry.addListener(this::onSnapshot);
+    }
+
+    //===========================================Method===========================================
+    public Backend select(Backend[] backends) {
+        return current.select(backends);
+    }
+
+    public Backend select(Backend[] backends, long affinityKey) {
+        return current.select(backends, affinityKey);
+    }
+
+    public boolean usesAffinityKey() {
+        return current.usesAffinityKey();
+    }
+
+    public String getAlgorithm() {
+        return current.getName();
+    }
+
+    public Set<String> getAvailableAlgorithms() {
+        return Collections.unmodifiableSet(strategies.keySet());
+    }
+
+    /**
+     * Đổi thuật toán ngay lập tức, request kế tiếp sẽ dùng strategy mới
+     * @return false nếu tên thuật toán không tồn tại
+     */
+    public boolean setAlgorithm(String algorithm) {
+        LoadBalancingStrategy strategy = strategies.get(normalize(algorithm));
+        if (strategy == null) return false;
+
+        LoadBalancingStrategy previous = current;
+        current = strategy;
+        log.info("Load balancing algorithm changed: {} -> {}", previous.getName(), strategy.getName());
+        return true;
+    }
+
+    //===========================================Helper============================================
+    private void onSnapshot(BackendSnapshot snapshot) {
+        for (LoadBalancingStrategy strategy : strategies.values()) {
+            strategy.onSnapshot(snapshot);
+        }
+    }
+
+    private static String normalize(String algorithm) {
+        return algorithm == null ? "" : algorithm.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,101 @@
+package com.cs4445.loadBalancer.strategy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+
+/**
+ * Weighted round robin với bảng thứ tự tính trước cho mỗi snapshot.
+ * Bảng được sinh theo smooth weighted round robin (kiểu nginx) nên các backend nặng
+ * không bị dồn liên tiếp; select chỉ là một phép chia lấy dư trên bảng.
+ */
+@Component
+public class WeightedStrategy implements LoadBalancingStrategy {
+    //==========================================Constant==========================================
+    private static final int MAX_TABLE_SIZE = 4096;
+
+    //==========================================Variable==========================================
+    private final AtomicInteger counter = new AtomicInteger();
+    private volatile Table table = new Table(new Backend[0], new Backend[0]);
+
+    //===========================================Method===========================================
+    @Override
+    public String getName() {
+        return "WEIGHTED";
+    }
+
+    @Override
+    public Backend select(Backend[] backends) {
+        int n = backends.length;
+        if (n == 0) return null;
+
+        int next = counter.getAndIncrement() & Integer.MAX_VALUE;
+        Table current = table;
+        // Bảng chưa kịp build cho snapshot này: tạm thời round robin
+        if (current.source != backends) {
+            return backends[next % n];
+        }
+        return current.sequence[next % current.sequence.length];
+    }
+
+    @Override
+    public void onSnapshot(BackendSnapshot snapshot) {
+        Backend[] backends = snapshot.getAvailable();
+        table = new Table(backends, buildSequence(backends));
+    }
+
+    //===========================================Helper============================================
+    static Backend[] buildSequence(Backend[] backends) {
+        int n = backends.length;
+        if (n == 0) return backends;
+
+        int[] weights = new int[n];
+        int divisor = 0;
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            weights[i] = Math.max(1, backends[i].getWeight());
+            divisor = gcd(divisor, weights[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            weights[i] /= divisor;
+            total += weights[i];
+        }
+        // Thu nhỏ tỉ lệ nếu tổng weight quá lớn để giới hạn bộ nhớ của bảng
+        if (total > MAX_TABLE_SIZE) {
+            double scale = (double) MAX_TABLE_SIZE / total;
+            total = 0;
+            for (int i = 0; i < n; i++) {
+                weights[i] = Math.max(1, (int) (weights[i] * scale));
+                total += weights[i];
+            }
+        }
+
+        Backend[] sequence = new Backend[(int) total];
+        long[] current = new long[n];
+        for (int slot = 0; slot < sequence.length; slot++) {
+            int best = 0;
+            for (int i = 0; i < n; i++) {
+                current[i] += weights[i];
+                if (current[i] > current[best]) best = i;
+            }
+            current[best] -= total;
+            sequence[slot] = backends[best];
+        }
+        return sequence;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private record Table(Backend[] source, Backend[] sequence) {
+    }
+}
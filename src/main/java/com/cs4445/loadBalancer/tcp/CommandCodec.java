@@ -0,0 +1,222 @@
+package com.cs4445.loadBalancer.tcp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.registry.BackendState;
+import com.cs4445.loadBalancer.registry.CircuitBreaker;
+import com.cs4445.loadBalancer.registry.SlidingWindow;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * Codec cho TCP command protocol dùng Jackson streaming API:
+ * - decode: JsonParser đọc thẳng từ payload của frame vào TcpCommand, không dựng JsonNode
+ * - encode: JsonGenerator ghi thẳng vào FrameBuffer lấy từ pool, không qua ObjectNode hay String
+ */
+public class CommandCodec {
+    //==========================================Constant==========================================
+    // Buffer lớn hơn mức này sẽ không được trả về pool để giới hạn bộ nhớ giữ lại
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    //==========================================Variable==========================================
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ArrayBlockingQueue<FrameBuffer> framePool;
+    private final int initialFrameCapacity;
+
+    //=========================================Constructor=========================================
+    public CommandCodec(int initialFrameCapacity, int maxPooledFrames) {
+        this.initialFrameCapacity = initialFrameCapacity;
+        this.framePool = new ArrayBlockingQueue<>(maxPooledFrames);
+    }
+
+    //===========================================Decode============================================
+    /**
+     * Decode payload JSON của một frame. Field không biết sẽ được bỏ qua.
+     * @throws IOException nếu payload không phải JSON object hợp lệ
+     */
+    public TcpCommand decode(ByteBuffer payload) throws IOException {
+        try (JsonParser parser = createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected JSON object");
+            }
+            return readCommand(parser);
+        }
+    }
+
+    /**
+     * Đọc các field của một command object, parser đang đứng ngay sau START_OBJECT
+     */
+    private TcpCommand readCommand(JsonParser parser) throws IOException {
+        TcpCommand command = new TcpCommand();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "action" -> command.setAction(textValue(parser, value));
+                case "serverUrl" -> command.setServerUrl(textValue(parser, value));
+                case "algorithm" -> command.setAlgorithm(textValue(parser, value));
+                case "minIntervalMs" -> command.setMinIntervalMs(longValue(parser, value));
+                case "deadlineMs" -> command.setDeadlineMs(longValue(parser, value));
+                case "weight" -> command.setWeight((int) longValue(parser, value));
+                case "commands" -> command.setCommands(readCommands(parser, value));
+                case "scope" -> command.setScope(textValue(parser, value));
+                case "key" -> command.setKey(textValue(parser, value));
+                case "rate" -> command.setRate(doubleValue(parser, value));
+                case "burst" -> command.setBurst((int) longValue(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+        return command;
+    }
+
+    /**
+     * Đọc mảng command của BATCH. Phần tử không phải object thành command rỗng
+     * để vẫn giữ đúng index khi trả kết quả từng phần tử.
+     */
+    private List<TcpCommand> readCommands(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<TcpCommand> commands = new ArrayList<>();
+        JsonToken item;
+        while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (item == null) {
+                throw new IOException("Unexpected end of 'commands' array");
+            }
+            if (item == JsonToken.START_OBJECT) {
+                commands.add(readCommand(parser));
+            } else {
+                parser.skipChildren();
+                commands.add(new TcpCommand());
+            }
+        }
+        return commands;
+    }
+
+    private JsonParser createParser(ByteBuffer payload) throws IOException {
+        if (payload.hasArray()) {
+            return jsonFactory.createParser(payload.array(), payload.arrayOffset() + payload.position(),
+                    payload.remaining());
+        }
+        return jsonFactory.createParser(new ByteBufferBackedInputStream(payload));
+    }
+
+    private static String textValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) return "";
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return "";
+        }
+        return parser.getValueAsString("");
+    }
+
+    private static long longValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return 0L;
+        }
+        return parser.getValueAsLong(0L);
+    }
+
+    private static double doubleValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) return -1;
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return -1;
+        }
+        return parser.getValueAsDouble(-1);
+    }
+
+    //===========================================Encode============================================
+    /**
+     * Ghi một response vào FrameBuffer lấy từ pool.
+     * Người nhận frame phải gọi release() sau khi đã gửi xong.
+     */
+    public FrameBuffer encode(ResponseWriter writer) throws IOException {
+        FrameBuffer frame = acquire();
+        try (JsonGenerator generator = jsonFactory.createGenerator(frame)) {
+            writer.write(generator);
+        } catch (IOException | RuntimeException e) {
+            release(frame);
+            throw e;
+        }
+        return frame.finish();
+    }
+
+    public void release(FrameBuffer frame) {
+        if (frame.getCapacity() <= MAX_POOLED_CAPACITY) {
+            framePool.offer(frame);
+        }
+    }
+
+    private FrameBuffer acquire() {
+        FrameBuffer frame = framePool.poll();
+        if (frame == null) {
+            frame = new FrameBuffer(initialFrameCapacity);
+        }
+        frame.reset();
+        return frame;
+    }
+
+    //==========================================Writers===========================================
+    /**
+     * Ghi object của một server (dùng cho GET_STATUS):
+     * {"url": "...", "statusCode": 200, ..., "health": {...}}
+     */
+    public static void writeServer(JsonGenerator gen, BackendState state) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("url", state.getBackend().getUrl());
+        gen.writeNumberField("statusCode", state.getStatusCode());
+        gen.writeNumberField("weight", state.getBackend().getWeight());
+        gen.writeNumberField("inflight", state.getBackend().getInflight());
+        gen.writeNumberField("concurrencyLimit", state.getBackend().getConcurrencyLimit().getLimit());
+        gen.writeNumberField("minRttMs", state.getBackend().getConcurrencyLimit().getMinRttNanos() / 1_000_000.0);
+        gen.writeNumberField("ewmaLatencyMs", state.getBackend().getLatency().get() / 1_000_000.0);
+
+        // Trạng thái passive health check (circuit breaker) từ traffic proxy
+        CircuitBreaker breaker = state.getBackend().getCircuitBreaker();
+        long now = System.currentTimeMillis();
+        CircuitBreaker.State circuitState = breaker.getState(now);
+        SlidingWindow.Counts counts = breaker.getWindow().counts(now);
+        gen.writeObjectFieldStart("circuit");
+        gen.writeStringField("state", circuitState.name());
+        if (circuitState == CircuitBreaker.State.OPEN) {
+            gen.writeNumberField("ejectedUntil", breaker.getEjectedUntil());
+        }
+        gen.writeNumberField("ejections", breaker.getEjectionCount());
+        gen.writeNumberField("consecutiveFailures", breaker.getConsecutiveFailures());
+        gen.writeNumberField("requests", counts.getTotal());
+        gen.writeNumberField("failures", counts.getFailures());
+        gen.writeNumberField("timeouts", counts.getTimeouts());
+        gen.writeNumberField("errorRate", counts.getErrorRate());
+        gen.writeEndObject();
+
+        // Thêm health data nếu response thành công
+        ServerHealthResponse health = state.getHealth();
+        if (health != null) {
+            gen.writeObjectFieldStart("health");
+            gen.writeNumberField("cpuUsagePercent", health.getCpuUsagePercent());
+            gen.writeNumberField("memoryUsagePercent", health.getMemoryUsagePercent());
+            gen.writeNumberField("avgProcessingTimeSec", health.getAvgProcessingTimeSec());
+            gen.writeNumberField("currConnections", health.getCurrConnections());
+            gen.writeBooleanField("isOpen", health.isOpen());
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    //===========================================Writer============================================
+    @FunctionalInterface
+    public interface ResponseWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
@@ -0,0 +1,40 @@
+package com.cs4445.loadBalancer.tcp;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool các direct ByteBuffer kích thước cố định cho việc đọc/ghi frame TCP.
+ * Direct buffer đắt khi cấp phát nên được giữ lại và dùng chung giữa các connection.
+ */
+public class DirectBufferPool {
+    //==========================================Variable==========================================
+    private final int bufferSize;
+    private final ArrayBlockingQueue<ByteBuffer> pool;
+
+    //=========================================Constructor=========================================
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    //===========================================Method===========================================
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.isDirect() && buffer.capacity() == bufferSize) {
+            pool.offer(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,78 @@
+package com.cs4445.loadBalancer.tcp;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Buffer ghi một frame response: 4 byte đầu để dành cho length prefix, phần còn lại là JSON.
+ * JsonGenerator ghi thẳng vào đây nên không có String trung gian; buffer được pool và dùng lại.
+ */
+public final class FrameBuffer extends OutputStream {
+    //==========================================Constant==========================================
+    static final int HEADER_LENGTH = 4;
+
+    //==========================================Variable==========================================
+    private byte[] bytes;
+    private int count = HEADER_LENGTH;
+
+    //=========================================Constructor=========================================
+    public FrameBuffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(initialCapacity, HEADER_LENGTH)];
+    }
+
+    //===========================================Method===========================================
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        bytes[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, bytes, count, len);
+        count += len;
+    }
+
+    public void reset() {
+        count = HEADER_LENGTH;
+    }
+
+    /**
+     * Ghi length prefix (big-endian) vào 4 byte đầu, gọi sau khi đã ghi xong payload
+     */
+    public FrameBuffer finish() {
+        int length = getPayloadLength();
+        bytes[0] = (byte) (length >>> 24);
+        bytes[1] = (byte) (length >>> 16);
+        bytes[2] = (byte) (length >>> 8);
+        bytes[3] = (byte) length;
+        return this;
+    }
+
+    /**
+     * Mảng chứa toàn bộ frame (header + payload) trong khoảng [0, getFrameLength())
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getFrameLength() {
+        return count;
+    }
+
+    public int getPayloadLength() {
+        return count - HEADER_LENGTH;
+    }
+
+    public int getCapacity() {
+        return bytes.length;
+    }
+
+    //===========================================Helper============================================
+    private void ensureCapacity(int required) {
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length << 1));
+        }
+    }
+}
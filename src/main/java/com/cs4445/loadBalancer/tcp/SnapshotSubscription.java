@@ -0,0 +1,170 @@
+package com.cs4445.loadBalancer.tcp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+import com.cs4445.loadBalancer.registry.BackendState;
+
+/**
+ * Subscription SUBSCRIBE của một TCP connection.
+ * Mỗi khi registry publish snapshot mới, subscription gửi frame delta chỉ chứa các backend thay đổi
+ * (health, open/closed, bị circuit breaker eject). Các snapshot đến dồn dập trong khoảng minInterval được gộp lại,
+ * chỉ snapshot mới nhất được so sánh với lần gửi trước.
+ * Khi hàng đợi ghi của connection đầy (client đọc chậm), flush được thử lại sau ít nhất PUSH_RETRY_NANOS
+ * để không chiếm scheduler dùng chung của các subscription khác.
+ */
+@Slf4j
+class SnapshotSubscription implements Consumer<BackendSnapshot> {
+    //==========================================Constant==========================================
+    static final long PUSH_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    //==========================================Variable==========================================
+    private final TcpConnection connection;
+    private final CommandCodec codec;
+    private final ScheduledExecutorService scheduler;
+    private volatile long minIntervalNanos;
+
+    private final AtomicReference<BackendSnapshot> latest = new AtomicReference<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private volatile BackendSnapshot lastSent;
+    private volatile long lastFlushNanos;
+    private volatile boolean cancelled;
+
+    //=========================================Constructor=========================================
+    SnapshotSubscription(TcpConnection connection, CommandCodec codec, ScheduledExecutorService scheduler,
+                         long minIntervalMs, BackendSnapshot initial) {
+        this.connection = connection;
+        this.codec = codec;
+        this.scheduler = scheduler;
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMs);
+        this.lastSent = initial;
+        this.lastFlushNanos = System.nanoTime();
+    }
+
+    //===========================================Method===========================================
+    /**
+     * Listener của BackendRegistry: chỉ ghi nhận snapshot mới nhất và hẹn lịch flush
+     */
+    @Override
+    public void accept(BackendSnapshot snapshot) {
+        if (cancelled) return;
+        latest.set(snapshot);
+        scheduleFlush(0L);
+    }
+
+    void setMinIntervalMs(long minIntervalMs) {
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMs);
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    //===========================================Flush=============================================
+    /**
+     * @param minDelayNanos thời gian chờ tối thiểu, dùng khi thử lại lúc hàng đợi ghi đầy
+     */
+    private void scheduleFlush(long minDelayNanos) {
+        if (!flushScheduled.compareAndSet(false, true)) return;
+        long delay = Math.max(minDelayNanos, lastFlushNanos + minIntervalNanos - System.nanoTime());
+        scheduler.schedule(this::flush, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void flush() {
+        // Reset trước khi đọc latest để snapshot đến trong lúc flush không bị bỏ sót
+        flushScheduled.set(false);
+        if (cancelled) return;
+
+        BackendSnapshot snapshot = latest.get();
+        BackendSnapshot previous = lastSent;
+        if (snapshot == null || snapshot.getVersion() <= previous.getVersion()) return;
+
+        List<BackendState> changed = new ArrayList<>();
+        Map<Backend, BackendState> previousStates = new IdentityHashMap<>();
+        for (BackendState state : previous.getStates()) {
+            previousStates.put(state.getBackend(), state);
+        }
+        // Backend bị circuit breaker eject/revive chỉ đổi mảng available, state giữ nguyên
+        Set<Backend> previousRoutable = routable(previous);
+        Set<Backend> currentRoutable = routable(snapshot);
+        for (BackendState state : snapshot.getStates()) {
+            Backend backend = state.getBackend();
+            BackendState before = previousStates.remove(backend);
+            if (before == null || hasChanged(before, state)
+                    || previousRoutable.contains(backend) != currentRoutable.contains(backend)) {
+                changed.add(state);
+            }
+        }
+        // Backend còn lại trong map là backend đã bị xoá khỏi registry
+        List<String> removed = previousStates.keySet().stream().map(Backend::getUrl).toList();
+
+        lastFlushNanos = System.nanoTime();
+        if (changed.isEmpty() && removed.isEmpty()) {
+            lastSent = snapshot;
+            return;
+        }
+
+        try {
+            FrameBuffer frame = codec.encode(gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("type", "EVENT");
+                gen.writeStringField("event", "BACKEND_DELTA");
+                gen.writeNumberField("version", snapshot.getVersion());
+                gen.writeNumberField("refreshedAt", snapshot.getRefreshedAt());
+                gen.writeArrayFieldStart("servers");
+                for (BackendState state : changed) {
+                    CommandCodec.writeServer(gen, state);
+                }
+                gen.writeEndArray();
+                gen.writeArrayFieldStart("removed");
+                for (String url : removed) {
+                    gen.writeString(url);
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            });
+
+            if (connection.push(frame)) {
+                lastSent = snapshot;
+            } else {
+                codec.release(frame);
+                if (connection.isClosed()) {
+                    // Connection đã đóng, listener sẽ được gỡ bởi cancelSubscription
+                    cancelled = true;
+                    return;
+                }
+                // Client đọc chậm, hàng đợi đầy: giữ lastSent để lần sau gửi delta gộp
+                scheduleFlush(Math.max(minIntervalNanos, PUSH_RETRY_NANOS));
+            }
+        } catch (IOException e) {
+            log.error("Error encoding backend delta", e);
+        }
+    }
+
+    private static Set<Backend> routable(BackendSnapshot snapshot) {
+        Set<Backend> backends = Collections.newSetFromMap(new IdentityHashMap<>());
+        Collections.addAll(backends, snapshot.getAvailable());
+        return backends;
+    }
+
+    private static boolean hasChanged(BackendState before, BackendState after) {
+        return before.getStatusCode() != after.getStatusCode()
+                || before.isAvailable() != after.isAvailable()
+                || !Objects.equals(before.getHealth(), after.getHealth());
+    }
+}
@@ -0,0 +1,26 @@
+package com.cs4445.loadBalancer.tcp;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request đã được decode từ một frame TCP
+ */
+@Data
+@NoArgsConstructor
+public class TcpCommand {
+    //==========================================Variable==========================================
+    private String action = "";
+    private String serverUrl = "";
+    private String algorithm = "";
+    private int weight = 0; // ADD_SERVER / SET_WEIGHT, 0 = không chỉ định
+    private long minIntervalMs = 0L; // SUBSCRIBE: khoảng cách tối thiểu giữa 2 event
+    private List<TcpCommand> commands = List.of(); // BATCH: các lệnh con
+    private long deadlineMs = 0L; // BATCH: deadline chung, 0 = mặc định của server
+    private String scope = ""; // SET_RATE_LIMIT: CLIENT | ROUTE
+    private String key = ""; // SET_RATE_LIMIT: API key, IP hoặc route, rỗng = limit mặc định của scope
+    private double rate = -1; // SET_RATE_LIMIT: request/giây, 0 = không giới hạn, -1 = không chỉ định
+    private int burst = 0; // SET_RATE_LIMIT: 0 = bằng rate
+}
@@ -1,14 +1,20 @@
 package com.cs4445.loadBalancer.tcp;
 
-import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.metrics.LoadSeries;
+import com.cs4445.loadBalancer.metrics.LoadTimeSeries;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
 import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.ratelimit.RateLimit;
+import com.cs4445.loadBalancer.ratelimit.RateLimiter;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+import com.cs4445.loadBalancer.registry.BackendState;
 import com.cs4445.loadBalancer.service.api.StatusApi;
-import com.cs4445.loadBalancer.service.feature.ServerService;
+import com.cs4445.loadBalancer.strategy.StrategyManager;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Timer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,14 +25,29 @@ import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
-import java.io.*;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
@@ -40,37 +61,78 @@ public class TcpCommandServer {
     public static final String CMD_OPEN_SERVER = "OPEN_SERVER";
     public static final String CMD_CLOSE_SERVER = "CLOSE_SERVER";
     public static final String CMD_PING = "PING";
+    public static final String CMD_SET_ALGORITHM = "SET_ALGORITHM";
+    public static final String CMD_SUBSCRIBE = "SUBSCRIBE";
+    public static final String CMD_UNSUBSCRIBE = "UNSUBSCRIBE";
+    public static final String CMD_BATCH = "BATCH";
+    public static final String CMD_ADD_SERVER = "ADD_SERVER";
+    public static final String CMD_REMOVE_SERVER = "REMOVE_SERVER";
+    public static final String CMD_SET_WEIGHT = "SET_WEIGHT";
+    public static final String CMD_SET_RATE_LIMIT = "SET_RATE_LIMIT";
+    public static final String CMD_GET_METRICS = "GET_METRICS";
 
     // Response constants
     public static final String RESP_OK = "OK";
     public static final String RESP_ERROR = "ERROR";
     public static final String RESP_PONG = "PONG";
+    public static final String RESP_PARTIAL = "PARTIAL";
 
     //==========================================Variable==========================================
     @Value("${loadbalancer.tcp.port:9090}")
     private int tcpPort;
 
-    private final StatusApi statusApi;
-    private final ServerService serverService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Value("${loadbalancer.tcp.max-connections:1024}")
+    private int maxConnections;
+
+    @Value("${loadbalancer.tcp.max-pipelined:32}")
+    private int maxPipelined;
+
+    @Value("${loadbalancer.tcp.max-frame-length:1048576}")
+    private int maxFrameLength;
+
+    @Value("${loadbalancer.tcp.batch.max-commands:256}")
+    private int maxBatchCommands;
 
-    private ServerSocket serverSocket;
-    private ExecutorService executorService;
+    @Value("${loadbalancer.tcp.batch.deadline:5000}")
+    private long defaultBatchDeadlineMs;
+
+    private final StatusApi statusApi;
+    private final BackendRegistry backendRegistry;
+    private final StrategyManager strategyManager;
+    private final RateLimiter rateLimiter;
+    private final ProxyMetrics proxyMetrics;
+    private final LoadTimeSeries loadTimeSeries;
+    private final CommandCodec codec = new CommandCodec(1024, 256);
+    private final DirectBufferPool bufferPool;
+    private final ExecutorService commandExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService subscriptionScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("tcp-subscription").factory());
+    private final Set<TcpConnection> connections = ConcurrentHashMap.newKeySet();
+    private Semaphore connectionPermits;
+
+    private ServerSocketChannel serverChannel;
     private final AtomicBoolean running = new AtomicBoolean(false);
 
     //=========================================Constructor=========================================
-    public TcpCommandServer(StatusApi statusApi, ServerService serverService) {
+    public TcpCommandServer(StatusApi statusApi, BackendRegistry backendRegistry, StrategyManager strategyManager,
+                            RateLimiter rateLimiter, ProxyMetrics proxyMetrics, LoadTimeSeries loadTimeSeries,
+                            @Value("${loadbalancer.tcp.buffer-size:65536}") int bufferSize) {
         this.statusApi = statusApi;
-        this.serverService = serverService;
+        this.backendRegistry = backendRegistry;
+        this.strategyManager = strategyManager;
+        this.rateLimiter = rateLimiter;
+        this.proxyMetrics = proxyMetrics;
+        this.loadTimeSeries = loadTimeSeries;
+        this.bufferPool = new DirectBufferPool(bufferSize, 256);
     }
 
     //===========================================Lifecycle==========================================
     @PostConstruct
     public void start() {
-        executorService = Executors.newCachedThreadPool();
+        connectionPermits = new Semaphore(maxConnections);
         running.set(true);
 
-        executorService.submit(this::runServer);
+        Thread.ofPlatform().daemon().name("tcp-acceptor").start(this::runServer);
         log.info("TCP Command Server starting on port {}", tcpPort);
     }
 
@@ -78,29 +140,41 @@ public class TcpCommandServer {
     public void stop() {
         running.set(false);
         try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
+            if (serverChannel != null && serverChannel.isOpen()) {
+                serverChannel.close();
             }
         } catch (IOException e) {
             log.error("Error closing server socket", e);
         }
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        connections.forEach(TcpConnection::close);
+        commandExecutor.shutdown();
+        subscriptionScheduler.shutdownNow();
         log.info("TCP Command Server stopped");
     }
 
     //===========================================Server============================================
+    /**
+     * Accept loop: mỗi connection được xử lý bởi virtual thread (xem TcpConnection),
+     * số connection đồng thời bị giới hạn bởi loadbalancer.tcp.max-connections
+     */
     private void runServer() {
         try {
-            serverSocket = new ServerSocket(tcpPort);
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(tcpPort));
             log.info("TCP Command Server listening on port {}", tcpPort);
 
             while (running.get()) {
                 try {
-                    Socket clientSocket = serverSocket.accept();
-                    log.debug("New connection from {}", clientSocket.getRemoteSocketAddress());
-                    executorService.submit(() -> handleClient(clientSocket));
+                    SocketChannel clientChannel = serverChannel.accept();
+                    if (!connectionPermits.tryAcquire()) {
+                        log.warn("Too many TCP connections ({}), rejecting {}",
+                                maxConnections, clientChannel.getRemoteAddress());
+                        clientChannel.close();
+                        continue;
+                    }
+                    log.debug("New connection from {}", clientChannel.getRemoteAddress());
+                    clientChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    acceptConnection(clientChannel);
                 } catch (IOException e) {
                     if (running.get()) {
                         log.error("Error accepting connection", e);
@@ -112,86 +186,92 @@ public class TcpCommandServer {
         }
     }
 
-    //==========================================Handler============================================
+    private void acceptConnection(SocketChannel clientChannel) throws IOException {
+        TcpConnection connection = new TcpConnection(clientChannel, bufferPool, codec, maxFrameLength,
+                maxPipelined, this::dispatch, this::onConnectionClosed);
+        connections.add(connection);
+        connection.start();
+    }
+
+    private void onConnectionClosed(TcpConnection connection) {
+        cancelSubscription(connection);
+        if (connections.remove(connection)) {
+            connectionPermits.release();
+        }
+    }
+
+    //=========================================Processing==========================================
     /**
-     * Xử lý client connection với Length-Prefixed Protocol
+     * Decode một frame request (trên reader thread của connection) và xử lý.
      * Protocol: [4-byte big-endian length][JSON payload]
      * Request JSON format:
      * {
-     *   "action": "GET_STATUS" | "OPEN_SERVER" | "CLOSE_SERVER" | "PING",
-     *   "serverUrl": "http://localhost:8081"  // optional, required for OPEN/CLOSE
+     *   "action": "GET_STATUS" | "OPEN_SERVER" | "CLOSE_SERVER" | "PING" | "SET_ALGORITHM"
+     *             | "SUBSCRIBE" | "UNSUBSCRIBE" | "BATCH"
+     *             | "ADD_SERVER" | "REMOVE_SERVER" | "SET_WEIGHT" | "SET_RATE_LIMIT" | "GET_METRICS",
+     *   "serverUrl": "http://localhost:8081", // optional, required for OPEN/CLOSE/ADD/REMOVE/SET_WEIGHT, filter for GET_METRICS
+     *   "algorithm": "LEAST_CONNECTIONS",     // optional, required for SET_ALGORITHM
+     *   "weight": 2,                          // optional for ADD_SERVER, required for SET_WEIGHT
+     *   "minIntervalMs": 500,                 // optional, for SUBSCRIBE
+     *   "commands": [{"action": "OPEN_SERVER", "serverUrl": "..."}, ...], // required for BATCH
+     *   "deadlineMs": 3000,                   // optional, for BATCH
+     *   "scope": "CLIENT", "key": "...",      // SET_RATE_LIMIT: scope required, key optional
+     *   "rate": 100, "burst": 200             // SET_RATE_LIMIT: rate required unless removing a key override
      * }
+     * Lệnh nhanh được trả lời ngay, lệnh phải gọi HTTP đến backend (OPEN/CLOSE) chạy trên virtual thread
+     * để các request pipelined phía sau không bị chặn; response vẫn được gửi theo đúng thứ tự.
+     * Thời gian từ lúc decode xong đến khi có response được ghi vào proxy.tcp.commands.duration.
      */
-    private void handleClient(Socket clientSocket) {
+    private CompletableFuture<FrameBuffer> dispatch(TcpConnection connection, ByteBuffer payload) {
+        TcpCommand command;
         try {
-            DataInputStream in = new DataInputStream(clientSocket.getInputStream());
-            DataOutputStream out = new DataOutputStream(clientSocket.getOutputStream());
-
-            // Giữ kết nối mở để xử lý nhiều request liên tiếp
-            while (running.get() && !clientSocket.isClosed()) {
-                try {
-                    // Đọc 4 bytes đầu tiên (big-endian length)
-                    int length = in.readInt();
-                    if (length <= 0 || length > 1024 * 1024) { // Max 1MB
-                        log.warn("Invalid message length: {}", length);
-                        break;
-                    }
-
-                    // Đọc JSON payload
-                    byte[] payload = new byte[length];
-                    in.readFully(payload);
-                    String jsonRequest = new String(payload, StandardCharsets.UTF_8);
-
-                    log.debug("Received request (len={}): {}", length, jsonRequest);
-
-                    // Xử lý request
-                    String response = processJsonRequest(jsonRequest.trim());
-
-                    // Gửi response với length-prefix
-                    sendLengthPrefixedResponse(out, response);
-
-                } catch (EOFException e) {
-                    // Client đóng kết nối - bình thường
-                    log.debug("Client disconnected: {}", clientSocket.getRemoteSocketAddress());
-                    break;
-                }
-            }
+            command = codec.decode(payload);
+        } catch (Exception e) {
+            log.warn("Error parsing JSON request: {}", e.getMessage());
+            return CompletableFuture.completedFuture(buildErrorJson("Invalid JSON format: " + e.getMessage()));
+        }
+        log.debug("Received request: {}", command);
+
+        String action = command.getAction().toUpperCase();
+        Timer timer = proxyMetrics.tcpCommand(action);
+        long start = System.nanoTime();
+        CompletableFuture<FrameBuffer> result = execute(connection, command, action);
+        if (result == null || result.isDone()) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } else {
+            result.whenComplete((frame, error) -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        }
+        return result;
+    }
 
-        } catch (IOException e) {
-            if (running.get()) {
-                log.error("Error handling client connection", e);
-            }
-        } finally {
-            try {
-                clientSocket.close();
-            } catch (IOException e) {
-                log.error("Error closing client socket", e);
-            }
+    private CompletableFuture<FrameBuffer> execute(TcpConnection connection, TcpCommand command, String action) {
+        if (action.equals(CMD_OPEN_SERVER) || action.equals(CMD_CLOSE_SERVER)) {
+            return CompletableFuture.supplyAsync(() -> processCommand(command), commandExecutor);
+        }
+        if (action.equals(CMD_BATCH)) {
+            return CompletableFuture.supplyAsync(() -> handleBatch(command), commandExecutor);
         }
+        if (action.equals(CMD_SUBSCRIBE)) {
+            return handleSubscribe(connection, command.getMinIntervalMs());
+        }
+        if (action.equals(CMD_UNSUBSCRIBE)) {
+            cancelSubscription(connection);
+            return CompletableFuture.completedFuture(buildMessageResponse("Unsubscribed"));
+        }
+        return CompletableFuture.completedFuture(processCommand(command));
     }
 
-    //=========================================Processing==========================================
     /**
-     * Parse và xử lý JSON request
+     * Xử lý command đã decode
      */
-    private String processJsonRequest(String jsonRequest) {
+    private FrameBuffer processCommand(TcpCommand command) {
         try {
-            JsonNode requestNode = objectMapper.readTree(jsonRequest);
-
             // Lấy action từ JSON
-            JsonNode actionNode = requestNode.get("action");
-            if (actionNode == null || actionNode.asText().isEmpty()) {
+            if (command.getAction().isEmpty()) {
                 return buildErrorJson("Missing 'action' field");
             }
 
-            String action = actionNode.asText().toUpperCase();
-
-            // Lấy serverUrl nếu có
-            String serverUrl = "";
-            JsonNode serverUrlNode = requestNode.get("serverUrl");
-            if (serverUrlNode != null) {
-                serverUrl = serverUrlNode.asText();
-            }
+            String action = command.getAction().toUpperCase();
 
             // Xử lý theo action
             switch (action) {
@@ -202,10 +282,28 @@ public class TcpCommandServer {
                     return handleGetStatus();
 
                 case CMD_OPEN_SERVER:
-                    return handleOpenServer(serverUrl);
+                    return handleOpenServer(command.getServerUrl());
 
                 case CMD_CLOSE_SERVER:
-                    return handleCloseServer(serverUrl);
+                    return handleCloseServer(command.getServerUrl());
+
+                case CMD_SET_ALGORITHM:
+                    return handleSetAlgorithm(command.getAlgorithm());
+
+                case CMD_ADD_SERVER:
+                    return handleAddServer(command.getServerUrl(), command.getWeight());
+
+                case CMD_REMOVE_SERVER:
+                    return handleRemoveServer(command.getServerUrl());
+
+                case CMD_SET_WEIGHT:
+                    return handleSetWeight(command.getServerUrl(), command.getWeight());
+
+                case CMD_SET_RATE_LIMIT:
+                    return handleSetRateLimit(command);
+
+                case CMD_GET_METRICS:
+                    return handleGetMetrics(command.getServerUrl());
 
                 default:
                     log.warn("Unknown action: {}", action);
@@ -213,155 +311,565 @@ public class TcpCommandServer {
             }
 
         } catch (Exception e) {
-            log.error("Error parsing JSON request: {}", jsonRequest, e);
-            return buildErrorJson("Invalid JSON format: " + e.getMessage());
+            log.error("Error processing request: {}", command, e);
+            return buildErrorJson("Error processing request: " + e.getMessage());
         }
     }
 
     /**
      * Build PING response as JSON
      */
-    private String buildPingResponse() {
-        try {
-            ObjectNode root = objectMapper.createObjectNode();
-            root.put("status", RESP_OK);
-            root.put("message", RESP_PONG);
-            return objectMapper.writeValueAsString(root);
-        } catch (Exception e) {
-            return "{\"status\":\"OK\",\"message\":\"PONG\"}";
-        }
+    private FrameBuffer buildPingResponse() throws IOException {
+        return codec.encode(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("status", RESP_OK);
+            gen.writeStringField("message", RESP_PONG);
+            gen.writeEndObject();
+        });
     }
 
     //==========================================Handlers===========================================
 
     /**
-     * Lấy status của tất cả servers sử dụng ServerService.getAllServersHealth()
+     * Lấy status của tất cả servers từ snapshot của BackendRegistry (không gọi HTTP)
      * Response JSON format:
      * {
      *   "status": "OK",
+     *   "version": 12,
+     *   "algorithm": "ROUND_ROBIN",
+     *   "refreshedAt": 1700000000000,
      *   "servers": [
      *     {"url": "...", "statusCode": 200, "health": {...}},
      *     ...
      *   ]
      * }
      */
-    private String handleGetStatus() {
-        try {
-            List<ServerUrl> servers = serverService.getServerUrls();
-            List<ResponseEntity<?>> healthResponses = serverService.getAllServersHealth(servers);
-
-            ObjectNode root = objectMapper.createObjectNode();
-            root.put("status", RESP_OK);
-
-            ArrayNode serversArray = objectMapper.createArrayNode();
-            for (int i = 0; i < servers.size(); i++) {
-                ObjectNode serverNode = objectMapper.createObjectNode();
-                serverNode.put("url", servers.get(i).getUrl());
-                serverNode.put("statusCode", healthResponses.get(i).getStatusCode().value());
-
-                // Thêm health data nếu response thành công
-                Object body = healthResponses.get(i).getBody();
-                if (body instanceof ServerHealthResponse) {
-                    ServerHealthResponse health = (ServerHealthResponse) body;
-                    ObjectNode healthNode = objectMapper.createObjectNode();
-                    healthNode.put("cpuUsagePercent", health.getCpuUsagePercent());
-                    healthNode.put("memoryUsagePercent", health.getMemoryUsagePercent());
-                    healthNode.put("avgProcessingTimeSec", health.getAvgProcessingTimeSec());
-                    healthNode.put("currConnections", health.getCurrConnections());
-                    healthNode.put("isOpen", health.isOpen());
-                    serverNode.set("health", healthNode);
-                }
+    private FrameBuffer handleGetStatus() throws IOException {
+        BackendSnapshot snapshot = backendRegistry.getSnapshot();
+        return codec.encode(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("status", RESP_OK);
+            gen.writeNumberField("version", snapshot.getVersion());
+            gen.writeNumberField("refreshedAt", snapshot.getRefreshedAt());
+            gen.writeStringField("algorithm", strategyManager.getAlgorithm());
+
+            gen.writeArrayFieldStart("servers");
+            for (BackendState state : snapshot.getStates()) {
+                CommandCodec.writeServer(gen, state);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+    }
 
-                serversArray.add(serverNode);
+    /**
+     * Tổng hợp tải gần đây của từng backend theo cửa sổ (LoadTimeSeries), không gọi HTTP
+     * Response JSON format:
+     * {
+     *   "status": "OK",
+     *   "sampleIntervalMs": 1000,
+     *   "servers": [
+     *     {"url": "...", "available": true, "windows": [
+     *       {"window": "10s", "windowMs": 10000, "samples": 10, "requests": 1200, "errors": 3, "errorRate": 0.0025,
+     *        "rps": {"avg": 120.0, "max": 150.0}, "cpu": {...}, "memory": {...}, "avgProcessingTime": {...},
+     *        "connections": {...}, "latencyP50Ms": {...}, "latencyP99Ms": {...}},
+     *       ...
+     *     ]},
+     *     ...
+     *   ]
+     * }
+     * serverUrl (optional) giới hạn response về một backend. Giá trị không có sample nào là null.
+     */
+    private FrameBuffer handleGetMetrics(String serverUrl) throws IOException {
+        if (!loadTimeSeries.isEnabled()) {
+            return buildErrorJson("Load time series disabled (loadbalancer.timeseries.enabled=false)");
+        }
+        String url = null;
+        if (!serverUrl.isEmpty()) {
+            try {
+                url = ServerUrl.parse(serverUrl).getUrl();
+            } catch (IllegalArgumentException e) {
+                return buildErrorJson(e.getMessage());
+            }
+            if (backendRegistry.findBackend(url) == null) {
+                return buildErrorJson("Server " + url + " not found");
             }
-            root.set("servers", serversArray);
+        }
 
-            return objectMapper.writeValueAsString(root);
-        } catch (Exception e) {
-            log.error("Error getting server status", e);
-            return buildErrorJson(e.getMessage());
+        String filter = url;
+        Duration[] windows = loadTimeSeries.getWindows();
+        BackendSnapshot snapshot = backendRegistry.getSnapshot();
+        return codec.encode(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("status", RESP_OK);
+            gen.writeNumberField("sampleIntervalMs", loadTimeSeries.getSampleIntervalMs());
+
+            gen.writeArrayFieldStart("servers");
+            for (BackendState state : snapshot.getStates()) {
+                Backend backend = state.getBackend();
+                if (filter != null && !backend.getUrl().equals(filter)) continue;
+
+                gen.writeStartObject();
+                gen.writeStringField("url", backend.getUrl());
+                gen.writeBooleanField("available", state.isAvailable());
+                gen.writeArrayFieldStart("windows");
+                LoadSeries.Window[] aggregates = loadTimeSeries.aggregate(backend);
+                for (int i = 0; aggregates != null && i < aggregates.length; i++) {
+                    writeWindow(gen, windows[i], aggregates[i]);
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+    }
+
+    private static void writeWindow(JsonGenerator gen, Duration window, LoadSeries.Window aggregate)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("window", LoadTimeSeries.label(window));
+        gen.writeNumberField("windowMs", window.toMillis());
+        gen.writeNumberField("samples", aggregate.getSamples());
+        gen.writeNumberField("requests", aggregate.getRequests());
+        gen.writeNumberField("errors", aggregate.getErrors());
+        gen.writeNumberField("errorRate", aggregate.getErrorRate());
+        writeStat(gen, "rps", aggregate, LoadSeries.RPS);
+        writeStat(gen, "cpu", aggregate, LoadSeries.CPU);
+        writeStat(gen, "memory", aggregate, LoadSeries.MEMORY);
+        writeStat(gen, "avgProcessingTime", aggregate, LoadSeries.PROCESSING);
+        writeStat(gen, "connections", aggregate, LoadSeries.CONNECTIONS);
+        writeStat(gen, "latencyP50Ms", aggregate, LoadSeries.LATENCY_P50);
+        writeStat(gen, "latencyP99Ms", aggregate, LoadSeries.LATENCY_P99);
+        gen.writeEndObject();
+    }
+
+    private static void writeStat(JsonGenerator gen, String name, LoadSeries.Window aggregate, int field)
+            throws IOException {
+        gen.writeObjectFieldStart(name);
+        writeNumberOrNull(gen, "avg", aggregate.getAverage(field));
+        writeNumberOrNull(gen, "max", aggregate.getMax(field));
+        gen.writeEndObject();
+    }
+
+    private static void writeNumberOrNull(JsonGenerator gen, String name, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            gen.writeNullField(name);
+        } else {
+            gen.writeNumberField(name, value);
         }
     }
 
     /**
      * Mở server sử dụng StatusApi.openServer()
      */
-    private String handleOpenServer(String serverUrl) {
+    private FrameBuffer handleOpenServer(String serverUrl) throws IOException {
         if (serverUrl.isEmpty()) {
             return buildErrorJson("Server URL required");
         }
 
-        try {
-            log.info("Opening server: {}", serverUrl);
-            ResponseEntity<?> response = statusApi.openServer(serverUrl);
+        log.info("Opening server: {}", serverUrl);
+        ResponseEntity<?> response = statusApi.openServer(serverUrl);
+        refreshAfterStatusChange(response);
+        return buildStatusChangeResponse(response, serverUrl, "opened", "Failed to open server");
+    }
+
+    /**
+     * Đóng server sử dụng StatusApi.closeServer()
+     */
+    private FrameBuffer handleCloseServer(String serverUrl) throws IOException {
+        if (serverUrl.isEmpty()) {
+            return buildErrorJson("Server URL required");
+        }
+
+        log.info("Closing server: {}", serverUrl);
+        ResponseEntity<?> response = statusApi.closeServer(serverUrl);
+        refreshAfterStatusChange(response);
+        return buildStatusChangeResponse(response, serverUrl, "closed", "Failed to close server");
+    }
 
-            ObjectNode root = objectMapper.createObjectNode();
+    /**
+     * Refresh registry ngay sau khi đóng/mở server để proxy và subscriber thấy thay đổi
+     * mà không phải chờ chu kỳ health check kế tiếp
+     */
+    private void refreshAfterStatusChange(ResponseEntity<?> response) {
+        if (response.getStatusCode().is2xxSuccessful()) {
+            commandExecutor.execute(backendRegistry::refresh);
+        }
+    }
+
+    private FrameBuffer buildStatusChangeResponse(ResponseEntity<?> response, String serverUrl,
+                                                  String verb, String failureMessage) throws IOException {
+        return codec.encode(gen -> {
+            gen.writeStartObject();
             if (response.getStatusCode().is2xxSuccessful()) {
-                root.put("status", RESP_OK);
-                root.put("message", "Server " + serverUrl + " opened");
-                root.put("serverUrl", serverUrl);
+                gen.writeStringField("status", RESP_OK);
+                gen.writeStringField("message", "Server " + serverUrl + " " + verb);
+                gen.writeStringField("serverUrl", serverUrl);
             } else {
-                root.put("status", RESP_ERROR);
-                root.put("message", "Failed to open server");
-                root.put("statusCode", response.getStatusCode().value());
+                gen.writeStringField("status", RESP_ERROR);
+                gen.writeStringField("message", failureMessage);
+                gen.writeNumberField("statusCode", response.getStatusCode().value());
             }
-            return objectMapper.writeValueAsString(root);
-        } catch (Exception e) {
-            log.error("Error opening server {}", serverUrl, e);
+            gen.writeEndObject();
+        });
+    }
+
+    /**
+     * Thêm backend vào registry lúc runtime, backend nhận traffic sau khi probe health thành công
+     */
+    private FrameBuffer handleAddServer(String serverUrl, int weight) throws IOException {
+        ServerUrl parsed;
+        try {
+            parsed = ServerUrl.parse(serverUrl);
+        } catch (IllegalArgumentException e) {
             return buildErrorJson(e.getMessage());
         }
+        int effectiveWeight = weight > 0 ? weight : 1;
+
+        Backend backend = backendRegistry.addBackend(parsed, effectiveWeight);
+        if (backend == null) {
+            return buildErrorJson("Server " + parsed.getUrl() + " already exists");
+        }
+        return buildMembershipResponse("Server " + backend.getUrl() + " added", backend.getUrl(), effectiveWeight);
     }
 
     /**
-     * Đóng server sử dụng StatusApi.closeServer()
+     * Xoá backend khỏi registry, request đang chạy trên backend đó vẫn được hoàn thành
      */
-    private String handleCloseServer(String serverUrl) {
-        if (serverUrl.isEmpty()) {
-            return buildErrorJson("Server URL required");
+    private FrameBuffer handleRemoveServer(String serverUrl) throws IOException {
+        String url;
+        try {
+            url = ServerUrl.parse(serverUrl).getUrl();
+        } catch (IllegalArgumentException e) {
+            return buildErrorJson(e.getMessage());
         }
 
+        if (!backendRegistry.removeBackend(url)) {
+            return buildErrorJson("Server " + url + " not found");
+        }
+        return buildMembershipResponse("Server " + url + " removed", url, -1);
+    }
+
+    private FrameBuffer handleSetWeight(String serverUrl, int weight) throws IOException {
+        String url;
         try {
-            log.info("Closing server: {}", serverUrl);
-            ResponseEntity<?> response = statusApi.closeServer(serverUrl);
+            url = ServerUrl.parse(serverUrl).getUrl();
+        } catch (IllegalArgumentException e) {
+            return buildErrorJson(e.getMessage());
+        }
+        if (weight < 1) {
+            return buildErrorJson("Weight must be >= 1");
+        }
 
-            ObjectNode root = objectMapper.createObjectNode();
-            if (response.getStatusCode().is2xxSuccessful()) {
-                root.put("status", RESP_OK);
-                root.put("message", "Server " + serverUrl + " closed");
-                root.put("serverUrl", serverUrl);
-            } else {
-                root.put("status", RESP_ERROR);
-                root.put("message", "Failed to close server");
-                root.put("statusCode", response.getStatusCode().value());
+        if (!backendRegistry.setWeight(url, weight)) {
+            return buildErrorJson("Server " + url + " not found");
+        }
+        return buildMembershipResponse("Server " + url + " weight set to " + weight, url, weight);
+    }
+
+    private FrameBuffer buildMembershipResponse(String message, String serverUrl, int weight) throws IOException {
+        return codec.encode(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("status", RESP_OK);
+            gen.writeStringField("message", message);
+            gen.writeStringField("serverUrl", serverUrl);
+            if (weight > 0) {
+                gen.writeNumberField("weight", weight);
             }
-            return objectMapper.writeValueAsString(root);
-        } catch (Exception e) {
-            log.error("Error closing server {}", serverUrl, e);
-            return buildErrorJson(e.getMessage());
+            gen.writeNumberField("version", backendRegistry.getSnapshot().getVersion());
+            gen.writeEndObject();
+        });
+    }
+
+    /**
+     * Đổi rate limit lúc runtime. Không có key: đổi limit mặc định của scope;
+     * có key: đặt limit riêng cho key đó, bỏ trống rate để xoá limit riêng. rate = 0 là không giới hạn.
+     * Response JSON format:
+     * {"status": "OK", "message": "...", "scope": "CLIENT", "default": {"rate": 1000.0, "burst": 2000},
+     *  "overrides": {"10.0.0.5": {"rate": 10.0, "burst": 20}}}
+     */
+    private FrameBuffer handleSetRateLimit(TcpCommand command) throws IOException {
+        RateLimiter.Scope scope;
+        try {
+            scope = RateLimiter.Scope.valueOf(command.getScope().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return buildErrorJson("Unknown scope: " + command.getScope() + ", expected CLIENT or ROUTE");
         }
+        String key = command.getKey();
+        if (command.getRate() < 0 && key.isEmpty()) {
+            return buildErrorJson("Rate required");
+        }
+        if (command.getBurst() < 0) {
+            return buildErrorJson("Burst must be >= 0");
+        }
+
+        RateLimit limit = command.getRate() < 0 ? null : new RateLimit(command.getRate(), command.getBurst());
+        rateLimiter.setLimit(scope, key, limit);
+        String target = key.isEmpty() ? scope + " default" : scope + " " + key;
+        String message = limit == null ? "Rate limit override for " + target + " removed"
+                : "Rate limit for " + target + " set to " + limit;
+
+        RateLimit defaultLimit = rateLimiter.getDefaultLimit(scope);
+        Map<String, RateLimit> overrides = rateLimiter.getOverrides(scope);
+        return codec.encode(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("status", RESP_OK);
+            gen.writeStringField("message", message);
+            gen.writeStringField("scope", scope.name());
+            gen.writeFieldName("default");
+            writeRateLimit(gen, defaultLimit);
+            gen.writeObjectFieldStart("overrides");
+            for (Map.Entry<String, RateLimit> entry : overrides.entrySet()) {
+                gen.writeFieldName(entry.getKey());
+                writeRateLimit(gen, entry.getValue());
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        });
     }
 
-    private String buildErrorJson(String message) {
+    private static void writeRateLimit(JsonGenerator gen, RateLimit limit) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("rate", limit.getRate());
+        gen.writeNumberField("burst", limit.isUnlimited() ? 0 : limit.getBurst());
+        gen.writeEndObject();
+    }
+
+    /**
+     * Chạy đồng thời các OPEN_SERVER/CLOSE_SERVER trong batch với một deadline chung,
+     * nên thời gian xử lý bằng backend chậm nhất thay vì tổng của tất cả.
+     * Response JSON format:
+     * {
+     *   "status": "OK" | "PARTIAL" | "ERROR",
+     *   "message": "2/3 commands succeeded",
+     *   "succeeded": 2,
+     *   "failed": 1,
+     *   "elapsedMs": 120,
+     *   "results": [
+     *     {"index": 0, "action": "OPEN_SERVER", "serverUrl": "...", "status": "OK", "statusCode": 200, "message": "..."},
+     *     ...
+     *   ]
+     * }
+     * Lệnh chưa xong khi hết deadline bị huỷ và trả về statusCode 504.
+     */
+    private FrameBuffer handleBatch(TcpCommand batch) {
+        List<TcpCommand> commands = batch.getCommands();
+        if (commands.isEmpty()) {
+            return buildErrorJson("Batch 'commands' required");
+        }
+        if (commands.size() > maxBatchCommands) {
+            return buildErrorJson("Batch too large: " + commands.size() + " commands (max " + maxBatchCommands + ")");
+        }
+
+        long deadlineMs = batch.getDeadlineMs() > 0 ? batch.getDeadlineMs() : defaultBatchDeadlineMs;
+        long startTime = System.nanoTime();
+        log.info("Executing batch of {} commands (deadline {} ms)", commands.size(), deadlineMs);
+
+        List<Callable<BatchItemResult>> tasks = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            int index = i;
+            tasks.add(() -> executeBatchItem(index, commands.get(index)));
+        }
+
+        List<Future<BatchItemResult>> futures;
         try {
-            ObjectNode root = objectMapper.createObjectNode();
-            root.put("status", RESP_ERROR);
-            root.put("message", message);
-            return objectMapper.writeValueAsString(root);
-        } catch (Exception e) {
-            return "{\"status\":\"ERROR\",\"message\":\"" + message + "\"}";
+            futures = commandExecutor.invokeAll(tasks, deadlineMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return buildErrorJson("Batch interrupted");
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(collectBatchItem(i, commands.get(i), futures.get(i)));
+        }
+        long succeeded = results.stream().filter(BatchItemResult::ok).count();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        // Một lần refresh cho cả batch thay vì mỗi lệnh một lần
+        if (succeeded > 0) {
+            commandExecutor.execute(backendRegistry::refresh);
+        }
+
+        try {
+            return codec.encode(gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("status", succeeded == results.size() ? RESP_OK
+                        : succeeded == 0 ? RESP_ERROR : RESP_PARTIAL);
+                gen.writeStringField("message", succeeded + "/" + results.size() + " commands succeeded");
+                gen.writeNumberField("succeeded", succeeded);
+                gen.writeNumberField("failed", results.size() - succeeded);
+                gen.writeNumberField("elapsedMs", elapsedMs);
+                gen.writeArrayFieldStart("results");
+                for (BatchItemResult result : results) {
+                    gen.writeStartObject();
+                    gen.writeNumberField("index", result.index());
+                    gen.writeStringField("action", result.action());
+                    gen.writeStringField("serverUrl", result.serverUrl());
+                    gen.writeStringField("status", result.ok() ? RESP_OK : RESP_ERROR);
+                    gen.writeNumberField("statusCode", result.statusCode());
+                    gen.writeStringField("message", result.message());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    //===========================================Helper============================================
     /**
-     * Gửi response với Length-Prefixed Protocol
-     * Format: [4-byte big-endian length][JSON payload]
+     * Một lệnh con của BATCH, chạy trên virtual thread riêng
      */
-    private void sendLengthPrefixedResponse(DataOutputStream out, String response) throws IOException {
-        byte[] payload = response.getBytes(StandardCharsets.UTF_8);
-        out.writeInt(payload.length);  // 4-byte big-endian length
-        out.write(payload);
-        out.flush();
-        log.debug("Sent response (len={}): {}", payload.length, response);
+    private BatchItemResult executeBatchItem(int index, TcpCommand command) {
+        String action = command.getAction().toUpperCase();
+        String serverUrl = command.getServerUrl();
+        if (!action.equals(CMD_OPEN_SERVER) && !action.equals(CMD_CLOSE_SERVER)) {
+            return new BatchItemResult(index, action, serverUrl, false, 400,
+                    "Unsupported action in batch: " + (action.isEmpty() ? "<missing>" : action));
+        }
+        if (serverUrl.isEmpty()) {
+            return new BatchItemResult(index, action, serverUrl, false, 400, "Server URL required");
+        }
+
+        boolean open = action.equals(CMD_OPEN_SERVER);
+        ResponseEntity<?> response = open ? statusApi.openServer(serverUrl) : statusApi.closeServer(serverUrl);
+        boolean ok = response.getStatusCode().is2xxSuccessful();
+        String message = ok
+                ? "Server " + serverUrl + " " + (open ? "opened" : "closed")
+                : (open ? "Failed to open server" : "Failed to close server");
+        return new BatchItemResult(index, action, serverUrl, ok, response.getStatusCode().value(), message);
+    }
+
+    private BatchItemResult collectBatchItem(int index, TcpCommand command, Future<BatchItemResult> future) {
+        String action = command.getAction().toUpperCase();
+        if (future.isCancelled()) {
+            return new BatchItemResult(index, action, command.getServerUrl(), false, 504, "Batch deadline exceeded");
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.error("Batch command {} failed", index, e.getCause());
+            return new BatchItemResult(index, action, command.getServerUrl(), false, 500,
+                    "Error processing command: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new BatchItemResult(index, action, command.getServerUrl(), false, 500, "Interrupted");
+        }
+    }
+
+    /**
+     * Kết quả của một lệnh con trong BATCH
+     */
+    private record BatchItemResult(int index, String action, String serverUrl,
+                                   boolean ok, int statusCode, String message) {
+    }
+
+    /**
+     * Đổi thuật toán load balancing lúc runtime qua StrategyManager
+     */
+    private FrameBuffer handleSetAlgorithm(String algorithm) throws IOException {
+        if (algorithm.isEmpty()) {
+            return buildErrorJson("Algorithm required");
+        }
+
+        if (!strategyManager.setAlgorithm(algorithm)) {
+            return buildErrorJson("Unknown algorithm: " + algorithm
+                    + ", expected one of " + strategyManager.getAvailableAlgorithms());
+        }
+
+        String current = strategyManager.getAlgorithm();
+        return codec.encode(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("status", RESP_OK);
+            gen.writeStringField("message", "Algorithm set to " + current);
+            gen.writeStringField("algorithm", current);
+            gen.writeEndObject();
+        });
+    }
+
+    /**
+     * Đăng ký nhận event thay đổi backend trên connection hiện tại.
+     * Response đầu tiên chứa toàn bộ servers, sau đó server tự push frame:
+     * {"type": "EVENT", "event": "BACKEND_DELTA", "version": 13, "servers": [...], "removed": [...]}
+     * Frame được đẩy thẳng vào hàng đợi ghi của connection, nên dispatch trả về null.
+     */
+    private CompletableFuture<FrameBuffer> handleSubscribe(TcpConnection connection, long minIntervalMs) {
+        long interval = Math.max(0L, minIntervalMs);
+        SnapshotSubscription existing = connection.getSubscription();
+        if (existing != null) {
+            existing.setMinIntervalMs(interval);
+            return CompletableFuture.completedFuture(buildMessageResponse("Subscription updated"));
+        }
+
+        BackendSnapshot snapshot = backendRegistry.getSnapshot();
+        try {
+            FrameBuffer initial = codec.encode(gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("status", RESP_OK);
+                gen.writeStringField("message", "Subscribed");
+                gen.writeNumberField("minIntervalMs", interval);
+                gen.writeNumberField("version", snapshot.getVersion());
+                gen.writeNumberField("refreshedAt", snapshot.getRefreshedAt());
+                gen.writeArrayFieldStart("servers");
+                for (BackendState state : snapshot.getStates()) {
+                    CommandCodec.writeServer(gen, state);
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            });
+            // Gửi response đầu tiên trước khi đăng ký listener để event không vượt lên trước nó
+            connection.pushBlocking(initial);
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(buildErrorJson(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(buildErrorJson("Interrupted"));
+        }
+
+        SnapshotSubscription subscription = new SnapshotSubscription(
+                connection, codec, subscriptionScheduler, interval, snapshot);
+        connection.setSubscription(subscription);
+        backendRegistry.addListener(subscription);
+        log.info("Connection subscribed to backend events (minIntervalMs={})", interval);
+        return null;
+    }
+
+    private void cancelSubscription(TcpConnection connection) {
+        SnapshotSubscription subscription = connection.getSubscription();
+        if (subscription == null) return;
+
+        subscription.cancel();
+        backendRegistry.removeListener(subscription);
+        connection.setSubscription(null);
+    }
+
+    private FrameBuffer buildMessageResponse(String message) {
+        try {
+            return codec.encode(gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("status", RESP_OK);
+                gen.writeStringField("message", message);
+                gen.writeEndObject();
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private FrameBuffer buildErrorJson(String message) {
+        try {
+            return codec.encode(gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("status", RESP_ERROR);
+                gen.writeStringField("message", message);
+                gen.writeEndObject();
+            });
+        } catch (IOException e) {
+            // FrameBuffer ghi trong bộ nhớ nên không thực sự ném IOException
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,231 @@
+package com.cs4445.loadBalancer.tcp;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Một connection của TCP Command Server, chạy trên 2 virtual thread:
+ * - reader: đọc frame [4-byte big-endian length][JSON payload] và dispatch request
+ * - writer: ghi response theo đúng thứ tự request (hỗ trợ pipelining) và các event được push
+ * Số request pipelined đang chờ bị giới hạn bởi maxPipelined, khi đầy reader ngừng đọc
+ * nên bộ nhớ mỗi connection có giới hạn trên.
+ */
+@Slf4j
+class TcpConnection {
+    //==========================================Constant==========================================
+    private static final CompletableFuture<FrameBuffer> END_OF_STREAM = CompletableFuture.completedFuture(null);
+
+    //==========================================Variable==========================================
+    private final SocketChannel channel;
+    private final SocketAddress remoteAddress;
+    private final DirectBufferPool bufferPool;
+    private final CommandCodec codec;
+    private final int maxFrameLength;
+    private final BiFunction<TcpConnection, ByteBuffer, CompletableFuture<FrameBuffer>> dispatcher;
+    private final BlockingQueue<CompletableFuture<FrameBuffer>> pending;
+    private final Consumer<TcpConnection> onClose;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    // SUBSCRIBE đang active trên connection này (nếu có)
+    private volatile SnapshotSubscription subscription;
+
+    //=========================================Constructor=========================================
+    TcpConnection(SocketChannel channel, DirectBufferPool bufferPool, CommandCodec codec,
+                  int maxFrameLength, int maxPipelined,
+                  BiFunction<TcpConnection, ByteBuffer, CompletableFuture<FrameBuffer>> dispatcher,
+                  Consumer<TcpConnection> onClose) throws IOException {
+        this.channel = channel;
+        this.remoteAddress = channel.getRemoteAddress();
+        this.bufferPool = bufferPool;
+        this.codec = codec;
+        this.maxFrameLength = maxFrameLength;
+        this.dispatcher = dispatcher;
+        this.pending = new ArrayBlockingQueue<>(maxPipelined);
+        this.onClose = onClose;
+    }
+
+    //===========================================Method===========================================
+    void start() {
+        Thread.ofVirtual().name("tcp-writer-" + remoteAddress).start(this::writeLoop);
+        Thread.ofVirtual().name("tcp-reader-" + remoteAddress).start(this::readLoop);
+    }
+
+    /**
+     * Đẩy một frame không phải response (VD: event của SUBSCRIBE) vào hàng đợi ghi.
+     * @return false nếu hàng đợi đầy hoặc connection đã đóng, frame không được gửi
+     */
+    boolean push(FrameBuffer frame) {
+        return !closed.get() && pending.offer(CompletableFuture.completedFuture(frame));
+    }
+
+    /**
+     * Như push() nhưng chờ đến khi hàng đợi có chỗ, dùng cho frame bắt buộc phải gửi
+     */
+    void pushBlocking(FrameBuffer frame) throws InterruptedException {
+        pending.put(CompletableFuture.completedFuture(frame));
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    SnapshotSubscription getSubscription() {
+        return subscription;
+    }
+
+    void setSubscription(SnapshotSubscription subscription) {
+        this.subscription = subscription;
+    }
+
+    void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.error("Error closing client socket", e);
+        }
+        onClose.accept(this);
+    }
+
+    //===========================================Reader============================================
+    private void readLoop() {
+        ByteBuffer buffer = bufferPool.acquire();
+        buffer.limit(0); // buffer ở chế độ đọc: dữ liệu chưa xử lý nằm trong [position, limit)
+        try {
+            while (channel.isOpen()) {
+                // Đọc 4 bytes đầu tiên (big-endian length)
+                if (!ensure(buffer, 4)) break;
+                int length = buffer.getInt();
+                if (length <= 0 || length > maxFrameLength) {
+                    log.warn("Invalid message length: {}", length);
+                    break;
+                }
+
+                ByteBuffer payload;
+                if (length <= buffer.capacity()) {
+                    if (!ensure(buffer, length)) break;
+                    payload = buffer.slice(buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+                } else {
+                    // Frame lớn hơn buffer của pool: cấp phát riêng, vẫn bị giới hạn bởi maxFrameLength
+                    payload = readLargeFrame(buffer, length);
+                    if (payload == null) break;
+                }
+
+                // Dispatcher parse payload ngay trên reader thread nên buffer có thể dùng lại sau lời gọi này.
+                // null nghĩa là dispatcher đã tự đẩy frame vào hàng đợi (VD: SUBSCRIBE)
+                CompletableFuture<FrameBuffer> response = dispatcher.apply(this, payload);
+                if (response != null) {
+                    pending.put(response);
+                }
+            }
+            log.debug("Client disconnected: {}", remoteAddress);
+        } catch (IOException e) {
+            if (channel.isOpen()) {
+                log.error("Error handling client connection", e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            bufferPool.release(buffer);
+            try {
+                // Writer gửi nốt các response còn lại rồi đóng connection
+                while (!pending.offer(END_OF_STREAM, 100, TimeUnit.MILLISECONDS)) {
+                    if (!channel.isOpen()) break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+            }
+        }
+    }
+
+    /**
+     * Đảm bảo buffer có ít nhất n bytes chưa đọc
+     * @return false nếu client đóng kết nối
+     */
+    private boolean ensure(ByteBuffer buffer, int n) throws IOException {
+        while (buffer.remaining() < n) {
+            buffer.compact();
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read < 0) return false;
+        }
+        return true;
+    }
+
+    private ByteBuffer readLargeFrame(ByteBuffer buffer, int length) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        int buffered = Math.min(buffer.remaining(), length);
+        payload.put(payload.position(), buffer, buffer.position(), buffered);
+        payload.position(buffered);
+        buffer.position(buffer.position() + buffered);
+
+        while (payload.hasRemaining()) {
+            if (channel.read(payload) < 0) return null;
+        }
+        return payload.flip();
+    }
+
+    //===========================================Writer============================================
+    private void writeLoop() {
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            while (true) {
+                CompletableFuture<FrameBuffer> next = pending.take();
+                if (next == END_OF_STREAM) break;
+
+                FrameBuffer frame = next.join();
+                try {
+                    writeFrame(buffer, frame);
+                    log.debug("Sent response (len={}) to {}", frame.getPayloadLength(), remoteAddress);
+                } finally {
+                    codec.release(frame);
+                }
+            }
+        } catch (IOException e) {
+            if (channel.isOpen()) {
+                log.error("Error writing to client {}", remoteAddress, e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            bufferPool.release(buffer);
+            close();
+            // Giải phóng reader nếu nó đang bị chặn vì hàng đợi đầy
+            pending.clear();
+        }
+    }
+
+    /**
+     * Gửi response với Length-Prefixed Protocol
+     * Format: [4-byte big-endian length][JSON payload], length prefix đã có sẵn trong FrameBuffer
+     */
+    private void writeFrame(ByteBuffer buffer, FrameBuffer frame) throws IOException {
+        byte[] bytes = frame.getBytes();
+        int length = frame.getFrameLength();
+        int offset = 0;
+        while (offset < length) {
+            buffer.clear();
+            int chunk = Math.min(buffer.remaining(), length - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
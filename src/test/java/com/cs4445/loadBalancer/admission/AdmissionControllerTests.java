@@ -0,0 +1,195 @@
+package com.cs4445.loadBalancer.admission;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.cs4445.loadBalancer.admission.AdmissionController.Result;
+import com.cs4445.loadBalancer.model.Deadline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmissionControllerTests {
+
+	private static final int HIGH = 1;
+	private static final int MEDIUM = 2;
+	private static final int LOW = 3;
+
+	@Test
+	void queuedRequestsAreAdmittedBySmoothWeightedRoundRobin() throws Exception {
+		// Target rất lớn để CoDel không can thiệp, chỉ kiểm tra thứ tự lấy ra khỏi hàng
+		AdmissionController controller = controller(1, 60_000, 60_000, 4, 2, 1);
+		assertEquals(Result.ADMITTED, controller.admit(HIGH, deadline(10_000)));
+
+		List<String> admitted = new CopyOnWriteArrayList<>();
+		List<CompletableFuture<Result>> results = new ArrayList<>();
+		// Low xếp hàng trước nhưng không được ưu tiên
+		for (int priority : new int[]{LOW, MEDIUM, HIGH}) {
+			for (int i = 0; i < 4; i++) {
+				results.add(enqueue(controller, priority, priority + "-" + i, admitted));
+			}
+		}
+
+		for (int i = 1; i <= 12; i++) {
+			controller.release();
+			awaitSize(admitted, i);
+		}
+		// Trọng số 4:2:1: high được ưu tiên nhưng low vẫn được phục vụ trước khi high hết, FIFO trong từng priority
+		assertEquals(List.of("1-0", "2-0", "1-1", "3-0", "1-2", "2-1", "1-3", "2-2", "3-1", "2-3", "3-2", "3-3"),
+				admitted);
+		for (CompletableFuture<Result> result : results) {
+			assertEquals(Result.ADMITTED, result.get(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	void queueDelayAboveTargetForAnIntervalShedsLowThenMedium() throws Exception {
+		long targetMs = 10;
+		long intervalMs = 50;
+		AdmissionController controller = controller(1, targetMs, intervalMs, 8, 4, 1);
+		assertEquals(Result.ADMITTED, controller.admit(HIGH, deadline(10_000)));
+
+		List<String> admitted = new CopyOnWriteArrayList<>();
+		CompletableFuture<Result> high0 = enqueue(controller, HIGH, "high-0", admitted);
+		CompletableFuture<Result> high1 = enqueue(controller, HIGH, "high-1", admitted);
+		CompletableFuture<Result> low = enqueue(controller, LOW, "low", admitted);
+
+		// Lần đầu chờ quá target: chưa quá tải, low vẫn được xếp hàng
+		Thread.sleep(targetMs * 2);
+		controller.release();
+		assertEquals(Result.ADMITTED, high0.get(5, TimeUnit.SECONDS));
+		assertEquals(Result.TIMEOUT, controller.admit(LOW, deadline(0)),
+				"low should not be shed before the delay stays above target for an interval");
+
+		// Vẫn quá target sau một interval: quá tải, low bị từ chối ngay, high thì không
+		Thread.sleep(intervalMs + 10);
+		controller.release();
+		assertEquals(Result.ADMITTED, high1.get(5, TimeUnit.SECONDS));
+		assertEquals(Result.SHED, controller.admit(LOW, deadline(10_000)));
+		assertEquals(Result.TIMEOUT, controller.admit(MEDIUM, deadline(20)));
+		assertEquals(Result.TIMEOUT, controller.admit(HIGH, deadline(20)));
+
+		// Quá tải kéo dài thêm 4 interval: medium cũng bị từ chối
+		Thread.sleep(4 * intervalMs);
+		assertEquals(Result.SHED, controller.admit(MEDIUM, deadline(10_000)));
+
+		// Low đang xếp hàng bị shed khi đến lượt; hàng rỗng thì hết quá tải
+		controller.release();
+		assertEquals(Result.SHED, low.get(5, TimeUnit.SECONDS));
+		assertEquals(List.of("high-0", "high-1"), admitted);
+		assertEquals(Result.ADMITTED, controller.admit(LOW, deadline(10_000)));
+	}
+
+	@Test
+	void overloadShedsLowPriorityRouteButAdmitsHighPriorityHeader() throws Exception {
+		long targetMs = 10;
+		long intervalMs = 50;
+		AdmissionController controller = new AdmissionController(new SimpleMeterRegistry(), true, 1, 16, 10_000,
+				targetMs, intervalMs, new int[]{8, 4, 1}, "X-Priority", new String[0], new String[]{"/batch"});
+
+		// Header (1-3) thắng route, header không hợp lệ thì xét route
+		int high = controller.resolvePriority(request("/batch/1", "1"));
+		int low = controller.resolvePriority(request("/batch/2", null));
+		assertEquals(HIGH, high);
+		assertEquals(LOW, low);
+		assertEquals(LOW, controller.resolvePriority(request("/batch/3", "abc")));
+		assertEquals(MEDIUM, controller.resolvePriority(request("/items", null)));
+
+		assertEquals(Result.ADMITTED, controller.admit(high, deadline(10_000)));
+		List<String> admitted = new CopyOnWriteArrayList<>();
+		List<CompletableFuture<Result>> highs = new ArrayList<>();
+		List<CompletableFuture<Result>> lows = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			highs.add(enqueue(controller, high, "high-" + i, admitted));
+		}
+		for (int i = 0; i < 2; i++) {
+			lows.add(enqueue(controller, low, "low-" + i, admitted));
+		}
+
+		// Hàng chờ quá target suốt một interval: quá tải
+		Thread.sleep(targetMs * 2);
+		controller.release();
+		Thread.sleep(intervalMs + 10);
+		controller.release();
+		assertEquals(Result.SHED, controller.admit(low, deadline(10_000)), "new low request should be shed");
+
+		// Request high còn lại vẫn được admit, low đang xếp hàng bị shed khi đến lượt
+		controller.release();
+		controller.release();
+		for (CompletableFuture<Result> result : highs) {
+			assertEquals(Result.ADMITTED, result.get(5, TimeUnit.SECONDS));
+		}
+		for (CompletableFuture<Result> result : lows) {
+			assertEquals(Result.SHED, result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(List.of("high-0", "high-1", "high-2"), admitted);
+	}
+
+	@Test
+	void deadlineExpiresWhileQueued() throws Exception {
+		AdmissionController controller = controller(1, 60_000, 60_000, 8, 4, 1);
+		assertEquals(Result.ADMITTED, controller.admit(MEDIUM, deadline(10_000)));
+
+		// Chờ theo hạn chót của request dù max-wait (10s) còn dài
+		long start = System.nanoTime();
+		assertEquals(Result.TIMEOUT, controller.admit(HIGH, deadline(50)));
+		long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(waitedMs >= 40 && waitedMs < 5000, "waited " + waitedMs + " ms");
+		assertEquals(0, controller.getQueued(HIGH - 1));
+
+		// Request hết hạn đã rời hàng: chỗ trống được chuyển cho request kế tiếp
+		List<String> admitted = new CopyOnWriteArrayList<>();
+		CompletableFuture<Result> next = enqueue(controller, LOW, "low", admitted);
+		controller.release();
+		assertEquals(Result.ADMITTED, next.get(5, TimeUnit.SECONDS));
+	}
+
+	//===========================================Helper============================================
+	private static AdmissionController controller(int maxConcurrency, long targetMs, long intervalMs, int... weights) {
+		return new AdmissionController(new SimpleMeterRegistry(), true, maxConcurrency, 16, 10_000, targetMs,
+				intervalMs, weights, "X-Priority", new String[0], new String[0]);
+	}
+
+	private static MockHttpServletRequest request(String uri, String priority) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+		if (priority != null) request.addHeader("X-Priority", priority);
+		return request;
+	}
+
+	private static Deadline deadline(long millis) {
+		return Deadline.after(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+
+	/**
+	 * Xếp hàng một request trên virtual thread, trả về khi request đã nằm trong hàng
+	 */
+	private static CompletableFuture<Result> enqueue(AdmissionController controller, int priority, String label,
+													 List<String> admitted) throws InterruptedException {
+		int before = controller.getQueued(priority - 1);
+		CompletableFuture<Result> future = new CompletableFuture<>();
+		Thread.ofVirtual().start(() -> {
+			Result result = controller.admit(priority, deadline(10_000));
+			if (result == Result.ADMITTED) admitted.add(label);
+			future.complete(result);
+		});
+		while (controller.getQueued(priority - 1) == before) {
+			Thread.sleep(1);
+		}
+		return future;
+	}
+
+	private static void awaitSize(List<String> admitted, int size) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (admitted.size() < size && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(size, admitted.size(), "admitted " + admitted);
+	}
+}
@@ -0,0 +1,180 @@
+package com.cs4445.loadBalancer.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AiClientPoolTests {
+
+	private ServerSocket server;
+
+	@BeforeEach
+	void listen() throws IOException {
+		server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		server.close();
+	}
+
+	@Test
+	void outOfOrderResponsesAreMatchedByRequestId() throws Exception {
+		// AI server đọc 3 request rồi trả lời theo thứ tự ngược lại
+		Thread.ofVirtual().start(() -> {
+			try (Socket socket = server.accept()) {
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+				List<Integer> ids = new ArrayList<>();
+				List<String> payloads = new ArrayList<>();
+				for (int i = 0; i < 3; i++) {
+					byte[] payload = new byte[in.readInt() - 4];
+					ids.add(in.readInt());
+					in.readFully(payload);
+					payloads.add(new String(payload, StandardCharsets.UTF_8));
+				}
+				for (int i = 2; i >= 0; i--) {
+					writeFrame(out, ids.get(i), "re:" + payloads.get(i));
+				}
+				in.read();
+			} catch (IOException ignored) {
+			}
+		});
+
+		AiClientPool pool = new AiClientPool(1, 1, 1000, 60000, 100, 1000, 1 << 20);
+		try {
+			List<CompletableFuture<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				futures.add(pool.sendAsync("127.0.0.1", server.getLocalPort(), "q" + i, 5000));
+			}
+			for (int i = 0; i < 3; i++) {
+				assertEquals("re:q" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void timedOutRequestsAreRemovedAndLateResponseIgnored() throws Exception {
+		Socket accepted;
+		try (Socket socket = new Socket(server.getInetAddress(), server.getLocalPort())) {
+			accepted = server.accept();
+			MultiplexedConnection connection = new MultiplexedConnection(socket, "test", 1 << 20, closed -> { });
+
+			CompletableFuture<String> future = connection.send("slow", 100);
+			ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(TimeoutException.class, error.getCause());
+			assertEquals(0, connection.getPendingCount());
+
+			// Response đến muộn bị bỏ qua, connection vẫn dùng được
+			DataInputStream in = new DataInputStream(accepted.getInputStream());
+			DataOutputStream out = new DataOutputStream(accepted.getOutputStream());
+			writeFrame(out, readRequestId(in), "late");
+			CompletableFuture<String> next = connection.send("next", 5000);
+			writeFrame(out, readRequestId(in), "ok");
+
+			assertEquals("ok", next.get(5, TimeUnit.SECONDS));
+			assertTrue(connection.isOpen());
+			connection.close(new IOException("test done"));
+		}
+		accepted.close();
+	}
+
+	@Test
+	void sendDoesNotBlockWhenServerStopsReading() throws Exception {
+		try (Socket socket = new Socket(server.getInetAddress(), server.getLocalPort());
+			 Socket accepted = server.accept()) {
+			MultiplexedConnection connection = new MultiplexedConnection(socket, "stalled", 1 << 20, closed -> { });
+			String large = "x".repeat(1 << 20);
+
+			// Server không đọc: socket buffer đầy và writer bị chặn, thread gọi thì không
+			long start = System.nanoTime();
+			List<CompletableFuture<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				futures.add(connection.send(large, 200));
+			}
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+			for (CompletableFuture<String> future : futures) {
+				ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+				assertInstanceOf(TimeoutException.class, error.getCause());
+			}
+			assertEquals(0, connection.getPendingCount());
+			connection.close(new IOException("test done"));
+		}
+	}
+
+	@Test
+	void reconnectBackoffGrowsAndResets() {
+		ReconnectBackoff backoff = new ReconnectBackoff(100, 300);
+		assertEquals(0L, backoff.remainingMs());
+
+		// Mỗi lần fail chờ trong [current/2, current], current nhân đôi đến max
+		long[] upper = {100, 200, 300, 300};
+		for (long max : upper) {
+			backoff.onFailure();
+			long remaining = backoff.remainingMs();
+			assertTrue(remaining >= max / 2 - 5 && remaining <= max, "remaining " + remaining + " for max " + max);
+		}
+
+		backoff.onSuccess();
+		assertEquals(0L, backoff.remainingMs());
+		backoff.onFailure();
+		assertTrue(backoff.remainingMs() <= 100);
+	}
+
+	@Test
+	void deadServerFailsFastDuringBackoff() throws Exception {
+		int port = server.getLocalPort();
+		server.close();
+		AiClientPool pool = new AiClientPool(1, 1, 1000, 60000, 5000, 10000, 1 << 20);
+		try {
+			ExecutionException first = assertThrows(ExecutionException.class,
+					() -> pool.sendAsync("127.0.0.1", port, "q", 5000).get(5, TimeUnit.SECONDS));
+			assertInstanceOf(ConnectException.class, first.getCause());
+
+			// Trong thời gian backoff không connect lại, request fail ngay
+			long start = System.nanoTime();
+			ExecutionException second = assertThrows(ExecutionException.class,
+					() -> pool.sendAsync("127.0.0.1", port, "q", 5000).get(5, TimeUnit.SECONDS));
+			assertTrue(second.getCause().getMessage().contains("retry in"), second.getCause().getMessage());
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	//===========================================Helper============================================
+	private static int readRequestId(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		int requestId = in.readInt();
+		in.skipNBytes(length - 4);
+		return requestId;
+	}
+
+	private static void writeFrame(DataOutputStream out, int requestId, String payload) throws IOException {
+		byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(4 + bytes.length);
+		out.writeInt(requestId);
+		out.write(bytes);
+		out.flush();
+	}
+}
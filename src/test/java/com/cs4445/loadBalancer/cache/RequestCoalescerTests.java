@@ -0,0 +1,63 @@
+package com.cs4445.loadBalancer.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.cs4445.loadBalancer.model.Deadline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestCoalescerTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry, true, 5000);
+
+	@Test
+	void followerWaitsNoLongerThanItsDeadline() {
+		RequestCoalescer.Flight leader = coalescer.join("/items", true);
+		assertTrue(leader.isLeader());
+		RequestCoalescer.Flight follower = coalescer.join("/items", true);
+		assertFalse(follower.isLeader());
+
+		// Leader treo, coalesce.timeout = 5s nhưng follower chỉ còn 100ms
+		long start = System.nanoTime();
+		assertNull(coalescer.await(follower, Deadline.after(TimeUnit.MILLISECONDS.toNanos(100))));
+		long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(waitedMs >= 90 && waitedMs < 2000, "waited " + waitedMs + " ms");
+
+		// Hạn chót đã qua: không chờ
+		start = System.nanoTime();
+		assertNull(coalescer.await(follower, Deadline.after(0L)));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50);
+		assertEquals(2.0, counter("fallback"));
+	}
+
+	@Test
+	void followerGetsLeaderResponse() throws Exception {
+		RequestCoalescer.Flight leader = coalescer.join("/items", true);
+		RequestCoalescer.Flight follower = coalescer.join("/items", false);
+		// HEAD không làm leader khi chưa có flight
+		assertNull(coalescer.join("/other", false));
+
+		CachedResponse entry = new CachedResponse(200, new String[0][], ByteBuffer.allocateDirect(0),
+				new String[0], new String[0], new CachedResponse.Freshness(0L, 60, 0, false));
+		CompletableFuture<CachedResponse> shared = CompletableFuture.supplyAsync(
+				() -> coalescer.await(follower, Deadline.after(TimeUnit.SECONDS.toNanos(5))));
+		coalescer.complete(leader, entry);
+
+		assertSame(entry, shared.get(5, TimeUnit.SECONDS));
+		assertEquals(1.0, counter("coalesced"));
+		// Flight đã gỡ: request sau làm leader mới
+		assertTrue(coalescer.join("/items", true).isLeader());
+	}
+
+	//===========================================Helper============================================
+	private double counter(String result) {
+		return meterRegistry.get("proxy.coalesce.requests").tag("result", result).counter().count();
+	}
+}
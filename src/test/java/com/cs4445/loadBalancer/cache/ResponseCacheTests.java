@@ -0,0 +1,209 @@
+package com.cs4445.loadBalancer.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.cs4445.loadBalancer.proxy.BufferPool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResponseCacheTests {
+
+	private final ResponseCache cache = new ResponseCache(new BufferPool(16, 2), new SimpleMeterRegistry(),
+			true, 1 << 20, 1024);
+
+	@Test
+	void cacheControlDirectivesAreParsed() {
+		CacheControl control = CacheControl.parse(List.of("Public, MAX-AGE=60", "s-maxage=\"120\", must-revalidate"));
+		assertTrue(control.isPublicResponse());
+		assertTrue(control.isMustRevalidate());
+		assertEquals(60, control.getMaxAge());
+		assertEquals(120, control.getSMaxAge());
+		assertFalse(control.isNoStore() || control.isNoCache() || control.isPrivateResponse());
+
+		CacheControl restricted = CacheControl.parse(Arrays.asList("no-store, private", null, "no-cache=\"Set-Cookie\""));
+		assertTrue(restricted.isNoStore());
+		assertTrue(restricted.isPrivateResponse());
+		assertTrue(restricted.isNoCache());
+		assertEquals(-1, restricted.getMaxAge());
+
+		// Giá trị số không hợp lệ xem như không có, số âm được kẹp về 0
+		CacheControl invalid = CacheControl.parse(List.of("max-age=abc, s-maxage=-5, max-stale, unknown=1"));
+		assertEquals(-1, invalid.getMaxAge());
+		assertEquals(0, invalid.getSMaxAge());
+		assertEquals(-1, CacheControl.parse(null).getMaxAge());
+	}
+
+	@Test
+	void uncacheableResponsesAreNotStored() {
+		MockHttpServletRequest request = get("/items");
+		assertNull(cache.beginStore(request, upstream(200, "a", "Cache-Control", "no-store"), false));
+		assertNull(cache.beginStore(request, upstream(200, "a", "Cache-Control", "private, max-age=60"), false));
+		assertNull(cache.beginStore(request, upstream(200, "a", "Cache-Control", "max-age=60", "Vary", "*"), false));
+		assertNull(cache.beginStore(request, upstream(200, "a", "Cache-Control", "max-age=60", "Set-Cookie", "s=1"), false));
+		assertNull(cache.beginStore(request, upstream(500, "a", "Cache-Control", "max-age=60"), false));
+		assertNull(cache.beginStore(request, upstream(200, "x".repeat(2048), "Cache-Control", "max-age=60"), false));
+		// Hết hạn ngay và không có validator thì không lưu
+		assertNull(cache.beginStore(request, upstream(200, "a", "Cache-Control", "max-age=0"), false));
+		assertNull(cache.lookup(request));
+
+		MockHttpServletRequest authorized = get("/items");
+		authorized.addHeader("Authorization", "Bearer t");
+		assertFalse(cache.isCacheable(authorized));
+		MockHttpServletRequest noStore = get("/items");
+		noStore.addHeader("Cache-Control", "no-store");
+		assertFalse(cache.isCacheable(noStore));
+		assertTrue(cache.isCacheable(get("/items")));
+	}
+
+	@Test
+	void freshnessUsesSharedMaxAgeAndAge() {
+		CacheWriter writer = cache.beginStore(get("/items"),
+				upstream(200, "body", "Cache-Control", "max-age=10, s-maxage=100", "Age", "30"), false);
+		CachedResponse.Freshness freshness = writer.getFreshness();
+		assertEquals(100, freshness.lifetimeSeconds());
+		assertEquals(30, freshness.ageSeconds());
+
+		// Còn 70s tươi tính từ lúc nhận response, Age tăng theo thời gian trong cache
+		long received = freshness.responseTimeMillis();
+		CachedResponse entry = entry(freshness);
+		assertEquals(30, entry.getAgeSeconds(received));
+		assertEquals(45, entry.getAgeSeconds(received + 15_999));
+		assertTrue(entry.isFresh(received + 69_999));
+		assertFalse(entry.isFresh(received + 70_000));
+
+		// Age không hợp lệ xem như 0, max-age dùng khi không có s-maxage
+		CachedResponse.Freshness invalidAge = cache.beginStore(get("/items"),
+				upstream(200, "body", "Cache-Control", "max-age=10", "Age", "soon"), false).getFreshness();
+		assertEquals(10, invalidAge.lifetimeSeconds());
+		assertEquals(0, invalidAge.ageSeconds());
+	}
+
+	@Test
+	void noCacheResponseAndRequestDirectivesForceRevalidation() {
+		MockHttpServletRequest request = get("/items");
+		CachedResponse noCache = store(request, upstream(200, "body", "Cache-Control", "no-cache, max-age=60",
+				"ETag", "\"v1\""));
+		assertNotNull(noCache);
+		assertFalse(noCache.isFresh(System.currentTimeMillis()));
+		assertFalse(cache.isFresh(noCache, request));
+
+		CachedResponse fresh = store(request, upstream(200, "body", "Cache-Control", "max-age=60", "Age", "20"));
+		assertTrue(cache.isFresh(fresh, get("/items")));
+		assertFalse(cache.isFresh(fresh, get("/items", "Cache-Control", "no-cache")));
+		assertFalse(cache.isFresh(fresh, get("/items", "Cache-Control", "max-age=0")));
+		assertFalse(cache.isFresh(fresh, get("/items", "Pragma", "no-cache")));
+		// Client chỉ chấp nhận response có Age <= 10s
+		assertFalse(cache.isFresh(fresh, get("/items", "Cache-Control", "max-age=10")));
+		assertTrue(cache.isFresh(fresh, get("/items", "Cache-Control", "max-age=30")));
+	}
+
+	@Test
+	void varyHeadersMustMatchTheStoredRequest() {
+		MockHttpServletRequest gzip = get("/items", "Accept-Encoding", "gzip");
+		store(gzip, upstream(200, "zipped", "Cache-Control", "max-age=60", "Vary", "Accept-Encoding, Accept-Language"));
+
+		assertNotNull(cache.lookup(get("/items", "accept-encoding", "gzip")));
+		assertNull(cache.lookup(get("/items", "Accept-Encoding", "br")));
+		assertNull(cache.lookup(get("/items")));
+		assertNull(cache.lookup(get("/items", "Accept-Encoding", "gzip", "Accept-Language", "vi")));
+		// Query là một phần của key
+		assertNull(cache.lookup(get("/items?page=2", "Accept-Encoding", "gzip")));
+	}
+
+	@Test
+	void notModifiedRevalidationRefreshesEntry() throws Exception {
+		MockHttpServletRequest request = get("/items");
+		CachedResponse entry = store(request, upstream(200, "payload", "Cache-Control", "no-cache",
+				"ETag", "\"v1\"", "Last-Modified", "Tue, 01 Oct 2024 00:00:00 GMT", "X-Version", "1"));
+		assertFalse(cache.isFresh(entry, request));
+
+		HttpGet outbound = new HttpGet("http://10.0.0.1:8080/items");
+		cache.addValidators(entry, outbound);
+		assertEquals("\"v1\"", outbound.getFirstHeader("If-None-Match").getValue());
+		assertEquals("Tue, 01 Oct 2024 00:00:00 GMT", outbound.getFirstHeader("If-Modified-Since").getValue());
+
+		// 304: header mới thay header cùng tên, Content-Length của body đã lưu được giữ lại
+		BasicClassicHttpResponse notModified = new BasicClassicHttpResponse(304);
+		notModified.addHeader("Cache-Control", "max-age=60");
+		notModified.addHeader("ETag", "\"v1\"");
+		notModified.addHeader("X-Version", "2");
+		notModified.addHeader("Content-Length", "0");
+		cache.revalidated(entry, notModified);
+
+		assertTrue(cache.isFresh(entry, request));
+		assertEquals("2", header(entry, "X-Version"));
+		assertEquals("7", header(entry, "Content-Length"));
+		assertEquals("Tue, 01 Oct 2024 00:00:00 GMT", entry.getLastModified());
+
+		MockHttpServletResponse served = new MockHttpServletResponse();
+		cache.serve(entry, request, served, "REVALIDATED");
+		assertEquals(200, served.getStatus());
+		assertEquals("payload", served.getContentAsString());
+		assertEquals("0", served.getHeader("Age"));
+		assertEquals("REVALIDATED", served.getHeader("X-Cache"));
+
+		// Client đã có bản này (so sánh weak): 304 không body
+		MockHttpServletResponse conditional = new MockHttpServletResponse();
+		cache.serve(entry, get("/items", "If-None-Match", "W/\"v0\", W/\"v1\""), conditional, "HIT");
+		assertEquals(304, conditional.getStatus());
+		assertEquals(0, conditional.getContentAsByteArray().length);
+	}
+
+	//===========================================Helper============================================
+	private static MockHttpServletRequest get(String uri, String... headers) {
+		int query = uri.indexOf('?');
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", query < 0 ? uri : uri.substring(0, query));
+		if (query >= 0) request.setQueryString(uri.substring(query + 1));
+		for (int i = 0; i < headers.length; i += 2) {
+			request.addHeader(headers[i], headers[i + 1]);
+		}
+		return request;
+	}
+
+	private static BasicClassicHttpResponse upstream(int status, String body, String... headers) {
+		BasicClassicHttpResponse response = new BasicClassicHttpResponse(status);
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		response.addHeader("Content-Length", Integer.toString(bytes.length));
+		for (int i = 0; i < headers.length; i += 2) {
+			response.addHeader(headers[i], headers[i + 1]);
+		}
+		response.setEntity(new ByteArrayEntity(bytes, ContentType.TEXT_PLAIN));
+		return response;
+	}
+
+	private CachedResponse store(MockHttpServletRequest request, BasicClassicHttpResponse upstream) {
+		CacheWriter writer = cache.beginStore(request, upstream, false);
+		assertNotNull(writer, "response should be cacheable");
+		try {
+			upstream.getEntity().writeTo(writer);
+		} catch (Exception e) {
+			throw new AssertionError(e);
+		}
+		return cache.commit(writer);
+	}
+
+	private static CachedResponse entry(CachedResponse.Freshness freshness) {
+		return new CachedResponse(200, new String[0][], ByteBuffer.allocateDirect(0), new String[0], new String[0],
+				freshness);
+	}
+
+	private static String header(CachedResponse entry, String name) {
+		for (String[] header : entry.getHeaders()) {
+			if (header[0].equalsIgnoreCase(name)) return header[1];
+		}
+		return null;
+	}
+}
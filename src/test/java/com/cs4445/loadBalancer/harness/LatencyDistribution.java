@@ -0,0 +1,39 @@
+package com.cs4445.loadBalancer.harness;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phân phối thời gian xử lý của một stub backend
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+	/**
+	 * @return thời gian xử lý (nanoseconds) của một request
+	 */
+	long sampleNanos(ThreadLocalRandom random);
+
+	static LatencyDistribution fixed(long millis) {
+		long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+		return random -> nanos;
+	}
+
+	static LatencyDistribution uniform(long minMillis, long maxMillis) {
+		long min = TimeUnit.MILLISECONDS.toNanos(minMillis);
+		long max = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+		return random -> min + random.nextLong(max - min + 1);
+	}
+
+	static LatencyDistribution exponential(double meanMillis) {
+		double mean = meanMillis * 1_000_000.0;
+		return random -> (long) (-mean * Math.log(1.0 - random.nextDouble()));
+	}
+
+	/**
+	 * Đa số request nhanh, một phần nhỏ rất chậm (VD: GC pause, cache miss) để tạo tail latency
+	 */
+	static LatencyDistribution bimodal(LatencyDistribution fast, LatencyDistribution slow, double slowFraction) {
+		return random -> random.nextDouble() < slowFraction ? slow.sampleNanos(random) : fast.sampleNanos(random);
+	}
+}
@@ -0,0 +1,84 @@
+package com.cs4445.loadBalancer.harness;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Load generator open-loop: request thứ i được gửi đúng thời điểm start + i / rate,
+ * không chờ response của request trước (mỗi request một virtual thread). Latency tính từ thời điểm
+ * lẽ ra phải gửi, nên khi hệ thống chậm thời gian chờ vẫn được tính (tránh coordinated omission).
+ */
+public class LoadGenerator implements AutoCloseable {
+	//==========================================Variable==========================================
+	private final HttpClient client;
+	private final Duration timeout;
+
+	//=========================================Constructor=========================================
+	public LoadGenerator(Duration timeout) {
+		this.timeout = timeout;
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.connectTimeout(timeout)
+				.build();
+	}
+
+	//===========================================Method===========================================
+	/**
+	 * Gửi request theo tốc độ cố định trong khoảng duration
+	 * @param requests request thứ i (VD: path khác nhau theo i)
+	 * @return kết quả khi mọi request đã xong hoặc hết timeout
+	 */
+	public LoadReport run(double ratePerSecond, Duration duration, IntFunction<HttpRequest> requests)
+			throws InterruptedException {
+		int total = (int) (ratePerSecond * duration.toNanos() / 1e9);
+		double intervalNanos = 1e9 / ratePerSecond;
+		long[] latencies = new long[total];
+		int[] statuses = new int[total];
+
+		long start = System.nanoTime();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < total; i++) {
+				long intended = start + (long) (i * intervalNanos);
+				long wait;
+				while ((wait = intended - System.nanoTime()) > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				int index = i;
+				HttpRequest request = requests.apply(i);
+				executor.execute(() -> send(request, intended, index, latencies, statuses));
+			}
+			executor.shutdown();
+			if (!executor.awaitTermination(timeout.toNanos() * 2, TimeUnit.NANOSECONDS)) {
+				executor.shutdownNow();
+			}
+		}
+		return new LoadReport(latencies, statuses, System.nanoTime() - start);
+	}
+
+	@Override
+	public void close() {
+		client.close();
+	}
+
+	//==========================================Private===========================================
+	private void send(HttpRequest request, long intended, int index, long[] latencies, int[] statuses) {
+		try {
+			HttpRequest timed = HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+			statuses[index] = client.send(timed, HttpResponse.BodyHandlers.discarding()).statusCode();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			statuses[index] = LoadReport.STATUS_ERROR;
+		} catch (Exception e) {
+			statuses[index] = LoadReport.STATUS_ERROR;
+		}
+		latencies[index] = System.nanoTime() - intended;
+	}
+}
@@ -0,0 +1,101 @@
+package com.cs4445.loadBalancer.harness;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Kết quả một lần chạy LoadGenerator: throughput, phân bố status code, percentile và histogram latency
+ */
+public class LoadReport {
+	//==========================================Constant==========================================
+	// Lỗi phía client (connect, timeout); 0 = request chưa xong khi hết thời gian chờ
+	public static final int STATUS_ERROR = -1;
+	public static final int STATUS_PENDING = 0;
+
+	//==========================================Variable==========================================
+	private final long[] sortedLatencies;
+	private final Map<Integer, Integer> statusCounts = new TreeMap<>();
+	private final long elapsedNanos;
+	private final int total;
+	private final int succeeded;
+
+	//=========================================Constructor=========================================
+	LoadReport(long[] latencies, int[] statuses, long elapsedNanos) {
+		this.total = statuses.length;
+		this.elapsedNanos = elapsedNanos;
+		this.sortedLatencies = latencies.clone();
+		int ok = 0;
+		for (int i = 0; i < statuses.length; i++) {
+			int status = statuses[i];
+			statusCounts.merge(status, 1, Integer::sum);
+			if (status >= 200 && status < 300) ok++;
+			// Request chưa xong: latency ít nhất bằng cả lần chạy
+			if (status == STATUS_PENDING) sortedLatencies[i] = elapsedNanos;
+		}
+		this.succeeded = ok;
+		Arrays.sort(sortedLatencies);
+	}
+
+	//===========================================Method===========================================
+	public int getTotal() {
+		return total;
+	}
+
+	public int getSucceeded() {
+		return succeeded;
+	}
+
+	public double getSuccessRate() {
+		return total == 0 ? 0.0 : (double) succeeded / total;
+	}
+
+	/**
+	 * Số response 2xx mỗi giây
+	 */
+	public double getThroughput() {
+		return succeeded / (elapsedNanos / 1e9);
+	}
+
+	public int getStatusCount(int status) {
+		return statusCounts.getOrDefault(status, 0);
+	}
+
+	/**
+	 * @param percentile từ 0 đến 100
+	 */
+	public double getPercentileMillis(double percentile) {
+		if (sortedLatencies.length == 0) return 0.0;
+		int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+		return sortedLatencies[Math.min(sortedLatencies.length - 1, Math.max(0, rank - 1))] / 1e6;
+	}
+
+	/**
+	 * Histogram latency theo các khoảng lũy thừa 2 (mili giây), mỗi dòng một khoảng có request
+	 */
+	public String histogram() {
+		int[] counts = new int[32];
+		for (long latency : sortedLatencies) {
+			long micros = Math.max(1L, latency / 1000L);
+			int bucket = Math.min(counts.length - 1, 63 - Long.numberOfLeadingZeros(micros));
+			counts[bucket]++;
+		}
+		StringBuilder builder = new StringBuilder();
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			if (counts[bucket] == 0) continue;
+			double upperMillis = (1L << (bucket + 1)) / 1000.0;
+			int bar = (int) Math.ceil(50.0 * counts[bucket] / Math.max(1, total));
+			builder.append(String.format("  < %10.3f ms %7d %s%n", upperMillis, counts[bucket], "#".repeat(bar)));
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("requests=%d ok=%d (%.2f%%) throughput=%.1f/s statuses=%s%n"
+						+ "latency p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n%s",
+				total, succeeded, 100.0 * getSuccessRate(), getThroughput(), statusCounts,
+				getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(99),
+				getPercentileMillis(99.9), getPercentileMillis(100), histogram());
+	}
+}
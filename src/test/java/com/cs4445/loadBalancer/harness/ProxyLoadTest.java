@@ -0,0 +1,137 @@
+package com.cs4445.loadBalancer.harness;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+
+/**
+ * End-to-end: load generator -> ServerController.proxy -> fleet stub backend trên loopback.
+ * Mỗi kịch bản in throughput và histogram latency ra log để so sánh giữa các lần chạy.
+ * Metrics export (Prometheus) được bật như production để overhead của ProxyMetrics nằm trong kết quả.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"loadbalancer.tcp.port=0",
+		"loadbalancer.healthcheck.interval=500",
+		"loadbalancer.outlier.base-ejection-time=1000",
+		"loadbalancer.outlier.max-ejection-time=2000"
+})
+@AutoConfigureObservability
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@Tag("load")
+class ProxyLoadTest {
+
+	//==========================================Variable==========================================
+	private static final Logger log = LoggerFactory.getLogger(ProxyLoadTest.class);
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+	private static final LatencyDistribution NORMAL = LatencyDistribution.exponential(2);
+
+	private static StubFleet fleet;
+	private static boolean warmedUp;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private BackendRegistry backendRegistry;
+
+	@DynamicPropertySource
+	static void stubServers(DynamicPropertyRegistry registry) throws IOException {
+		fleet = StubFleet.start(3, 16, 16);
+		fleet.registerServers(registry);
+	}
+
+	@AfterAll
+	static void stopFleet() {
+		fleet.close();
+	}
+
+	@BeforeEach
+	void resetFleet() throws InterruptedException {
+		fleet.reset(NORMAL);
+		backendRegistry.refresh();
+		if (!warmedUp) {
+			// JIT + connection pool của lần chạy đầu làm lệch latency, bỏ kết quả warm-up
+			run(50, Duration.ofSeconds(2));
+			warmedUp = true;
+			fleet.reset(NORMAL);
+		}
+	}
+
+	//==========================================Scenario==========================================
+	@Test
+	@Order(1)
+	void steadyLoadIsSpreadAcrossFleet() throws InterruptedException {
+		LoadReport report = run(100, Duration.ofSeconds(3));
+
+		assertTrue(report.getSuccessRate() >= 0.995, report.toString());
+		for (StubBackend backend : fleet.getBackends()) {
+			assertTrue(backend.getServed() >= report.getTotal() / 5,
+					backend + " served only " + backend.getServed() + " requests");
+		}
+		assertTrue(report.getPercentileMillis(99) < 1000, report.toString());
+	}
+
+	@Test
+	@Order(2)
+	void failingBackendIsEjected() throws InterruptedException {
+		StubBackend failing = fleet.get(1).errorRate(1.0);
+
+		LoadReport report = run(100, Duration.ofSeconds(3));
+
+		// Outlier detection phải ngắt backend lỗi sau vài request thay vì chia đều 1/3 traffic cho nó
+		assertTrue(failing.getFailed() < report.getTotal() / 10, failing.getFailed() + " requests hit the failing backend");
+		assertTrue(report.getSuccessRate() >= 0.95, report.toString());
+	}
+
+	@Test
+	@Order(3)
+	void overloadIsRejectedQuickly() throws InterruptedException {
+		// Mỗi stub xử lý tối đa 16 request × 2 request/s = 32 request/s, cả fleet ~96 request/s
+		for (StubBackend backend : fleet.getBackends()) {
+			backend.latency(LatencyDistribution.fixed(500));
+		}
+
+		LoadReport report = run(150, Duration.ofSeconds(3));
+
+		// Phần vượt capacity bị từ chối nhanh, không request nào treo đến timeout
+		assertEquals(0, report.getStatusCount(LoadReport.STATUS_ERROR), report.toString());
+		assertEquals(0, report.getStatusCount(LoadReport.STATUS_PENDING), report.toString());
+		assertTrue(report.getSucceeded() > 0, report.toString());
+		assertTrue(report.getPercentileMillis(99) < TIMEOUT.toMillis(), report.toString());
+	}
+
+	//===========================================Helper============================================
+	private LoadReport run(double ratePerSecond, Duration duration) throws InterruptedException {
+		try (LoadGenerator generator = new LoadGenerator(TIMEOUT)) {
+			// Path khác nhau để request không bị gộp (coalesce) với nhau
+			LoadReport report = generator.run(ratePerSecond, duration, i -> HttpRequest
+					.newBuilder(URI.create("http://localhost:" + port + "/work/" + i))
+					.GET()
+					.build());
+			log.info("Load {}/s for {} ms: {}", ratePerSecond, duration.toMillis(), report);
+			return report;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.cs4445.loadBalancer.harness;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.cs4445.loadBalancer.proxy.ReactiveProxyServer;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+
+/**
+ * So sánh data plane servlet (server.port) và reactive (loadbalancer.reactive.port) trên cùng fleet backend chậm:
+ * số request đồng thời (rate × latency) vượt số thread của Tomcat (200), nên servlet phải xếp hàng
+ * còn reactive thì không. Kết quả của cả hai được in ra log để so sánh giữa các lần chạy.
+ * Concurrency limit và admission được tắt để chỉ đo data plane. Load generator, fleet và load balancer chung một JVM
+ * nên health probe được nới timeout, tránh bị đánh dấu DOWN chỉ vì CPU bị chiếm lúc tải đỉnh.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"loadbalancer.tcp.port=0",
+		"loadbalancer.healthcheck.interval=500",
+		"loadbalancer.healthcheck.probe-timeout=5000",
+		"loadbalancer.healthcheck.deadline=6000",
+		"loadbalancer.reactive.enabled=true",
+		"loadbalancer.reactive.port=0",
+		"loadbalancer.concurrency-limit.enabled=false",
+		"loadbalancer.admission.enabled=false",
+		"loadbalancer.rate-limit.enabled=false"
+})
+@Tag("load")
+class ProxyModeComparisonTest {
+
+	//==========================================Variable==========================================
+	private static final Logger log = LoggerFactory.getLogger(ProxyModeComparisonTest.class);
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+	private static final LatencyDistribution SLOW = LatencyDistribution.fixed(1000);
+	private static final double RATE = 300;
+	private static final Duration DURATION = Duration.ofSeconds(3);
+
+	private static StubFleet fleet;
+
+	@LocalServerPort
+	private int servletPort;
+
+	@Autowired
+	private ReactiveProxyServer reactiveProxyServer;
+
+	@Autowired
+	private BackendRegistry backendRegistry;
+
+	@DynamicPropertySource
+	static void stubServers(DynamicPropertyRegistry registry) throws IOException {
+		fleet = StubFleet.start(3, 1024, 1024);
+		fleet.registerServers(registry);
+	}
+
+	@AfterAll
+	static void stopFleet() {
+		fleet.close();
+	}
+
+	@BeforeEach
+	void resetFleet() {
+		fleet.reset(LatencyDistribution.fixed(1));
+		backendRegistry.refresh();
+	}
+
+	//==========================================Scenario==========================================
+	@Test
+	void reactiveForwardsRequestAndBody() throws Exception {
+		HttpClient client = HttpClient.newHttpClient();
+		HttpResponse<String> get = client.send(HttpRequest
+				.newBuilder(URI.create("http://localhost:" + reactiveProxyServer.getPort() + "/work/1?x=1"))
+				.GET()
+				.build(), HttpResponse.BodyHandlers.ofString());
+		HttpResponse<String> post = client.send(HttpRequest
+				.newBuilder(URI.create("http://localhost:" + reactiveProxyServer.getPort() + "/work/2"))
+				.POST(HttpRequest.BodyPublishers.ofByteArray(new byte[256 * 1024]))
+				.build(), HttpResponse.BodyHandlers.ofString());
+
+		assertEquals(200, get.statusCode(), get.body());
+		assertEquals(200, post.statusCode(), post.body());
+	}
+
+	@Test
+	void slowBackendsAtHighConcurrency() throws InterruptedException {
+		// ~300 request đồng thời mỗi chế độ; warm-up ngắn để JIT và connection pool không làm lệch kết quả
+		run("servlet", servletPort, 50, Duration.ofSeconds(1), LatencyDistribution.fixed(1));
+		run("reactive", reactiveProxyServer.getPort(), 50, Duration.ofSeconds(1), LatencyDistribution.fixed(1));
+
+		LoadReport servlet = run("servlet", servletPort, RATE, DURATION, SLOW);
+		LoadReport reactive = run("reactive", reactiveProxyServer.getPort(), RATE, DURATION, SLOW);
+
+		assertTrue(reactive.getSuccessRate() >= 0.99, reactive.toString());
+		assertTrue(servlet.getSuccessRate() >= 0.99, servlet.toString());
+		// Reactive không xếp hàng chờ thread: p50 chỉ thêm overhead nhỏ trên latency 1s của backend
+		assertTrue(reactive.getPercentileMillis(50) < 2000, reactive.toString());
+	}
+
+	//===========================================Helper============================================
+	private LoadReport run(String mode, int port, double ratePerSecond, Duration duration,
+						   LatencyDistribution latency) throws InterruptedException {
+		fleet.reset(latency);
+		try (LoadGenerator generator = new LoadGenerator(TIMEOUT)) {
+			// Path khác nhau để request servlet không bị gộp (coalesce) với nhau
+			LoadReport report = generator.run(ratePerSecond, duration, i -> HttpRequest
+					.newBuilder(URI.create("http://localhost:" + port + "/work/" + i))
+					.GET()
+					.build());
+			log.info("{} {}/s for {} ms: {}", mode, ratePerSecond, duration.toMillis(), report);
+			return report;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package com.cs4445.loadBalancer.harness;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Sub-server giả lập chạy in-process trên loopback, cùng API với sub-server thật:
+ * - GET /server/health: ServerHealthResponse (cpu = in-flight / capacity)
+ * - POST /server/open, /server/close: mở/đóng server, server đóng trả 503 cho mọi request khác
+ * - mọi path khác: xử lý mất thời gian theo LatencyDistribution, lỗi 500 với xác suất errorRate
+ * Tối đa capacity request xử lý cùng lúc, tối đa queueLimit request chờ, vượt quá thì trả 503 ngay.
+ * Latency và error rate đổi được lúc đang chạy để dựng kịch bản (backend chậm dần, backend lỗi...).
+ */
+public class StubBackend implements AutoCloseable {
+	//==========================================Variable==========================================
+	private final String name;
+	private final int capacity;
+	private final int queueLimit;
+	private final Semaphore permits;
+	private final HttpServer server;
+	// Platform thread: HttpServer đọc/ghi stream trong synchronized, virtual thread sẽ bị pin vào carrier
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private volatile LatencyDistribution latency = LatencyDistribution.fixed(1);
+	private volatile double errorRate;
+	private volatile boolean open = true;
+
+	private final AtomicInteger admitted = new AtomicInteger();
+	private final AtomicInteger inflight = new AtomicInteger();
+	private final LongAdder served = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder busyNanos = new LongAdder();
+
+	//=========================================Constructor=========================================
+	public StubBackend(String name, int capacity, int queueLimit) throws IOException {
+		this.name = name;
+		this.capacity = capacity;
+		this.queueLimit = queueLimit;
+		this.permits = new Semaphore(capacity);
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	//===========================================Method===========================================
+	public String getName() {
+		return name;
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public StubBackend latency(LatencyDistribution latency) {
+		this.latency = latency;
+		return this;
+	}
+
+	public StubBackend errorRate(double errorRate) {
+		this.errorRate = errorRate;
+		return this;
+	}
+
+	public boolean isOpen() {
+		return open;
+	}
+
+	public long getServed() {
+		return served.sum();
+	}
+
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public void resetCounters() {
+		served.reset();
+		failed.reset();
+		rejected.reset();
+		busyNanos.reset();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	@Override
+	public String toString() {
+		return name + "(127.0.0.1:" + getPort() + ")";
+	}
+
+	//==========================================Handler===========================================
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange; InputStream body = exchange.getRequestBody()) {
+			body.transferTo(OutputStream.nullOutputStream());
+			String path = exchange.getRequestURI().getPath();
+			switch (path) {
+				case "/server/health" -> respond(exchange, 200, "application/json", objectMapper.writeValueAsBytes(health()));
+				case "/server/open" -> {
+					open = true;
+					respond(exchange, 200, "text/plain", "Server opened".getBytes(StandardCharsets.UTF_8));
+				}
+				case "/server/close" -> {
+					open = false;
+					respond(exchange, 200, "text/plain", "Server closed".getBytes(StandardCharsets.UTF_8));
+				}
+				default -> work(exchange);
+			}
+		}
+	}
+
+	private void work(HttpExchange exchange) throws IOException {
+		if (!open) {
+			respond(exchange, 503, "text/plain", "Server closed".getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+		if (admitted.incrementAndGet() > capacity + queueLimit) {
+			admitted.decrementAndGet();
+			rejected.increment();
+			respond(exchange, 503, "text/plain", "Server overloaded".getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			admitted.decrementAndGet();
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		boolean error;
+		inflight.incrementAndGet();
+		try {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			long serviceNanos = latency.sampleNanos(random);
+			Thread.sleep(Duration.ofNanos(serviceNanos));
+			busyNanos.add(serviceNanos);
+			error = random.nextDouble() < errorRate;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		} finally {
+			inflight.decrementAndGet();
+			permits.release();
+			admitted.decrementAndGet();
+		}
+
+		if (error) {
+			failed.increment();
+			respond(exchange, 500, "text/plain", "Simulated failure".getBytes(StandardCharsets.UTF_8));
+		} else {
+			served.increment();
+			respond(exchange, 200, "text/plain", ("ok " + name).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private ServerHealthResponse health() {
+		long count = served.sum() + failed.sum();
+		int current = inflight.get();
+		return ServerHealthResponse.builder()
+				.cpuUsagePercent(100.0 * current / capacity)
+				.memoryUsagePercent(50.0)
+				.avgProcessingTimeSec(count == 0 ? 0.0 : busyNanos.sum() / 1e9 / count)
+				.currConnections(current)
+				.isOpen(open)
+				.build();
+	}
+
+	private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		// Response không được cache/gộp để mọi request đều đến backend
+		exchange.getResponseHeaders().set("Cache-Control", "no-store");
+		exchange.sendResponseHeaders(status, body.length);
+		exchange.getResponseBody().write(body);
+	}
+}
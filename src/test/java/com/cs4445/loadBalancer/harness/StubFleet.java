@@ -0,0 +1,74 @@
+package com.cs4445.loadBalancer.harness;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+/**
+ * N stub backend trên loopback thay cho các VPS thật trong application.properties.
+ * Dùng với @DynamicPropertySource: fleet.registerServers(registry) ghi đè loadbalancer.servers[i].
+ * Fleet phải có ít nhất số server khai báo trong application.properties, nếu không các server thật còn lại vẫn được dùng.
+ */
+public class StubFleet implements AutoCloseable {
+	//==========================================Variable==========================================
+	private final List<StubBackend> backends;
+
+	//=========================================Constructor=========================================
+	private StubFleet(List<StubBackend> backends) {
+		this.backends = backends;
+	}
+
+	/**
+	 * @param capacity   số request mỗi backend xử lý cùng lúc
+	 * @param queueLimit số request mỗi backend cho chờ thêm trước khi trả 503
+	 */
+	public static StubFleet start(int size, int capacity, int queueLimit) throws IOException {
+		List<StubBackend> backends = new ArrayList<>(size);
+		try {
+			for (int i = 0; i < size; i++) {
+				backends.add(new StubBackend("stub-" + i, capacity, queueLimit));
+			}
+		} catch (IOException e) {
+			backends.forEach(StubBackend::close);
+			throw e;
+		}
+		return new StubFleet(List.copyOf(backends));
+	}
+
+	//===========================================Method===========================================
+	public StubBackend get(int index) {
+		return backends.get(index);
+	}
+
+	public List<StubBackend> getBackends() {
+		return backends;
+	}
+
+	public int size() {
+		return backends.size();
+	}
+
+	public void registerServers(DynamicPropertyRegistry registry) {
+		for (int i = 0; i < backends.size(); i++) {
+			StubBackend backend = backends.get(i);
+			registry.add("loadbalancer.servers[" + i + "].host", () -> "127.0.0.1");
+			registry.add("loadbalancer.servers[" + i + "].port", backend::getPort);
+		}
+	}
+
+	/**
+	 * Đưa mọi backend về trạng thái ban đầu giữa các kịch bản
+	 */
+	public void reset(LatencyDistribution latency) {
+		for (StubBackend backend : backends) {
+			backend.latency(latency).errorRate(0.0).resetCounters();
+		}
+	}
+
+	@Override
+	public void close() {
+		backends.forEach(StubBackend::close);
+	}
+}
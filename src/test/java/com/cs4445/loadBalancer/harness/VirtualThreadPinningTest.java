@@ -0,0 +1,149 @@
+package com.cs4445.loadBalancer.harness;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Chế độ virtual thread (spring.threads.virtual.enabled):
+ * - Chạy load qua proxy servlet trong lúc ghi JFR jdk.VirtualThreadPinned với threshold 0: mọi lần virtual thread
+ *   block khi đang bị pin vào carrier (synchronized, native frame) đều bị ghi lại. Hot path (Tomcat -> admission ->
+ *   ProxyApi -> HttpClient -> backend, kể cả hedging, cache và health probe) không được pin lần nào.
+ * - Backend chậm hơn hạn chót: request đến backend (và hedge) bị huỷ, client nhận 504 đúng hạn.
+ * Concurrency limit được tắt: trên máy ít CPU, JIT và JFR làm latency dao động đủ để Vegas hạ limit và trả 503.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.threads.virtual.enabled=true",
+		"loadbalancer.tcp.port=0",
+		"loadbalancer.healthcheck.interval=500",
+		"loadbalancer.concurrency-limit.enabled=false",
+		"loadbalancer.proxy.hedge.min-samples=10",
+		"loadbalancer.proxy.request-timeout=1500"
+})
+@Tag("load")
+class VirtualThreadPinningTest {
+
+	//==========================================Variable==========================================
+	private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningTest.class);
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+	private static final LatencyDistribution NORMAL = LatencyDistribution.exponential(5);
+
+	private static StubFleet fleet;
+	private static boolean warmedUp;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private BackendRegistry backendRegistry;
+
+	@DynamicPropertySource
+	static void stubServers(DynamicPropertyRegistry registry) throws IOException {
+		fleet = StubFleet.start(3, 64, 64);
+		fleet.registerServers(registry);
+	}
+
+	@AfterAll
+	static void stopFleet() {
+		fleet.close();
+	}
+
+	@BeforeEach
+	void resetFleet() throws InterruptedException {
+		fleet.reset(NORMAL);
+		backendRegistry.refresh();
+		if (!warmedUp) {
+			// Class loading và JIT của lần chạy đầu chiếm carrier thread, bỏ kết quả warm-up
+			run(50, Duration.ofSeconds(3));
+			warmedUp = true;
+		}
+	}
+
+	//==========================================Scenario==========================================
+	@Test
+	void proxyHotPathDoesNotPinCarrierThreads() throws InterruptedException {
+		List<String> pinned = new CopyOnWriteArrayList<>();
+		LoadReport report;
+		try (RecordingStream recording = new RecordingStream()) {
+			recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+			recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.add(describe(event)));
+			recording.startAsync();
+
+			report = run(50, Duration.ofSeconds(3));
+
+			// Đẩy nốt event còn trong buffer ra stream
+			recording.stop();
+		}
+
+		assertTrue(pinned.isEmpty(), pinned.size() + " pinned events:\n" + String.join("\n\n", pinned));
+		assertTrue(report.getSuccessRate() >= 0.95, report.toString());
+	}
+
+	@Test
+	void slowUpstreamIsAbortedAtDeadline() throws Exception {
+		for (StubBackend backend : fleet.getBackends()) {
+			backend.latency(LatencyDistribution.fixed(5000));
+		}
+
+		HttpClient client = HttpClient.newHttpClient();
+		long start = System.nanoTime();
+		HttpResponse<String> response = client.send(HttpRequest
+				.newBuilder(URI.create("http://localhost:" + port + "/work/slow"))
+				.timeout(TIMEOUT)
+				.GET()
+				.build(), HttpResponse.BodyHandlers.ofString());
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+
+		assertEquals(504, response.statusCode(), response.body());
+		assertTrue(elapsedMs < 3000, "answered after " + elapsedMs + " ms");
+	}
+
+	//===========================================Helper============================================
+	private LoadReport run(double ratePerSecond, Duration duration) throws InterruptedException {
+		try (LoadGenerator generator = new LoadGenerator(TIMEOUT)) {
+			// Xen kẽ path khác nhau và path lặp lại để đi qua cả nhánh cache/coalescing
+			LoadReport report = generator.run(ratePerSecond, duration, i -> HttpRequest
+					.newBuilder(URI.create("http://localhost:" + port + "/work/" + (i % 2 == 0 ? i : i % 10)))
+					.GET()
+					.build());
+			log.info("Virtual threads {}/s for {} ms: {}", ratePerSecond, duration.toMillis(), report);
+			return report;
+		}
+	}
+
+	private static String describe(RecordedEvent event) {
+		if (event.getStackTrace() == null) return "(no stack trace) " + event.getThread();
+		return event.getStackTrace().getFrames().stream()
+				.limit(64)
+				.map(RecordedFrame::getMethod)
+				.map(method -> method.getType().getName() + "." + method.getName())
+				.collect(Collectors.joining("\n  at ", event.getDuration() + " pinned:\n  at ", ""));
+	}
+}
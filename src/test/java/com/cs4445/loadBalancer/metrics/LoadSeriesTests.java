@@ -0,0 +1,88 @@
+package com.cs4445.loadBalancer.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+
+class LoadSeriesTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void windowsTrackRecentSamplesAcrossRingWraps() {
+		LoadRecorder recorder = new LoadRecorder();
+		int[] windows = {3, 10};
+		LoadSeries series = new LoadSeries(recorder, 10, windows, 0L);
+		List<double[]> history = new ArrayList<>();
+
+		// 25 sample: ring 10 slot bị ghi đè 2 vòng, có sample backend không healthy (health null)
+		for (int t = 1; t <= 25; t++) {
+			int requests = t * 10;
+			for (int i = 0; i < requests; i++) {
+				recorder.record(2_000_000L, i < t);
+			}
+			ServerHealthResponse health = t % 7 == 0 ? null : ServerHealthResponse.builder()
+					.cpuUsagePercent(t)
+					.memoryUsagePercent(50.0)
+					.currConnections(t % 4)
+					.isOpen(true)
+					.build();
+			series.add(health, t * SECOND);
+			history.add(new double[]{health == null ? Double.NaN : t, requests, t});
+
+			LoadSeries.Window[] aggregates = series.aggregate();
+			for (int w = 0; w < windows.length; w++) {
+				assertWindow(history, windows[w], aggregates[w]);
+			}
+		}
+	}
+
+	@Test
+	void percentilesComeFromTheLatestIntervalOnly() {
+		LoadRecorder recorder = new LoadRecorder();
+		LoadSeries series = new LoadSeries(recorder, 10, new int[]{1, 10}, 0L);
+
+		for (int i = 0; i < 100; i++) recorder.record(200_000_000L, false);
+		series.add(null, SECOND);
+		for (int i = 0; i < 100; i++) recorder.record(1_000_000L, false);
+		series.add(null, 2 * SECOND);
+
+		LoadSeries.Window[] aggregates = series.aggregate();
+		// Cửa sổ 1 sample chỉ thấy request ~1ms, cửa sổ 10 sample vẫn giữ p99 ~200ms của sample trước
+		assertTrue(aggregates[0].getMax(LoadSeries.LATENCY_P99) < 2.0);
+		assertTrue(aggregates[1].getMax(LoadSeries.LATENCY_P99) >= 200.0);
+		assertEquals(100.0, aggregates[0].getAverage(LoadSeries.RPS), 1e-9);
+		assertTrue(Double.isNaN(aggregates[1].getAverage(LoadSeries.CPU)));
+	}
+
+	private static void assertWindow(List<double[]> history, int size, LoadSeries.Window window) {
+		int samples = Math.min(size, history.size());
+		double cpuSum = 0;
+		int cpuCount = 0;
+		double cpuMax = Double.NaN;
+		long requests = 0;
+		long errors = 0;
+		for (double[] sample : history.subList(history.size() - samples, history.size())) {
+			if (!Double.isNaN(sample[0])) {
+				cpuSum += sample[0];
+				cpuCount++;
+				cpuMax = Double.isNaN(cpuMax) ? sample[0] : Math.max(cpuMax, sample[0]);
+			}
+			requests += (long) sample[1];
+			errors += (long) sample[2];
+		}
+
+		assertEquals(samples, window.getSamples());
+		assertEquals(requests, window.getRequests());
+		assertEquals(errors, window.getErrors());
+		assertEquals((double) errors / requests, window.getErrorRate(), 1e-12);
+		assertEquals(cpuCount == 0 ? Double.NaN : cpuSum / cpuCount, window.getAverage(LoadSeries.CPU), 1e-9);
+		assertEquals(cpuMax, window.getMax(LoadSeries.CPU));
+		assertEquals(requests / (double) samples, window.getAverage(LoadSeries.RPS), 1e-9);
+	}
+}
@@ -0,0 +1,301 @@
+package com.cs4445.loadBalancer.proxy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.cs4445.loadBalancer.config.BackendProperties;
+import com.cs4445.loadBalancer.config.ProxyConfig;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.model.Deadline;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+import com.cs4445.loadBalancer.registry.ConcurrencyLimiter;
+import com.cs4445.loadBalancer.registry.OutlierDetector;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamInvokerTests {
+
+	private final BackendProperties properties = new BackendProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final OutlierDetector outlierDetector = new OutlierDetector(new BackendRegistry(null, null, properties),
+			100, 100, 1000, 30_000, 300_000, 100);
+	private final ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(properties,
+			new BackendRegistry(null, null, properties), meterRegistry);
+	private final CloseableHttpClient httpClient = new ProxyConfig().proxyHttpClient(8, 32, 1000, 5000, 5000);
+	private final HttpForwarder httpForwarder = new HttpForwarder(httpClient, new BufferPool(4096, 8),
+			outlierDetector, concurrencyLimiter,
+			new UpstreamObserver(outlierDetector, concurrencyLimiter,
+					new ProxyMetrics(meterRegistry, new double[]{0.5}, false, 100)));
+	private final List<HttpServer> servers = new ArrayList<>();
+	private final List<ServerSocket> sockets = new ArrayList<>();
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private UpstreamInvoker invoker;
+
+	@AfterEach
+	void shutdown() throws IOException {
+		if (invoker != null) invoker.shutdown();
+		outlierDetector.shutdown();
+		httpClient.close();
+		servers.forEach(server -> server.stop(0));
+		for (ServerSocket socket : sockets) {
+			socket.close();
+		}
+		executor.shutdownNow();
+	}
+
+	@Test
+	void connectFailureIsRetriedOnAnotherBackend() throws Exception {
+		invoker = invoker(2, 10, 5, false);
+		Backend dead = backend(closedPort());
+		Backend ok = backend(stub("ok", 0));
+		List<Backend> tried = new ArrayList<>();
+
+		UpstreamExchange exchange = invoker.invoke(get("/api/items"), recording(tried, dead, ok), null,
+				deadline(5000));
+		try {
+			assertTrue(exchange.isSucceeded());
+			assertSame(ok, exchange.getBackend());
+			assertEquals("ok", EntityUtils.toString(exchange.getResponse().getEntity()));
+			assertEquals(List.of(dead, ok), tried);
+		} finally {
+			exchange.release();
+		}
+		// Chỗ của lần gửi lỗi đã được trả lại khi retry
+		assertEquals(0, dead.getInflight());
+		assertEquals(0, ok.getInflight());
+	}
+
+	@Test
+	void retriesStopAtMaxRetries() throws Exception {
+		invoker = invoker(2, 10, 5, false);
+		Backend[] dead = {backend(closedPort()), backend(closedPort()), backend(closedPort())};
+		Backend ok = backend(stub("ok", 0));
+		List<Backend> tried = new ArrayList<>();
+
+		UpstreamExchange exchange = invoker.invoke(get("/api/items"),
+				recording(tried, dead[0], dead[1], dead[2], ok), null, deadline(5000));
+		exchange.release();
+		assertFalse(exchange.isSucceeded());
+		assertInstanceOf(ConnectException.class, exchange.getError());
+		assertEquals(List.of(dead[0], dead[1], dead[2]), tried);
+	}
+
+	@Test
+	void failureAfterConnectIsNotRetried() throws Exception {
+		invoker = invoker(2, 10, 5, false);
+		// Backend nhận kết nối rồi đóng ngay: request có thể đã đến backend nên không gửi lại
+		Backend reset = backend(resettingPort());
+		Backend ok = backend(stub("ok", 0));
+		List<Backend> tried = new ArrayList<>();
+
+		UpstreamExchange exchange = invoker.invoke(get("/api/items"), recording(tried, reset, ok), null,
+				deadline(5000));
+		exchange.release();
+		assertFalse(exchange.isSucceeded());
+		assertFalse(exchange.getError() instanceof ConnectException, exchange.getError().toString());
+		assertEquals(List.of(reset), tried);
+	}
+
+	@Test
+	void exhaustedRetryBudgetBlocksRetry() throws Exception {
+		// Không có reserve và không nạp token: retry đầu tiên đã hết budget
+		invoker = invoker(2, 0, 0, false);
+		Backend dead = backend(closedPort());
+		Backend ok = backend(stub("ok", 0));
+		List<Backend> tried = new ArrayList<>();
+
+		UpstreamExchange exchange = invoker.invoke(get("/api/items"), recording(tried, dead, ok), null,
+				deadline(5000));
+		exchange.release();
+		assertFalse(exchange.isSucceeded());
+		assertSame(dead, exchange.getBackend());
+		assertEquals(0.0, invoker.getRetryBudgetBalance());
+		// Backend được chọn cho retry bị budget từ chối: trả lại chỗ, không gửi request nào
+		assertEquals(List.of(dead, ok), tried);
+		assertEquals(0, ok.getInflight());
+		assertEquals(0, ok.getLoad().getRequests());
+	}
+
+	@Test
+	void retryBudgetIsEarnedAsPercentOfTraffic() {
+		RetryBudget budget = new RetryBudget(10, 0);
+		assertFalse(budget.tryWithdraw());
+		for (int i = 0; i < 9; i++) {
+			budget.deposit();
+		}
+		assertFalse(budget.tryWithdraw(), "9 requests at 10% should not earn a retry");
+		budget.deposit();
+		assertTrue(budget.tryWithdraw());
+		assertFalse(budget.tryWithdraw());
+	}
+
+	@Test
+	void slowGetIsHedgedToAnotherBackend() throws Exception {
+		// Mỗi request gốc nạp đúng một token, đủ cho một hedge
+		invoker = invoker(2, 100, 0, true);
+		Backend slow = backend(stub("slow", 2000));
+		Backend fast = backend(stub("fast", 0));
+		List<Backend> tried = new ArrayList<>();
+
+		long start = System.nanoTime();
+		UpstreamExchange exchange = invoker.invoke(get("/api/items"), recording(tried, slow, fast), null,
+				deadline(5000));
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		try {
+			assertTrue(exchange.isSucceeded());
+			assertSame(fast, exchange.getBackend());
+			assertEquals("fast", EntityUtils.toString(exchange.getResponse().getEntity()));
+		} finally {
+			exchange.release();
+		}
+		assertEquals(List.of(slow, fast), tried);
+		assertTrue(elapsedMs < 1500, "hedged request took " + elapsedMs + " ms");
+		// Lần gửi thua bị huỷ và trả chỗ, hedge tiêu một token của budget
+		assertEquals(0, slow.getInflight());
+		assertEquals(0.0, invoker.getRetryBudgetBalance());
+	}
+
+	@Test
+	void requestWithBodyIsNotHedged() throws Exception {
+		invoker = invoker(2, 10, 5, true);
+		Backend slow = backend(stub("slow", 200));
+		Backend fast = backend(stub("fast", 0));
+		List<Backend> tried = new ArrayList<>();
+		MockHttpServletRequest post = new MockHttpServletRequest("POST", "/api/items");
+		post.setContent("{}".getBytes(StandardCharsets.UTF_8));
+
+		UpstreamExchange exchange = invoker.invoke(post, recording(tried, slow, fast), null, deadline(5000));
+		try {
+			assertTrue(exchange.isSucceeded());
+			assertSame(slow, exchange.getBackend());
+		} finally {
+			exchange.release();
+		}
+		assertEquals(List.of(slow), tried);
+	}
+
+	@Test
+	void attemptIsAbortedWhenDeadlineExpires() throws Exception {
+		invoker = invoker(2, 10, 5, false);
+		Backend slow = backend(stub("slow", 2000));
+
+		long start = System.nanoTime();
+		UpstreamExchange exchange = invoker.invoke(get("/api/items"), recording(new ArrayList<>(), slow), null,
+				deadline(100));
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		exchange.release();
+		assertFalse(exchange.isSucceeded());
+		assertTrue(exchange.isExpired());
+		assertTrue(elapsedMs < 1500, "expired request took " + elapsedMs + " ms");
+	}
+
+	//===========================================Helper============================================
+	/**
+	 * @param hedge bật hedging với min-samples = 0 và min-delay = 20ms, hedge ngay từ request đầu tiên
+	 */
+	private UpstreamInvoker invoker(int maxRetries, int budgetPercent, int minPerSecond, boolean hedge) {
+		return new UpstreamInvoker(httpForwarder, outlierDetector, concurrencyLimiter, maxRetries, budgetPercent,
+				minPerSecond, hedge, 20, 0, 95);
+	}
+
+	/**
+	 * Selector chọn backend theo thứ tự, bỏ qua backend đã thử, ghi lại các backend đã được chọn
+	 */
+	private Function<List<Backend>, BackendSelector.Lease> recording(List<Backend> selected, Backend... backends) {
+		return tried -> {
+			for (Backend backend : backends) {
+				if (tried.contains(backend)) continue;
+				if (!concurrencyLimiter.tryAcquire(backend)) continue;
+				selected.add(backend);
+				return new BackendSelector.Lease(backend, false);
+			}
+			return null;
+		};
+	}
+
+	private static MockHttpServletRequest get(String uri) {
+		return new MockHttpServletRequest("GET", uri);
+	}
+
+	private static Deadline deadline(long millis) {
+		return Deadline.after(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+
+	private static Backend backend(int port) {
+		return new Backend(ServerUrl.builder().dns("http://127.0.0.1").port(port).build());
+	}
+
+	/**
+	 * Backend trả về body sau delayMs
+	 */
+	private int stub(String body, long delayMs) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+		server.setExecutor(executor);
+		server.createContext("/", exchange -> {
+			try {
+				Thread.sleep(delayMs);
+			} catch (InterruptedException ignored) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			} catch (IOException ignored) {
+				// Client đã huỷ (thua hedging)
+			}
+		});
+		server.start();
+		servers.add(server);
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Port không có ai lắng nghe: kết nối bị từ chối
+	 */
+	private static int closedPort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			return socket.getLocalPort();
+		}
+	}
+
+	/**
+	 * Port nhận kết nối rồi đóng ngay trước khi trả response
+	 */
+	private int resettingPort() throws IOException {
+		ServerSocket socket = new ServerSocket(0, 8, InetAddress.getLoopbackAddress());
+		sockets.add(socket);
+		executor.execute(() -> {
+			try {
+				while (true) {
+					socket.accept().close();
+				}
+			} catch (IOException ignored) {
+				// socket bị đóng khi test kết thúc
+			}
+		});
+		return socket.getLocalPort();
+	}
+}
@@ -0,0 +1,169 @@
+package com.cs4445.loadBalancer.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.cs4445.loadBalancer.ratelimit.RateLimiter.Scope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimiterTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void burstIsAllowedBackToBackThenRejected() {
+		RateLimit limit = new RateLimit(10, 5);
+		AtomicLong state = RateLimit.newState();
+		long now = 1_000 * SECOND;
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0L, limit.tryAcquire(state, now), "request " + i + " of the burst");
+		}
+		// Request thứ 6 phải chờ đúng một interval (100ms) đến khi có token
+		assertEquals(SECOND / 10, limit.tryAcquire(state, now));
+		// Bị từ chối không tốn token
+		assertEquals(SECOND / 10 - SECOND / 20, limit.tryAcquire(state, now + SECOND / 20));
+		assertEquals(0L, limit.tryAcquire(state, now + SECOND / 10));
+	}
+
+	@Test
+	void steadyRateIsAllowedAfterBurstIsSpent() {
+		RateLimit limit = new RateLimit(10, 5);
+		AtomicLong state = RateLimit.newState();
+		long now = 1_000 * SECOND;
+		for (int i = 0; i < 5; i++) {
+			limit.tryAcquire(state, now);
+		}
+
+		// Mỗi 100ms có đúng một token (tại 100ms, 200ms, ..., 2s)
+		int allowed = 0;
+		for (long t = now; t <= now + 2 * SECOND; t += SECOND / 100) {
+			if (limit.tryAcquire(state, t) == 0L) allowed++;
+		}
+		assertEquals(20, allowed);
+
+		// Im lặng đủ lâu thì bucket đầy lại nhưng không vượt burst
+		long later = now + 10 * SECOND;
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0L, limit.tryAcquire(state, later));
+		}
+		assertTrue(limit.tryAcquire(state, later) > 0);
+
+		assertEquals(0L, RateLimit.UNLIMITED.tryAcquire(state, later));
+		assertEquals(3, new RateLimit(2.5, 0).getBurst());
+	}
+
+	@Test
+	void rejectedRequestGetsRetryAfterInWholeSeconds() throws Exception {
+		RateLimiter limiter = limiter(0.5, 1);
+		RateLimitFilter filter = new RateLimitFilter(limiter, new ObjectMapper().findAndRegisterModules());
+
+		MockHttpServletResponse first = new MockHttpServletResponse();
+		filter.doFilter(request("10.0.0.1", null), first, new MockFilterChain());
+		assertEquals(200, first.getStatus());
+
+		// 0.5 request/s: request kế tiếp phải chờ ~2s, Retry-After làm tròn lên
+		MockHttpServletResponse second = new MockHttpServletResponse();
+		filter.doFilter(request("10.0.0.1", null), second, new MockFilterChain());
+		assertEquals(429, second.getStatus());
+		assertEquals("2", second.getHeader("Retry-After"));
+		assertTrue(second.getContentAsString().contains("Rate limit exceeded"));
+
+		// Endpoint quản trị không bị giới hạn
+		MockHttpServletResponse admin = new MockHttpServletResponse();
+		MockHttpServletRequest status = request("10.0.0.1", null);
+		status.setRequestURI("/api/lb/status");
+		filter.doFilter(status, admin, new MockFilterChain());
+		assertEquals(200, admin.getStatus());
+	}
+
+	@Test
+	void untrustedApiKeysCannotBypassTheClientIpLimit() {
+		RateLimiter limiter = limiter(1, 3);
+
+		// Đổi key mỗi request vẫn bị giới hạn theo IP
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0L, limiter.tryAcquire(request("10.0.0.1", "random-" + i)));
+		}
+		assertTrue(limiter.tryAcquire(request("10.0.0.1", "random-3")) > 0);
+		assertTrue(limiter.tryAcquire(request("10.0.0.1", null)) > 0);
+
+		// Key lạ dùng từ nhiều IP vẫn bị giới hạn theo key
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0L, limiter.tryAcquire(request("10.0.1." + i, "shared")));
+		}
+		assertTrue(limiter.tryAcquire(request("10.0.1.9", "shared")) > 0);
+
+		// Key trùng IP của client khác không tiêu token của IP đó
+		assertEquals(0L, limiter.tryAcquire(request("10.0.2.1", "10.0.2.2")));
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0L, limiter.tryAcquire(request("10.0.2.2", null)));
+		}
+	}
+
+	@Test
+	void trustedApiKeyIsLimitedByKeyOnly() {
+		RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), true, "X-API-Key",
+				new String[]{" tenant-a ", ""}, 1, 2, 0, 0, 1000, 60000);
+
+		// Nhiều client sau cùng một IP (NAT) dùng key tin cậy không chia nhau limit theo IP
+		assertEquals(0L, limiter.tryAcquire(request("10.0.0.1", null)));
+		assertEquals(0L, limiter.tryAcquire(request("10.0.0.1", null)));
+		assertTrue(limiter.tryAcquire(request("10.0.0.1", null)) > 0);
+		assertEquals(0L, limiter.tryAcquire(request("10.0.0.1", "tenant-a")));
+		assertEquals(0L, limiter.tryAcquire(request("10.0.0.1", "tenant-a")));
+		assertTrue(limiter.tryAcquire(request("10.0.0.2", "tenant-a")) > 0);
+	}
+
+	@Test
+	void perKeyOverrideChangedAtRuntimeAppliesToNextRequest() {
+		RateLimiter limiter = limiter(1, 1);
+
+		// Key có limit riêng được xem là key đã biết, không bị limit theo IP
+		limiter.setLimit(Scope.CLIENT, "tenant-b", new RateLimit(1, 4));
+		for (int i = 0; i < 4; i++) {
+			assertEquals(0L, limiter.tryAcquire(request("10.0.0.1", "tenant-b")));
+		}
+		assertTrue(limiter.tryAcquire(request("10.0.0.1", "tenant-b")) > 0);
+		assertEquals(0L, limiter.tryAcquire(request("10.0.0.1", null)));
+
+		// Tăng limit lúc runtime: bucket giữ nguyên trạng thái, tolerance mới áp dụng ngay
+		limiter.setLimit(Scope.CLIENT, "tenant-b", new RateLimit(1, 10));
+		assertEquals(0L, limiter.tryAcquire(request("10.0.0.1", "tenant-b")));
+		assertEquals(10, limiter.getOverrides(Scope.CLIENT).get("tenant-b").getBurst());
+
+		// Không giới hạn riêng cho key
+		limiter.setLimit(Scope.CLIENT, "tenant-b", RateLimit.UNLIMITED);
+		for (int i = 0; i < 50; i++) {
+			assertEquals(0L, limiter.tryAcquire(request("10.0.0.9", "tenant-b")));
+		}
+
+		// Xoá limit riêng: key quay về key lạ, bị giới hạn theo IP (đã hết token)
+		limiter.setLimit(Scope.CLIENT, "tenant-b", null);
+		assertTrue(limiter.getOverrides(Scope.CLIENT).isEmpty());
+		assertTrue(limiter.tryAcquire(request("10.0.0.1", "tenant-b")) > 0);
+		assertThrows(IllegalArgumentException.class, () -> limiter.setLimit(Scope.CLIENT, null, null));
+	}
+
+	//===========================================Helper============================================
+	private static RateLimiter limiter(double clientRate, int clientBurst) {
+		return new RateLimiter(new SimpleMeterRegistry(), true, "X-API-Key", new String[0],
+				clientRate, clientBurst, 0, 0, 1000, 60000);
+	}
+
+	private static MockHttpServletRequest request(String remoteAddr, String apiKey) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/items");
+		request.setRemoteAddr(remoteAddr);
+		if (apiKey != null) request.addHeader("X-API-Key", apiKey);
+		return request;
+	}
+}
@@ -0,0 +1,237 @@
+package com.cs4445.loadBalancer.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import com.cs4445.loadBalancer.config.BackendProperties;
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.service.feature.ServerService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BackendRegistryTests {
+
+	private static final String CONFIGURED = "http://10.0.0.1:8080";
+	private static final String ADDED = "http://10.0.0.2:8080";
+	private static final String REMOVED = "http://10.0.0.3:8080";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ProxyMetrics metrics = new ProxyMetrics(meterRegistry, new double[]{0.5}, false, 100);
+	// Probe health luôn trả về server đang mở, không có I/O
+	private final ServerService serverService = new ServerService(metrics, 2000, 3000) {
+		@Override
+		public ResponseEntity<?> getServerHealth(ServerUrl url) {
+			return ResponseEntity.ok(ServerHealthResponse.builder().isOpen(true).build());
+		}
+	};
+	// Cấu hình trùng url: registry chỉ giữ một backend
+	private final BackendRegistry registry = new BackendRegistry(serverService, metrics,
+			properties(CONFIGURED, CONFIGURED));
+
+	@AfterEach
+	void shutdown() {
+		serverService.shutdown();
+	}
+
+	@Test
+	void configuredBackendsStartUnavailableWithoutDuplicates() {
+		BackendSnapshot snapshot = registry.getSnapshot();
+
+		assertEquals(0, snapshot.getVersion());
+		assertEquals(1, snapshot.getStates().size());
+		assertEquals(CONFIGURED, snapshot.getStates().get(0).getBackend().getUrl());
+		assertEquals(0, snapshot.getAvailable().length);
+	}
+
+	@Test
+	void addBackendPublishesNewSnapshotAndRejectsDuplicate() {
+		List<BackendSnapshot> published = new CopyOnWriteArrayList<>();
+		registry.addListener(published::add);
+		BackendSnapshot before = registry.getSnapshot();
+
+		Backend backend = registry.addBackend(ServerUrl.parse(ADDED), 2);
+
+		assertNotNull(backend);
+		assertEquals(2, backend.getWeight());
+		assertSame(backend, registry.findBackend(ADDED));
+		// Snapshot cũ không bị sửa, snapshot mới có backend mới ở trạng thái chưa probe
+		assertEquals(1, before.getStates().size());
+		BackendSnapshot added = published.get(1);
+		assertEquals(before.getVersion() + 1, added.getVersion());
+		assertEquals(List.of(CONFIGURED, ADDED), urls(added));
+		assertFalse(added.getStates().get(1).isAvailable());
+
+		assertNull(registry.addBackend(ServerUrl.parse(ADDED), 5));
+		assertEquals(2, backend.getWeight());
+		assertEquals(2, registry.getSnapshot().getStates().size());
+	}
+
+	@Test
+	void removeBackendPublishesSnapshotWithoutItAndDropsItsMeters() {
+		Backend backend = registry.findBackend(CONFIGURED);
+		metrics.healthProbeCompleted(backend.getUrl(), true, 1_000_000L);
+		assertFalse(meterRegistry.find("proxy.healthcheck.duration").tag("backend", CONFIGURED).meters().isEmpty());
+		long version = registry.getSnapshot().getVersion();
+
+		assertTrue(registry.removeBackend(CONFIGURED));
+
+		assertEquals(version + 1, registry.getSnapshot().getVersion());
+		assertNull(registry.findBackend(CONFIGURED));
+		assertTrue(meterRegistry.find("proxy.healthcheck.duration").tag("backend", CONFIGURED).meters().isEmpty());
+		assertFalse(registry.removeBackend(CONFIGURED));
+		assertEquals(version + 1, registry.getSnapshot().getVersion());
+	}
+
+	@Test
+	void setWeightRepublishesSameStates() {
+		BackendSnapshot before = registry.getSnapshot();
+
+		assertTrue(registry.setWeight(CONFIGURED, 4));
+
+		BackendSnapshot after = registry.getSnapshot();
+		assertEquals(before.getVersion() + 1, after.getVersion());
+		assertEquals(before.getStates(), after.getStates());
+		assertEquals(4, registry.findBackend(CONFIGURED).getWeight());
+		assertFalse(registry.setWeight(ADDED, 4));
+		assertEquals(after.getVersion(), registry.getSnapshot().getVersion());
+	}
+
+	@Test
+	void refreshAsyncPublishesProbedSnapshot() throws InterruptedException {
+		BackendSnapshot before = registry.getSnapshot();
+
+		registry.refreshAsync();
+
+		BackendSnapshot refreshed = awaitVersion(registry, before.getVersion() + 1);
+		assertEquals(before.getVersion() + 1, refreshed.getVersion());
+		assertTrue(refreshed.getRefreshedAt() > 0);
+		assertEquals(200, refreshed.getStates().get(0).getStatusCode());
+		assertArrayEquals(new Backend[]{registry.findBackend(CONFIGURED)}, refreshed.getAvailable());
+	}
+
+	@Test
+	void listenerSeesEachSnapshotOnceInVersionOrder() throws InterruptedException {
+		List<Long> versions = new CopyOnWriteArrayList<>();
+		registry.addListener(snapshot -> versions.add(snapshot.getVersion()));
+
+		// addBackend kích hoạt thêm một lượt refresh chạy nền
+		registry.addBackend(ServerUrl.parse(ADDED), 1);
+		registry.refreshAsync();
+		registry.refreshAsync();
+		registry.setWeight(CONFIGURED, 3);
+		registry.republish();
+		long expected = 6;
+		awaitVersion(registry, expected);
+		registry.removeBackend(ADDED);
+
+		// Listener được gọi ngay với snapshot hiện tại (v0) rồi một lần cho mỗi publish, không trùng, không sót
+		assertEquals(expected + 2, versions.size(), versions.toString());
+		for (int i = 0; i < versions.size(); i++) {
+			assertEquals(i, versions.get(i));
+		}
+		assertEquals(expected + 1, registry.getSnapshot().getVersion());
+	}
+
+	@Test
+	void removedListenerIsNotNotified() {
+		List<BackendSnapshot> published = new CopyOnWriteArrayList<>();
+		Consumer<BackendSnapshot> listener = published::add;
+		registry.addListener(listener);
+		registry.removeListener(listener);
+
+		registry.republish();
+
+		assertEquals(1, published.size());
+	}
+
+	@Test
+	void membershipChangeDuringProbeIsNotLost() throws InterruptedException {
+		CountDownLatch probing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// Probe của lượt refresh đầu tiên bị giữ lại cho đến khi test thay đổi membership xong
+		ServerService blocking = new ServerService(metrics, 2000, 10_000) {
+			@Override
+			public ResponseEntity<?> getServerHealth(ServerUrl url) {
+				probing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return ResponseEntity.ok(ServerHealthResponse.builder().isOpen(true).build());
+			}
+		};
+		BackendRegistry registry = new BackendRegistry(blocking, metrics, properties(CONFIGURED, REMOVED));
+		List<BackendSnapshot> published = new CopyOnWriteArrayList<>();
+		registry.addListener(published::add);
+
+		try {
+			registry.refreshAsync();
+			assertTrue(probing.await(5, TimeUnit.SECONDS));
+			Backend added = registry.addBackend(ServerUrl.parse(ADDED), 1);
+			assertTrue(registry.removeBackend(REMOVED));
+			assertEquals(List.of(CONFIGURED, ADDED), urls(registry.getSnapshot()));
+			release.countDown();
+
+			// Lượt refresh bị giữ publish v3, lượt refresh do addBackend kích hoạt publish v4
+			awaitVersion(registry, 4);
+			BackendSnapshot stale = published.get(3);
+			assertEquals(3, stale.getVersion());
+			// Kết quả probe cũ không đưa backend đã xoá trở lại và không làm mất backend vừa thêm
+			assertEquals(List.of(CONFIGURED, ADDED), urls(stale));
+			assertTrue(stale.getStates().get(0).isAvailable());
+			assertFalse(stale.getStates().get(1).isAvailable(), "added backend was not probed yet");
+
+			BackendSnapshot latest = registry.getSnapshot();
+			assertEquals(List.of(CONFIGURED, ADDED), urls(latest));
+			assertTrue(List.of(latest.getAvailable()).contains(added));
+			for (int i = 0; i < published.size(); i++) {
+				assertEquals(i, published.get(i).getVersion());
+			}
+		} finally {
+			release.countDown();
+			blocking.shutdown();
+		}
+	}
+
+	//===========================================Helper============================================
+	private static BackendProperties properties(String... urls) {
+		BackendProperties properties = new BackendProperties();
+		for (String url : urls) {
+			ServerUrl serverUrl = ServerUrl.parse(url);
+			BackendProperties.Server server = new BackendProperties.Server();
+			server.setHost(serverUrl.getDns());
+			server.setPort(serverUrl.getPort());
+			properties.getServers().add(server);
+		}
+		return properties;
+	}
+
+	/**
+	 * Chờ lượt refresh chạy nền publish snapshot có version ít nhất bằng version
+	 */
+	private static BackendSnapshot awaitVersion(BackendRegistry registry, long version) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (registry.getSnapshot().getVersion() < version && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		BackendSnapshot snapshot = registry.getSnapshot();
+		assertTrue(snapshot.getVersion() >= version, "snapshot v" + snapshot.getVersion() + " < v" + version);
+		return snapshot;
+	}
+
+	private static List<String> urls(BackendSnapshot snapshot) {
+		return snapshot.getStates().stream().map(state -> state.getBackend().getUrl()).toList();
+	}
+}
@@ -0,0 +1,137 @@
+package com.cs4445.loadBalancer.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.cs4445.loadBalancer.config.BackendProperties;
+import com.cs4445.loadBalancer.model.Deadline;
+import com.cs4445.loadBalancer.model.ServerUrl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConcurrencyLimitTests {
+
+	private static final long MIN_RTT = 10_000_000L;
+
+	@Test
+	void limitGrowsWhileRttStaysNearMinimum() {
+		VegasLimit limit = new VegasLimit(20, 5, 1000);
+		// Sample đầu tiên chỉ làm baseline minRtt
+		limit.onSample(MIN_RTT, 20, false);
+		assertEquals(20, limit.getLimit());
+		assertEquals(MIN_RTT, limit.getMinRttNanos());
+
+		// queue ~ 0: tăng nhanh 6 * log10(limit) mỗi sample
+		limit.onSample(MIN_RTT, 20, false);
+		assertEquals(27, limit.getLimit());
+		int previous = limit.getLimit();
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(MIN_RTT + MIN_RTT / 100, limit.getLimit(), false);
+			assertTrue(limit.getLimit() > previous, "limit should keep growing, got " + limit.getLimit());
+			previous = limit.getLimit();
+		}
+
+		// Backend dùng chưa đến nửa limit: không có thông tin để tăng
+		limit.onSample(MIN_RTT, previous / 2 - 1, false);
+		assertEquals(previous, limit.getLimit());
+	}
+
+	@Test
+	void limitBacksOffOnQueueingDelayAndFailures() {
+		VegasLimit limit = new VegasLimit(100, 5, 1000);
+		limit.onSample(MIN_RTT, 100, false);
+
+		// RTT gấp đôi minRtt: queue = 50 > 6 * log10(100), giảm log10(limit) mỗi sample
+		limit.onSample(2 * MIN_RTT, 100, false);
+		assertEquals(98, limit.getLimit());
+		for (int i = 0; i < 20; i++) {
+			limit.onSample(2 * MIN_RTT, limit.getLimit(), false);
+		}
+		assertTrue(limit.getLimit() < 70, "limit should back off, got " + limit.getLimit());
+
+		// Request lỗi giảm limit dù RTT rất nhỏ (VD: connection refused)
+		int beforeDrop = limit.getLimit();
+		limit.onSample(1L, beforeDrop, true);
+		assertTrue(limit.getLimit() < beforeDrop);
+		assertEquals(MIN_RTT, limit.getMinRttNanos(), "dropped sample must not become min RTT");
+
+		// RTT không hợp lệ bị bỏ qua
+		int current = limit.getLimit();
+		limit.onSample(0L, current, true);
+		assertEquals(current, limit.getLimit());
+	}
+
+	@Test
+	void limitStaysWithinBounds() {
+		VegasLimit limit = new VegasLimit(5000, 4, 50);
+		assertEquals(50, limit.getLimit());
+		limit.onSample(MIN_RTT, 50, false);
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(MIN_RTT, limit.getLimit(), false);
+			assertTrue(limit.getLimit() <= 50);
+		}
+		assertEquals(50, limit.getLimit());
+
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(MIN_RTT, limit.getLimit(), true);
+			assertTrue(limit.getLimit() >= 4);
+		}
+		assertEquals(4, limit.getLimit());
+
+		assertEquals(1, new VegasLimit(0, 0, 0).getLimit());
+	}
+
+	@Test
+	void limiterRejectsAtLimitAndWakesWaiterOnRelease() throws Exception {
+		BackendProperties properties = new BackendProperties();
+		properties.getConcurrencyLimit().setQueueTimeout(2000);
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties,
+				new BackendRegistry(null, null, properties), new SimpleMeterRegistry());
+		Backend backend = new Backend(ServerUrl.builder().dns("http://10.0.0.1").port(8080).build(),
+				new VegasLimit(2, 1, 10));
+		Backend[] backends = {backend};
+
+		assertTrue(limiter.tryAcquire(backend));
+		assertFalse(limiter.isSaturated(backends));
+		assertTrue(limiter.tryAcquire(backend));
+		assertFalse(limiter.tryAcquire(backend));
+		assertTrue(limiter.isSaturated(backends));
+		assertEquals(2, backend.getInflight());
+
+		// Request kết thúc trên thread khác đánh thức request đang chờ chỗ trống
+		Thread.ofVirtual().start(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException ignored) {
+			}
+			limiter.release(backend);
+		});
+		assertTrue(limiter.awaitCapacity(Deadline.after(TimeUnit.SECONDS.toNanos(10))));
+		assertTrue(limiter.tryAcquire(backend));
+
+		// Hết hạn chót trước queue-timeout thì không chờ
+		long start = System.nanoTime();
+		assertFalse(limiter.awaitCapacity(Deadline.after(TimeUnit.MILLISECONDS.toNanos(30))));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+	}
+
+	@Test
+	void disabledLimiterNeverRejects() {
+		BackendProperties properties = new BackendProperties();
+		properties.getConcurrencyLimit().setEnabled(false);
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties,
+				new BackendRegistry(null, null, properties), new SimpleMeterRegistry());
+		Backend backend = new Backend(ServerUrl.builder().dns("http://10.0.0.1").port(8080).build(),
+				new VegasLimit(1, 1, 1));
+
+		for (int i = 0; i < 5; i++) {
+			assertTrue(limiter.tryAcquire(backend));
+		}
+		assertFalse(limiter.isSaturated(new Backend[]{backend}));
+		limiter.onSample(backend, MIN_RTT, 5, true);
+		assertEquals(1, backend.getConcurrencyLimit().getLimit());
+	}
+}
@@ -0,0 +1,189 @@
+package com.cs4445.loadBalancer.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.cs4445.loadBalancer.config.BackendProperties;
+import com.cs4445.loadBalancer.registry.CircuitBreaker.Permit;
+import com.cs4445.loadBalancer.registry.CircuitBreaker.State;
+
+class OutlierDetectorTests {
+
+	private OutlierDetector detector;
+
+	@AfterEach
+	void shutdown() {
+		if (detector != null) detector.shutdown();
+	}
+
+	@Test
+	void breakerOpensThenAllowsSingleProbe() {
+		CircuitBreaker breaker = new CircuitBreaker();
+		assertEquals(State.CLOSED, breaker.getState(0L));
+		assertEquals(Permit.ALLOWED, breaker.tryAcquire(0L));
+
+		breaker.eject(1000L, 500L);
+		assertEquals(State.OPEN, breaker.getState(1000L));
+		assertEquals(Permit.DENIED, breaker.tryAcquire(1499L));
+
+		// Hết thời gian ejection: HALF_OPEN, chỉ một request thử được đi
+		assertEquals(State.HALF_OPEN, breaker.getState(1500L));
+		assertEquals(Permit.PROBE, breaker.tryAcquire(1500L));
+		assertEquals(Permit.DENIED, breaker.tryAcquire(1500L));
+
+		// Request thử không được gửi đi thì trả lại quyền
+		breaker.release();
+		assertEquals(Permit.PROBE, breaker.tryAcquire(1500L));
+	}
+
+	@Test
+	void probeSuccessClosesAndProbeFailureReopens() {
+		CircuitBreaker breaker = new CircuitBreaker();
+		breaker.eject(1000L, 500L);
+		assertEquals(Permit.PROBE, breaker.tryAcquire(1600L));
+		assertTrue(breaker.onSuccess(1600L, true));
+		assertEquals(State.CLOSED, breaker.getState(1600L));
+		assertEquals(1600L, breaker.getClosedAt());
+		// Request thành công khi đã CLOSED không đổi trạng thái
+		assertFalse(breaker.onSuccess(1700L, false));
+
+		breaker.eject(2000L, 500L);
+		assertEquals(Permit.PROBE, breaker.tryAcquire(2500L));
+		assertTrue(breaker.onFailure(2500L, false, true), "failed probe should be reported for re-ejection");
+		// Lỗi của request thường (không phải request thử) không được tính là probe
+		CircuitBreaker closed = new CircuitBreaker();
+		assertFalse(closed.onFailure(0L, true, false));
+		assertEquals(1, closed.getConsecutiveFailures());
+	}
+
+	@Test
+	void stragglerAdmittedWhileClosedDoesNotDecideHalfOpenProbe() {
+		CircuitBreaker breaker = new CircuitBreaker();
+		// Straggler được cho đi khi breaker còn CLOSED
+		assertEquals(Permit.ALLOWED, breaker.tryAcquire(0L));
+		breaker.eject(1000L, 500L);
+		assertEquals(Permit.PROBE, breaker.tryAcquire(1500L));
+
+		// Straggler kết thúc lúc HALF_OPEN: không đóng breaker, không bị tính là probe lỗi
+		assertFalse(breaker.onSuccess(1510L, false));
+		assertEquals(State.HALF_OPEN, breaker.getState(1510L));
+		assertFalse(breaker.onFailure(1520L, false, false));
+		assertEquals(State.HALF_OPEN, breaker.getState(1520L));
+		assertEquals(Permit.DENIED, breaker.tryAcquire(1520L), "probe is still held by the real probe");
+
+		// Chỉ kết quả của request thử mới đóng breaker
+		assertTrue(breaker.onSuccess(1530L, true));
+		assertEquals(State.CLOSED, breaker.getState(1530L));
+	}
+
+	@Test
+	void stragglerFailureDuringHalfOpenDoesNotDoubleEjection() throws Exception {
+		BackendRegistry registry = registry(1);
+		detector = new OutlierDetector(registry, 5, 50, 20, 50, 1000, 50);
+		Backend backend = registry.getSnapshot().getStates().get(0).getBackend();
+		CircuitBreaker breaker = backend.getCircuitBreaker();
+
+		assertEquals(Permit.ALLOWED, detector.tryAcquire(backend));
+		for (int i = 0; i < 5; i++) {
+			detector.onFailure(backend, false, false);
+		}
+		assertEquals(1, breaker.getEjectionCount());
+		awaitHalfOpen(breaker);
+		assertEquals(Permit.PROBE, detector.tryAcquire(backend));
+
+		// Request gửi từ lúc CLOSED lỗi trong lúc HALF_OPEN: không eject lại với thời gian gấp đôi
+		detector.onFailure(backend, false, false);
+		assertEquals(State.HALF_OPEN, breaker.getState(System.currentTimeMillis()));
+		assertEquals(1, breaker.getEjectionCount());
+		detector.onResponse(backend, 200, true);
+		assertEquals(State.CLOSED, breaker.getState(System.currentTimeMillis()));
+	}
+
+	@Test
+	void consecutiveFailuresEjectAndRepublishOffRequestThread() throws Exception {
+		BackendRegistry registry = registry(2);
+		List<String> publishThreads = new CopyOnWriteArrayList<>();
+		registry.addListener(snapshot -> publishThreads.add(Thread.currentThread().getName()));
+		publishThreads.clear();
+		detector = new OutlierDetector(registry, 3, 50, 20, 60_000, 300_000, 50);
+		Backend backend = registry.getSnapshot().getStates().get(0).getBackend();
+
+		detector.onFailure(backend, false, false);
+		detector.onFailure(backend, true, false);
+		assertEquals(State.CLOSED, backend.getCircuitBreaker().getState(System.currentTimeMillis()));
+		detector.onFailure(backend, false, false);
+
+		assertTrue(backend.getCircuitBreaker().isEjected(System.currentTimeMillis()));
+		assertEquals(Permit.DENIED, detector.tryAcquire(backend));
+		// Snapshot được publish lại trên thread outlier-revive, không phải thread của request
+		long deadline = System.currentTimeMillis() + 2000;
+		while (publishThreads.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(List.of("outlier-revive"), publishThreads);
+		assertEquals(1L, registry.getSnapshot().getVersion());
+
+		// max-ejection-percent = 50%: backend thứ hai không bị eject dù vượt ngưỡng
+		Backend other = registry.getSnapshot().getStates().get(1).getBackend();
+		for (int i = 0; i < 3; i++) {
+			detector.onFailure(other, false, false);
+		}
+		assertFalse(other.getCircuitBreaker().isEjected(System.currentTimeMillis()));
+	}
+
+	@Test
+	void ejectionTimeDoublesOnFailedProbeUpToMax() throws Exception {
+		BackendRegistry registry = registry(1);
+		detector = new OutlierDetector(registry, 1, 50, 20, 50, 150, 50);
+		Backend backend = registry.getSnapshot().getStates().get(0).getBackend();
+		CircuitBreaker breaker = backend.getCircuitBreaker();
+
+		// 50 -> 100 -> 150 (max) -> 150
+		long[] expected = {50, 100, 150, 150};
+		for (int i = 0; i < expected.length; i++) {
+			if (i > 0) {
+				awaitHalfOpen(breaker);
+				assertEquals(Permit.PROBE, detector.tryAcquire(backend), "probe should be allowed in HALF_OPEN");
+			}
+			long before = System.currentTimeMillis();
+			detector.onFailure(backend, false, i > 0);
+			long after = System.currentTimeMillis();
+
+			assertEquals(State.OPEN, breaker.getState(after));
+			assertEquals(i + 1, breaker.getEjectionCount());
+			long until = breaker.getEjectedUntil();
+			assertTrue(until >= before + expected[i] && until <= after + expected[i],
+					"ejection " + (i + 1) + " lasted " + (until - before) + " ms, expected " + expected[i]);
+		}
+
+		// Request thử thành công: CLOSED, số lần eject giữ nguyên đến khi backend ổn định đủ lâu
+		awaitHalfOpen(breaker);
+		assertEquals(Permit.PROBE, detector.tryAcquire(backend));
+		detector.onResponse(backend, 200, true);
+		assertEquals(State.CLOSED, breaker.getState(System.currentTimeMillis()));
+		assertEquals(Permit.ALLOWED, detector.tryAcquire(backend));
+		assertEquals(4, breaker.getEjectionCount());
+	}
+
+	//===========================================Helper============================================
+	private static BackendRegistry registry(int count) {
+		BackendProperties properties = new BackendProperties();
+		for (int i = 0; i < count; i++) {
+			BackendProperties.Server server = new BackendProperties.Server();
+			server.setHost("10.0.0." + (i + 1));
+			properties.getServers().add(server);
+		}
+		return new BackendRegistry(null, null, properties);
+	}
+
+	private static void awaitHalfOpen(CircuitBreaker breaker) throws InterruptedException {
+		while (breaker.getState(System.currentTimeMillis()) != State.HALF_OPEN) {
+			Thread.sleep(5);
+		}
+	}
+}
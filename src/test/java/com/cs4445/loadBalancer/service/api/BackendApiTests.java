@@ -0,0 +1,195 @@
+package com.cs4445.loadBalancer.service.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import com.cs4445.loadBalancer.config.BackendProperties;
+import com.cs4445.loadBalancer.dto.request.backend.BackendRequest;
+import com.cs4445.loadBalancer.dto.response.backend.BackendResponse;
+import com.cs4445.loadBalancer.dto.response.core.ErrorResponse;
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+import com.cs4445.loadBalancer.registry.BackendState;
+import com.cs4445.loadBalancer.service.feature.ServerService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BackendApiTests {
+
+	private static final String CONFIGURED = "http://10.0.0.1:8080";
+	private static final String ADDED = "http://10.0.0.2:8080";
+
+	private final ProxyMetrics metrics = new ProxyMetrics(new SimpleMeterRegistry(), new double[]{0.5}, false, 100);
+	// Probe health luôn trả về server đang mở, không có I/O
+	private final ServerService serverService = new ServerService(metrics, 2000, 3000) {
+		@Override
+		public ResponseEntity<?> getServerHealth(ServerUrl url) {
+			return ResponseEntity.ok(ServerHealthResponse.builder().isOpen(true).build());
+		}
+	};
+	private final BackendRegistry registry = new BackendRegistry(serverService, metrics, properties());
+	private final BackendApi api = new BackendApi(registry);
+
+	@AfterEach
+	void shutdown() {
+		serverService.shutdown();
+	}
+
+	@Test
+	void addBackendIsCreatedAndPublishedThenProbed() throws InterruptedException {
+		long version = registry.getSnapshot().getVersion();
+
+		ResponseEntity<?> response = api.addBackend(BackendRequest.builder().url(ADDED).weight(3).build());
+
+		assertEquals(201, response.getStatusCode().value());
+		BackendResponse body = assertInstanceOf(BackendResponse.class, response.getBody());
+		assertEquals(ADDED, body.getUrl());
+		assertEquals(3, body.getWeight());
+		// Snapshot mới có backend ngay, chưa nhận traffic cho đến khi probe xong
+		assertTrue(registry.getSnapshot().getVersion() > version);
+		assertNotNull(registry.findBackend(ADDED));
+		awaitAvailable(ADDED);
+		assertEquals(3, registry.findBackend(ADDED).getWeight());
+	}
+
+	@Test
+	void addBackendFromHostAndPortDefaultsWeightToOne() {
+		ResponseEntity<?> response = api.addBackend(BackendRequest.builder().host("10.0.0.2").port(8080).build());
+
+		assertEquals(201, response.getStatusCode().value());
+		assertEquals(ADDED, ((BackendResponse) response.getBody()).getUrl());
+		assertEquals(1, registry.findBackend(ADDED).getWeight());
+	}
+
+	@Test
+	void addExistingBackendIsConflictAndDoesNotPublish() {
+		long version = registry.getSnapshot().getVersion();
+
+		ResponseEntity<?> response = api.addBackend(BackendRequest.builder().url("10.0.0.1:8080").build());
+
+		assertEquals(409, response.getStatusCode().value());
+		assertEquals("Server " + CONFIGURED + " already exists", message(response));
+		assertEquals(version, registry.getSnapshot().getVersion());
+		assertEquals(1, registry.getSnapshot().getStates().size());
+	}
+
+	@Test
+	void addBackendRejectsInvalidUrlAndWeight() {
+		long version = registry.getSnapshot().getVersion();
+
+		assertEquals(400, api.addBackend(BackendRequest.builder().build()).getStatusCode().value());
+		assertEquals(400, api.addBackend(BackendRequest.builder().host("10.0.0.2").port(70000).build())
+				.getStatusCode().value());
+		ResponseEntity<?> zeroWeight = api.addBackend(BackendRequest.builder().url(ADDED).weight(0).build());
+		assertEquals(400, zeroWeight.getStatusCode().value());
+		assertEquals("Weight must be >= 1", message(zeroWeight));
+		// Request lỗi không đổi membership
+		assertEquals(version, registry.getSnapshot().getVersion());
+		assertNull(registry.findBackend(ADDED));
+	}
+
+	@Test
+	void removeBackendIsNoContentAndPublishesSnapshotWithoutIt() {
+		long version = registry.getSnapshot().getVersion();
+
+		ResponseEntity<?> response = api.removeBackend("10.0.0.1:8080");
+
+		assertEquals(204, response.getStatusCode().value());
+		assertNull(response.getBody());
+		assertEquals(version + 1, registry.getSnapshot().getVersion());
+		assertNull(registry.findBackend(CONFIGURED));
+		assertTrue(registry.getSnapshot().getStates().isEmpty());
+	}
+
+	@Test
+	void removeMissingOrInvalidBackendIsRejected() {
+		long version = registry.getSnapshot().getVersion();
+
+		ResponseEntity<?> missing = api.removeBackend(ADDED);
+		assertEquals(404, missing.getStatusCode().value());
+		assertEquals("Server " + ADDED + " not found", message(missing));
+		assertEquals(400, api.removeBackend(" ").getStatusCode().value());
+		assertEquals(version, registry.getSnapshot().getVersion());
+		assertNotNull(registry.findBackend(CONFIGURED));
+	}
+
+	@Test
+	void setWeightUpdatesBackendAndPublishesSnapshot() {
+		long version = registry.getSnapshot().getVersion();
+		Backend backend = registry.findBackend(CONFIGURED);
+
+		ResponseEntity<?> response = api.setWeight(BackendRequest.builder().url(CONFIGURED).weight(5).build());
+
+		assertEquals(200, response.getStatusCode().value());
+		assertEquals(5, ((BackendResponse) response.getBody()).getWeight());
+		assertEquals(5, backend.getWeight());
+		assertEquals(version + 1, registry.getSnapshot().getVersion());
+		assertSame(backend, registry.findBackend(CONFIGURED));
+	}
+
+	@Test
+	void setWeightRejectsMissingBackendAndInvalidWeight() {
+		long version = registry.getSnapshot().getVersion();
+
+		ResponseEntity<?> missing = api.setWeight(BackendRequest.builder().url(ADDED).weight(2).build());
+		assertEquals(404, missing.getStatusCode().value());
+		assertEquals("Server " + ADDED + " not found", message(missing));
+		assertEquals(400, api.setWeight(BackendRequest.builder().url(CONFIGURED).build()).getStatusCode().value());
+		assertEquals(400, api.setWeight(BackendRequest.builder().url(CONFIGURED).weight(0).build())
+				.getStatusCode().value());
+		assertEquals(400, api.setWeight(BackendRequest.builder().weight(2).build()).getStatusCode().value());
+		assertEquals(version, registry.getSnapshot().getVersion());
+		assertEquals(1, registry.findBackend(CONFIGURED).getWeight());
+	}
+
+	@Test
+	void getBackendsListsCurrentSnapshot() {
+		api.addBackend(BackendRequest.builder().url(ADDED).weight(2).build());
+
+		List<?> backends = assertInstanceOf(List.class, api.getBackends().getBody());
+		assertEquals(List.of(CONFIGURED, ADDED), backends.stream()
+				.map(backend -> ((BackendResponse) backend).getUrl())
+				.toList());
+	}
+
+	//===========================================Helper============================================
+	private static BackendProperties properties() {
+		BackendProperties.Server server = new BackendProperties.Server();
+		server.setHost("10.0.0.1");
+		server.setPort(8080);
+		BackendProperties properties = new BackendProperties();
+		properties.getServers().add(server);
+		return properties;
+	}
+
+	private static String message(ResponseEntity<?> response) {
+		return assertInstanceOf(ErrorResponse.class, response.getBody()).getMessage();
+	}
+
+	/**
+	 * Chờ lượt refresh chạy nền sau khi thêm backend
+	 */
+	private void awaitAvailable(String url) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!isAvailable(url) && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(isAvailable(url), url + " not available");
+	}
+
+	private boolean isAvailable(String url) {
+		for (BackendState state : registry.getSnapshot().getStates()) {
+			if (state.getBackend().getUrl().equals(url)) return state.isAvailable();
+		}
+		return false;
+	}
+}
@@ -0,0 +1,160 @@
+package com.cs4445.loadBalancer.service.feature;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.cs4445.loadBalancer.ai.AiClientPool;
+
+class AiServiceTests {
+
+	private ServerSocket server;
+	private AiClientPool pool;
+	private AiService service;
+	private final AtomicInteger accepted = new AtomicInteger();
+	private final AtomicInteger closedByServer = new AtomicInteger();
+	private final List<String> received = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		pool = new AiClientPool(1, 4, 1000, 60000, 100, 1000, 1 << 20);
+		service = new AiService(pool);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		pool.shutdown();
+		server.close();
+	}
+
+	@Test
+	void pooledRequestsReuseOneKeepAliveSocket() {
+		// AI server giữ connection, trả lời từng dòng
+		serve(Integer.MAX_VALUE, false);
+
+		assertEquals("re:a", service.sendPooledRequest("127.0.0.1", server.getLocalPort(), "a", 5000));
+		assertEquals("re:b", service.sendPooledRequest("127.0.0.1", server.getLocalPort(), "b", 5000));
+		assertEquals(1, accepted.get());
+		assertEquals(List.of("a", "b"), received);
+	}
+
+	@Test
+	void socketClosedByServerAfterReplyIsReplacedBeforeSending() throws Exception {
+		// AI server đóng connection sau mỗi response (được phép với protocol one-shot)
+		serve(1, false);
+
+		assertEquals("re:a", service.sendPooledRequest("127.0.0.1", server.getLocalPort(), "a", 5000));
+		awaitClosedByServer(1);
+		assertEquals("re:b", service.sendPooledRequest("127.0.0.1", server.getLocalPort(), "b", 5000));
+		// Socket cũ bị loại trước khi ghi, mỗi request đến server đúng một lần
+		assertEquals(2, accepted.get());
+		assertEquals(List.of("a", "b"), received);
+	}
+
+	@Test
+	void requestAlreadySentIsNotResentWhenServerCloses() throws Exception {
+		// Request thứ hai được server đọc nhưng connection bị đóng trước khi trả lời
+		serve(1, true);
+
+		assertEquals("re:a", service.sendPooledRequest("127.0.0.1", server.getLocalPort(), "a", 5000));
+		RuntimeException error = assertThrows(RuntimeException.class,
+				() -> service.sendPooledRequest("127.0.0.1", server.getLocalPort(), "b", 5000));
+		assertInstanceOf(EOFException.class, error.getCause());
+		assertEquals(1, accepted.get());
+		assertEquals(List.of("a", "b"), received);
+	}
+
+	@Test
+	void legacyRequestsStayOneShot() {
+		serve(Integer.MAX_VALUE, false);
+
+		assertEquals("re:a", service.sendTcpRequest("127.0.0.1", server.getLocalPort(), "a", 5000));
+		assertEquals("re:b", service.sendTcpRequest("127.0.0.1", server.getLocalPort(), "b", 5000));
+		assertEquals(2, accepted.get());
+	}
+
+	@Test
+	void closeWithoutResponseFailsPooledButNotLegacyRequest() {
+		// Server đóng ngay sau khi đọc request, không trả lời
+		serve(0, true);
+
+		RuntimeException error = assertThrows(RuntimeException.class,
+				() -> service.sendPooledRequest("127.0.0.1", server.getLocalPort(), "a", 5000));
+		assertInstanceOf(EOFException.class, error.getCause());
+		// Protocol one-shot cũ: không có response được trả về là chuỗi rỗng
+		assertEquals("", service.sendTcpRequest("127.0.0.1", server.getLocalPort(), "b", 5000));
+	}
+
+	//===========================================Helper============================================
+	/**
+	 * AI server theo protocol newline: trả lời tối đa replies dòng trên mỗi connection rồi đóng.
+	 * @param readBeforeClose đọc thêm một request trước khi đóng (request đó không được trả lời)
+	 */
+	private void serve(int replies, boolean readBeforeClose) {
+		Thread.ofVirtual().start(() -> {
+			while (!server.isClosed()) {
+				Socket socket;
+				try {
+					socket = server.accept();
+				} catch (IOException e) {
+					return;
+				}
+				accepted.incrementAndGet();
+				Thread.ofVirtual().start(() -> handle(socket, replies, readBeforeClose));
+			}
+		});
+	}
+
+	private void handle(Socket socket, int replies, boolean readBeforeClose) {
+		try (socket) {
+			BufferedReader reader = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			BufferedWriter writer = new BufferedWriter(
+					new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			for (int i = 0; i < replies; i++) {
+				String line = reader.readLine();
+				if (line == null) return;
+				received.add(line);
+				writer.write("re:" + line);
+				writer.newLine();
+				writer.flush();
+			}
+			if (readBeforeClose) {
+				String line = reader.readLine();
+				if (line != null) received.add(line);
+			}
+		} catch (IOException ignored) {
+			// client đã đóng connection
+		} finally {
+			closedByServer.incrementAndGet();
+		}
+	}
+
+	private void awaitClosedByServer(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (closedByServer.get() < count && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(count, closedByServer.get());
+		// FIN của server cần một chút thời gian để đến phía client
+		Thread.sleep(20);
+	}
+}
@@ -0,0 +1,77 @@
+package com.cs4445.loadBalancer.service.feature;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.model.ServerUrl;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ServerServiceTests {
+
+	@Test
+	void probeCancelledAtDeadlineIsRecordedAsDown() throws InterruptedException {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ProxyMetrics metrics = new ProxyMetrics(meterRegistry, new double[]{0.5}, false, 100);
+		ServerUrl fast = ServerUrl.builder().dns("http://10.0.0.1").port(8080).build();
+		ServerUrl hung = ServerUrl.builder().dns("http://10.0.0.2").port(8080).build();
+		ServerService service = new ServerService(metrics, 2000, 200) {
+			@Override
+			public ResponseEntity<?> getServerHealth(ServerUrl url) {
+				if (url == hung) {
+					try {
+						Thread.sleep(10_000);
+					} catch (InterruptedException ignored) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return ResponseEntity.ok(ServerHealthResponse.builder().isOpen(true).build());
+			}
+		};
+
+		try {
+			List<ResponseEntity<?>> results = service.getAllServersHealth(List.of(fast, hung));
+
+			assertEquals(200, results.get(0).getStatusCode().value());
+			assertEquals(504, results.get(1).getStatusCode().value());
+			assertEquals(1, probes(meterRegistry, fast, "up").count());
+			assertEquals(0, probes(meterRegistry, fast, "down").count());
+			// Probe bị huỷ vẫn có một sample DOWN, latency ít nhất bằng deadline.
+			// Sample có thể do chính probe ghi sau khi bị interrupt, nên chờ một chút
+			long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+			while (count(meterRegistry, hung, "down") == 0 && System.nanoTime() < waitUntil) {
+				Thread.sleep(5);
+			}
+			Timer down = probes(meterRegistry, hung, "down");
+			assertEquals(1, down.count());
+			assertTrue(down.totalTime(TimeUnit.MILLISECONDS) >= 200, down.totalTime(TimeUnit.MILLISECONDS) + " ms");
+			assertEquals(0, probes(meterRegistry, hung, "up").count());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	//===========================================Helper============================================
+	private static long count(SimpleMeterRegistry meterRegistry, ServerUrl url, String outcome) {
+		Timer timer = meterRegistry.find("proxy.healthcheck.duration")
+				.tag("backend", url.getUrl())
+				.tag("outcome", outcome)
+				.timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+	private static Timer probes(SimpleMeterRegistry meterRegistry, ServerUrl url, String outcome) {
+		return meterRegistry.get("proxy.healthcheck.duration")
+				.tag("backend", url.getUrl())
+				.tag("outcome", outcome)
+				.timer();
+	}
+}
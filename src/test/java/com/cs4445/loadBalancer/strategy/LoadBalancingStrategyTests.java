@@ -0,0 +1,177 @@
+package com.cs4445.loadBalancer.strategy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+import com.cs4445.loadBalancer.registry.BackendState;
+
+class LoadBalancingStrategyTests {
+
+	@Test
+	void roundRobinCyclesThroughBackends() {
+		Backend[] backends = backends(3);
+		RoundRobinStrategy strategy = new RoundRobinStrategy();
+
+		for (int i = 0; i < 9; i++) {
+			assertSame(backends[i % 3], strategy.select(backends));
+		}
+		assertNull(strategy.select(new Backend[0]));
+	}
+
+	@Test
+	void leastConnectionsPicksIdleBackend() {
+		Backend[] backends = backends(3);
+		backends[0].incrementInflight();
+		backends[2].incrementInflight();
+
+		assertSame(backends[1], new LeastConnectionsStrategy().select(backends));
+	}
+
+	@Test
+	void weightedFollowsWeightsSmoothly() {
+		Backend[] backends = backends(3);
+		backends[0].setWeight(5);
+		backends[1].setWeight(1);
+		backends[2].setWeight(1);
+
+		WeightedStrategy strategy = new WeightedStrategy();
+		BackendSnapshot snapshot = snapshot(backends);
+		strategy.onSnapshot(snapshot);
+
+		Map<Backend, Integer> counts = new HashMap<>();
+		Backend previous = null;
+		int longestRun = 0;
+		int run = 0;
+		for (int i = 0; i < 700; i++) {
+			Backend selected = strategy.select(snapshot.getAvailable());
+			counts.merge(selected, 1, Integer::sum);
+			run = selected == previous ? run + 1 : 1;
+			longestRun = Math.max(longestRun, run);
+			previous = selected;
+		}
+
+		assertEquals(500, counts.get(snapshot.getAvailable()[0]));
+		assertEquals(100, counts.get(snapshot.getAvailable()[1]));
+		assertEquals(100, counts.get(snapshot.getAvailable()[2]));
+		assertTrue(longestRun < 5, "heavy backend should be interleaved, longest run " + longestRun);
+	}
+
+	@Test
+	void peakEwmaPrefersFastAndIdleBackend() {
+		Backend[] backends = backends(2);
+		backends[0].getLatency().observe(200_000_000L);
+		backends[1].getLatency().observe(20_000_000L);
+		PeakEwmaStrategy strategy = new PeakEwmaStrategy();
+
+		for (int i = 0; i < 20; i++) {
+			assertSame(backends[1], strategy.select(backends));
+		}
+
+		// Backend nhanh nhưng đang quá tải thì cost cao hơn backend chậm nhưng rảnh
+		for (int i = 0; i < 20; i++) {
+			backends[1].incrementInflight();
+		}
+		assertSame(backends[0], strategy.select(backends));
+	}
+
+	@Test
+	void peakEwmaPenalizedBackendRegainsTraffic() {
+		long second = 1_000_000_000L;
+		long start = System.nanoTime();
+		Backend[] backends = backends(2);
+		// Backend 0 bị phạt 1s (lỗi kết nối) rồi không nhận thêm sample nào,
+		// backend 1 nhận toàn bộ traffic (sample 5ms mỗi 100ms) và luôn có 2 request đang chạy
+		backends[0].getLatency().observe(second, start);
+		backends[1].incrementInflight();
+		backends[1].incrementInflight();
+		long regainedAt = -1;
+		for (long now = start; now <= start + 120 * second; now += second / 10) {
+			backends[1].getLatency().observe(5_000_000L, now);
+			if (now == start + second) {
+				assertTrue(PeakEwmaStrategy.cost(backends[0], now) > PeakEwmaStrategy.cost(backends[1], now));
+			}
+			if (PeakEwmaStrategy.cost(backends[0], now) < PeakEwmaStrategy.cost(backends[1], now)) {
+				regainedAt = now;
+				break;
+			}
+		}
+		// Cost của backend bị phạt decay dần khi không có sample, đến lúc rẻ hơn backend đang bận (~42s)
+		assertTrue(regainedAt > 0, "penalized backend never regained traffic");
+		assertTrue(regainedAt - start > 30 * second && regainedAt - start < 60 * second);
+
+		// Sample mới sau thời gian dài không có traffic gần như thay thế hẳn peak cũ
+		backends[0].getLatency().observe(5_000_000L, regainedAt);
+		assertEquals(5_000_000.0, backends[0].getLatency().get(regainedAt), 500_000.0);
+	}
+
+	@Test
+	void consistentHashMovesOnlyKeysOfClosedBackend() {
+		Backend[] backends = backends(5);
+		ConsistentHashStrategy strategy = new ConsistentHashStrategy(65537, 1.25);
+		BackendSnapshot allOpen = snapshot(backends);
+		strategy.onSnapshot(allOpen);
+
+		int keys = 10_000;
+		Backend[] before = new Backend[keys];
+		Map<Backend, Integer> counts = new HashMap<>();
+		for (int i = 0; i < keys; i++) {
+			before[i] = strategy.select(allOpen.getAvailable(), ConsistentHashStrategy.hash("user-" + i, 0L));
+			counts.merge(before[i], 1, Integer::sum);
+		}
+		for (Backend backend : backends) {
+			int count = counts.getOrDefault(backend, 0);
+			assertTrue(count > 1500 && count < 2500, backend + " owns " + count + " keys");
+		}
+
+		// CLOSE_SERVER: chỉ key của backend bị đóng được chuyển đi
+		BackendSnapshot oneClosed = snapshot(backends, backends[2]);
+		strategy.onSnapshot(oneClosed);
+		Map<Backend, Integer> moved = new HashMap<>();
+		for (int i = 0; i < keys; i++) {
+			Backend after = strategy.select(oneClosed.getAvailable(), ConsistentHashStrategy.hash("user-" + i, 0L));
+			if (before[i] == backends[2]) {
+				assertNotSame(backends[2], after);
+				moved.merge(after, 1, Integer::sum);
+			} else {
+				assertSame(before[i], after, "key user-" + i + " moved");
+			}
+		}
+		assertEquals(4, moved.size(), "keys of the closed backend should spread over the others");
+
+		// OPEN_SERVER: mọi key quay về backend cũ
+		strategy.onSnapshot(allOpen);
+		for (int i = 0; i < keys; i++) {
+			assertSame(before[i], strategy.select(allOpen.getAvailable(), ConsistentHashStrategy.hash("user-" + i, 0L)));
+		}
+	}
+
+	//===========================================Helper============================================
+	static Backend[] backends(int count) {
+		Backend[] backends = new Backend[count];
+		for (int i = 0; i < count; i++) {
+			backends[i] = new Backend(ServerUrl.builder().dns("http://10.0.0." + (i + 1)).port(8080).build());
+		}
+		return backends;
+	}
+
+	static BackendSnapshot snapshot(Backend[] backends) {
+		return snapshot(backends, null);
+	}
+
+	static BackendSnapshot snapshot(Backend[] backends, Backend closed) {
+		ServerHealthResponse open = ServerHealthResponse.builder().isOpen(true).build();
+		ServerHealthResponse close = ServerHealthResponse.builder().isOpen(false).build();
+		return new BackendSnapshot(1L, 0L, List.of(backends).stream()
+				.map(backend -> new BackendState(backend, 200, backend == closed ? close : open, 0L))
+				.toList());
+	}
+}
@@ -0,0 +1,154 @@
+package com.cs4445.loadBalancer.tcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CommandCodecTests {
+
+	private final CommandCodec codec = new CommandCodec(64, 4);
+
+	@Test
+	void commandRoundTripsThroughFrame() throws IOException {
+		FrameBuffer frame = codec.encode(gen -> {
+			gen.writeStartObject();
+			gen.writeStringField("action", "SET_RATE_LIMIT");
+			gen.writeStringField("scope", "CLIENT");
+			gen.writeStringField("key", "tenant-a");
+			gen.writeNumberField("rate", 12.5);
+			gen.writeNumberField("burst", 40);
+			gen.writeNumberField("minIntervalMs", 250);
+			gen.writeEndObject();
+		});
+
+		// 4 byte length prefix big-endian + payload
+		ByteBuffer bytes = ByteBuffer.wrap(frame.getBytes(), 0, frame.getFrameLength());
+		assertEquals(frame.getPayloadLength(), bytes.getInt());
+		TcpCommand command = codec.decode(bytes.slice());
+
+		assertEquals("SET_RATE_LIMIT", command.getAction());
+		assertEquals("CLIENT", command.getScope());
+		assertEquals("tenant-a", command.getKey());
+		assertEquals(12.5, command.getRate());
+		assertEquals(40, command.getBurst());
+		assertEquals(250L, command.getMinIntervalMs());
+		assertEquals("", command.getServerUrl());
+		codec.release(frame);
+
+		// Frame được trả về pool và dùng lại, không còn dữ liệu cũ
+		FrameBuffer reused = codec.encode(gen -> gen.writeString("x"));
+		assertSame(frame, reused);
+		assertEquals("\"x\"", new String(reused.getBytes(), FrameBuffer.HEADER_LENGTH, reused.getPayloadLength(),
+				StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void unknownFieldsAndWrongTypesAreTolerated() throws IOException {
+		TcpCommand command = decode("""
+				{"extra": {"nested": [1, {"a": 2}]}, "action": {"not": "text"}, "serverUrl": null,
+				 "weight": "7", "rate": [1, 2], "burst": {"x": 1}, "deadlineMs": 1.9, "more": [[]], "algorithm": 5}
+				""");
+
+		assertEquals("", command.getAction());
+		assertEquals("", command.getServerUrl());
+		assertEquals(7, command.getWeight());
+		assertEquals(-1, command.getRate());
+		assertEquals(0, command.getBurst());
+		assertEquals(1L, command.getDeadlineMs());
+		assertEquals("5", command.getAlgorithm());
+	}
+
+	@Test
+	void missingActionDecodesToEmptyAction() throws IOException {
+		TcpCommand command = decode("{\"serverUrl\": \"10.0.0.1:8080\"}");
+
+		assertEquals("", command.getAction());
+		assertEquals("10.0.0.1:8080", command.getServerUrl());
+		assertEquals(List.of(), command.getCommands());
+		assertEquals(-1, command.getRate());
+	}
+
+	@Test
+	void nestedBatchKeepsIndexOfEveryItem() throws IOException {
+		TcpCommand batch = decode("""
+				{"action": "BATCH", "deadlineMs": 1500, "commands": [
+				  {"action": "OPEN_SERVER", "serverUrl": "a:1"},
+				  42,
+				  {"action": "BATCH", "commands": [{"action": "GET_STATUS"}]},
+				  {"unknown": true}
+				]}
+				""");
+
+		assertEquals("BATCH", batch.getAction());
+		assertEquals(1500L, batch.getDeadlineMs());
+		List<TcpCommand> commands = batch.getCommands();
+		assertEquals(4, commands.size());
+		assertEquals("OPEN_SERVER", commands.get(0).getAction());
+		assertEquals("a:1", commands.get(0).getServerUrl());
+		// Phần tử không phải object thành command rỗng để giữ đúng index kết quả
+		assertEquals("", commands.get(1).getAction());
+		assertEquals("GET_STATUS", commands.get(2).getCommands().get(0).getAction());
+		assertEquals("", commands.get(3).getAction());
+
+		assertEquals(List.of(), decode("{\"action\": \"BATCH\", \"commands\": {\"a\": 1}}").getCommands());
+	}
+
+	@Test
+	void malformedPayloadIsRejected() {
+		assertThrows(IOException.class, () -> decode("[1, 2]"));
+		assertThrows(IOException.class, () -> decode("\"GET_STATUS\""));
+		assertThrows(IOException.class, () -> decode("{\"action\": \"BATCH\", \"commands\": [{\"action\": \"A\"}"));
+		assertThrows(IOException.class, () -> decode("{\"action\": "));
+	}
+
+	@Test
+	void directBufferIsDecoded() throws IOException {
+		byte[] json = "{\"action\": \"GET_STATUS\"}".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer direct = ByteBuffer.allocateDirect(json.length);
+		direct.put(json).flip();
+
+		assertEquals("GET_STATUS", codec.decode(direct).getAction());
+	}
+
+	@Test
+	void serverIsWrittenWithCircuitAndHealth() throws IOException {
+		Backend backend = new Backend(ServerUrl.builder().dns("http://10.0.0.1").port(8080).build());
+		backend.setWeight(3);
+		ServerHealthResponse health = ServerHealthResponse.builder()
+				.cpuUsagePercent(42.0)
+				.currConnections(5)
+				.isOpen(true)
+				.build();
+		FrameBuffer frame = codec.encode(gen -> CommandCodec.writeServer(gen, new BackendState(backend, 200, health, 0L)));
+
+		JsonNode server = new ObjectMapper().readTree(frame.getBytes(), FrameBuffer.HEADER_LENGTH,
+				frame.getPayloadLength());
+		assertEquals("http://10.0.0.1:8080", server.get("url").asText());
+		assertEquals(200, server.get("statusCode").asInt());
+		assertEquals(3, server.get("weight").asInt());
+		assertEquals("CLOSED", server.get("circuit").get("state").asText());
+		assertEquals(42.0, server.get("health").get("cpuUsagePercent").asDouble());
+		assertTrue(server.get("health").get("isOpen").asBoolean());
+
+		FrameBuffer down = codec.encode(gen -> CommandCodec.writeServer(gen, new BackendState(backend, 503, null, 0L)));
+		assertFalse(new ObjectMapper().readTree(down.getBytes(), FrameBuffer.HEADER_LENGTH, down.getPayloadLength())
+				.has("health"));
+	}
+
+	//===========================================Helper============================================
+	private TcpCommand decode(String json) throws IOException {
+		return codec.decode(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,126 @@
+package com.cs4445.loadBalancer.tcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.Backend;
+import com.cs4445.loadBalancer.registry.BackendSnapshot;
+import com.cs4445.loadBalancer.registry.BackendState;
+
+class SnapshotSubscriptionTests {
+
+	private final CommandCodec codec = new CommandCodec(256, 8);
+	private final RecordingScheduler scheduler = new RecordingScheduler();
+	private final Backend backend = new Backend(ServerUrl.builder().dns("http://10.0.0.1").port(8080).build());
+
+	private ServerSocketChannel server;
+	private SocketChannel client;
+	private TcpConnection connection;
+
+	@BeforeEach
+	void connect() throws IOException {
+		server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+		client = SocketChannel.open(server.getLocalAddress());
+		// Hàng đợi ghi chỉ 1 frame, writer chưa chạy: client coi như không đọc
+		connection = new TcpConnection(server.accept(), new DirectBufferPool(1024, 2), codec, 1024, 1,
+				(conn, payload) -> null, conn -> { });
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		connection.close();
+		client.close();
+		server.close();
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void slowReaderIsRetriedWithBackoffNotSpun() throws Exception {
+		SnapshotSubscription subscription = new SnapshotSubscription(connection, codec, scheduler, 0L, snapshot(1, 200));
+		assertTrue(connection.push(codec.encode(gen -> gen.writeString("filler"))));
+
+		subscription.accept(snapshot(2, 503));
+		Thread.sleep(300);
+
+		// minInterval = 0 nhưng mỗi lần thử lại vẫn cách nhau ít nhất PUSH_RETRY_NANOS
+		int attempts = scheduler.delays.size();
+		assertTrue(attempts >= 2, "flush should be retried, scheduled " + attempts);
+		assertTrue(attempts <= 300 / 10 + 2, "flush spun " + attempts + " times in 300 ms");
+		for (long delay : scheduler.delays.subList(1, attempts)) {
+			assertTrue(delay >= SnapshotSubscription.PUSH_RETRY_NANOS, "retry after " + delay + " ns");
+		}
+
+		// Writer chạy lại (client đọc tiếp): delta được gửi ở lần thử sau
+		connection.start();
+		assertEquals("\"filler\"", readFrame());
+		String event = readFrame();
+		assertTrue(event.contains("\"BACKEND_DELTA\"") && event.contains("\"statusCode\":503"), event);
+	}
+
+	@Test
+	void closedConnectionStopsRetrying() throws Exception {
+		SnapshotSubscription subscription = new SnapshotSubscription(connection, codec, scheduler, 0L, snapshot(1, 200));
+		connection.close();
+
+		subscription.accept(snapshot(2, 503));
+		Thread.sleep(100);
+		subscription.accept(snapshot(3, 200));
+		Thread.sleep(100);
+
+		assertEquals(1, scheduler.delays.size(), "flush rescheduled after close: " + scheduler.delays);
+	}
+
+	//===========================================Helper============================================
+	private BackendSnapshot snapshot(long version, int statusCode) {
+		ServerHealthResponse health = statusCode == 200 ? ServerHealthResponse.builder().isOpen(true).build() : null;
+		return new BackendSnapshot(version, version, List.of(new BackendState(backend, statusCode, health, version)));
+	}
+
+	private String readFrame() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(4);
+		readFully(header);
+		ByteBuffer payload = ByteBuffer.allocate(header.flip().getInt());
+		readFully(payload);
+		return new String(payload.array(), StandardCharsets.UTF_8);
+	}
+
+	private void readFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (client.read(buffer) < 0) throw new IOException("closed");
+		}
+	}
+
+	/**
+	 * Scheduler ghi lại delay của mỗi lần hẹn flush
+	 */
+	private static class RecordingScheduler extends ScheduledThreadPoolExecutor {
+		final List<Long> delays = new CopyOnWriteArrayList<>();
+
+		RecordingScheduler() {
+			super(1);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+			delays.add(unit.toNanos(delay));
+			return super.schedule(command, delay, unit);
+		}
+	}
+}
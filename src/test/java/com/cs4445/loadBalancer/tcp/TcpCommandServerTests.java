@@ -0,0 +1,184 @@
+package com.cs4445.loadBalancer.tcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cs4445.loadBalancer.config.BackendProperties;
+import com.cs4445.loadBalancer.dto.response.loadBalancer.ServerHealthResponse;
+import com.cs4445.loadBalancer.metrics.ProxyMetrics;
+import com.cs4445.loadBalancer.model.ServerUrl;
+import com.cs4445.loadBalancer.registry.BackendRegistry;
+import com.cs4445.loadBalancer.service.feature.ServerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TcpCommandServerTests {
+
+	private static final String CONFIGURED = "http://10.0.0.1:8080";
+	private static final String ADDED = "http://10.0.0.2:8080";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final ProxyMetrics metrics = new ProxyMetrics(new SimpleMeterRegistry(), new double[]{0.5}, false, 100);
+	// Probe health luôn trả về server đang mở, không có I/O
+	private final ServerService serverService = new ServerService(metrics, 2000, 3000) {
+		@Override
+		public ResponseEntity<?> getServerHealth(ServerUrl url) {
+			return ResponseEntity.ok(ServerHealthResponse.builder().isOpen(true).build());
+		}
+	};
+	private final BackendRegistry registry = new BackendRegistry(serverService, metrics, properties());
+	private TcpCommandServer server;
+	private Socket client;
+	private DataInputStream in;
+	private DataOutputStream out;
+
+	@BeforeEach
+	void start() throws Exception {
+		// Các command membership chỉ dùng registry và metrics
+		server = new TcpCommandServer(null, registry, null, null, metrics, null, 4096);
+		// Không có Spring: port 0 (ephemeral) và các giới hạn đặt trực tiếp
+		ReflectionTestUtils.setField(server, "tcpPort", 0);
+		ReflectionTestUtils.setField(server, "maxConnections", 4);
+		ReflectionTestUtils.setField(server, "maxPipelined", 4);
+		ReflectionTestUtils.setField(server, "maxFrameLength", 4096);
+		server.start();
+
+		client = new Socket(InetAddress.getLoopbackAddress(), awaitPort());
+		client.setSoTimeout(5000);
+		in = new DataInputStream(client.getInputStream());
+		out = new DataOutputStream(client.getOutputStream());
+	}
+
+	@AfterEach
+	void stop() throws IOException {
+		client.close();
+		server.stop();
+		serverService.shutdown();
+	}
+
+	@Test
+	void addServerPublishesSnapshotWithBackend() throws IOException {
+		long version = registry.getSnapshot().getVersion();
+
+		JsonNode response = send(Map.of("action", "ADD_SERVER", "serverUrl", "10.0.0.2:8080", "weight", 3));
+
+		assertEquals("OK", response.get("status").asText());
+		assertEquals(ADDED, response.get("serverUrl").asText());
+		assertEquals(3, response.get("weight").asInt());
+		assertTrue(response.get("version").asLong() > version);
+		assertEquals(3, registry.findBackend(ADDED).getWeight());
+	}
+
+	@Test
+	void addServerWithoutWeightDefaultsToOne() throws IOException {
+		JsonNode response = send(Map.of("action", "ADD_SERVER", "serverUrl", ADDED));
+
+		assertEquals("OK", response.get("status").asText());
+		assertEquals(1, response.get("weight").asInt());
+		assertEquals(1, registry.findBackend(ADDED).getWeight());
+	}
+
+	@Test
+	void addExistingOrInvalidServerIsError() throws IOException {
+		long version = registry.getSnapshot().getVersion();
+
+		JsonNode duplicate = send(Map.of("action", "ADD_SERVER", "serverUrl", CONFIGURED));
+		assertEquals("ERROR", duplicate.get("status").asText());
+		assertEquals("Server " + CONFIGURED + " already exists", duplicate.get("message").asText());
+		assertEquals("ERROR", send(Map.of("action", "ADD_SERVER")).get("status").asText());
+		assertEquals(version, registry.getSnapshot().getVersion());
+	}
+
+	@Test
+	void removeServerPublishesSnapshotWithoutBackend() throws IOException {
+		long version = registry.getSnapshot().getVersion();
+
+		JsonNode response = send(Map.of("action", "REMOVE_SERVER", "serverUrl", CONFIGURED));
+
+		assertEquals("OK", response.get("status").asText());
+		assertFalse(response.has("weight"));
+		assertEquals(version + 1, response.get("version").asLong());
+		assertNull(registry.findBackend(CONFIGURED));
+
+		JsonNode missing = send(Map.of("action", "REMOVE_SERVER", "serverUrl", CONFIGURED));
+		assertEquals("ERROR", missing.get("status").asText());
+		assertEquals("Server " + CONFIGURED + " not found", missing.get("message").asText());
+		assertEquals(version + 1, registry.getSnapshot().getVersion());
+	}
+
+	@Test
+	void setWeightPublishesSnapshotAndRejectsInvalidWeight() throws IOException {
+		long version = registry.getSnapshot().getVersion();
+
+		JsonNode response = send(Map.of("action", "SET_WEIGHT", "serverUrl", CONFIGURED, "weight", 4));
+		assertEquals("OK", response.get("status").asText());
+		assertEquals(4, response.get("weight").asInt());
+		assertEquals(version + 1, response.get("version").asLong());
+		assertEquals(4, registry.findBackend(CONFIGURED).getWeight());
+
+		// Thiếu weight (0) hoặc backend không tồn tại: không publish
+		JsonNode noWeight = send(Map.of("action", "SET_WEIGHT", "serverUrl", CONFIGURED));
+		assertEquals("Weight must be >= 1", noWeight.get("message").asText());
+		JsonNode missing = send(Map.of("action", "SET_WEIGHT", "serverUrl", ADDED, "weight", 2));
+		assertEquals("Server " + ADDED + " not found", missing.get("message").asText());
+		assertEquals(version + 1, registry.getSnapshot().getVersion());
+		assertEquals(4, registry.findBackend(CONFIGURED).getWeight());
+	}
+
+	//===========================================Helper============================================
+	private static BackendProperties properties() {
+		BackendProperties.Server server = new BackendProperties.Server();
+		server.setHost("10.0.0.1");
+		server.setPort(8080);
+		BackendProperties properties = new BackendProperties();
+		properties.getServers().add(server);
+		return properties;
+	}
+
+	/**
+	 * Gửi một frame [4-byte big-endian length][JSON] và đọc frame response
+	 */
+	private JsonNode send(Map<String, Object> request) throws IOException {
+		byte[] payload = mapper.writeValueAsBytes(request);
+		out.writeInt(payload.length);
+		out.write(payload);
+		out.flush();
+
+		byte[] response = new byte[in.readInt()];
+		in.readFully(response);
+		return mapper.readTree(new String(response, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Accept loop bind port trên thread riêng, chờ đến khi có port
+	 */
+	private int awaitPort() throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			ServerSocketChannel channel = (ServerSocketChannel) ReflectionTestUtils.getField(server, "serverChannel");
+			if (channel != null && channel.getLocalAddress() instanceof InetSocketAddress address) {
+				return address.getPort();
+			}
+			Thread.sleep(5);
+		}
+		throw new AssertionError("TCP server did not bind");
+	}
+}